@@ -15,8 +15,23 @@ import net.minecraftforge.registries.DeferredRegister;
 import net.minecraftforge.registries.ForgeRegistries;
 import net.minecraftforge.event.TickEvent;
 import org.admany.lc2h.compat.C2MECompat;
+import org.admany.lc2h.concurrency.async.AdmissionController;
+import org.admany.lc2h.concurrency.async.PriorityInheritance;
+import org.admany.lc2h.concurrency.async.RetryWheel;
+import org.admany.lc2h.concurrency.async.SingleFlight;
+import org.admany.lc2h.concurrency.async.AsyncManager;
+import org.admany.lc2h.concurrency.async.DeadlineTaskQueue;
+import org.admany.lc2h.concurrency.async.RegionCancellation;
+import org.admany.lc2h.concurrency.async.TaskGraph;
+import org.admany.lc2h.concurrency.backend.NativeSchedulerBackend;
+import org.admany.lc2h.concurrency.backend.SchedulerBackend;
+import org.admany.lc2h.concurrency.backend.SchedulerBackends;
+import org.admany.lc2h.concurrency.backend.SchedulerBenchmark;
+import org.admany.lc2h.concurrency.parallel.AdaptiveBatchController;
+import org.admany.lc2h.concurrency.threading.LaneStealingExecutor;
 import org.admany.lc2h.world.cleanup.VineClusterCleaner;
 import org.admany.lc2h.worldgen.async.warmup.AsyncChunkWarmup;
+import org.admany.lc2h.worldgen.async.warmup.PredictivePrefetcher;
 
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -25,7 +40,9 @@ import org.admany.lc2h.dev.diagnostics.DiagnosticsReporter;
 import org.admany.lc2h.dev.diagnostics.StallDetector;
 import org.admany.lc2h.dev.diagnostics.AsyncIssueMonitor;
 import org.admany.lc2h.dev.diagnostics.ChunkGenTracker;
+import org.admany.lc2h.dev.diagnostics.ChunkTraceRecorder;
 import org.admany.lc2h.dev.diagnostics.Lc2hMonitorService;
+import org.admany.lc2h.dev.diagnostics.Lc2hTaskLatencyRegistry;
 import org.admany.lc2h.config.ConfigManager;
 import org.admany.lc2h.util.chunk.ChunkPostProcessor;
 import org.admany.lc2h.util.ResourceLocations;
@@ -39,8 +56,11 @@ import org.admany.lc2h.dev.debug.frustum.FrustumDebugManager;
 import org.admany.lc2h.dev.debug.frustum.FrustumDebugNetwork;
 import org.admany.lc2h.util.log.ChatMessenger;
 import org.admany.lc2h.worldgen.async.planner.AsyncMultiChunkPlanner;
+import org.admany.lc2h.worldgen.async.planner.ChunkPlanGraph;
 import org.admany.lc2h.worldgen.async.planner.PlannerBatchQueue;
 import org.admany.lc2h.worldgen.async.planner.PlannerTaskKind;
+import org.admany.lc2h.worldgen.async.snapshot.MultiChunkPlanStore;
+import org.admany.lc2h.worldgen.lostcities.ChunkRoleDiskTier;
 import org.admany.lc2h.worldgen.apply.MainThreadChunkApplier;
 import org.admany.lc2h.tweaks.TweaksActorSystem;
 import org.admany.lc2h.worldgen.gpu.GPUMemoryManager;
@@ -52,6 +72,7 @@ import org.admany.quantified.core.common.async.task.ModPriorityManager;
 import org.admany.quantified.core.common.util.TaskScheduler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import net.minecraftforge.fml.loading.FMLPaths;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.CommandSourceStack;
@@ -86,6 +107,7 @@ public class LC2H {
     private static final int WARMUP_PREFETCH_INTERVAL_TICKS =
         Math.max(1, Integer.getInteger("lc2h.warmup.prefetchIntervalTicks", 20));
     private static final AtomicLong LAST_WARMUP_PREFETCH_TICK = new AtomicLong(-1);
+    private static final int SCHEDULER_BENCH_TASKS = Math.max(64, Integer.getInteger("lc2h.bench.scheduler.tasks", 20_000));
     private static final long ASYNC_START_DELAY_TICKS = Math.max(0L,
         Long.getLong("lc2h.async.startDelayTicks", 200L));
     private static final java.util.concurrent.atomic.AtomicLong ASYNC_START_TICK = new java.util.concurrent.atomic.AtomicLong(-1L);
@@ -330,6 +352,24 @@ public class LC2H {
                             return 1;
                         })
                     )
+                ).then(
+                    Commands.literal("bench").then(
+                        Commands.literal("scheduler").executes(ctx -> {
+                            CommandSourceStack source = ctx.getSource();
+                            source.sendSuccess(() -> net.minecraft.network.chat.Component.translatable("lc2h.command.bench.scheduler.started"), false);
+                            Thread bench = new Thread(() -> {
+                                for (SchedulerBenchmark.Result result : SchedulerBenchmark.runAll(SCHEDULER_BENCH_TASKS)) {
+                                    String line = result.describe();
+                                    LOGGER.info("[LC2H] Scheduler bench: {}", line);
+                                    source.getServer().execute(() -> source.sendSuccess(
+                                        () -> net.minecraft.network.chat.Component.translatable("lc2h.command.bench.scheduler", line), false));
+                                }
+                            }, "LC2H-SchedulerBench");
+                            bench.setDaemon(true);
+                            bench.start();
+                            return 1;
+                        })
+                    )
                 ).then(
                     Commands.literal("rescanChunk").executes(ctx -> {
                         ServerPlayer player = ctx.getSource().getPlayerOrException();
@@ -373,6 +413,45 @@ public class LC2H {
                                 return 1;
                             })
                         )
+                ).then(
+                    Commands.literal("trace")
+                        .executes(ctx -> {
+                            String state = ChunkTraceRecorder.isEnabled() ? "on" : "off";
+                            ctx.getSource().sendSuccess(() -> net.minecraft.network.chat.Component.translatable("lc2h.command.trace.status",
+                                state, ChunkTraceRecorder.recordedSpans(), ChunkTraceRecorder.tracedChunks()), false);
+                            return 1;
+                        })
+                        .then(Commands.literal("start")
+                            .executes(ctx -> {
+                                ChunkTraceRecorder.start();
+                                ctx.getSource().sendSuccess(() -> net.minecraft.network.chat.Component.translatable("lc2h.command.trace.started",
+                                    ChunkTraceRecorder.sampleEvery()), false);
+                                return 1;
+                            })
+                        )
+                        .then(Commands.literal("stop")
+                            .executes(ctx -> {
+                                ChunkTraceRecorder.stop();
+                                CommandSourceStack source = ctx.getSource();
+                                Path dir = FMLPaths.GAMEDIR.get().resolve("lc2h").resolve("trace");
+                                Thread writer = new Thread(() -> {
+                                    try {
+                                        Path out = ChunkTraceRecorder.export(dir);
+                                        LOGGER.info("[LC2H] Chunk trace written to {}", out.toAbsolutePath());
+                                        source.getServer().execute(() -> source.sendSuccess(
+                                            () -> net.minecraft.network.chat.Component.translatable("lc2h.command.trace.written",
+                                                out.toAbsolutePath().toString(), ChunkTraceRecorder.recordedSpans()), false));
+                                    } catch (Exception e) {
+                                        LOGGER.warn("[LC2H] Failed to write chunk trace: {}", e.toString());
+                                        source.getServer().execute(() -> source.sendFailure(
+                                            net.minecraft.network.chat.Component.translatable("lc2h.command.trace.failed", e.toString())));
+                                    }
+                                }, "LC2H-TraceExport");
+                                writer.setDaemon(true);
+                                writer.start();
+                                return 1;
+                            })
+                        )
                 ).then(
                     Commands.literal("chunkinfo").executes(ctx -> {
                         ServerPlayer player = ctx.getSource().getPlayerOrException();
@@ -603,7 +682,10 @@ public class LC2H {
             ChunkPos pos = player.chunkPosition();
             ChunkCoord coord = new ChunkCoord(provider.getType(), pos.x, pos.z);
             AsyncChunkWarmup.startBackgroundPrefetch(provider, coord);
+            PredictivePrefetcher.observe(provider, player.getUUID(), player.getX(), player.getZ(), tick,
+                server.getPlayerList().getViewDistance());
         }
+        PredictivePrefetcher.retire(tick);
         AsyncChunkWarmup.kickFlushMaybe();
     }
 
@@ -805,12 +887,16 @@ public class LC2H {
             String.format(Locale.ROOT, "dropped=%d deduped=%d",
                 PlannerBatchQueue.getPressureDropCount(),
                 PlannerBatchQueue.getDuplicateDropCount())));
+        String plannerTilesBody = formatPlannerTiles();
+        lines.add(statLine("Planner tiles", plannerTilesBody));
         lines.add(statLine(net.minecraft.network.chat.Component.translatable("lc2h.command.stats.label.multichunk").getString(),
             net.minecraft.network.chat.Component.translatable("lc2h.command.stats.body.multichunk",
                 planned, gpuCache).getString()));
         lines.add(statLine(net.minecraft.network.chat.Component.translatable("lc2h.command.stats.label.warmup").getString(),
             net.minecraft.network.chat.Component.translatable("lc2h.command.stats.body.warmup",
                 warmupQueue, warmupActive, String.format(Locale.ROOT, "%.1f", warmupHitRate), warmupHits, warmupTotal).getString()));
+        String predictionBody = formatPrediction();
+        lines.add(statLine("Prediction", predictionBody));
         lines.add(statLine(net.minecraft.network.chat.Component.translatable("lc2h.command.stats.label.main_thread").getString(),
             net.minecraft.network.chat.Component.translatable("lc2h.command.stats.body.main_thread",
                 applyQueue, inflight, validated).getString()));
@@ -857,6 +943,60 @@ public class LC2H {
                     schedulerStats.cpuTasks(),
                     String.format(Locale.ROOT, "%.2f", schedulerStats.gpuUtilizationRatio())).getString()));
         }
+        DeadlineTaskQueue.Stats deadlines = AsyncManager.getDeadlineStats();
+        String deadlineBody = String.format(Locale.ROOT, "submitted=%d onTime=%d late=%d demoted=%d pending=%d/%d",
+            deadlines.submitted(), deadlines.ranOnTime(), deadlines.ranLate(), deadlines.demoted(),
+            deadlines.pendingLive(), deadlines.pendingMissed());
+        lines.add(statLine("Deadlines", deadlineBody));
+        LaneStealingExecutor.Stats fallback = AsyncManager.getFallbackExecutorStats();
+        String fallbackBody = String.format(Locale.ROOT, "workers=%d fg=%d/%d bg=%d/%d steals fg=%d bg=%d",
+            fallback.workers(),
+            fallback.foregroundPending(), fallback.foregroundSubmitted(),
+            fallback.backgroundPending(), fallback.backgroundSubmitted(),
+            fallback.foregroundSteals(), fallback.backgroundSteals());
+        lines.add(statLine("Fallback exec", fallbackBody));
+        LaneStealingExecutor.Stats affinity = AsyncManager.getAffinityExecutorStats();
+        String affinityBody = AsyncManager.affinityActive()
+            ? String.format(Locale.ROOT, "home=%d stolen=%d hit=%.1f%%",
+                affinity.affinityHomeRuns(), affinity.affinityStolenRuns(), affinity.affinityHitRate() * 100.0D)
+            : "off";
+        lines.add(statLine("Affinity", affinityBody));
+        RegionCancellation.Stats cancellation = RegionCancellation.stats();
+        String cancellationBody = String.format(Locale.ROOT, "total=%d async=%d planner=%d warmup=%d regions tracked=%d revoked=%d",
+            cancellation.totalCancelled(), cancellation.asyncCancelled(), cancellation.plannerCancelled(),
+            cancellation.warmupCancelled(), cancellation.trackedRegions(), cancellation.regionsRevoked());
+        lines.add(statLine("Cancelled", cancellationBody));
+        String batchTunerBody = formatBatchTuner();
+        lines.add(statLine("Batch tuner", batchTunerBody));
+        TaskGraph.Stats planGraph = ChunkPlanGraph.stats();
+        String planGraphBody = ChunkPlanGraph.isEnabled()
+            ? String.format(Locale.ROOT, "waiting=%d running=%d created=%d joined=%d promoted=%d done=%d failed=%d multichunkWaits=%d",
+                planGraph.waiting(), planGraph.running(), planGraph.created(), planGraph.joined(), planGraph.promoted(),
+                planGraph.completed(), planGraph.failed(),
+                org.admany.lc2h.worldgen.async.planner.AsyncBuildingInfoPlanner.getMultiChunkWaitCount())
+            : "disabled";
+        lines.add(statLine("Plan graph", planGraphBody));
+        String schedulerBody = formatSchedulerBackend();
+        lines.add(statLine("Scheduler", schedulerBody));
+        String admissionBody = formatAdmission();
+        lines.add(statLine("Admission", admissionBody));
+        String inversionBody = formatInversions();
+        lines.add(statLine("Inversions", inversionBody));
+        String coalescingBody = formatCoalescing();
+        lines.add(statLine("Coalescing", coalescingBody));
+        String retriesBody = formatRetries();
+        lines.add(statLine("Retries", retriesBody));
+        String applyBudgetBody = formatApplyBudget();
+        lines.add(statLine("Apply budget", applyBudgetBody));
+        String planStoreBody = formatPlanStore();
+        lines.add(statLine("Plan store", planStoreBody));
+        String roleTierBody = formatRoleTier();
+        lines.add(statLine("Role tier", roleTierBody));
+        List<Lc2hTaskLatencyRegistry.TaskLatencySummary> taskLatency =
+            Lc2hTaskLatencyRegistry.summarize(Lc2hTaskLatencyRegistry.snapshot(), null, 12);
+        for (int i = 0; i < taskLatency.size() && i < 4; i++) {
+            lines.add(statLine(i == 0 ? "Task latency" : "", formatTaskLatency(taskLatency.get(i))));
+        }
         sendBoxedStats(source, net.minecraft.network.chat.Component.translatable("lc2h.command.stats.title").getString(), lines);
 
         StringBuilder log = new StringBuilder();
@@ -869,12 +1009,14 @@ public class LC2H {
                 String.format(Locale.ROOT, "dropped=%d deduped=%d",
                     PlannerBatchQueue.getPressureDropCount(),
                     PlannerBatchQueue.getDuplicateDropCount()))).append('\n')
+            .append(statLine("PlannerTiles", plannerTilesBody)).append('\n')
             .append(statLine("MultiChunk",
                 String.format(Locale.ROOT, "planned=%d gpuCache=%d",
                     planned, gpuCache))).append('\n')
             .append(statLine("Warmup",
                 String.format(Locale.ROOT, "regionQueue=%d activeBatches=%d hitRate=%.1f%% (%d/%d)",
                     warmupQueue, warmupActive, warmupHitRate, warmupHits, warmupTotal))).append('\n')
+            .append(statLine("Prediction", predictionBody)).append('\n')
             .append(statLine("MainThread",
                 String.format(Locale.ROOT, "queue=%d | Tweaks inflight=%d validated=%d",
                     applyQueue, inflight, validated))).append('\n')
@@ -912,10 +1054,182 @@ public class LC2H {
                 String.format(Locale.ROOT, "total=%d gpu=%d cpu=%d gpuRatio=%.2f",
                     schedulerStats.totalTasks(), schedulerStats.gpuTasks(), schedulerStats.cpuTasks(), schedulerStats.gpuUtilizationRatio()))).append('\n');
         }
+        log.append(statLine("Deadlines", deadlineBody)).append('\n');
+        log.append(statLine("FallbackExec", fallbackBody)).append('\n');
+        log.append(statLine("Affinity", affinityBody)).append('\n');
+        log.append(statLine("Cancelled", cancellationBody)).append('\n');
+        log.append(statLine("BatchTuner", batchTunerBody)).append('\n');
+        log.append(statLine("PlanGraph", planGraphBody)).append('\n');
+        log.append(statLine("Scheduler", schedulerBody)).append('\n');
+        log.append(statLine("Admission", admissionBody)).append('\n');
+        log.append(statLine("Inversions", inversionBody)).append('\n');
+        log.append(statLine("Coalescing", coalescingBody)).append('\n');
+        log.append(statLine("Retries", retriesBody)).append('\n');
+        log.append(statLine("ApplyBudget", applyBudgetBody)).append('\n');
+        log.append(statLine("PlanStore", planStoreBody)).append('\n');
+        log.append(statLine("RoleTier", roleTierBody)).append('\n');
+        for (Lc2hTaskLatencyRegistry.TaskLatencySummary latency : taskLatency) {
+            log.append(statLine("TaskLatency", formatTaskLatency(latency))).append('\n');
+        }
         LOGGER.info(log.toString());
         return 1;
     }
 
+    private static String formatBatchTuner() {
+        if (!AdaptiveBatchController.isTunerEnabled()) {
+            return "disabled";
+        }
+        StringBuilder body = new StringBuilder();
+        for (AdaptiveBatchController.OperatingPoint point : AdaptiveBatchController.operatingPoints()) {
+            if (body.length() > 0) {
+                body.append(" | ");
+            }
+            body.append(String.format(Locale.ROOT, "%s size=%d %s %.0f/s p99=%.0fms epochs=%d",
+                point.name(), point.size(), point.direction() > 0 ? "up" : "down",
+                point.itemsPerSec(), point.p99Ms(), point.epochs()));
+        }
+        return body.toString();
+    }
+
+    private static String formatSchedulerBackend() {
+        SchedulerBackend backend = SchedulerBackends.current();
+        SchedulerBackend.Load load = backend.load();
+        String body = String.format(Locale.ROOT, "%s active=%d/%d submitted=%d dispatched=%d",
+            backend.name(), load.activeSlices(), load.queueLimit(), load.submitted(), load.dispatched());
+        if (backend instanceof NativeSchedulerBackend nativeBackend) {
+            NativeSchedulerBackend.CacheStats cache = nativeBackend.cacheStats();
+            LaneStealingExecutor.Stats pool = nativeBackend.executorStats();
+            body += String.format(Locale.ROOT, " workers=%d fg=%d bg=%d cache mem=%d disk=%d miss=%d",
+                pool.workers(), pool.foregroundPending(), pool.backgroundPending(),
+                cache.memoryHits(), cache.diskHits(), cache.misses());
+        }
+        return body;
+    }
+
+    private static String formatAdmission() {
+        AdmissionController.Stats admission = AdmissionController.stats();
+        StringBuilder body = new StringBuilder(String.format(Locale.ROOT, "budget=%d pressure=%.2f",
+            admission.budget(), admission.pressure()));
+        for (AdmissionController.ClassStats cls : admission.classes()) {
+            body.append(String.format(Locale.ROOT, " | %s %d/%d ok=%d shed=%d",
+                cls.workClass().name().toLowerCase(Locale.ROOT), cls.inUse(), cls.share(), cls.admitted(), cls.rejected()));
+        }
+        return body.toString();
+    }
+
+    private static String formatInversions() {
+        PriorityInheritance.Stats inversions = PriorityInheritance.stats();
+        StringBuilder body = new StringBuilder(String.format(Locale.ROOT, "inlined=%d boosted=%d waited=%d avgWait=%s",
+            inversions.inlined(), inversions.boosted(), inversions.waited(),
+            formatNanos(inversions.waited() > 0L ? inversions.waitNanos() / inversions.waited() : 0L)));
+        for (int i = 0; i < inversions.sites().size() && i < 4; i++) {
+            PriorityInheritance.SiteCount site = inversions.sites().get(i);
+            body.append(i == 0 ? " | " : " ").append(site.site()).append('=').append(site.count());
+        }
+        return body.toString();
+    }
+
+    private static String formatCoalescing() {
+        StringBuilder body = new StringBuilder();
+        for (SingleFlight.Stats flight : SingleFlight.stats()) {
+            if (body.length() > 0) {
+                body.append(" | ");
+            }
+            body.append(String.format(Locale.ROOT, "%s hit=%d shared=%d miss=%d neg=%d fail=%d held=%d",
+                flight.name(), flight.hits(), flight.coalesced(), flight.misses(), flight.negative(), flight.failures(), flight.size()));
+            if (flight.inFlight() >= 0) {
+                body.append(" inflight=").append(flight.inFlight());
+            }
+        }
+        return body.length() == 0 ? "none" : body.toString();
+    }
+
+    private static String formatRetries() {
+        StringBuilder body = new StringBuilder("timers=").append(RetryWheel.pendingTimers());
+        for (RetryWheel.Stats site : RetryWheel.stats()) {
+            body.append(" | ").append(String.format(Locale.ROOT, "%s scheduled=%d merged=%d postponed=%d fired=%d expired=%d tracked=%d",
+                site.name(), site.scheduled(), site.coalesced(), site.postponed(), site.fired(), site.expired(), site.tracked()));
+        }
+        return body.toString();
+    }
+
+    private static String formatApplyBudget() {
+        MainThreadChunkApplier.BudgetStats budget = MainThreadChunkApplier.budgetStats();
+        StringBuilder body = new StringBuilder(String.format(Locale.ROOT, "used=%.0f%% overshoots=%d (+%s avg) passedOver=%d rebuckets=%d",
+            budget.offeredNs() > 0L ? budget.usedNs() * 100.0D / budget.offeredNs() : 0.0D,
+            budget.overshoots(),
+            formatNanos(budget.overshoots() > 0L ? budget.overshootNs() / budget.overshoots() : 0L),
+            budget.passedOver(),
+            budget.queueRebuckets()));
+        for (int i = 0; i < budget.costs().size() && i < 5; i++) {
+            var cost = budget.costs().get(i);
+            body.append(i == 0 ? " | " : " ").append(cost.kind()).append('=').append(formatNanos(cost.meanNs()))
+                .append(" sd=").append(formatNanos(cost.stddevNs()));
+        }
+        return body.toString();
+    }
+
+    private static String formatPrediction() {
+        PredictivePrefetcher.Stats prediction = PredictivePrefetcher.stats();
+        return String.format(Locale.ROOT, "issued=%d hits=%d misses=%d accuracy=%.1f%% cancelled=%d turns=%d pending=%d tracks=%d",
+            prediction.issued(), prediction.hits(), prediction.misses(), prediction.accuracy() * 100.0D,
+            prediction.cancelled(), prediction.turns(), prediction.pending(), prediction.tracks());
+    }
+
+    private static String formatPlannerTiles() {
+        PlannerBatchQueue.TileStats tiles = PlannerBatchQueue.tileStats();
+        return String.format(Locale.ROOT, "tiles=%d tasks/tile=%.1f avg=%s throughput=%.1f tasks/ms",
+            tiles.tiles(),
+            tiles.tiles() > 0L ? (double) tiles.tasks() / tiles.tiles() : 0.0D,
+            formatNanos(tiles.tiles() > 0L ? tiles.nanos() / tiles.tiles() : 0L),
+            tiles.nanos() > 0L ? tiles.tasks() * 1_000_000.0D / tiles.nanos() : 0.0D);
+    }
+
+    private static String formatPlanStore() {
+        if (!MultiChunkPlanStore.enabled()) {
+            return "disabled";
+        }
+        MultiChunkPlanStore.Stats store = MultiChunkPlanStore.stats();
+        long lookups = store.hits() + store.misses();
+        return String.format(Locale.ROOT, "hits=%d misses=%d (%.1f%%) writes=%d regions=%d dirty=%d reads=%d flushed=%d compacted=%d disk=%s/%s evicted=%d",
+            store.hits(), store.misses(), lookups > 0L ? store.hits() * 100.0D / lookups : 0.0D,
+            store.writes(), store.regions(), store.dirtyRegions(), store.regionReads(), store.regionWrites(),
+            store.compactions(), formatBytes(store.diskBytes()), formatBytes(store.diskCapBytes()), store.evictedFiles());
+    }
+
+    private static String formatRoleTier() {
+        if (!ChunkRoleDiskTier.enabled()) {
+            return "disabled";
+        }
+        ChunkRoleDiskTier.Stats tier = ChunkRoleDiskTier.stats();
+        long lookups = tier.hits() + tier.misses();
+        return String.format(Locale.ROOT, "hits=%d misses=%d (%.1f%%) writes=%d regions=%d failed=%d",
+            tier.hits(), tier.misses(), lookups > 0L ? tier.hits() * 100.0D / lookups : 0.0D, tier.writes(), tier.regions(),
+            tier.failedRegions());
+    }
+
+    private static String formatTaskLatency(Lc2hTaskLatencyRegistry.TaskLatencySummary latency) {
+        return String.format(Locale.ROOT, "%s n=%d queue p50/p99/p999=%s/%s/%s run p50/p99/p999=%s/%s/%s",
+            latency.task(),
+            latency.count(),
+            formatNanos(latency.queueP50Ns()),
+            formatNanos(latency.queueP99Ns()),
+            formatNanos(latency.queueP999Ns()),
+            formatNanos(latency.runP50Ns()),
+            formatNanos(latency.runP99Ns()),
+            formatNanos(latency.runP999Ns()));
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000L) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000L) {
+            return String.format(Locale.ROOT, "%.0fus", nanos / 1_000.0);
+        }
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+    }
+
     private static String formatPlannerKinds(Map<PlannerTaskKind, Integer> byKind) {
         if (byKind == null || byKind.isEmpty()) {
             return "none";
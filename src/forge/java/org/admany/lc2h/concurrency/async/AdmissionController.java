@@ -0,0 +1,228 @@
+package org.admany.lc2h.concurrency.async;
+
+import org.admany.lc2h.util.server.ServerTickLoad;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntSupplier;
+
+// One work budget for every LC2H background producer, counted in outstanding work items: registered queue lengths
+// plus held permits. Each class gets a share of the budget that follows server pressure: as the server slows, the
+// global budget shrinks and the low classes give up their share first, so producers taper off one class at a time
+// instead of all pausing and resuming on the same tick. This sits behind the hard lag guards, not in place of them.
+public final class AdmissionController {
+
+    public enum WorkClass {
+        PLAYER_CRITICAL(0.40D, 0.0D),
+        PREFETCH(0.35D, 0.70D),
+        CLEANUP(0.18D, 0.85D),
+        DIAGNOSTICS(0.07D, 1.0D);
+
+        private final double weight;
+        private final double shedAtFullPressure;
+
+        WorkClass(double weight, double shedAtFullPressure) {
+            this.weight = weight;
+            this.shedAtFullPressure = shedAtFullPressure;
+        }
+    }
+
+    private static final WorkClass[] CLASSES = WorkClass.values();
+    private static final int TOTAL_BUDGET = Math.max(256, Integer.getInteger("lc2h.admission.budget", 8192));
+    private static final double RELAXED_MSPT = Math.max(1.0D, readDouble("lc2h.admission.relaxed_mspt", 30.0D));
+    private static final double SATURATED_MSPT = Math.max(RELAXED_MSPT + 1.0D, readDouble("lc2h.admission.saturated_mspt", 50.0D));
+    private static final double MIN_BUDGET_FRACTION = Math.min(1.0D, Math.max(0.05D, readDouble("lc2h.admission.min_budget_fraction", 0.35D)));
+    private static final long REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(Math.max(5L, Long.getLong("lc2h.admission.refresh_ms", 50L)));
+
+    private static final AtomicIntegerArray PERMITS = new AtomicIntegerArray(CLASSES.length);
+    private static final AtomicLongArray ADMITTED = new AtomicLongArray(CLASSES.length);
+    private static final AtomicLongArray REJECTED = new AtomicLongArray(CLASSES.length);
+    private static final Map<WorkClass, List<Gauge>> GAUGES = new EnumMap<>(WorkClass.class);
+    private static final AtomicBoolean REFRESHING = new AtomicBoolean(false);
+
+    private static volatile int[] gaugeUsage = new int[CLASSES.length];
+    private static volatile double pressure = 0.0D;
+    private static volatile long lastRefreshNanos = 0L;
+
+    static {
+        for (WorkClass workClass : CLASSES) {
+            GAUGES.put(workClass, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    private record Gauge(String name, IntSupplier usage) {
+    }
+
+    private AdmissionController() {
+    }
+
+    // For producers that already count their own queue: the queue length is read on every refresh and counts
+    // against the class share, so admit() only has to decide about the next item.
+    public static void registerGauge(WorkClass workClass, String name, IntSupplier usage) {
+        if (workClass != null && usage != null) {
+            GAUGES.get(workClass).add(new Gauge(name, usage));
+        }
+    }
+
+    // For work that lands in a gauged queue or finishes inline: nothing is held, the item shows up in the gauge.
+    public static boolean admit(WorkClass workClass) {
+        refreshIfDue();
+        int idx = workClass.ordinal();
+        if (!hasRoom(idx, 1, currentPressure())) {
+            REJECTED.incrementAndGet(idx);
+            return false;
+        }
+        ADMITTED.incrementAndGet(idx);
+        return true;
+    }
+
+    // For producers without a queue of their own; every successful acquire must be paired with a release.
+    public static boolean tryAcquire(WorkClass workClass) {
+        return tryAcquire(workClass, 1);
+    }
+
+    public static boolean tryAcquire(WorkClass workClass, int permits) {
+        refreshIfDue();
+        int idx = workClass.ordinal();
+        int n = Math.max(1, permits);
+        if (!hasRoom(idx, n, currentPressure())) {
+            REJECTED.incrementAndGet(idx);
+            return false;
+        }
+        PERMITS.addAndGet(idx, n);
+        ADMITTED.addAndGet(idx, n);
+        return true;
+    }
+
+    public static void release(WorkClass workClass) {
+        release(workClass, 1);
+    }
+
+    public static void release(WorkClass workClass, int permits) {
+        int idx = workClass.ordinal();
+        if (PERMITS.addAndGet(idx, -Math.max(1, permits)) < 0) {
+            PERMITS.set(idx, 0);
+        }
+    }
+
+    public static boolean hasHeadroom(WorkClass workClass) {
+        refreshIfDue();
+        return hasRoom(workClass.ordinal(), 1, currentPressure());
+    }
+
+    public static int share(WorkClass workClass) {
+        refreshIfDue();
+        double p = currentPressure();
+        return share(workClass, budget(p), p);
+    }
+
+    public static double pressure() {
+        refreshIfDue();
+        return currentPressure();
+    }
+
+    // A class may run past its own share only into budget nobody else is using, and that slack disappears as
+    // pressure rises. Player-critical work always keeps its own share, whatever the others do.
+    private static boolean hasRoom(int idx, int n, double p) {
+        int total = budget(p);
+        if (usage(idx) + n <= share(CLASSES[idx], total, p)) {
+            return true;
+        }
+        if (CLASSES[idx] == WorkClass.DIAGNOSTICS) {
+            return false;
+        }
+        int used = 0;
+        for (int i = 0; i < CLASSES.length; i++) {
+            used += usage(i);
+        }
+        return used + n <= (int) (total * (1.0D - p));
+    }
+
+    private static int budget(double p) {
+        return (int) Math.round(TOTAL_BUDGET * (1.0D - (1.0D - MIN_BUDGET_FRACTION) * p));
+    }
+
+    private static int share(WorkClass workClass, int total, double p) {
+        return (int) Math.round(total * workClass.weight * Math.max(0.0D, 1.0D - workClass.shedAtFullPressure * p));
+    }
+
+    private static int usage(int idx) {
+        return gaugeUsage[idx] + PERMITS.get(idx);
+    }
+
+    // The refreshed MSPT pressure, raised right away by a tick that is already running long, so a spike shows up
+    // at once instead of after the MSPT average catches up.
+    private static double currentPressure() {
+        return Math.max(pressure, pressureFor(ServerTickLoad.getRunningTickMs()));
+    }
+
+    private static double pressureFor(double ms) {
+        return ms <= 0.0D ? 0.0D
+            : Math.min(1.0D, Math.max(0.0D, (ms - RELAXED_MSPT) / (SATURATED_MSPT - RELAXED_MSPT)));
+    }
+
+    private static void refreshIfDue() {
+        long now = System.nanoTime();
+        if (now - lastRefreshNanos < REFRESH_NANOS || !REFRESHING.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastRefreshNanos = now;
+            // The tick time is already an EWMA; the last tick is taken as well so one long tick is not averaged away.
+            pressure = Math.max(pressureFor(ServerTickLoad.getSmoothedTickMs()), pressureFor(ServerTickLoad.getLastTickMs()));
+
+            int[] nextUsage = new int[CLASSES.length];
+            for (WorkClass workClass : CLASSES) {
+                int idx = workClass.ordinal();
+                int used = 0;
+                for (Gauge gauge : GAUGES.get(workClass)) {
+                    try {
+                        used += Math.max(0, gauge.usage().getAsInt());
+                    } catch (Throwable ignored) {
+                    }
+                }
+                nextUsage[idx] = used;
+            }
+            gaugeUsage = nextUsage;
+        } finally {
+            REFRESHING.set(false);
+        }
+    }
+
+    public static Stats stats() {
+        refreshIfDue();
+        double p = currentPressure();
+        int total = budget(p);
+        List<ClassStats> classes = new ArrayList<>(CLASSES.length);
+        for (WorkClass workClass : CLASSES) {
+            int idx = workClass.ordinal();
+            classes.add(new ClassStats(workClass, usage(idx), share(workClass, total, p), ADMITTED.get(idx), REJECTED.get(idx)));
+        }
+        return new Stats(total, p, classes);
+    }
+
+    public record ClassStats(WorkClass workClass, int inUse, int share, long admitted, long rejected) {
+    }
+
+    public record Stats(int budget, double pressure, List<ClassStats> classes) {
+    }
+
+    private static double readDouble(String key, double fallback) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException ignored) {
+            return fallback;
+        }
+    }
+}
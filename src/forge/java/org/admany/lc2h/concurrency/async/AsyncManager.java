@@ -7,36 +7,39 @@ import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.fml.loading.FMLEnvironment;
 import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.backend.NativeSchedulerBackend;
+import org.admany.lc2h.concurrency.backend.SchedulerBackend;
+import org.admany.lc2h.concurrency.backend.SchedulerBackends;
+import org.admany.lc2h.concurrency.parallel.ParallelSliceResult;
+import org.admany.lc2h.concurrency.threading.LaneStealingExecutor;
 import org.admany.lc2h.util.server.ServerTickLoad;
 import org.admany.lc2h.dev.diagnostics.AsyncIssueMonitor;
+import org.admany.lc2h.dev.diagnostics.ChunkTraceRecorder;
+import org.admany.lc2h.dev.diagnostics.Lc2hTaskLatencyRegistry;
 import org.admany.lc2h.worldgen.async.planner.AsyncBuildingInfoPlanner;
-import org.admany.lc2h.worldgen.async.planner.AsyncMultiChunkPlanner;
-import org.admany.quantified.api.QuantifiedAPI;
-import org.admany.quantified.api.model.QuantifiedTask;
 import net.minecraftforge.server.ServerLifecycleHooks;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Queue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.ArrayList;
 import java.util.Comparator;
 
 @Mod.EventBusSubscriber(modid = LC2H.MODID)
 public class AsyncManager {
 
-    private static final Queue<MainThreadTask> mainThreadQueue = new ConcurrentLinkedQueue<>();
-    private static final AtomicInteger mainThreadQueueSize = new AtomicInteger(0);
     private static final AtomicLong mainThreadQueueOldestMs = new AtomicLong(0L);
     private static volatile MinecraftServer serverRef;
     private static boolean initialized = true;
@@ -44,16 +47,29 @@ public class AsyncManager {
     private static final boolean quantifiedAvailable;
     private static final int MAIN_QUEUE_SOFT_LIMIT = Math.max(256, Integer.getInteger("lc2h.mainqueue.soft_limit", 4096));
     private static final int MAIN_QUEUE_HARD_LIMIT = Math.max(MAIN_QUEUE_SOFT_LIMIT, Integer.getInteger("lc2h.mainqueue.hard_limit", 16384));
-    private static final long MAIN_QUEUE_DROP_AGE_MS = Math.max(1_000L, Long.getLong("lc2h.mainqueue.drop_age_ms", 20_000L));
+    private static final int MAIN_QUEUE_PRODUCER_QUOTA = Math.max(64, Integer.getInteger("lc2h.mainqueue.producer_quota", 2048));
+    private static final int MAIN_QUEUE_MAX_PRODUCERS = Math.max(4, Integer.getInteger("lc2h.mainqueue.max_producers", 64));
     private static final long MAIN_QUEUE_DROP_LOG_INTERVAL_MS = Math.max(1_000L, Long.getLong("lc2h.mainqueue.drop_log_interval_ms", 5_000L));
-    private static final AtomicLong MAIN_QUEUE_DROPPED = new AtomicLong(0L);
+    private static final AtomicLong MAIN_QUEUE_REJECTED = new AtomicLong(0L);
     private static final AtomicLong MAIN_QUEUE_LAST_DROP_LOG_MS = new AtomicLong(0L);
-    private static final ConcurrentHashMap<String, AtomicLong> MAIN_QUEUE_PRODUCERS = new ConcurrentHashMap<>();
+    private static final ProducerFairQueue<MainThreadTask> mainThreadQueue =
+        new ProducerFairQueue<>(MAIN_QUEUE_PRODUCER_QUOTA, MAIN_QUEUE_MAX_PRODUCERS, MAIN_QUEUE_HARD_LIMIT);
+    private static final StackWalker CALLER_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
 
-    private static final ExecutorService FALLBACK_EXECUTOR = Executors.newFixedThreadPool(
-        Math.max(2, Integer.getInteger("lc2h.async.fallbackThreads", Math.max(2, Runtime.getRuntime().availableProcessors() / 2))),
-        newNamedDaemonFactory("LC2H-Async")
-    );
+    // Started on first use: with a scheduler backend available the fallback pool may never be needed.
+    private static volatile LaneStealingExecutor fallbackExecutor;
+
+    private static final boolean EDF_ENABLED = Boolean.parseBoolean(System.getProperty("lc2h.async.edf", "true"));
+    private static final long EDF_FOREGROUND_DEADLINE_MS = Math.max(1L, Long.getLong("lc2h.async.edf.foreground_deadline_ms", 250L));
+    private static final long EDF_BACKGROUND_DEADLINE_MS = Math.max(EDF_FOREGROUND_DEADLINE_MS, Long.getLong("lc2h.async.edf.background_deadline_ms", 5_000L));
+    private static final long EDF_FOREGROUND_HORIZON_MS = Math.max(EDF_FOREGROUND_DEADLINE_MS, Long.getLong("lc2h.async.edf.foreground_horizon_ms", 500L));
+    private static final DeadlineTaskQueue DEADLINE_QUEUE = new DeadlineTaskQueue();
+
+    private static final String AFFINITY_MODE = System.getProperty("lc2h.async.affinity", "auto").trim().toLowerCase(Locale.ROOT);
+
+    private static final int BATCH_MAX_UNITS = Math.max(1, Integer.getInteger("lc2h.async.batch.maxUnits",
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1)));
+    private static final int BATCH_MIN_PER_UNIT = Math.max(1, Integer.getInteger("lc2h.async.batch.minPerUnit", 4));
 
     private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
         newNamedDaemonFactory("LC2H-Timer")
@@ -63,7 +79,7 @@ public class AsyncManager {
         boolean available = false;
         try {
             available = true;
-            LC2H.LOGGER.info("AsyncManager using Quantified API scheduler");
+            LC2H.LOGGER.info("AsyncManager using {} scheduler backend", SchedulerBackends.current().name());
         } catch (Throwable t) {
             LC2H.LOGGER.warn("AsyncManager could not initialize Quantified API integration; falling back to LC2H executor: {}", t.toString());
             LC2H.LOGGER.debug("Quantified init error", t);
@@ -101,9 +117,165 @@ public class AsyncManager {
         return submitCallable(taskName, supplier, priority, gpuPreferred);
     }
 
-    private static <T> CompletableFuture<T> submitCallable(String taskName, Supplier<T> supplier, Priority priority, boolean gpuPreferred) {
-        LC2H.LOGGER.debug("Submitting async task '{}' priority={} gpuPreferred={}", taskName, priority, gpuPreferred);
+    public static <T> CompletableFuture<T> submitSupplier(String taskName, Supplier<T> supplier, Priority priority, CancellationToken cancel) {
+        if (cancel == null || cancel == CancellationToken.NONE) {
+            return submitCallable(taskName, supplier, priority, false);
+        }
+        if (cancel.isCancelled()) {
+            RegionCancellation.recordCancelled(RegionCancellation.Site.ASYNC);
+            return CompletableFuture.failedFuture(new CancellationException(taskName));
+        }
+        return submitCallable(taskName, withCancellation(taskName, supplier, cancel), priority, false);
+    }
+
+    public static long deadlineFor(Priority priority) {
+        return priority == Priority.HIGH ? EDF_FOREGROUND_DEADLINE_MS : EDF_BACKGROUND_DEADLINE_MS;
+    }
 
+    public static <T> CompletableFuture<T> submitWithDeadline(String taskName, Supplier<T> supplier, Priority priority, long deadlineMs,
+                                                              CancellationToken cancel) {
+        if (cancel == null || cancel == CancellationToken.NONE) {
+            return submitWithDeadline(taskName, supplier, priority, deadlineMs);
+        }
+        if (cancel.isCancelled()) {
+            RegionCancellation.recordCancelled(RegionCancellation.Site.ASYNC);
+            return CompletableFuture.failedFuture(new CancellationException(taskName));
+        }
+        return submitWithDeadline(taskName, withCancellation(taskName, supplier, cancel), priority, deadlineMs);
+    }
+
+    // The token is checked once more when the task is picked up, since that is where queued work goes stale.
+    private static <T> Supplier<T> withCancellation(String taskName, Supplier<T> supplier, CancellationToken cancel) {
+        return () -> {
+            if (cancel.isCancelled()) {
+                RegionCancellation.recordCancelled(RegionCancellation.Site.ASYNC);
+                throw new CancellationException(taskName);
+            }
+            return supplier.get();
+        };
+    }
+
+    public static <T> CompletableFuture<T> submitWithDeadline(String taskName, Supplier<T> supplier, Priority priority, long deadlineMs) {
+        if (!EDF_ENABLED) {
+            return submitCallable(taskName, supplier, priority, false);
+        }
+        LC2H.LOGGER.debug("Submitting async task '{}' priority={} deadlineMs={}", taskName, priority, deadlineMs);
+        if (!isAsyncReady()) {
+            return runInline(supplier);
+        }
+
+        Supplier<T> timed = withLatencyTracking(taskName, supplier);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, deadlineMs));
+        Priority lane = priority == Priority.HIGH || deadlineMs <= EDF_FOREGROUND_HORIZON_MS ? Priority.HIGH : Priority.LOW;
+        DEADLINE_QUEUE.offer(deadlineNanos, lane == Priority.HIGH, () -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(timed.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        dispatchDeadlineSlot(lane);
+        return AsyncIssueMonitor.track(taskName, wrapTaskFuture(taskName, future));
+    }
+
+    // Affinity mode pins tasks that share a key (e.g. one multichunk area) to one worker. "auto" turns it on when the
+    // backend owns its workers; "true" also routes keyed tasks to the LC2H pool when the backend cannot pin them.
+    public static <T> CompletableFuture<T> submitWithAffinity(String taskName, Supplier<T> supplier, Priority priority, long affinityKey) {
+        if (!affinityActive()) {
+            return submitCallable(taskName, supplier, priority, false);
+        }
+        if (!isAsyncReady()) {
+            return runInline(supplier);
+        }
+        Supplier<T> timed = withLatencyTracking(taskName, supplier);
+        SchedulerBackend backend = SchedulerBackends.current();
+        if (backendAvailable() && backend.supportsAffinity()) {
+            try {
+                CompletableFuture<T> future = backend.submit(taskName, quantifiedBatchKey(taskName, priority), timed,
+                    priority == Priority.HIGH, affinityKey);
+                return AsyncIssueMonitor.track(taskName, wrapTaskFuture(taskName, future));
+            } catch (Throwable t) {
+                LC2H.LOGGER.error("Scheduler backend {} submit failed for task '{}': {}", backend.name(), taskName, t.toString());
+                LC2H.LOGGER.debug("Scheduler submit error", t);
+            }
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        fallbackExecutor().execute(() -> {
+            try {
+                future.complete(timed.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, priority == Priority.HIGH, affinityKey);
+        return AsyncIssueMonitor.track(taskName, wrapTaskFuture(taskName, future));
+    }
+
+    public static boolean affinityActive() {
+        return switch (AFFINITY_MODE) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> SchedulerBackends.current().supportsAffinity();
+        };
+    }
+
+    public static LaneStealingExecutor.Stats getAffinityExecutorStats() {
+        SchedulerBackend backend = SchedulerBackends.current();
+        if (backend instanceof NativeSchedulerBackend nativeBackend) {
+            return nativeBackend.executorStats();
+        }
+        return getFallbackExecutorStats();
+    }
+
+    // Each deadline task gets exactly one dispatch slot; whichever slot runs first takes the earliest deadline.
+    private static void dispatchDeadlineSlot(Priority lane) {
+        if (backendAvailable()) {
+            SchedulerBackend backend = SchedulerBackends.current();
+            try {
+                backend.submit("edf-dispatch", quantifiedBatchKey("edf-dispatch", lane), DEADLINE_QUEUE::runNext, lane == Priority.HIGH);
+                return;
+            } catch (Throwable t) {
+                LC2H.LOGGER.error("Scheduler backend {} submit failed for deadline dispatch: {}", backend.name(), t.toString());
+                LC2H.LOGGER.debug("Scheduler submit error", t);
+            }
+        }
+        fallbackExecutor().execute(DEADLINE_QUEUE::runNext, lane == Priority.HIGH);
+    }
+
+    private static boolean backendAvailable() {
+        return !quantifiedBypass && (quantifiedAvailable || SchedulerBackends.isNative());
+    }
+
+    public static LaneStealingExecutor.Stats getFallbackExecutorStats() {
+        LaneStealingExecutor executor = fallbackExecutor;
+        return executor != null ? executor.stats() : new LaneStealingExecutor.Stats(0, 0, 0, 0L, 0L, 0L, 0L, 0L, 0L);
+    }
+
+    private static LaneStealingExecutor fallbackExecutor() {
+        LaneStealingExecutor executor = fallbackExecutor;
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (AsyncManager.class) {
+            if (fallbackExecutor == null) {
+                fallbackExecutor = new LaneStealingExecutor(
+                    "LC2H-Async",
+                    Math.max(2, Integer.getInteger("lc2h.async.fallbackThreads", Math.max(2, Runtime.getRuntime().availableProcessors() / 2))),
+                    Math.max(2, Integer.getInteger("lc2h.async.fallbackBackgroundEvery", 8))
+                );
+            }
+            return fallbackExecutor;
+        }
+    }
+
+    public static DeadlineTaskQueue.Stats getDeadlineStats() {
+        return DEADLINE_QUEUE.stats();
+    }
+
+    private static boolean isAsyncReady() {
         MinecraftServer server = serverRef;
         if (server == null) {
             try {
@@ -111,37 +283,71 @@ public class AsyncManager {
             } catch (Throwable ignored) {
             }
         }
-        if (server != null && !LC2H.isAsyncReady(server)) {
-            try {
-                return CompletableFuture.completedFuture(supplier.get());
-            } catch (Throwable t) {
-                CompletableFuture<T> failed = new CompletableFuture<>();
-                failed.completeExceptionally(t);
-                return failed;
-            }
+        return server == null || LC2H.isAsyncReady(server);
+    }
+
+    private static <T> CompletableFuture<T> runInline(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.completedFuture(supplier.get());
+        } catch (Throwable t) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(t);
+            return failed;
         }
+    }
 
-        if (!quantifiedBypass && quantifiedAvailable) {
+    private static <T> CompletableFuture<T> submitCallable(String taskName, Supplier<T> supplier, Priority priority, boolean gpuPreferred) {
+        LC2H.LOGGER.debug("Submitting async task '{}' priority={} gpuPreferred={}", taskName, priority, gpuPreferred);
+
+        if (!isAsyncReady()) {
+            return runInline(supplier);
+        }
+
+        Supplier<T> timed = withLatencyTracking(taskName, supplier);
+        if (backendAvailable()) {
+            SchedulerBackend backend = SchedulerBackends.current();
             try {
-                QuantifiedTask.Builder<T> builder = QuantifiedTask.builder("lc2h", taskName, supplier);
-                if (priority == Priority.HIGH) {
-                    builder.priorityForeground();
-                } else {
-                    builder.priorityBackground();
-                }
-                builder.batchKey(quantifiedBatchKey(taskName, priority));
-                CompletableFuture<T> future = QuantifiedAPI.submit(builder);
-                LC2H.LOGGER.debug("Task '{}' submitted to Quantified API", taskName);
+                CompletableFuture<T> future = backend.submit(taskName, quantifiedBatchKey(taskName, priority), timed, priority == Priority.HIGH);
+                LC2H.LOGGER.debug("Task '{}' submitted to {} scheduler", taskName, backend.name());
                 return AsyncIssueMonitor.track(taskName, wrapTaskFuture(taskName, future));
             } catch (Throwable t) {
-                LC2H.LOGGER.error("Quantified API submit failed for task '{}': {}", taskName, t.toString());
-                LC2H.LOGGER.debug("Quantified submit error", t);
+                LC2H.LOGGER.error("Scheduler backend {} submit failed for task '{}': {}", backend.name(), taskName, t.toString());
+                LC2H.LOGGER.debug("Scheduler submit error", t);
             }
         }
 
         LC2H.LOGGER.debug("Running async task '{}' on LC2H fallback executor", taskName);
         return AsyncIssueMonitor.track(taskName,
-            wrapTaskFuture(taskName, CompletableFuture.supplyAsync(supplier, FALLBACK_EXECUTOR)));
+            wrapTaskFuture(taskName, CompletableFuture.supplyAsync(timed,
+                priority == Priority.HIGH ? fallbackExecutor().foreground() : fallbackExecutor().background())));
+    }
+
+    private static <T> Supplier<T> withLatencyTracking(String taskName, Supplier<T> supplier) {
+        String family = normalizeTaskFamily(taskName);
+        long submittedNs = System.nanoTime();
+        long traceId = ChunkTraceRecorder.current();
+        if (traceId != 0L) {
+            return () -> {
+                long startNs = System.nanoTime();
+                long previousTrace = ChunkTraceRecorder.enter(traceId);
+                try {
+                    return supplier.get();
+                } finally {
+                    ChunkTraceRecorder.exit(previousTrace);
+                    ChunkTraceRecorder.waited(traceId, "queued:" + family, submittedNs, startNs);
+                    ChunkTraceRecorder.span(traceId, family, startNs);
+                    Lc2hTaskLatencyRegistry.record(family, startNs - submittedNs, System.nanoTime() - startNs);
+                }
+            };
+        }
+        return () -> {
+            long startNs = System.nanoTime();
+            try {
+                return supplier.get();
+            } finally {
+                Lc2hTaskLatencyRegistry.record(family, startNs - submittedNs, System.nanoTime() - startNs);
+            }
+        };
     }
 
     public static <T> CompletableFuture<List<T>> submitBatch(String batchName, List<Supplier<T>> suppliers, Priority priority) {
@@ -149,40 +355,127 @@ public class AsyncManager {
     }
 
     public static <T> CompletableFuture<List<T>> submitBatch(String batchName, List<Supplier<T>> suppliers, Priority priority, boolean gpuPreferred) {
-        LC2H.LOGGER.debug("Submitting async batch '{}' tasks={} priority={} gpuPreferred={}", batchName, suppliers.size(), priority, gpuPreferred);
+        return submitBatch(batchName, suppliers, priority, gpuPreferred, null);
+    }
+
+    public static <T> CompletableFuture<List<T>> submitBatch(String batchName, List<Supplier<T>> suppliers, Priority priority,
+                                                             Consumer<ParallelSliceResult<T>> partialResults) {
+        return submitBatch(batchName, suppliers, priority, false, partialResults);
+    }
 
-        if (quantifiedAvailable) {
-            java.util.List<CompletableFuture<T>> futures = new java.util.ArrayList<>(suppliers.size());
-            for (int i = 0; i < suppliers.size(); i++) {
-                String taskName = batchName + "-" + i;
-                futures.add(wrapBatchFuture(batchName, i, submitCallable(taskName, suppliers.get(i), priority, gpuPreferred)));
+    // The batch runs as a handful of units that claim indices from a shared cursor, so a few hundred suppliers cost
+    // a few scheduler submits and one tracking record. partialResults sees each element as soon as it is computed. A
+    // unit the scheduler fails or drops fails the batch, since nothing else would settle the indices it never claimed.
+    private static <T> CompletableFuture<List<T>> submitBatch(String batchName, List<Supplier<T>> suppliers, Priority priority,
+                                                              boolean gpuPreferred, Consumer<ParallelSliceResult<T>> partialResults) {
+        LC2H.LOGGER.debug("Submitting async batch '{}' tasks={} priority={} gpuPreferred={}", batchName, suppliers.size(), priority, gpuPreferred);
+        if (suppliers.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        BatchRun<T> run = new BatchRun<>(batchName, suppliers, partialResults);
+        if (!isAsyncReady()) {
+            run.drain();
+            return run.result;
+        }
+        int units = Math.min(suppliers.size(), Math.max(1, Math.min(BATCH_MAX_UNITS,
+            (suppliers.size() + BATCH_MIN_PER_UNIT - 1) / BATCH_MIN_PER_UNIT)));
+        Supplier<Void> unit = () -> {
+            run.drain();
+            return null;
+        };
+        for (int i = 0; i < units && !run.result.isDone(); i++) {
+            try {
+                submitBatchUnit(batchName, unit, priority).whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        LC2H.LOGGER.error("Async batch '{}' unit failed: {}", batchName, throwable.toString());
+                        LC2H.LOGGER.debug("Async batch unit error", throwable);
+                        run.fail(throwable);
+                    }
+                });
+            } catch (Throwable t) {
+                run.fail(t);
             }
-            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> futures.stream().map(CompletableFuture::join).toList());
         }
+        return AsyncIssueMonitor.track(batchName, run.result);
+    }
 
-        java.util.List<CompletableFuture<T>> futures = new java.util.ArrayList<>(suppliers.size());
-        for (int i = 0; i < suppliers.size(); i++) {
-            String taskName = batchName + "-" + i;
-            futures.add(wrapBatchFuture(batchName, i, submitCallable(taskName, suppliers.get(i), priority, gpuPreferred)));
+    // Units go to the scheduler as they are: the batch is tracked and timed once, as a whole.
+    private static CompletableFuture<Void> submitBatchUnit(String batchName, Supplier<Void> unit, Priority priority) {
+        if (backendAvailable()) {
+            SchedulerBackend backend = SchedulerBackends.current();
+            try {
+                return backend.submit(batchName, quantifiedBatchKey(batchName, priority), unit, priority == Priority.HIGH);
+            } catch (Throwable t) {
+                LC2H.LOGGER.error("Scheduler backend {} submit failed for batch '{}': {}", backend.name(), batchName, t.toString());
+                LC2H.LOGGER.debug("Scheduler submit error", t);
+            }
+        }
+        return CompletableFuture.supplyAsync(unit,
+            priority == Priority.HIGH ? fallbackExecutor().foreground() : fallbackExecutor().background());
+    }
+
+    private static final class BatchRun<T> {
+        private final String name;
+        private final List<Supplier<T>> suppliers;
+        private final Consumer<ParallelSliceResult<T>> partialResults;
+        private final Object[] results;
+        private final AtomicInteger cursor = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        private final CompletableFuture<List<T>> result = new CompletableFuture<>();
+        private final long submittedNs = System.nanoTime();
+        private final AtomicLong startedNs = new AtomicLong();
+
+        private BatchRun(String name, List<Supplier<T>> suppliers, Consumer<ParallelSliceResult<T>> partialResults) {
+            this.name = name;
+            this.suppliers = suppliers;
+            this.partialResults = partialResults;
+            this.results = new Object[suppliers.size()];
+            this.remaining = new AtomicInteger(suppliers.size());
+        }
+
+        private void drain() {
+            startedNs.compareAndSet(0L, System.nanoTime());
+            int index;
+            while ((index = cursor.getAndIncrement()) < results.length) {
+                // A cancelled or failed batch still walks its indices so the completion count settles, but runs nothing.
+                if (!result.isDone()) {
+                    try {
+                        T value = suppliers.get(index).get();
+                        results[index] = value;
+                        if (partialResults != null) {
+                            partialResults.accept(new ParallelSliceResult<>(index, value));
+                        }
+                    } catch (Throwable t) {
+                        firstFailure.compareAndSet(null, t);
+                        if (!RegionCancellation.isCancellation(t)) {
+                            LC2H.LOGGER.error("Async batch task '{}-{}' failed: {}", name, index, t.toString());
+                            LC2H.LOGGER.debug("Async batch task error", t);
+                        }
+                    }
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
         }
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-            .thenApply(v -> futures.stream().map(CompletableFuture::join).toList());
-    }
 
-    private static <T> CompletableFuture<T> wrapBatchFuture(String batchName, int index, CompletableFuture<T> future) {
-        if (future == null) {
-            CompletableFuture<T> failed = new CompletableFuture<>();
-            failed.completeExceptionally(new IllegalStateException("LC2H batch future was null"));
-            return failed;
+        private void fail(Throwable failure) {
+            firstFailure.compareAndSet(null, failure);
+            result.completeExceptionally(failure);
         }
-        return future.whenComplete((result, throwable) -> {
-            if (throwable != null) {
-                String name = batchName + "-" + index;
-                LC2H.LOGGER.error("Async batch task '{}' failed: {}", name, throwable.toString());
-                LC2H.LOGGER.debug("Async batch task error", throwable);
+
+        @SuppressWarnings("unchecked")
+        private void finish() {
+            long startNs = startedNs.get();
+            Lc2hTaskLatencyRegistry.record(normalizeTaskFamily(name), startNs - submittedNs, System.nanoTime() - startNs);
+            Throwable failure = firstFailure.get();
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(Collections.unmodifiableList((List<T>) Arrays.asList(results)));
             }
-        });
+        }
     }
 
     private static <T> CompletableFuture<T> wrapTaskFuture(String taskName, CompletableFuture<T> future) {
@@ -192,7 +485,7 @@ public class AsyncManager {
             return failed;
         }
         return future.whenComplete((result, throwable) -> {
-            if (throwable != null) {
+            if (throwable != null && !RegionCancellation.isCancellation(throwable)) {
                 LC2H.LOGGER.error("Async task '{}' failed: {}", taskName, throwable.toString());
                 LC2H.LOGGER.debug("Async task error", throwable);
             }
@@ -232,7 +525,6 @@ public class AsyncManager {
     public static void processMainThreadQueue() {
         MainThreadTask task;
         while ((task = mainThreadQueue.poll()) != null) {
-            mainThreadQueueSize.decrementAndGet();
             try {
                 task.action.run();
             } catch (Exception e) {
@@ -254,8 +546,6 @@ public class AsyncManager {
 
         MinecraftServer server = event.getServer();
         AsyncBuildingInfoPlanner.drainReadyResults();
-        AsyncBuildingInfoPlanner.drainLimiterRetries(server);
-        AsyncMultiChunkPlanner.drainWarmRetries(server);
 
         if (mainThreadQueue.isEmpty()) {
             return;
@@ -274,7 +564,6 @@ public class AsyncManager {
         int ran = 0;
         MainThreadTask task;
         while (ran < maxTasks && (task = mainThreadQueue.poll()) != null) {
-            mainThreadQueueSize.decrementAndGet();
             try {
                 task.action.run();
             } catch (Exception e) {
@@ -289,38 +578,70 @@ public class AsyncManager {
                 break;
             }
         }
-        updateOldestAfterPartialDrain();
+        updateOldestAfterDrain();
+    }
+
+    public static boolean syncToMain(Runnable action) {
+        String producer;
+        try {
+            producer = CALLER_WALKER.getCallerClass().getName();
+        } catch (Throwable ignored) {
+            producer = "unknown";
+        }
+        return syncToMain(producer, action);
     }
 
-    public static void syncToMain(Runnable action) {
+    // Returns false when the producer is over its quota or the server is shedding load; callers should back off and retry.
+    public static boolean syncToMain(String producer, Runnable action) {
         if (action == null) {
-            return;
+            return false;
         }
-        recordProducer();
         MinecraftServer server = serverRef;
         if (server == null && shouldRunInlineClient()) {
             action.run();
-            return;
+            return true;
         }
         if (server != null && !LC2H.isAsyncReady(server)) {
-            return;
+            return false;
         }
-        int sizeNow = mainThreadQueueSize.get();
-        if (sizeNow >= MAIN_QUEUE_HARD_LIMIT
-            || (sizeNow >= MAIN_QUEUE_SOFT_LIMIT && shouldDropForBackpressure(server))) {
-            long dropped = MAIN_QUEUE_DROPPED.incrementAndGet();
-            maybeLogDrop(dropped, sizeNow);
-            return;
+        int sizeNow = mainThreadQueue.size();
+        if (sizeNow >= MAIN_QUEUE_SOFT_LIMIT && server != null && ServerTickLoad.shouldPauseNonCritical(server)) {
+            recordRejected(sizeNow);
+            return false;
         }
         long nowMs = System.currentTimeMillis();
-        mainThreadQueue.add(new MainThreadTask(action, nowMs));
-        if (mainThreadQueueSize.incrementAndGet() == 1) {
-            mainThreadQueueOldestMs.set(nowMs);
+        long traceId = ChunkTraceRecorder.current();
+        Runnable queued = traceId == 0L ? action : traced(traceId, producer, action);
+        if (!mainThreadQueue.offer(producer, new MainThreadTask(queued, nowMs))) {
+            recordRejected(sizeNow);
+            return false;
         }
+        mainThreadQueueOldestMs.compareAndSet(0L, nowMs);
+        return true;
+    }
+
+    private static Runnable traced(long traceId, String producer, Runnable action) {
+        long queuedNs = System.nanoTime();
+        String name = "main:" + producer.substring(producer.lastIndexOf('.') + 1);
+        return () -> {
+            long startNs = System.nanoTime();
+            long previousTrace = ChunkTraceRecorder.enter(traceId);
+            try {
+                action.run();
+            } finally {
+                ChunkTraceRecorder.exit(previousTrace);
+                ChunkTraceRecorder.waited(traceId, "main-queue", queuedNs, startNs);
+                ChunkTraceRecorder.span(traceId, name, startNs);
+            }
+        };
     }
 
     public static int getMainThreadQueueSize() {
-        return Math.max(0, mainThreadQueueSize.get());
+        return mainThreadQueue.size();
+    }
+
+    public static long getMainThreadQueueRejectedCount() {
+        return MAIN_QUEUE_REJECTED.get();
     }
 
     public static long getMainThreadQueueOldestAgeMs() {
@@ -331,23 +652,14 @@ public class AsyncManager {
         return Math.max(0L, System.currentTimeMillis() - oldest);
     }
 
-    private static void updateOldestAfterPartialDrain() {
-        if (mainThreadQueue.isEmpty()) {
-            mainThreadQueueOldestMs.set(0L);
-            return;
-        }
-        MainThreadTask next = mainThreadQueue.peek();
-        if (next != null) {
-            mainThreadQueueOldestMs.set(next.enqueuedMs);
-        }
-    }
-
     private static void updateOldestAfterDrain() {
-        if (mainThreadQueue.isEmpty()) {
-            mainThreadQueueOldestMs.set(0L);
-        } else {
-            updateOldestAfterPartialDrain();
+        long oldest = 0L;
+        for (MainThreadTask head : mainThreadQueue.peekHeads()) {
+            if (oldest == 0L || head.enqueuedMs < oldest) {
+                oldest = head.enqueuedMs;
+            }
         }
+        mainThreadQueueOldestMs.set(oldest);
     }
 
     public static void cleanupOldEntries(Object center, int radius) {
@@ -376,67 +688,29 @@ public class AsyncManager {
         }
     }
 
-    private static boolean shouldDropForBackpressure(MinecraftServer server) {
-        long age = getMainThreadQueueOldestAgeMs();
-        if (age < MAIN_QUEUE_DROP_AGE_MS) {
-            return false;
-        }
-        if (server == null) {
-            return true;
-        }
-        return ServerTickLoad.shouldPauseNonCritical(server);
-    }
-
-    private static void maybeLogDrop(long dropped, int sizeNow) {
+    private static void recordRejected(int sizeNow) {
+        long rejected = MAIN_QUEUE_REJECTED.incrementAndGet();
         long now = System.currentTimeMillis();
         long last = MAIN_QUEUE_LAST_DROP_LOG_MS.get();
         if (now - last < MAIN_QUEUE_DROP_LOG_INTERVAL_MS) {
             return;
         }
         if (MAIN_QUEUE_LAST_DROP_LOG_MS.compareAndSet(last, now)) {
-            LC2H.LOGGER.warn("[LC2H] Main thread queue overloaded (size={}, dropped={}); applying backpressure",
-                sizeNow, dropped);
-        }
-    }
-
-    private static void recordProducer() {
-        String key = "unknown";
-        try {
-            StackTraceElement[] trace = Thread.currentThread().getStackTrace();
-            for (int i = 3; i < Math.min(trace.length, 24); i++) {
-                StackTraceElement el = trace[i];
-                if (el == null) {
-                    continue;
-                }
-                String cls = el.getClassName();
-                if (cls == null) {
-                    continue;
-                }
-                if (cls.startsWith("org.admany.lc2h.concurrency.async.AsyncManager")
-                    || cls.startsWith("java.")
-                    || cls.startsWith("jdk.")
-                    || cls.startsWith("sun.")
-                    || cls.startsWith("org.spongepowered.")) {
-                    continue;
-                }
-                key = cls + "#" + el.getMethodName();
-                break;
-            }
-        } catch (Throwable ignored) {
+            LC2H.LOGGER.warn("[LC2H] Main thread queue overloaded (size={}, rejected={}); pushing back on producers",
+                sizeNow, rejected);
         }
-        MAIN_QUEUE_PRODUCERS.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
     }
 
     public static List<String> getMainQueueTopProducers(int limit) {
         if (limit <= 0) {
             return List.of();
         }
-        List<java.util.Map.Entry<String, AtomicLong>> entries = new ArrayList<>(MAIN_QUEUE_PRODUCERS.entrySet());
-        entries.sort(Comparator.comparingLong(e -> -e.getValue().get()));
+        List<ProducerFairQueue.ProducerStats> entries = new ArrayList<>(mainThreadQueue.producerStats());
+        entries.sort(Comparator.comparingLong(e -> -e.accepted()));
         List<String> top = new ArrayList<>(Math.min(limit, entries.size()));
         for (int i = 0; i < entries.size() && i < limit; i++) {
             var entry = entries.get(i);
-            top.add(entry.getKey() + "=" + entry.getValue().get());
+            top.add(entry.producer() + "=" + entry.accepted() + " (rejected=" + entry.rejected() + ", pending=" + entry.pending() + ")");
         }
         return top;
     }
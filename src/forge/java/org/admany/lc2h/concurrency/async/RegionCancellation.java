@@ -0,0 +1,227 @@
+package org.admany.lc2h.concurrency.async;
+
+import mcjty.lostcities.varia.ChunkCoord;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityTeleportEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.admany.lc2h.LC2H;
+import org.admany.lc2h.worldgen.coord.RegionCoord;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Region-scoped cancellation for prefetch work. Regions that no player is near any more get their epoch bumped,
+// which cancels every token issued for them; the check on the worker side is a single volatile read. Sweeps run on
+// the configured interval; only player departures, teleports and dimension changes pull the next one forward.
+@Mod.EventBusSubscriber(modid = LC2H.MODID)
+public final class RegionCancellation {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("lc2h.cancel.enabled", "true"));
+    private static final int MARGIN_CHUNKS = Math.max(0, Integer.getInteger("lc2h.cancel.margin_chunks", 4));
+    private static final int SWEEP_INTERVAL_TICKS = Math.max(1, Integer.getInteger("lc2h.cancel.sweep_ticks", 20));
+
+    private static final ConcurrentHashMap<RegionCoord, AtomicLong> SCOPES = new ConcurrentHashMap<>();
+    private static final AtomicBoolean SWEEP_REQUESTED = new AtomicBoolean(false);
+    private static final AtomicBoolean DEPARTURE_PENDING = new AtomicBoolean(false);
+    private static final LongAdder REGIONS_REVOKED = new LongAdder();
+    private static final LongAdder[] CANCELLED = new LongAdder[Site.values().length];
+    private static int ticksSinceSweep;
+
+    static {
+        for (int i = 0; i < CANCELLED.length; i++) {
+            CANCELLED[i] = new LongAdder();
+        }
+    }
+
+    public enum Site {
+        ASYNC,
+        PLANNER,
+        WARMUP
+    }
+
+    private RegionCancellation() {
+    }
+
+    public static CancellationToken forChunk(ChunkCoord coord) {
+        if (!ENABLED || coord == null || coord.dimension() == null) {
+            return CancellationToken.NONE;
+        }
+        return forRegion(RegionCoord.fromChunk(coord));
+    }
+
+    public static CancellationToken forRegion(RegionCoord region) {
+        if (!ENABLED || region == null || region.dimension() == null) {
+            return CancellationToken.NONE;
+        }
+        while (true) {
+            AtomicLong epoch = SCOPES.get(region);
+            if (epoch == null) {
+                epoch = SCOPES.computeIfAbsent(region, unused -> new AtomicLong());
+            }
+            long issued = epoch.get();
+            // A sweep removes the scope before bumping it, so a scope still mapped here cannot miss the bump.
+            if (SCOPES.get(region) == epoch) {
+                return new CancellationToken(epoch, issued);
+            }
+        }
+    }
+
+    public static void recordCancelled(Site site) {
+        if (site != null) {
+            CANCELLED[site.ordinal()].increment();
+        }
+    }
+
+    public static boolean isCancellation(Throwable throwable) {
+        Throwable root = throwable;
+        while (root instanceof CompletionException && root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root instanceof CancellationException;
+    }
+
+    public static Stats stats() {
+        return new Stats(
+            SCOPES.size(),
+            REGIONS_REVOKED.sum(),
+            CANCELLED[Site.ASYNC.ordinal()].sum(),
+            CANCELLED[Site.PLANNER.ordinal()].sum(),
+            CANCELLED[Site.WARMUP.ordinal()].sum()
+        );
+    }
+
+    public record Stats(int trackedRegions, long regionsRevoked, long asyncCancelled, long plannerCancelled, long warmupCancelled) {
+        public long totalCancelled() {
+            return asyncCancelled + plannerCancelled + warmupCancelled;
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || !ENABLED) {
+            return;
+        }
+        boolean requested = SWEEP_REQUESTED.getAndSet(false);
+        if (!requested && ++ticksSinceSweep < SWEEP_INTERVAL_TICKS) {
+            return;
+        }
+        ticksSinceSweep = 0;
+        if (SCOPES.isEmpty()) {
+            DEPARTURE_PENDING.set(false);
+            return;
+        }
+        try {
+            sweep(event.getServer(), DEPARTURE_PENDING.getAndSet(false));
+        } catch (Throwable t) {
+            LC2H.LOGGER.debug("Region cancellation sweep failed: {}", t.toString());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        DEPARTURE_PENDING.set(true);
+        SWEEP_REQUESTED.set(true);
+    }
+
+    @SubscribeEvent
+    public static void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
+        SWEEP_REQUESTED.set(true);
+    }
+
+    @SubscribeEvent
+    public static void onEntityTeleport(EntityTeleportEvent event) {
+        if (event.getEntity() instanceof ServerPlayer) {
+            SWEEP_REQUESTED.set(true);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        revokeAll();
+    }
+
+    private static void sweep(MinecraftServer server, boolean departure) {
+        if (server == null || server.getPlayerList() == null) {
+            return;
+        }
+        List<ServerPlayer> players = server.getPlayerList().getPlayers();
+        if (players == null || players.isEmpty()) {
+            // Headless warmup is left alone until somebody actually leaves.
+            if (departure) {
+                revokeAll();
+            }
+            return;
+        }
+        int reach = Math.max(2, server.getPlayerList().getViewDistance()) + MARGIN_CHUNKS;
+        Anchor[] anchors = new Anchor[players.size()];
+        int count = 0;
+        for (ServerPlayer player : players) {
+            if (player == null || player.level() == null) {
+                continue;
+            }
+            anchors[count++] = new Anchor(player.level().dimension(), player.chunkPosition().x, player.chunkPosition().z);
+        }
+
+        Iterator<Map.Entry<RegionCoord, AtomicLong>> it = SCOPES.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<RegionCoord, AtomicLong> entry = it.next();
+            if (!isNearAnyPlayer(entry.getKey(), anchors, count, reach) && SCOPES.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().incrementAndGet();
+                REGIONS_REVOKED.increment();
+            }
+        }
+    }
+
+    private static void revokeAll() {
+        Iterator<Map.Entry<RegionCoord, AtomicLong>> it = SCOPES.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<RegionCoord, AtomicLong> entry = it.next();
+            if (SCOPES.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().incrementAndGet();
+                REGIONS_REVOKED.increment();
+            }
+        }
+    }
+
+    private static boolean isNearAnyPlayer(RegionCoord region, Anchor[] anchors, int count, int reach) {
+        for (int i = 0; i < count; i++) {
+            Anchor anchor = anchors[i];
+            if (!anchor.dimension().equals(region.dimension())) {
+                continue;
+            }
+            int dx = distanceToRange(anchor.chunkX(), region.getMinChunkX(), region.getMaxChunkX());
+            int dz = distanceToRange(anchor.chunkZ(), region.getMinChunkZ(), region.getMaxChunkZ());
+            if (Math.max(dx, dz) <= reach) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int distanceToRange(int value, int min, int max) {
+        if (value < min) {
+            return min - value;
+        }
+        if (value > max) {
+            return value - max;
+        }
+        return 0;
+    }
+
+    private record Anchor(ResourceKey<Level> dimension, int chunkX, int chunkZ) {
+    }
+}
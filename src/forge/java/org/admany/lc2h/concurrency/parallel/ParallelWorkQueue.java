@@ -3,39 +3,42 @@ package org.admany.lc2h.concurrency.parallel;
 import org.admany.lc2h.LC2H;
 import org.admany.lc2h.concurrency.async.AsyncManager;
 import org.admany.lc2h.concurrency.async.Priority;
-import org.admany.quantified.api.parallel.ParallelCompute;
+import org.admany.lc2h.concurrency.async.RetryWheel;
+import org.admany.lc2h.concurrency.backend.SchedulerBackends;
 import net.minecraftforge.server.ServerLifecycleHooks;
 import net.minecraft.server.MinecraftServer;
 
-import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.function.Function;
 
 public final class ParallelWorkQueue {
-    private static final AtomicLong SEQUENCE = new AtomicLong();
     private static final ConcurrentHashMap<String, AtomicLong> EWMA_NANOS_PER_SLICE = new ConcurrentHashMap<>();
 
-    private static final ScheduledExecutorService BACKOFF_TIMER = Executors.newSingleThreadScheduledExecutor(newNamedDaemonFactory("LC2H-ParallelBackoff"));
     private static final AtomicLong LAST_QUEUE_FULL_LOG_NANOS = new AtomicLong(0L);
 
     private static final long SMALL_BATCH_THRESHOLD_MS = Long.getLong("lc2h.parallel.smallThresholdMs", 100L);
     private static final int SMALL_BATCH_MAX_PARALLELISM = Integer.getInteger("lc2h.parallel.smallMaxParallelism", 2);
 
+    private static final boolean RANGE_SLICING = Boolean.parseBoolean(System.getProperty("lc2h.parallel.rangeSlicing", "true"));
+    private static final long GRAIN_TARGET_NANOS = TimeUnit.MICROSECONDS.toNanos(Math.max(10L, Long.getLong("lc2h.parallel.grainTargetUs", 250L)));
+    private static final int RANGES_PER_WORKER = Math.max(1, Integer.getInteger("lc2h.parallel.rangesPerWorker", 4));
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final ConcurrentHashMap<String, AtomicLong> ITEM_COST_NANOS = new ConcurrentHashMap<>();
+
     private static final int QUEUE_FULL_RETRIES = Math.max(0, Integer.getInteger("lc2h.parallel.queueFullRetries", 6));
     private static final long QUEUE_FULL_BASE_DELAY_MS = Math.max(1L, Long.getLong("lc2h.parallel.queueFullDelayMs", 6L));
+    private static final long QUEUE_FULL_MAX_DELAY_MS = Math.max(QUEUE_FULL_BASE_DELAY_MS,
+        Long.getLong("lc2h.parallel.queueFullMaxDelayMs", 64L));
 
     private ParallelWorkQueue() {
     }
@@ -76,111 +79,102 @@ public final class ParallelWorkQueue {
         final long startNanos = System.nanoTime();
         final int sliceCount = suppliers.size();
 
-        List<Integer> slices = new ArrayList<>(suppliers.size());
-        for (int i = 0; i < suppliers.size(); i++) {
-            slices.add(i);
-        }
-        ParallelCompute.Builder<Integer, T, List<T>> builder = ParallelCompute.<Integer, T>builder(LC2H.MODID, name, SEQUENCE.incrementAndGet())
-            .slices(() -> slices)
-            .sliceExecutor(index -> {
-                T value = suppliers.get(index).get();
-                if (sliceListener != null) {
-                    sliceListener.accept(new ParallelSliceResult<>(index, value));
-                }
-                return value;
-            })
-            .reducer(results -> {
-                List<T> ordered = new ArrayList<>(results.size());
-                ordered.addAll(results);
-                return Collections.unmodifiableList(ordered);
-            });
-
+        int maxParallelism = 0;
         long estimatedSequentialMs = estimateSequentialMs(name, sliceCount);
         if (estimatedSequentialMs > 0 && estimatedSequentialMs <= SMALL_BATCH_THRESHOLD_MS) {
-            builder.maxParallelism(Math.max(1, SMALL_BATCH_MAX_PARALLELISM));
+            maxParallelism = Math.max(1, SMALL_BATCH_MAX_PARALLELISM);
         } else if (estimatedSequentialMs == 0 && sliceCount <= 8) {
-            builder.maxParallelism(Math.max(1, SMALL_BATCH_MAX_PARALLELISM));
+            maxParallelism = Math.max(1, SMALL_BATCH_MAX_PARALLELISM);
         }
+        final int parallelism = maxParallelism;
 
-        ParallelWorkOptions<T> effective = options == null ? ParallelWorkOptions.none() : options;
-        if (effective.cacheEnabled()) {
-            Duration ttl = effective.cacheTtl();
-            if (ttl == null || ttl.isZero() || ttl.isNegative()) {
-                ttl = Duration.ofMinutes(30);
-            }
-            long maxEntries = effective.cacheMaxEntries() <= 0 ? 1024L : effective.cacheMaxEntries();
-            Function<Integer, String> keyFunction = effective.cacheKeyFunction();
-            Function<Integer, String> cacheKeySupplier = index -> {
-                if (keyFunction == null || index == null) {
-                    return null;
+        // Slice caches are keyed per index, so cached jobs always go to the backend one index per slice.
+        int grain = RANGE_SLICING && (options == null || !options.cacheEnabled()) ? grainFor(name, sliceCount) : 1;
+        if (grain > 1) {
+            return submitWithQueueFullHandling(name, sliceCount, startNanos, suppliers, sliceListener, options, attempt,
+                () -> dispatchRanges(name, suppliers, sliceListener, grain, parallelism));
+        }
+        return submitWithQueueFullHandling(name, sliceCount, startNanos, suppliers, sliceListener, options, attempt,
+            () -> SchedulerBackends.current().parallel(name, suppliers, parallelism, options, sliceListener));
+    }
+
+    // Contiguous index ranges, one backend slice each. Every range writes straight into the shared result array and
+    // reports its per-item cost, which is what sizes the grain of the next dispatch under the same name.
+    private static <T> CompletableFuture<List<T>> dispatchRanges(String name,
+                                                                 List<Supplier<T>> suppliers,
+                                                                 Consumer<ParallelSliceResult<T>> sliceListener,
+                                                                 int grain,
+                                                                 int maxParallelism) {
+        int count = suppliers.size();
+        int[] bounds = new int[2 * ((count + grain - 1) / grain) + 2];
+        int rangeCount = splitRanges(0, count, grain, bounds, 0);
+        bounds[rangeCount] = count;
+        Object[] results = new Object[count];
+        List<Supplier<Void>> ranges = new ArrayList<>(rangeCount);
+        for (int r = 0; r < rangeCount; r++) {
+            int from = bounds[r];
+            int to = bounds[r + 1];
+            ranges.add(() -> {
+                long rangeStart = System.nanoTime();
+                for (int i = from; i < to; i++) {
+                    T value = suppliers.get(i).get();
+                    results[i] = value;
+                    if (sliceListener != null) {
+                        sliceListener.accept(new ParallelSliceResult<>(i, value));
+                    }
                 }
-                return keyFunction.apply(index);
-            };
-            if (effective.cachePersistent()) {
-                configurePersistentCache(
-                    builder,
-                    effective.cacheName() == null ? name : effective.cacheName(),
-                    cacheKeySupplier,
-                    effective.cacheSerializer(),
-                    effective.cacheDeserializer(),
-                    ttl,
-                    maxEntries,
-                    effective.cacheCompression(),
-                    effective.cacheCopyOnWrite()
-                );
-            } else {
-                configureMemoryCache(
-                    builder,
-                    effective.cacheName() == null ? name : effective.cacheName(),
-                    cacheKeySupplier,
-                    effective.cacheSerializer(),
-                    effective.cacheDeserializer(),
-                    ttl,
-                    maxEntries,
-                    effective.cacheCopyOnWrite()
-                );
-            }
+                recordItemCost(name, (System.nanoTime() - rangeStart) / (to - from));
+                return null;
+            });
         }
-        return submitWithQueueFullHandling(name, sliceCount, startNanos, suppliers, sliceListener, options, builder, attempt);
+        return SchedulerBackends.current()
+            .parallel(name, ranges, maxParallelism, ParallelWorkOptions.<Void>none(), null)
+            .thenApply(ignored -> toOrderedList(results));
     }
 
-    private static <T> void configurePersistentCache(ParallelCompute.Builder<Integer, T, List<T>> builder,
-                                                     String cacheName,
-                                                     Function<Integer, String> keyFunction,
-                                                     Function<T, byte[]> serializer,
-                                                     Function<byte[], T> deserializer,
-                                                     Duration ttl,
-                                                     long maxEntries,
-                                                     boolean compression,
-                                                     boolean copyOnWrite) {
-        try {
-            builder.getClass()
-                .getMethod("persistentSliceCache", String.class, Function.class, Function.class, Function.class,
-                    Duration.class, long.class, boolean.class, boolean.class)
-                .invoke(builder, cacheName, keyFunction, serializer, deserializer, ttl, maxEntries, compression, copyOnWrite);
-            return;
-        } catch (ReflectiveOperationException ignored) {
+    // Recursive halving: ranges end up between grain/2 and grain items and differ by at most one item in size.
+    private static int splitRanges(int from, int to, int grain, int[] bounds, int next) {
+        if (to - from <= grain) {
+            bounds[next] = from;
+            return next + 1;
         }
-        builder.persistentSliceCache(cacheName, keyFunction, serializer, deserializer, ttl, maxEntries, compression);
+        int mid = (from + to) >>> 1;
+        return splitRanges(mid, to, grain, bounds, splitRanges(from, mid, grain, bounds, next));
     }
 
-    private static <T> void configureMemoryCache(ParallelCompute.Builder<Integer, T, List<T>> builder,
-                                                 String cacheName,
-                                                 Function<Integer, String> keyFunction,
-                                                 Function<T, byte[]> serializer,
-                                                 Function<byte[], T> deserializer,
-                                                 Duration ttl,
-                                                 long maxEntries,
-                                                 boolean copyOnWrite) {
-        try {
-            builder.getClass()
-                .getMethod("memorySliceCache", String.class, Function.class, Function.class, Function.class,
-                    Duration.class, long.class, boolean.class)
-                .invoke(builder, cacheName, keyFunction, serializer, deserializer, ttl, maxEntries, copyOnWrite);
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> toOrderedList(Object[] results) {
+        return Collections.unmodifiableList((List<T>) Arrays.asList(results));
+    }
+
+    // Enough items per range that dispatch is noise next to the work, but never so few ranges that workers idle.
+    private static int grainFor(String name, int sliceCount) {
+        int maxGrain = Math.max(1, sliceCount / (WORKERS * RANGES_PER_WORKER));
+        if (maxGrain <= 1 || name == null) {
+            return 1;
+        }
+        AtomicLong cost = ITEM_COST_NANOS.get(name);
+        if (cost == null || cost.get() <= 0L) {
+            // First dispatch under this name: go coarse and let the ranges measure what an item costs.
+            return maxGrain;
+        }
+        long grain = GRAIN_TARGET_NANOS / Math.max(1L, cost.get());
+        return (int) Math.max(1L, Math.min(maxGrain, grain));
+    }
+
+    private static void recordItemCost(String name, long nanosPerItem) {
+        if (name == null || nanosPerItem < 0L) {
             return;
-        } catch (ReflectiveOperationException ignored) {
         }
-        builder.memorySliceCache(cacheName, keyFunction, serializer, deserializer, ttl, maxEntries);
+        long sample = Math.max(1L, nanosPerItem);
+        AtomicLong ewma = ITEM_COST_NANOS.computeIfAbsent(name, k -> new AtomicLong(0L));
+        while (true) {
+            long old = ewma.get();
+            long updated = old == 0L ? sample : (old - (old >> 2)) + (sample >> 2);
+            if (ewma.compareAndSet(old, updated)) {
+                return;
+            }
+        }
     }
 
     private static <T> CompletableFuture<List<T>> submitWithQueueFullHandling(String name,
@@ -189,11 +183,11 @@ public final class ParallelWorkQueue {
                                                                               List<Supplier<T>> suppliers,
                                                                               Consumer<ParallelSliceResult<T>> sliceListener,
                                                                               ParallelWorkOptions<T> options,
-                                                                              ParallelCompute.Builder<Integer, T, List<T>> builder,
-                                                                              int attempt) {
+                                                                              int attempt,
+                                                                              Supplier<CompletableFuture<List<T>>> submission) {
         final CompletableFuture<List<T>> submitted;
         try {
-            submitted = builder.submit();
+            submitted = submission.get();
         } catch (Throwable t) {
             Throwable root = unwrap(t);
             if (isQueueFull(root)) {
@@ -229,8 +223,9 @@ public final class ParallelWorkQueue {
 
         if (attempt < QUEUE_FULL_RETRIES) {
             CompletableFuture<List<T>> retryFuture = new CompletableFuture<>();
-            long delayMs = QUEUE_FULL_BASE_DELAY_MS * (long) (attempt + 1);
-            BACKOFF_TIMER.schedule(() -> {
+            long delayMs = RetryWheel.jitteredBackoffMs(QUEUE_FULL_BASE_DELAY_MS, QUEUE_FULL_MAX_DELAY_MS,
+                QUEUE_FULL_BASE_DELAY_MS / 2L, attempt);
+            RetryWheel.after(delayMs, () -> {
                 try {
                     dispatchInternal(name, suppliers, sliceListener, options, attempt + 1)
                         .whenComplete((result, throwable) -> {
@@ -243,12 +238,12 @@ public final class ParallelWorkQueue {
                 } catch (Throwable t) {
                     retryFuture.completeExceptionally(t);
                 }
-            }, delayMs, TimeUnit.MILLISECONDS);
+            });
             return retryFuture;
         }
 
         // Ultimate fallback: run the batch on the normal LC2H async scheduler.
-        // This keeps progress even under Quantified parallel queue saturation.
+        // This keeps progress even when the backend's parallel queue stays saturated.
         return AsyncManager.submitSupplier("queuefull-fallback-" + (name == null ? "work" : name), () -> {
             List<T> out = new ArrayList<>(suppliers.size());
             for (int i = 0; i < suppliers.size(); i++) {
@@ -272,7 +267,8 @@ public final class ParallelWorkQueue {
             return;
         }
         String label = name == null ? "<unnamed>" : name;
-        LC2H.LOGGER.warn("Quantified parallel queue full for '{}' (slices={}, attempt={}); applying backpressure", label, sliceCount, attempt);
+        LC2H.LOGGER.warn("{} parallel queue full for '{}' (slices={}, attempt={}); applying backpressure",
+            SchedulerBackends.current().name(), label, sliceCount, attempt);
         LC2H.LOGGER.debug("Queue-full root cause: {}", root.toString());
     }
 
@@ -292,16 +288,6 @@ public final class ParallelWorkQueue {
         return t;
     }
 
-    private static ThreadFactory newNamedDaemonFactory(String prefix) {
-        AtomicInteger idx = new AtomicInteger(1);
-        return runnable -> {
-            Thread thread = new Thread(runnable);
-            thread.setName(prefix + "-" + idx.getAndIncrement());
-            thread.setDaemon(true);
-            return thread;
-        };
-    }
-
     private static long estimateSequentialMs(String name, int sliceCount) {
         if (name == null || sliceCount <= 0) {
             return 0L;
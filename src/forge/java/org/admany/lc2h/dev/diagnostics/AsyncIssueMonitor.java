@@ -22,10 +22,14 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 public final class AsyncIssueMonitor {
@@ -44,6 +48,14 @@ public final class AsyncIssueMonitor {
     private static final long BUILDINGINFO_RECENT_MS = Math.max(1_000L,
         Long.getLong("lc2h.asyncwatch.buildinginfo_recent_ms", 10_000L));
     private static final String ISSUE_PREFIX = "lc2h-async-issue-";
+    private static final int STACK_SAMPLE_EVERY = Math.max(1,
+        Integer.getInteger("lc2h.asyncwatch.stack_sample", 64));
+    private static final int MAX_CALL_SITES = Math.max(16,
+        Integer.getInteger("lc2h.asyncwatch.max_sites", 512));
+    private static final int MAX_SAMPLED_NAMES = 1024;
+    private static final int STACK_SKIP = 3;
+    private static final int STACK_DEPTH = 17;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
 
     private static volatile AsyncIssueMonitor INSTANCE = null;
 
@@ -51,6 +63,9 @@ public final class AsyncIssueMonitor {
     private final long timeoutMs;
     private final ScheduledExecutorService watchdog;
     private final ConcurrentHashMap<CompletableFuture<?>, TrackedTask> tracked = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<SiteKey, CallSite> callSites = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> submissionsByName = new ConcurrentHashMap<>();
+    private final AtomicLong overflowSubmissions = new AtomicLong();
     private final AtomicBoolean active = new AtomicBoolean(false);
     private final AtomicLong lastCleanupMs = new AtomicLong(0L);
 
@@ -112,17 +127,57 @@ public final class AsyncIssueMonitor {
 
     private <T> void trackInternal(String taskName, CompletableFuture<T> future) {
         String safeName = taskName == null ? "unknown-task" : taskName;
-        TrackedTask task = new TrackedTask(safeName, System.currentTimeMillis(), Thread.currentThread().getName(),
-            captureCreationStack());
+        CallSite site = shouldSampleStack(safeName) ? internCallSite(safeName) : null;
+        TrackedTask task = new TrackedTask(safeName, System.currentTimeMillis(), Thread.currentThread().getName(), site);
         tracked.put(future, task);
         future.whenComplete((value, throwable) -> {
             tracked.remove(future);
+            if (site != null) {
+                site.recordLatency(System.currentTimeMillis() - task.startMs);
+            }
             if (throwable != null) {
                 writeIssueDump("failure", task, throwable);
             }
         });
     }
 
+    // The first submission of each task name is always sampled, then one in STACK_SAMPLE_EVERY.
+    private boolean shouldSampleStack(String taskName) {
+        AtomicLong counter = submissionsByName.get(taskName);
+        if (counter == null) {
+            counter = submissionsByName.size() < MAX_SAMPLED_NAMES
+                ? submissionsByName.computeIfAbsent(taskName, unused -> new AtomicLong())
+                : overflowSubmissions;
+        }
+        return counter.getAndIncrement() % STACK_SAMPLE_EVERY == 0L;
+    }
+
+    // Identical creation stacks share one entry; the stack text is only formatted the first time a site is seen.
+    private CallSite internCallSite(String taskName) {
+        List<StackWalker.StackFrame> frames;
+        try {
+            frames = STACK_WALKER.walk(stream -> stream.skip(STACK_SKIP).limit(STACK_DEPTH).toList());
+        } catch (Throwable t) {
+            return null;
+        }
+        long hash = 17L;
+        for (StackWalker.StackFrame frame : frames) {
+            hash = hash * 31L + frame.getClassName().hashCode();
+            hash = hash * 31L + frame.getMethodName().hashCode();
+            hash = hash * 31L + frame.getLineNumber();
+        }
+        SiteKey key = new SiteKey(taskName, hash);
+        CallSite site = callSites.get(key);
+        if (site == null) {
+            if (callSites.size() >= MAX_CALL_SITES) {
+                return null;
+            }
+            site = callSites.computeIfAbsent(key, unused -> new CallSite(taskName, formatFrames(frames)));
+        }
+        site.captures.increment();
+        return site;
+    }
+
     private void checkForIssues() {
         try {
             long now = System.currentTimeMillis();
@@ -248,6 +303,7 @@ public final class AsyncIssueMonitor {
         sb.append("Kind: main-queue-backlog\n");
         sb.append("Main queue size: ").append(size).append('\n');
         sb.append("Oldest queued age (ms): ").append(ageMs).append('\n');
+        sb.append("Rejected offers (pushback): ").append(AsyncManager.getMainThreadQueueRejectedCount()).append('\n');
         sb.append("Elapsed tick (ms): ").append(String.format(java.util.Locale.ROOT, "%.2f", ServerTickLoad.getElapsedMsInCurrentTick())).append('\n');
         sb.append("Last tick (ms): ").append(String.format(java.util.Locale.ROOT, "%.2f", ServerTickLoad.getLastTickMs())).append('\n');
         sb.append("Smoothed tick (ms): ").append(String.format(java.util.Locale.ROOT, "%.2f", ServerTickLoad.getSmoothedTickMs())).append('\n');
@@ -309,14 +365,24 @@ public final class AsyncIssueMonitor {
         sb.append("Creator thread: ").append(task.threadName).append('\n');
         sb.append("Tracked tasks: ").append(tracked.size()).append("\n\n");
 
-        if (task.creationStack != null && !task.creationStack.isEmpty()) {
-            sb.append("== TASK CREATION STACK ==\n");
-            sb.append(task.creationStack).append('\n');
-        }
-
         Set<String> suspects = new LinkedHashSet<>();
-        if (task.creationStack != null && !task.creationStack.isEmpty()) {
-            suspects.addAll(extractSuspects(task.creationStack));
+        if (task.site != null) {
+            sb.append("== TASK CREATION STACK ==\n");
+            sb.append(task.site.stack).append('\n');
+            suspects.addAll(extractSuspects(task.site.stack));
+        }
+        List<CallSite> sites = callSitesFor(task.name, 5);
+        if (!sites.isEmpty()) {
+            sb.append(task.site == null
+                ? "== SAMPLED CREATION SITES FOR THIS TASK (stack not sampled for this instance) ==\n"
+                : "== SAMPLED CREATION SITES FOR THIS TASK ==\n");
+            for (CallSite site : sites) {
+                site.describe(sb);
+                if (task.site == null) {
+                    suspects.addAll(extractSuspects(site.stack));
+                }
+            }
+            sb.append('\n');
         }
 
         if (throwable != null) {
@@ -360,15 +426,21 @@ public final class AsyncIssueMonitor {
         }
     }
 
-    private static String captureCreationStack() {
-        StackTraceElement[] trace = Thread.currentThread().getStackTrace();
-        if (trace == null || trace.length == 0) {
-            return "";
+    private List<CallSite> callSitesFor(String taskName, int limit) {
+        List<CallSite> out = new ArrayList<>();
+        for (CallSite site : callSites.values()) {
+            if (site.taskName.equals(taskName)) {
+                out.add(site);
+            }
         }
+        out.sort(Comparator.comparingLong((CallSite site) -> site.captures.sum()).reversed());
+        return out.size() <= limit ? out : out.subList(0, limit);
+    }
+
+    private static String formatFrames(List<StackWalker.StackFrame> frames) {
         StringBuilder sb = new StringBuilder();
-        int limit = Math.min(trace.length, 20);
-        for (int i = 3; i < limit; i++) {
-            sb.append("    at ").append(trace[i]).append('\n');
+        for (StackWalker.StackFrame frame : frames) {
+            sb.append("    at ").append(frame.toStackTraceElement()).append('\n');
         }
         return sb.toString().trim();
     }
@@ -509,14 +581,45 @@ public final class AsyncIssueMonitor {
         private final String name;
         private final long startMs;
         private final String threadName;
-        private final String creationStack;
+        private final CallSite site;
         private final AtomicBoolean reported = new AtomicBoolean(false);
 
-        private TrackedTask(String name, long startMs, String threadName, String creationStack) {
+        private TrackedTask(String name, long startMs, String threadName, CallSite site) {
             this.name = name;
             this.startMs = startMs;
             this.threadName = threadName;
-            this.creationStack = creationStack;
+            this.site = site;
+        }
+    }
+
+    private record SiteKey(String taskName, long stackHash) {
+    }
+
+    private static final class CallSite {
+        private final String taskName;
+        private final String stack;
+        private final LongAdder captures = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder totalLatencyMs = new LongAdder();
+        private final AtomicLong maxLatencyMs = new AtomicLong();
+
+        private CallSite(String taskName, String stack) {
+            this.taskName = taskName;
+            this.stack = stack;
+        }
+
+        private void recordLatency(long latencyMs) {
+            long value = Math.max(0L, latencyMs);
+            completed.increment();
+            totalLatencyMs.add(value);
+            maxLatencyMs.accumulateAndGet(value, Math::max);
+        }
+
+        private void describe(StringBuilder sb) {
+            long done = completed.sum();
+            sb.append(String.format(java.util.Locale.ROOT, "-- sampled=%d completed=%d avg=%.1fms max=%dms\n",
+                captures.sum(), done, done == 0L ? 0.0D : totalLatencyMs.sum() / (double) done, maxLatencyMs.get()));
+            sb.append(stack).append('\n');
         }
     }
 }
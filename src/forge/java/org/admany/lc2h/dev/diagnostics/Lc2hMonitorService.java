@@ -10,6 +10,7 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.loading.FMLPaths;
 import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.async.AdmissionController;
 import org.admany.lc2h.data.cache.FeatureCache;
 import org.admany.lc2h.tweaks.TweaksActorSystem;
 import org.admany.lc2h.util.chunk.ChunkPostProcessor;
@@ -52,6 +53,7 @@ public final class Lc2hMonitorService {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final DateTimeFormatter FILE_TS =
         DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss").withZone(ZoneId.systemDefault());
+    private static final int SAMPLE_TASK_LATENCY_LIMIT = Math.max(1, Integer.getInteger("lc2h.monitor.sample_task_latency", 8));
 
     private static volatile Session ACTIVE = null;
     private static volatile FinishedReport LAST_REPORT = null;
@@ -201,6 +203,9 @@ public final class Lc2hMonitorService {
         private final Map<Long, Long> lastThreadCpuNs = new ConcurrentHashMap<>();
         private final Map<Long, Long> totalThreadCpuNs = new ConcurrentHashMap<>();
         private final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+        // Only the session start and the latest capture are kept as full histograms; samples hold percentiles.
+        private final Map<String, Lc2hTaskLatencyRegistry.TaskLatencySnapshot> startTaskLatency;
+        private Map<String, Lc2hTaskLatencyRegistry.TaskLatencySnapshot> lastTaskLatency;
         private long nextSampleTick;
 
         private Session(MinecraftServer server, String initiator, int durationSeconds) {
@@ -210,6 +215,8 @@ public final class Lc2hMonitorService {
             this.startMs = System.currentTimeMillis();
             this.startTick = server.getTickCount();
             this.nextSampleTick = startTick;
+            this.startTaskLatency = Lc2hTaskLatencyRegistry.snapshot();
+            this.lastTaskLatency = startTaskLatency;
         }
 
         private long elapsedSeconds(MinecraftServer server) {
@@ -227,7 +234,10 @@ public final class Lc2hMonitorService {
             MonitorSample sample = MonitorSample.capture(server, this);
             samples.add(sample);
             summary.accept(sample);
-            sampleThreadCpu();
+            // The per-thread CPU walk is the expensive part of a sample; it is the first thing to go under load.
+            if (AdmissionController.admit(AdmissionController.WorkClass.DIAGNOSTICS)) {
+                sampleThreadCpu();
+            }
         }
 
         private void sampleThreadCpu() {
@@ -339,6 +349,7 @@ public final class Lc2hMonitorService {
         private Map<String, Lc2hTimingRegistry.TimingSnapshot> startTimings = Map.of();
         private Map<String, Lc2hTimingRegistry.TimingSnapshot> endTimings = Map.of();
         private List<TimingBucketDelta> topTimingBuckets = List.of();
+        private List<Lc2hTaskLatencyRegistry.TaskLatencySummary> taskLatency = List.of();
 
         private void accept(MonitorSample sample) {
             sampleCount++;
@@ -389,6 +400,7 @@ public final class Lc2hMonitorService {
                 .sorted(Comparator.comparingLong(TimingBucketDelta::totalNs).reversed())
                 .limit(16)
                 .collect(Collectors.toList());
+            taskLatency = Lc2hTaskLatencyRegistry.summarize(session.lastTaskLatency, session.startTaskLatency, 24);
         }
 
         private Map<String, Object> toJsonModel() {
@@ -425,6 +437,7 @@ public final class Lc2hMonitorService {
             out.put("startTimings", startTimings);
             out.put("endTimings", endTimings);
             out.put("topTimingBuckets", topTimingBuckets);
+            out.put("taskLatency", taskLatency);
             return out;
         }
     }
@@ -503,6 +516,7 @@ public final class Lc2hMonitorService {
         private final int daemonThreads;
         private final int loadedClassCount;
         private final Map<String, Lc2hTimingRegistry.TimingSnapshot> subsystemTimings;
+        private final List<Lc2hTaskLatencyRegistry.TaskLatencySummary> taskLatency;
 
         private MonitorSample(
             long wallTimeMs,
@@ -574,7 +588,8 @@ public final class Lc2hMonitorService {
             int liveThreads,
             int daemonThreads,
             int loadedClassCount,
-            Map<String, Lc2hTimingRegistry.TimingSnapshot> subsystemTimings
+            Map<String, Lc2hTimingRegistry.TimingSnapshot> subsystemTimings,
+            List<Lc2hTaskLatencyRegistry.TaskLatencySummary> taskLatency
         ) {
             this.wallTimeMs = wallTimeMs;
             this.serverTick = serverTick;
@@ -646,6 +661,7 @@ public final class Lc2hMonitorService {
             this.daemonThreads = daemonThreads;
             this.loadedClassCount = loadedClassCount;
             this.subsystemTimings = subsystemTimings;
+            this.taskLatency = taskLatency;
         }
 
         private static MonitorSample capture(MinecraftServer server, Session session) {
@@ -764,10 +780,20 @@ public final class Lc2hMonitorService {
                 threadBean.getThreadCount(),
                 threadBean.getDaemonThreadCount(),
                 classBean.getLoadedClassCount(),
-                timings
+                timings,
+                intervalTaskLatency(session)
             );
         }
 
+        // Percentiles for the tasks that ran since the previous sample; the full histograms stay in the registry.
+        private static List<Lc2hTaskLatencyRegistry.TaskLatencySummary> intervalTaskLatency(Session session) {
+            Map<String, Lc2hTaskLatencyRegistry.TaskLatencySnapshot> now = Lc2hTaskLatencyRegistry.snapshot();
+            List<Lc2hTaskLatencyRegistry.TaskLatencySummary> interval =
+                Lc2hTaskLatencyRegistry.summarize(now, session.lastTaskLatency, SAMPLE_TASK_LATENCY_LIMIT);
+            session.lastTaskLatency = now;
+            return interval;
+        }
+
         private Map<String, Object> toJsonModel() {
             Map<String, Object> out = new LinkedHashMap<>();
             out.put("wallTimeMs", wallTimeMs);
@@ -840,6 +866,7 @@ public final class Lc2hMonitorService {
             out.put("daemonThreads", daemonThreads);
             out.put("loadedClassCount", loadedClassCount);
             out.put("subsystemTimings", subsystemTimings);
+            out.put("taskLatency", taskLatency);
             return out;
         }
 
@@ -7,6 +7,7 @@ import mcjty.lostcities.api.LostChunkCharacteristics;
 
 import org.admany.lc2h.worldgen.async.generator.AsyncBuildingGenerator;
 import org.admany.lc2h.worldgen.async.planner.AsyncBuildingInfoPlanner;
+import org.admany.lc2h.worldgen.async.planner.ChunkPlanGraph;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -21,10 +22,14 @@ public abstract class MixinBuildingInfo {
             return;
         }
         Object cached = AsyncBuildingInfoPlanner.getIfReady(coord);
+        if (cached == null) {
+            cached = AsyncBuildingInfoPlanner.takeOverQueued(coord);
+        }
         if (cached instanceof BuildingInfo bi) {
             cir.setReturnValue(bi);
             cir.cancel();
         } else {
+            ChunkPlanGraph.promote(coord);
             AsyncBuildingInfoPlanner.preSchedule(info, coord);
         }
     }
@@ -12,6 +12,7 @@ import net.minecraft.world.level.Level;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.ServerLevelAccessor;
+import org.admany.lc2h.dev.diagnostics.ChunkTraceRecorder;
 import org.admany.lc2h.worldgen.async.warmup.AsyncChunkWarmup;
 import org.admany.lc2h.worldgen.lostcities.LostCityFeatureGuards;
 import org.admany.lc2h.worldgen.lostcities.LostCitiesGenerationLocks;
@@ -114,7 +115,19 @@ public class MixinLostCityFeature {
         final int cx = chunk.getPos().x;
         final int cz = chunk.getPos().z;
 
-        LostCitiesGenerationLocks.withChunkStripeLock(dim, cx, cz, () -> feature.generate(region, chunk));
+        long traceId = ChunkTraceRecorder.isEnabled() ? ChunkTraceRecorder.idFor(new ChunkCoord(dim, cx, cz)) : 0L;
+        if (traceId == 0L) {
+            LostCitiesGenerationLocks.withChunkStripeLock(dim, cx, cz, () -> feature.generate(region, chunk));
+            return;
+        }
+        long startNs = System.nanoTime();
+        long previousTrace = ChunkTraceRecorder.enter(traceId);
+        try {
+            LostCitiesGenerationLocks.withChunkStripeLock(dim, cx, cz, () -> feature.generate(region, chunk));
+        } finally {
+            ChunkTraceRecorder.exit(previousTrace);
+            ChunkTraceRecorder.span(traceId, "lostcities-generate", startNs);
+        }
     }
 
     @Inject(method = "m_142674_(Lnet/minecraft/world/level/levelgen/feature/FeaturePlaceContext;)Z",
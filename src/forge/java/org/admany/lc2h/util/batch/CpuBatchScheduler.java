@@ -3,9 +3,8 @@ package org.admany.lc2h.util.batch;
 import org.admany.lc2h.LC2H;
 import org.admany.lc2h.concurrency.async.AsyncManager;
 import org.admany.lc2h.concurrency.async.Priority;
+import org.admany.lc2h.concurrency.backend.SchedulerBackends;
 import org.admany.lc2h.dev.diagnostics.Lc2hTimingRegistry;
-import org.admany.quantified.api.QuantifiedAPI;
-import org.admany.quantified.api.model.QuantifiedTask;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -58,7 +57,7 @@ public final class CpuBatchScheduler {
 
     private static void scheduleFlush(String name, boolean immediate) {
         try {
-            QuantifiedAPI.submit(QuantifiedTask.<Void>builder(LC2H.MODID, name, () -> {
+            SchedulerBackends.current().<Void>submit(name, AsyncManager.quantifiedBatchKey(name, Priority.HIGH), () -> {
                 if (!immediate && SPIN_WAIT_MS > 0L) {
                     final long deadline = System.nanoTime() + SPIN_WAIT_MS * 1_000_000L;
                     int spinSleeps = 0;
@@ -79,8 +78,7 @@ public final class CpuBatchScheduler {
                 }
                 flush();
                 return null;
-            }).priorityForeground()
-                .batchKey(AsyncManager.quantifiedBatchKey(name, Priority.HIGH)));
+            }, true);
         } catch (Throwable t) {
             LC2H.LOGGER.debug("[LC2H] CpuBatchScheduler submit fallback: {}", t.toString());
             flush();
@@ -33,6 +33,7 @@ import mcjty.lostcities.setup.Registration;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import org.admany.lc2h.LC2H;
 import org.admany.lc2h.log.LCLogger;
+import org.admany.lc2h.concurrency.async.AdmissionController;
 import org.admany.lc2h.config.ConfigManager;
 import org.admany.lc2h.dev.diagnostics.Lc2hTimingRegistry;
 import org.admany.lc2h.util.batch.CpuBatchScheduler;
@@ -179,6 +180,11 @@ public class ChunkPostProcessor {
     private static final long CHUNK_SCAN_ENQUEUE_COOLDOWN_MS = Math.max(250L,
         Long.getLong("lc.floating.chunk_enqueue_cooldown_ms", 5000L));
 
+    static {
+        AdmissionController.registerGauge(AdmissionController.WorkClass.CLEANUP, "post-process-scans", CHUNK_SCAN_PROGRESS::size);
+        AdmissionController.registerGauge(AdmissionController.WorkClass.CLEANUP, "floating-checks", ChunkPostProcessor::pendingFloatingChecks);
+    }
+
     private static final class PendingCheckQueue {
         private final ConcurrentLinkedQueue<Long> queue = new ConcurrentLinkedQueue<>();
         private final AtomicInteger size = new AtomicInteger();
@@ -1029,6 +1035,10 @@ public class ChunkPostProcessor {
             } catch (Throwable ignored) {
             }
 
+            if (!AdmissionController.admit(AdmissionController.WorkClass.CLEANUP)) {
+                return;
+            }
+
             long gate = ((long) key.chunkX() << 32) ^ (key.chunkZ() & 0xffffffffL);
             if (key.dimension() != null) {
                 gate ^= key.dimension().hashCode();
@@ -1986,6 +1996,14 @@ public class ChunkPostProcessor {
         FLOATING_DRAIN_REQUESTED.set(true);
     }
 
+    private static int pendingFloatingChecks() {
+        int total = 0;
+        for (PendingCheckQueue bucket : PENDING_FLOATING.values()) {
+            total += Math.max(0, bucket.size.get());
+        }
+        return total;
+    }
+
     private static void drainFloatingChecks(MinecraftServer server) {
         if (!ConfigManager.ENABLE_FLOATING_VEGETATION_REMOVAL) {
             FLOATING_DRAIN_REQUESTED.set(false);
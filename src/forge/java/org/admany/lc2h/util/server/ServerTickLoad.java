@@ -14,6 +14,7 @@ public final class ServerTickLoad {
     private static final long CONFIG_REFRESH_NS = java.util.concurrent.TimeUnit.SECONDS.toNanos(1);
 
     private static volatile long tickStartNs = 0L;
+    private static volatile boolean tickRunning = false;
     private static volatile double lastTickMs = 0.0D;
     private static volatile double smoothedTickMs = 0.0D;
     private static volatile double elapsedLimitMs = readDouble("lc2h.lag_guard.elapsed_ms", 18.0D);
@@ -30,9 +31,11 @@ public final class ServerTickLoad {
     public static void onServerTick(TickEvent.ServerTickEvent event) {
         if (event.phase == TickEvent.Phase.START) {
             tickStartNs = System.nanoTime();
+            tickRunning = true;
             return;
         }
 
+        tickRunning = false;
         long start = tickStartNs;
         if (start == 0L) {
             return;
@@ -55,6 +58,11 @@ public final class ServerTickLoad {
         return (System.nanoTime() - start) / 1_000_000.0D;
     }
 
+    // Like getElapsedMsInCurrentTick, but 0 between ticks, so time spent sleeping until the next tick does not count.
+    public static double getRunningTickMs() {
+        return tickRunning ? getElapsedMsInCurrentTick() : 0.0D;
+    }
+
     public static double getLastTickMs() {
         return lastTickMs;
     }
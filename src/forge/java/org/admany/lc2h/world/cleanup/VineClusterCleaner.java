@@ -16,6 +16,7 @@ import net.minecraftforge.event.level.ChunkEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.async.AdmissionController;
 import org.admany.lc2h.concurrency.async.AsyncManager;
 import org.admany.lc2h.data.cache.FeatureCache;
 import org.admany.lc2h.util.server.ServerTickLoad;
@@ -481,7 +482,7 @@ public final class VineClusterCleaner {
 
     private static boolean tryEnterScan() {
         int inFlight = IN_FLIGHT.incrementAndGet();
-        if (inFlight > MAX_IN_FLIGHT) {
+        if (inFlight > MAX_IN_FLIGHT || !AdmissionController.tryAcquire(AdmissionController.WorkClass.CLEANUP)) {
             IN_FLIGHT.decrementAndGet();
             return false;
         }
@@ -490,6 +491,7 @@ public final class VineClusterCleaner {
 
     private static void exitScan() {
         IN_FLIGHT.decrementAndGet();
+        AdmissionController.release(AdmissionController.WorkClass.CLEANUP);
     }
 
     private static Set<BlockPos> collectVineStarts(LevelChunk chunk, int baseX, int baseZ, int minY, int maxY) {
@@ -655,7 +657,10 @@ public final class VineClusterCleaner {
         if (!REMOVAL_DRAIN_SCHEDULED.compareAndSet(false, true)) {
             return;
         }
-        AsyncManager.syncToMain(() -> drainRemovalQueue(level));
+        if (!AsyncManager.syncToMain("vine-removal-drain", () -> drainRemovalQueue(level))) {
+            REMOVAL_DRAIN_SCHEDULED.set(false);
+            AsyncManager.runLater("vine-removal-drain", () -> scheduleRemovalDrain(level), 50L, Priority.LOW);
+        }
     }
 
     private static void drainRemovalQueue(ServerLevel fallbackLevel) {
@@ -0,0 +1,95 @@
+package org.admany.lc2h.worldgen.apply;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Learned main-thread cost per task kind: an EWMA of the duration and of its variance. predictNs() is the mean plus
+// a margin of standard deviations, so packing a tick with predictions leaves room for the usual spread. Kinds that
+// have not been seen yet borrow the running mean over all kinds.
+public final class ApplyCostModel {
+
+    private static final double ALPHA = 0.2D;
+    private static final double SIGMAS = Math.max(0.0D, readDouble("lc2h.apply.costSigmas", 1.0D));
+    private static final long DEFAULT_PRIOR_NS = 250_000L;
+    private static final int MAX_KINDS = 256;
+
+    private final ConcurrentHashMap<String, Estimate> estimates = new ConcurrentHashMap<>();
+    private final Estimate overall = new Estimate();
+
+    private static final class Estimate {
+        private volatile double meanNs;
+        private volatile double varianceNs2;
+        private volatile long samples;
+
+        private void record(long ns) {
+            if (samples == 0L) {
+                meanNs = ns;
+                varianceNs2 = 0.0D;
+            } else {
+                double diff = ns - meanNs;
+                double increment = ALPHA * diff;
+                meanNs += increment;
+                varianceNs2 = (1.0D - ALPHA) * (varianceNs2 + diff * increment);
+            }
+            samples++;
+        }
+
+        private long predictNs() {
+            return (long) (meanNs + SIGMAS * Math.sqrt(Math.max(0.0D, varianceNs2)));
+        }
+    }
+
+    long predictNs(String kind) {
+        Estimate estimate = kind == null ? null : estimates.get(kind);
+        if (estimate != null && estimate.samples > 0L) {
+            return estimate.predictNs();
+        }
+        return overall.samples > 0L ? overall.predictNs() : DEFAULT_PRIOR_NS;
+    }
+
+    void record(String kind, long ns) {
+        if (ns < 0L) {
+            return;
+        }
+        overall.record(ns);
+        if (kind == null) {
+            return;
+        }
+        Estimate estimate = estimates.get(kind);
+        if (estimate == null) {
+            if (estimates.size() >= MAX_KINDS) {
+                return;
+            }
+            estimate = estimates.computeIfAbsent(kind, unused -> new Estimate());
+        }
+        estimate.record(ns);
+    }
+
+    List<KindCost> snapshot() {
+        List<KindCost> out = new ArrayList<>(estimates.size());
+        for (Map.Entry<String, Estimate> entry : estimates.entrySet()) {
+            Estimate estimate = entry.getValue();
+            out.add(new KindCost(entry.getKey(), (long) estimate.meanNs,
+                (long) Math.sqrt(Math.max(0.0D, estimate.varianceNs2)), estimate.samples));
+        }
+        out.sort((a, b) -> Long.compare(b.samples(), a.samples()));
+        return out;
+    }
+
+    private static double readDouble(String key, double fallback) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException ignored) {
+            return fallback;
+        }
+    }
+
+    public record KindCost(String kind, long meanNs, long stddevNs, long samples) {
+    }
+}
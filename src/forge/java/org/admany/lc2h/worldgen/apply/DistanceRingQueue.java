@@ -0,0 +1,169 @@
+package org.admany.lc2h.worldgen.apply;
+
+import mcjty.lostcities.varia.ChunkCoord;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Chunks queued by distance to the nearest anchor (players, or spawn when nobody is online). Chunks are grouped into
+// 4x4-chunk cells and cells into 64-block distance rings; a bit per ring tracks which rings hold anything, so the
+// closest ring is found in one step. When an anchor crosses into another cell, the cells (not the chunks) are put
+// into their new rings, which demotes everything a player has flown away from in one pass over the cells.
+final class DistanceRingQueue<T> {
+
+    private static final int CELL_SHIFT = 2;
+    private static final int RINGS = 64;
+    private static final double RING_WIDTH_BLOCKS = 16.0D * (1 << CELL_SHIFT);
+
+    private final HashMap<ChunkCoord, Cell<T>> cells = new HashMap<>();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Cell<T>>[] rings = new ArrayDeque[RINGS];
+    private long nonEmptyRings;
+    private int size;
+    private double spawnX;
+    private double spawnZ;
+    private double[] anchorXs = new double[0];
+    private double[] anchorZs = new double[0];
+    private long[] anchorCells = new long[0];
+    private long rebuckets;
+
+    private static final class Cell<T> {
+        private final ChunkCoord key;
+        private final ArrayDeque<T> items = new ArrayDeque<>();
+        private int ring = -1;
+
+        private Cell(ChunkCoord key) {
+            this.key = key;
+        }
+    }
+
+    DistanceRingQueue() {
+        for (int i = 0; i < RINGS; i++) {
+            rings[i] = new ArrayDeque<>();
+        }
+    }
+
+    synchronized void offer(ChunkCoord chunk, T item) {
+        cellFor(chunk).items.addLast(item);
+        size++;
+    }
+
+    // For items taken out and handed back unprocessed; they keep their place ahead of the rest of their cell.
+    synchronized void offerFirst(ChunkCoord chunk, T item) {
+        cellFor(chunk).items.addFirst(item);
+        size++;
+    }
+
+    synchronized T poll() {
+        while (nonEmptyRings != 0L) {
+            int r = Long.numberOfTrailingZeros(nonEmptyRings);
+            ArrayDeque<Cell<T>> ring = rings[r];
+            Cell<T> cell = ring.peekFirst();
+            if (cell == null) {
+                nonEmptyRings &= ~(1L << r);
+                continue;
+            }
+            T item = cell.items.pollFirst();
+            if (cell.items.isEmpty()) {
+                ring.pollFirst();
+                cells.remove(cell.key);
+                cell.ring = -1;
+                if (ring.isEmpty()) {
+                    nonEmptyRings &= ~(1L << r);
+                }
+            }
+            if (item != null) {
+                size--;
+                return item;
+            }
+        }
+        return null;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    synchronized long rebuckets() {
+        return rebuckets;
+    }
+
+    // Re-buckets only when an anchor moved into another cell or anchors came or went; movement inside a cell
+    // changes no ring by more than one and is left alone.
+    synchronized void updateAnchors(double spawnX, double spawnZ, double[] xs, double[] zs) {
+        int count = Math.min(xs.length, zs.length);
+        long[] nextCells = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            nextCells[i] = cellOfBlock(xs[i], zs[i]);
+        }
+        nextCells[count] = cellOfBlock(spawnX, spawnZ);
+        this.spawnX = spawnX;
+        this.spawnZ = spawnZ;
+        this.anchorXs = xs;
+        this.anchorZs = zs;
+        if (Arrays.equals(nextCells, anchorCells)) {
+            return;
+        }
+        anchorCells = nextCells;
+        if (cells.isEmpty()) {
+            return;
+        }
+        rebuckets++;
+        for (ArrayDeque<Cell<T>> ring : rings) {
+            ring.clear();
+        }
+        nonEmptyRings = 0L;
+        for (Cell<T> cell : cells.values()) {
+            place(cell);
+        }
+    }
+
+    private Cell<T> cellFor(ChunkCoord chunk) {
+        ChunkCoord key = new ChunkCoord(chunk.dimension(), chunk.chunkX() >> CELL_SHIFT, chunk.chunkZ() >> CELL_SHIFT);
+        Cell<T> cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell<>(key);
+            cells.put(key, cell);
+        }
+        if (cell.ring < 0) {
+            place(cell);
+        }
+        return cell;
+    }
+
+    private void place(Cell<T> cell) {
+        int ring = ringOf(cell.key);
+        cell.ring = ring;
+        rings[ring].addLast(cell);
+        nonEmptyRings |= 1L << ring;
+    }
+
+    private int ringOf(ChunkCoord cellKey) {
+        double cx = ((cellKey.chunkX() << CELL_SHIFT) + (1 << (CELL_SHIFT - 1))) * 16.0D;
+        double cz = ((cellKey.chunkZ() << CELL_SHIFT) + (1 << (CELL_SHIFT - 1))) * 16.0D;
+        double minDistSq = Double.MAX_VALUE;
+        int count = Math.min(anchorXs.length, anchorZs.length);
+        for (int i = 0; i < count; i++) {
+            double dx = cx - anchorXs[i];
+            double dz = cz - anchorZs[i];
+            minDistSq = Math.min(minDistSq, dx * dx + dz * dz);
+        }
+        if (minDistSq == Double.MAX_VALUE) {
+            double dx = cx - spawnX;
+            double dz = cz - spawnZ;
+            minDistSq = dx * dx + dz * dz;
+        }
+        return (int) Math.min(RINGS - 1, Math.sqrt(minDistSq) / RING_WIDTH_BLOCKS);
+    }
+
+    private static long cellOfBlock(double x, double z) {
+        long cx = (long) Math.floor(x / RING_WIDTH_BLOCKS);
+        long cz = (long) Math.floor(z / RING_WIDTH_BLOCKS);
+        return (cx << 32) ^ (cz & 0xffffffffL);
+    }
+}
@@ -28,9 +28,10 @@ import org.admany.lc2h.util.server.ServerRescheduler;
 import org.admany.lc2h.dev.diagnostics.ViewCullingStats;
 import org.admany.lc2h.dev.diagnostics.Lc2hTimingRegistry;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -41,26 +42,18 @@ import java.util.concurrent.atomic.LongAdder;
 @Mod.EventBusSubscriber(modid = LC2H.MODID)
 public class MainThreadChunkApplier {
 
-    private record PriorityAnchors(
-        double spawnX,
-        double spawnZ,
-        double[] playerXs,
-        double[] playerZs
-    ) {
-    }
-
-    private static volatile PriorityAnchors PRIORITY_ANCHORS = new PriorityAnchors(0.0, 0.0, new double[0], new double[0]);
-
     private record ChunkQueueEntry(
         ChunkCoord chunk,
-        double priorityDistanceSq
+        long traceId,
+        long enqueuedNs
     ) {}
 
-    private static final PriorityBlockingQueue<ChunkQueueEntry> APPLICATION_QUEUE =
-        new PriorityBlockingQueue<>(256, Comparator.comparingDouble(ChunkQueueEntry::priorityDistanceSq));
+    // Nearest-first by distance ring around the players; re-bucketed when a player moves, not per entry.
+    private static final DistanceRingQueue<ChunkQueueEntry> APPLICATION_QUEUE = new DistanceRingQueue<>();
 
     private static final ConcurrentHashMap<ChunkCoord, Boolean> APPLIED_CHUNKS = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<ChunkCoord, Runnable> PENDING_TASKS = new ConcurrentHashMap<>();
+    private record PendingApply(Runnable task, String costKind) {}
+    private static final ConcurrentHashMap<ChunkCoord, PendingApply> PENDING_TASKS = new ConcurrentHashMap<>();
 
     private static final AtomicBoolean DRAIN_SCHEDULED = new AtomicBoolean(false);
 
@@ -75,14 +68,23 @@ public class MainThreadChunkApplier {
 
     private static final long DEFAULT_TICK_BUDGET_NS = TimeUnit.MILLISECONDS.toNanos(1);
     private static final long STARTUP_TICK_BUDGET_NS = TimeUnit.MILLISECONDS.toNanos(6);
-    private static final int DEFAULT_MAX_TASKS_PER_TICK = 4;
+    // Task counts are only a safety cap now; the learned costs decide how many tasks fit the time budget.
+    private static final int DEFAULT_MAX_TASKS_PER_TICK = Math.max(4, Integer.getInteger("lc2h.apply.maxTasksPerTick", 48));
     private static final int STARTUP_MAX_TASKS_PER_TICK = 64;
-    private static final int MAX_CREATE_CHUNK_REFRESH_PER_TICK = 4;
-    private static final int MAX_CREATE_BLOCK_REFRESH_PER_TICK = 4;
-    private static final int MAX_RS_CHUNK_REFRESH_PER_TICK = 8;
-    private static final int MAX_TICKER_REREGISTER_PER_TICK = 16;
+    private static final int PACK_LOOKAHEAD = Math.max(1, Integer.getInteger("lc2h.apply.packLookahead", 8));
     private static final long AUX_DRAIN_BUDGET_NS_PLAYERS = TimeUnit.MILLISECONDS.toNanos(1);
     private static final long AUX_DRAIN_BUDGET_NS_STARTUP = TimeUnit.MILLISECONDS.toNanos(3);
+    private static final long AUX_DRAIN_BUDGET_NS_OVERLOADED = TimeUnit.MICROSECONDS.toNanos(250);
+    private static final String COST_TICKER = "ticker";
+    private static final String COST_CREATE_CHUNK = "create-chunk";
+    private static final String COST_CREATE_BLOCK = "create-block";
+    private static final String COST_RS_CHUNK = "rs-chunk";
+    private static final ApplyCostModel COSTS = new ApplyCostModel();
+    private static final LongAdder BUDGET_OFFERED_NS = new LongAdder();
+    private static final LongAdder BUDGET_USED_NS = new LongAdder();
+    private static final LongAdder BUDGET_OVERSHOOTS = new LongAdder();
+    private static final LongAdder BUDGET_OVERSHOOT_NS = new LongAdder();
+    private static final LongAdder PACK_PASSED_OVER = new LongAdder();
     private static final boolean CREATE_PRESENT = ModList.get().isLoaded("create");
     private static final boolean REFINED_STORAGE_PRESENT = ModList.get().isLoaded("refinedstorage");
     private static final ResourceLocation CREATE_WHEEL_BE_ID = ResourceLocations.of("create", "crushing_wheel");
@@ -125,6 +127,11 @@ public class MainThreadChunkApplier {
 
 
     public static void enqueueChunkApplication(ChunkCoord chunk, Runnable applicationTask) {
+        enqueueChunkApplication(chunk, applicationTask, "apply");
+    }
+
+    // costKind groups tasks whose main-thread cost is alike, so the drain can predict how long this one will take.
+    public static void enqueueChunkApplication(ChunkCoord chunk, Runnable applicationTask, String costKind) {
         if (chunk == null || applicationTask == null) {
             return;
         }
@@ -148,13 +155,14 @@ public class MainThreadChunkApplier {
         }
 
         // Coalesce by chunk: keep only the latest task per chunk and queue each chunk once.
-        if (PENDING_TASKS.putIfAbsent(chunk, applicationTask) != null) {
-            PENDING_TASKS.put(chunk, applicationTask);
+        PendingApply pending = new PendingApply(applicationTask, costKind);
+        if (PENDING_TASKS.putIfAbsent(chunk, pending) != null) {
+            PENDING_TASKS.put(chunk, pending);
             return;
         }
 
-        double priorityDistanceSq = calculatePriorityDistanceSq(chunk);
-        APPLICATION_QUEUE.offer(new ChunkQueueEntry(chunk, priorityDistanceSq));
+        long traceId = ChunkTraceRecorder.idFor(chunk);
+        APPLICATION_QUEUE.offer(chunk, new ChunkQueueEntry(chunk, traceId, traceId == 0L ? 0L : System.nanoTime()));
 
         // Fast path - we apply prepared work ASAP on the server thread instead of waiting for tick END.
         // This still uses the same drain() budget logic, and remains main-thread only for better performance.
@@ -189,34 +197,6 @@ public class MainThreadChunkApplier {
         }
     }
 
-    private static double calculatePriorityDistanceSq(ChunkCoord chunk) {
-        double cx = chunk.chunkX() * 16.0 + 8.0;
-        double cz = chunk.chunkZ() * 16.0 + 8.0;
-
-        PriorityAnchors anchors = PRIORITY_ANCHORS;
-
-        double minDistSq = Double.MAX_VALUE;
-        double[] xs = anchors.playerXs;
-        double[] zs = anchors.playerZs;
-        int count = Math.min(xs.length, zs.length);
-        for (int i = 0; i < count; i++) {
-            double dx = cx - xs[i];
-            double dz = cz - zs[i];
-            double distSq = dx * dx + dz * dz;
-            if (distSq < minDistSq) {
-                minDistSq = distSq;
-            }
-        }
-
-        if (minDistSq != Double.MAX_VALUE) {
-            return minDistSq;
-        }
-
-        double dx = cx - anchors.spawnX;
-        double dz = cz - anchors.spawnZ;
-        return dx * dx + dz * dz;
-    }
-
     private static void updatePriorityAnchors(MinecraftServer server) {
         if (server == null) {
             return;
@@ -263,7 +243,7 @@ public class MainThreadChunkApplier {
         } catch (Throwable ignored) {
         }
 
-        PRIORITY_ANCHORS = new PriorityAnchors(spawnX, spawnZ, xs, zs);
+        APPLICATION_QUEUE.updateAnchors(spawnX, spawnZ, xs, zs);
     }
 
     @SubscribeEvent
@@ -275,9 +255,7 @@ public class MainThreadChunkApplier {
         }
         if (event.phase == TickEvent.Phase.END) {
             drain(server);
-            drainTickerReRegister(server);
-            drainCreateRefresh(server);
-            drainRefinedStorageRefresh(server);
+            drainAuxiliary(server);
         }
     }
 
@@ -359,7 +337,7 @@ public class MainThreadChunkApplier {
             maxTasks = 1;
         } else if (avgTickMs > 30.0) {
             budgetNs = DEFAULT_TICK_BUDGET_NS;
-            maxTasks = 2;
+            maxTasks = Math.max(2, DEFAULT_MAX_TASKS_PER_TICK / 4);
         } else {
             budgetNs = DEFAULT_TICK_BUDGET_NS;
             maxTasks = DEFAULT_MAX_TASKS_PER_TICK;
@@ -367,16 +345,28 @@ public class MainThreadChunkApplier {
 
         long start = System.nanoTime();
         int applied = 0;
+        List<ChunkQueueEntry> passedOver = new ArrayList<>(0);
         while (applied < maxTasks) {
-            ChunkQueueEntry entry = APPLICATION_QUEUE.poll();
+            ChunkQueueEntry entry;
+            if (applied == 0) {
+                // The first task of a pass always runs, whatever its prediction, so the queue keeps moving.
+                entry = APPLICATION_QUEUE.poll();
+            } else {
+                long remainingNs = budgetNs - (System.nanoTime() - start);
+                if (remainingNs <= 0L) {
+                    break;
+                }
+                entry = pollFitting(remainingNs, passedOver);
+            }
             if (entry == null) {
                 break;
             }
             ChunkCoord chunk = entry.chunk;
-            Runnable task = chunk == null ? null : PENDING_TASKS.remove(chunk);
-            if (task == null) {
+            PendingApply pending = chunk == null ? null : PENDING_TASKS.remove(chunk);
+            if (pending == null) {
                 continue;
             }
+            Runnable task = pending.task();
             if (cullOutOfView && chunk != null && chunk.dimension() != null) {
                 boolean inView = ChunkPriorityManager.isChunkWithinViewDistance(
                     chunk.dimension().location(), chunk.chunkX(), chunk.chunkZ());
@@ -391,6 +381,7 @@ public class MainThreadChunkApplier {
             }
 
             long taskStartNs = System.nanoTime();
+            long previousTrace = ChunkTraceRecorder.enter(entry.traceId);
             try {
                 task.run();
                 enqueueTickerReRegister(server, chunk);
@@ -399,16 +390,77 @@ public class MainThreadChunkApplier {
                 LC2H.LOGGER.error("[LC2H] Failed to apply chunk {} on main thread: {}", chunk, t.getMessage());
                 LC2H.LOGGER.debug("[LC2H] Apply error", t);
             } finally {
-                TIMING_TASK.record(System.nanoTime() - taskStartNs);
+                ChunkTraceRecorder.exit(previousTrace);
+                ChunkTraceRecorder.waited(entry.traceId, "apply-queue", entry.enqueuedNs, taskStartNs);
+                ChunkTraceRecorder.span(entry.traceId, "apply", taskStartNs);
+                long taskNs = System.nanoTime() - taskStartNs;
+                TIMING_TASK.record(taskNs);
+                COSTS.record(pending.costKind(), taskNs);
             }
 
             applied++;
             TOTAL_APPLIED.increment();
-            if (budgetNs > 0 && (System.nanoTime() - start) >= budgetNs) {
-                break;
+        }
+
+        for (int i = passedOver.size() - 1; i >= 0; i--) {
+            ChunkQueueEntry entry = passedOver.get(i);
+            APPLICATION_QUEUE.offerFirst(entry.chunk, entry);
+        }
+        PACK_PASSED_OVER.add(passedOver.size());
+        recordBudget(budgetNs, System.nanoTime() - start);
+    }
+
+    // Takes the nearest queued chunk whose predicted cost still fits the pass. Nearer chunks that would overshoot
+    // are looked past, up to PACK_LOOKAHEAD of them, and go back in the queue for the next pass.
+    private static ChunkQueueEntry pollFitting(long remainingNs, List<ChunkQueueEntry> passedOver) {
+        for (int looked = 0; looked < PACK_LOOKAHEAD; looked++) {
+            ChunkQueueEntry entry = APPLICATION_QUEUE.poll();
+            if (entry == null) {
+                return null;
             }
+            PendingApply pending = entry.chunk == null ? null : PENDING_TASKS.get(entry.chunk);
+            if (pending == null || COSTS.predictNs(pending.costKind()) <= remainingNs) {
+                return entry;
+            }
+            passedOver.add(entry);
+        }
+        return null;
+    }
+
+    private static void recordBudget(long budgetNs, long usedNs) {
+        if (budgetNs <= 0L) {
+            return;
+        }
+        BUDGET_OFFERED_NS.add(budgetNs);
+        BUDGET_USED_NS.add(Math.min(usedNs, budgetNs));
+        if (usedNs > budgetNs) {
+            BUDGET_OVERSHOOTS.increment();
+            BUDGET_OVERSHOOT_NS.add(usedNs - budgetNs);
+        }
+    }
+
+    // One auxiliary budget per tick, split across the re-registration, Create and RS queues in proportion to their
+    // backlog, so whichever queue is behind gets the time instead of each queue getting the same fixed count.
+    private static void drainAuxiliary(MinecraftServer server) {
+        if (server == null) {
+            return;
+        }
+        int ticker = TICKER_REREGISTER_TASKS.size();
+        int create = CREATE_PRESENT ? CREATE_CHUNK_REFRESH_TASKS.size() + CREATE_REFRESH_TASKS.size() : 0;
+        int rs = REFINED_STORAGE_PRESENT ? RS_CHUNK_REFRESH_TASKS.size() : 0;
+        int total = ticker + create + rs;
+        if (total == 0) {
+            return;
         }
+        long budgetNs = computeAuxDrainBudgetNs(server);
+        drainTickerReRegister(server, budgetNs * ticker / total);
+        drainCreateRefresh(server, budgetNs * create / total);
+        drainRefinedStorageRefresh(server, budgetNs * rs / total);
+    }
 
+    // Whether one more item of costKind fits a quota; the first item of a non-empty queue always does.
+    private static boolean fitsQuota(long startNs, long quotaNs, int processed, String costKind) {
+        return processed == 0 || (System.nanoTime() - startNs) + COSTS.predictNs(costKind) <= quotaNs;
     }
 
     private static void enqueueCreateRefresh(ChunkCoord chunk) {
@@ -457,14 +509,11 @@ public class MainThreadChunkApplier {
         RS_CHUNK_REFRESH_TASKS.offer(new RefinedStorageChunkRefreshTask(chunk, nowTick + 1L));
     }
 
-    private static void drainCreateRefresh(MinecraftServer server) {
+    private static void drainCreateRefresh(MinecraftServer server, long quotaNs) {
         if (server == null) {
             return;
         }
-        long budgetNs = computeAuxDrainBudgetNs(server);
         long startNs = System.nanoTime();
-        int maxChunkRefresh = MAX_CREATE_CHUNK_REFRESH_PER_TICK;
-        int maxBlockRefresh = MAX_CREATE_BLOCK_REFRESH_PER_TICK;
         int processed = 0;
         long nowTick = 0L;
         try {
@@ -472,10 +521,7 @@ public class MainThreadChunkApplier {
         } catch (Throwable ignored) {
         }
 
-        while (processed < maxChunkRefresh) {
-            if (budgetNs > 0 && (System.nanoTime() - startNs) >= budgetNs) {
-                break;
-            }
+        while (fitsQuota(startNs, quotaNs, processed, COST_CREATE_CHUNK)) {
             CreateChunkRefreshTask task = CREATE_CHUNK_REFRESH_TASKS.peek();
             if (task == null || task.readyTick() > nowTick) {
                 break;
@@ -505,15 +551,16 @@ public class MainThreadChunkApplier {
             }
 
             CREATE_REFRESH_PENDING.remove(coord);
+            long refreshStartNs = System.nanoTime();
             refreshCreateCrushingControllers(server, coord);
+            COSTS.record(COST_CREATE_CHUNK, System.nanoTime() - refreshStartNs);
             processed++;
         }
 
         int applied = 0;
-        while (applied < maxBlockRefresh) {
-            if (budgetNs > 0 && (System.nanoTime() - startNs) >= budgetNs) {
-                break;
-            }
+        long blockStartNs = System.nanoTime();
+        long blockQuotaNs = Math.max(0L, quotaNs - (blockStartNs - startNs));
+        while (fitsQuota(blockStartNs, blockQuotaNs, applied, COST_CREATE_BLOCK)) {
             CreateRefreshTask task = CREATE_REFRESH_TASKS.peek();
             if (task == null || task.readyTick() > nowTick) {
                 break;
@@ -528,6 +575,7 @@ public class MainThreadChunkApplier {
             }
             ServerLevel level = server.getLevel(task.chunk().dimension());
             if (level != null && level.isLoaded(task.pos())) {
+                long refreshStartNs = System.nanoTime();
                 try {
                     BlockPos pos = task.pos();
                     BlockState state = task.state();
@@ -536,6 +584,7 @@ public class MainThreadChunkApplier {
                     applied++;
                 } catch (Throwable ignored) {
                 }
+                COSTS.record(COST_CREATE_BLOCK, System.nanoTime() - refreshStartNs);
             }
         }
     }
@@ -552,11 +601,10 @@ public class MainThreadChunkApplier {
         return new BlockRefreshKey(chunk.dimension().location(), pos.asLong());
     }
 
-    private static void drainRefinedStorageRefresh(MinecraftServer server) {
+    private static void drainRefinedStorageRefresh(MinecraftServer server, long quotaNs) {
         if (server == null || !REFINED_STORAGE_PRESENT) {
             return;
         }
-        long budgetNs = computeAuxDrainBudgetNs(server);
         long startNs = System.nanoTime();
         int processed = 0;
         long nowTick = 0L;
@@ -565,10 +613,7 @@ public class MainThreadChunkApplier {
         } catch (Throwable ignored) {
         }
 
-        while (processed < MAX_RS_CHUNK_REFRESH_PER_TICK) {
-            if (budgetNs > 0 && (System.nanoTime() - startNs) >= budgetNs) {
-                break;
-            }
+        while (fitsQuota(startNs, quotaNs, processed, COST_RS_CHUNK)) {
             RefinedStorageChunkRefreshTask task = RS_CHUNK_REFRESH_TASKS.peek();
             if (task == null || task.readyTick() > nowTick) {
                 break;
@@ -581,6 +626,7 @@ public class MainThreadChunkApplier {
             }
 
             boolean refreshed = false;
+            long refreshStartNs = System.nanoTime();
             try {
                 ServerLevel level = server.getLevel(coord.dimension());
                 if (level != null) {
@@ -591,6 +637,7 @@ public class MainThreadChunkApplier {
                 }
             } catch (Throwable ignored) {
             }
+            COSTS.record(COST_RS_CHUNK, System.nanoTime() - refreshStartNs);
 
             RS_REFRESH_PENDING.remove(coord);
             if (!refreshed) {
@@ -653,11 +700,10 @@ public class MainThreadChunkApplier {
         TICKER_REREGISTER_TASKS.offer(new TickerReRegisterTask(chunk, nowTick + 1L));
     }
 
-    private static void drainTickerReRegister(MinecraftServer server) {
+    private static void drainTickerReRegister(MinecraftServer server, long quotaNs) {
         if (server == null) {
             return;
         }
-        long budgetNs = computeAuxDrainBudgetNs(server);
         long startNs = System.nanoTime();
         long nowTick = 0L;
         try {
@@ -665,12 +711,8 @@ public class MainThreadChunkApplier {
         } catch (Throwable ignored) {
         }
 
-        int max = MAX_TICKER_REREGISTER_PER_TICK;
         int processed = 0;
-        while (processed < max) {
-            if (budgetNs > 0 && (System.nanoTime() - startNs) >= budgetNs) {
-                break;
-            }
+        while (fitsQuota(startNs, quotaNs, processed, COST_TICKER)) {
             TickerReRegisterTask task = TICKER_REREGISTER_TASKS.peek();
             if (task == null || task.readyTick() > nowTick) {
                 break;
@@ -678,10 +720,12 @@ public class MainThreadChunkApplier {
             TICKER_REREGISTER_TASKS.poll();
             ChunkCoord chunk = task.chunk();
             if (chunk != null) {
+                long reRegisterStartNs = System.nanoTime();
                 try {
                     reRegisterBlockEntityTickers(server, chunk);
                 } catch (Throwable ignored) {
                 }
+                COSTS.record(COST_TICKER, System.nanoTime() - reRegisterStartNs);
                 TICKER_REREGISTER_PENDING.remove(chunk);
             }
             processed++;
@@ -708,7 +752,7 @@ public class MainThreadChunkApplier {
         } catch (Throwable ignored) {
         }
         if (avgTickMs >= 45.0D) {
-            return TimeUnit.MILLISECONDS.toNanos(0);
+            return AUX_DRAIN_BUDGET_NS_OVERLOADED;
         }
         if (avgTickMs >= 35.0D) {
             return TimeUnit.MILLISECONDS.toNanos(1);
@@ -833,6 +877,15 @@ public class MainThreadChunkApplier {
         return TOTAL_CULLED.sum();
     }
 
+    public static BudgetStats budgetStats() {
+        return new BudgetStats(BUDGET_OFFERED_NS.sum(), BUDGET_USED_NS.sum(), BUDGET_OVERSHOOTS.sum(),
+            BUDGET_OVERSHOOT_NS.sum(), PACK_PASSED_OVER.sum(), APPLICATION_QUEUE.rebuckets(), COSTS.snapshot());
+    }
+
+    public record BudgetStats(long offeredNs, long usedNs, long overshoots, long overshootNs, long passedOver,
+                              long queueRebuckets, List<ApplyCostModel.KindCost> costs) {
+    }
+
     private static boolean shouldRunInlineClient() {
         if (FMLEnvironment.dist != Dist.CLIENT) {
             return false;
@@ -52,7 +52,7 @@ public class AsyncBuildingGenerator {
 
             Priority priority = finalCoord != null ? ChunkPriorityManager.getPriorityForChunk(finalCoord) : Priority.LOW;
 
-            AsyncManager.submitTask("building_gen", () -> {
+            AsyncManager.submitWithDeadline("building_gen", () -> {
                 try {
                     LC2H.LOGGER.debug("Starting async building generation for " + finalChunkX + "," + finalChunkZ);
                     long start = System.nanoTime();
@@ -65,7 +65,8 @@ public class AsyncBuildingGenerator {
                 } catch (Exception e) {
                     LC2H.LOGGER.error("Error in async building generation: " + e.getMessage(), e);
                 }
-            }, finalBuildingInfo, priority).thenAccept(result -> {
+                return finalBuildingInfo;
+            }, priority, AsyncManager.deadlineFor(priority)).thenAccept(result -> {
                 try {
                     FeatureCache.put(cacheKey, result, true);
                     LC2H.LOGGER.debug("Building generation completed for {}", cacheKey);
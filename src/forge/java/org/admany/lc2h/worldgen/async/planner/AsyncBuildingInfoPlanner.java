@@ -3,20 +3,23 @@ package org.admany.lc2h.worldgen.async.planner;
 import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import mcjty.lostcities.api.LostChunkCharacteristics;
-import net.minecraft.server.MinecraftServer;
 import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.async.AdmissionController;
 import org.admany.lc2h.concurrency.async.AsyncManager;
+import org.admany.lc2h.concurrency.async.CancellationToken;
+import org.admany.lc2h.concurrency.async.Priority;
+import org.admany.lc2h.concurrency.async.RetryWheel;
+import org.admany.lc2h.concurrency.async.SingleFlight;
+import org.admany.lc2h.concurrency.backend.SchedulerBackend;
+import org.admany.lc2h.concurrency.backend.SchedulerBackends;
 import org.admany.lc2h.data.cache.CacheBudgetManager;
 import org.admany.lc2h.concurrency.parallel.AdaptiveBatchController;
 import org.admany.lc2h.concurrency.parallel.AdaptiveConcurrencyLimiter;
 import org.admany.lc2h.dev.diagnostics.Lc2hTimingRegistry;
+import org.admany.lc2h.util.server.ServerRescheduler;
 import org.admany.lc2h.util.server.ServerTickLoad;
 import org.admany.lc2h.worldgen.async.warmup.AsyncChunkWarmup;
 import org.admany.lc2h.worldgen.gpu.GPUMemoryManager;
-import org.admany.quantified.api.QuantifiedAPI;
-import org.admany.quantified.api.model.QuantifiedTask;
-import org.admany.quantified.core.common.parallel.config.ParallelConfig;
-import org.admany.quantified.core.common.parallel.metrics.ParallelMetrics;
 import org.admany.quantified.core.common.util.TaskScheduler;
 
 import java.util.List;
@@ -27,7 +30,6 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 public final class AsyncBuildingInfoPlanner {
@@ -44,53 +46,59 @@ public final class AsyncBuildingInfoPlanner {
     private static final int BUILDING_INFO_CACHE_PRUNE_EVERY = Math.max(64,
         Integer.getInteger("lc2h.buildinginfo.cachePruneEvery", 128));
     private static final AtomicInteger BUILDING_INFO_PRUNE_COUNTER = new AtomicInteger(0);
-    private static final long FAILURE_RETRY_DELAY_NS = TimeUnit.SECONDS.toNanos(5);
+    private static final long FAILURE_RETRY_DELAY_MS = TimeUnit.SECONDS.toMillis(5);
+    // Repeated failures of one chunk back off from 5s up to a minute instead of retrying at a fixed rate.
+    private static final SingleFlight.Backoff<ChunkCoord> FAILURE_BACKOFF = new SingleFlight.Backoff<>(FAILURE_RETRY_DELAY_MS,
+        Math.max(FAILURE_RETRY_DELAY_MS, Long.getLong("lc2h.buildinginfo.failureBackoffMaxMs", TimeUnit.MINUTES.toMillis(1))),
+        Math.max(256, Integer.getInteger("lc2h.buildinginfo.failureBackoffKeys", 4096)));
+    private static final SingleFlight.Meter LOOKUPS = SingleFlight.meter("buildinginfo", null, BUILDING_INFO_CACHE::size);
     private static final long LIMITER_RETRY_BASE_MS = Math.max(2L, Long.getLong("lc2h.buildinginfo.limiterRetryMs", 8L));
     private static final int LIMITER_RETRY_JITTER_MS = Math.max(0, Integer.getInteger("lc2h.buildinginfo.limiterRetryJitterMs", 4));
     private static final AtomicLong LIMITER_RETRY_TOTAL = new AtomicLong(0L);
     private static final AtomicLong SPAWN_RETRY_TOTAL = new AtomicLong(0L);
+    private static final AtomicLong MULTICHUNK_WAITS = new AtomicLong(0L);
     private static final AtomicLong LAST_LIMITER_RETRY_MS = new AtomicLong(0L);
     private static final AtomicLong LAST_SPAWN_RETRY_MS = new AtomicLong(0L);
     private static final int LIMITER_RETRY_MAX_ATTEMPTS = Math.max(1,
         Integer.getInteger("lc2h.buildinginfo.limiterRetryMaxAttempts", 32));
     private static final long LIMITER_RETRY_TTL_MS = Math.max(1_000L,
         Long.getLong("lc2h.buildinginfo.limiterRetryTtlMs", TimeUnit.MINUTES.toMillis(2)));
-    private static final long LIMITER_RETRY_DRAIN_BUDGET_NS = TimeUnit.MICROSECONDS.toNanos(
-        Math.max(50L, Long.getLong("lc2h.buildinginfo.limiterRetryBudgetUs", 500L)));
-    private static final int LIMITER_RETRY_DRAIN_MAX = Math.max(8,
-        Integer.getInteger("lc2h.buildinginfo.limiterRetryDrainMax", 128));
-
-    private record RetryKey(ChunkCoord coord, boolean highPriority) {}
-
-    private static final class RetryEntry {
-        private final IDimensionInfo provider;
-        private final ChunkCoord coord;
-        private final boolean debugLogging;
-        private final long startTime;
-        private final boolean highPriority;
-        private final long firstEnqueuedMs;
-        private volatile long nextRetryMs;
-        private final AtomicInteger attempts = new AtomicInteger(0);
-
-        private RetryEntry(IDimensionInfo provider,
-                           ChunkCoord coord,
-                           boolean debugLogging,
-                           long startTime,
-                           boolean highPriority,
-                           long firstEnqueuedMs,
-                           long nextRetryMs) {
-            this.provider = provider;
-            this.coord = coord;
-            this.debugLogging = debugLogging;
-            this.startTime = startTime;
-            this.highPriority = highPriority;
-            this.firstEnqueuedMs = firstEnqueuedMs;
-            this.nextRetryMs = nextRetryMs;
+    private static final long LIMITER_RETRY_MAX_MS = Math.max(LIMITER_RETRY_BASE_MS,
+        Long.getLong("lc2h.buildinginfo.limiterRetryMaxMs", 1_000L));
+    private static final long SPAWN_RETRY_MAX_MS = Math.max(1L, Long.getLong("lc2h.buildinginfo.spawnRetryMaxMs", 250L));
+
+    private record RetryContext(IDimensionInfo provider, boolean debugLogging, long startTime) {}
+
+    // Spawn retries start at 1 ms without jitter; the rest back off from the limiter retry base.
+    private static final RetryWheel<ChunkCoord, RetryContext> LIMITER_RETRIES = new RetryWheel<>("buildinginfo.limiter",
+        LIMITER_RETRY_BASE_MS, LIMITER_RETRY_MAX_MS, LIMITER_RETRY_JITTER_MS, LIMITER_RETRY_MAX_ATTEMPTS, LIMITER_RETRY_TTL_MS,
+        (coord, context) -> fireLimiterRetry(coord, context, false),
+        (coord, context) -> dropLimiterRetry(coord, false));
+    private static final RetryWheel<ChunkCoord, RetryContext> SPAWN_RETRIES = new RetryWheel<>("buildinginfo.spawn",
+        1L, SPAWN_RETRY_MAX_MS, 0L, LIMITER_RETRY_MAX_ATTEMPTS, LIMITER_RETRY_TTL_MS,
+        (coord, context) -> fireLimiterRetry(coord, context, true),
+        (coord, context) -> dropLimiterRetry(coord, true));
+
+    private static void meterLookup(Object existing) {
+        if (existing == null) {
+            LOOKUPS.miss();
+        } else if (existing instanceof InFlightMarker) {
+            LOOKUPS.coalesced();
+        } else if (existing instanceof FailureMarker fm) {
+            if (fm.canRetry(System.nanoTime())) {
+                LOOKUPS.miss();
+            } else {
+                LOOKUPS.negative();
+            }
+        } else {
+            LOOKUPS.hit();
         }
     }
 
-    private static final ConcurrentHashMap<RetryKey, RetryEntry> LIMITER_RETRY_ENTRIES = new ConcurrentHashMap<>();
-    private static final ConcurrentLinkedQueue<RetryKey> LIMITER_RETRY_QUEUE = new ConcurrentLinkedQueue<>();
+    private static FailureMarker failureMarker(ChunkCoord coord) {
+        LOOKUPS.failure();
+        return new FailureMarker(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FAILURE_BACKOFF.recordFailure(coord)));
+    }
 
     private static final class InFlightMarker {
         private InFlightMarker() {
@@ -112,7 +120,11 @@ public final class AsyncBuildingInfoPlanner {
 
     private static final int BUILDING_INFO_OVERRIDE = Integer.getInteger("lc2h.buildinginfo.parallelism", -1);
     private static final int BUILDING_INFO_MAX = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
-    private static final AdaptiveConcurrencyLimiter LIMITER = new AdaptiveConcurrencyLimiter(2, 1, BUILDING_INFO_MAX);
+    private static final boolean LIMITER_SELF_TUNING = AdaptiveConcurrencyLimiter.selfTuningEnabled() && BUILDING_INFO_OVERRIDE <= 0;
+    private static final int BUILDING_INFO_TUNED_MAX = Math.max(1, Integer.getInteger("lc2h.buildinginfo.maxParallelism",
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1)));
+    private static final AdaptiveConcurrencyLimiter LIMITER = new AdaptiveConcurrencyLimiter(2, 1,
+        LIMITER_SELF_TUNING ? BUILDING_INFO_TUNED_MAX : BUILDING_INFO_MAX, LIMITER_SELF_TUNING);
 
     private static final AtomicLong EWMA_NANOS_PER_TASK = new AtomicLong(0L);
     private static volatile long lastTuneNs = 0L;
@@ -139,6 +151,10 @@ public final class AsyncBuildingInfoPlanner {
     private static final ConcurrentHashMap<ChunkCoord, Boolean> SPAWN_PREFETCH = new ConcurrentHashMap<>();
     private static final AtomicInteger SPAWN_PREFETCH_COUNT = new AtomicInteger();
 
+    static {
+        AdmissionController.registerGauge(AdmissionController.WorkClass.PLAYER_CRITICAL, "spawn-prefetch", SPAWN_PREFETCH_COUNT::get);
+    }
+
     private AsyncBuildingInfoPlanner() {
     }
 
@@ -146,39 +162,45 @@ public final class AsyncBuildingInfoPlanner {
         return INTERNAL_DEPTH.get() > 0;
     }
 
-    public static void preSchedule(IDimensionInfo provider, ChunkCoord coord) {
+    public static CompletableFuture<Void> preSchedule(IDimensionInfo provider, ChunkCoord coord) {
+        return preSchedule(provider, coord, CancellationToken.NONE);
+    }
+
+    // Warmup passes its region token so the queued task is dropped once no player is near; everything else is NONE.
+    public static CompletableFuture<Void> preSchedule(IDimensionInfo provider, ChunkCoord coord, CancellationToken cancel) {
         Objects.requireNonNull(provider, "provider");
         Objects.requireNonNull(coord, "coord");
 
         if (GPUMemoryManager.getGPUData(coord, GPU_DATA_CACHE) != null) {
             GPUMemoryManager.markAsHot(coord);
             TaskScheduler.recordExternalGpuTask();
-            return;
+            return PlannerBatchQueue.settled();
         }
         if (!AsyncChunkWarmup.shouldAcceptPreschedule()) {
-            return;
+            return PlannerBatchQueue.settled();
         }
 
         long now = System.currentTimeMillis();
         Object existing = getCachedEntry(coord, now);
+        meterLookup(existing);
         if (existing != null) {
             if (existing instanceof FailureMarker fm) {
                 long nowNs = System.nanoTime();
                 if (fm.canRetry(nowNs)) {
                     removeCachedEntry(coord, existing);
                 } else {
-                    return;
+                    return PlannerBatchQueue.settled();
                 }
             } else if (existing instanceof InFlightMarker) {
-                return;
+                return PlannerBatchQueue.settled();
             } else {
-                return;
+                return PlannerBatchQueue.settled();
             }
         }
 
         // This reserves the coord to avoid enqueuing duplicate warmup tasks.
         if (BUILDING_INFO_CACHE.putIfAbsent(coord, new InFlightMarker()) != null) {
-            return;
+            return PlannerBatchQueue.settled();
         }
         BUILDING_INFO_CACHE_TS.put(coord, now);
         CacheBudgetManager.recordPut(BUILDING_INFO_BUDGET, coord, 64L, true);
@@ -188,7 +210,7 @@ public final class AsyncBuildingInfoPlanner {
 
         if (AsyncChunkWarmup.deferChunkPrescheduleToGpu(provider, coord, "building-info")) {
             removeCachedEntry(coord, BUILDING_INFO_CACHE.get(coord));
-            return;
+            return PlannerBatchQueue.settled();
         }
 
         if (debugLogging) {
@@ -196,8 +218,8 @@ public final class AsyncBuildingInfoPlanner {
         }
         long startTime = System.nanoTime();
 
-        PlannerBatchQueue.enqueue(provider, coord, PlannerTaskKind.BUILDING_INFO,
-            () -> runBuildingInfo(provider, coord, debugLogging, startTime, false));
+        return PlannerBatchQueue.enqueue(provider, coord, PlannerTaskKind.BUILDING_INFO,
+            () -> runBuildingInfo(provider, coord, debugLogging, startTime, false), cancel);
     }
 
     public static void preSchedulePriority(IDimensionInfo provider, ChunkCoord coord) {
@@ -206,6 +228,7 @@ public final class AsyncBuildingInfoPlanner {
 
         long now = System.currentTimeMillis();
         Object existing = getCachedEntry(coord, now);
+        meterLookup(existing);
         if (existing != null) {
             if (existing instanceof FailureMarker fm) {
                 long nowNs = System.nanoTime();
@@ -215,6 +238,9 @@ public final class AsyncBuildingInfoPlanner {
                     return;
                 }
             } else if (existing instanceof InFlightMarker) {
+                // Spawn search is waiting on this chunk; it must not sit behind a background warmup of it.
+                ChunkPlanGraph.promote(coord);
+                PlannerBatchQueue.boost(PlannerTaskKind.BUILDING_INFO, coord, "buildinginfo.spawn");
                 return;
             } else {
                 return;
@@ -274,6 +300,7 @@ public final class AsyncBuildingInfoPlanner {
                 continue;
             }
             Object existing = getCachedEntry(coord, now);
+            meterLookup(existing);
             if (existing != null) {
                 if (existing instanceof FailureMarker fm) {
                     long nowNs = System.nanoTime();
@@ -337,12 +364,11 @@ public final class AsyncBuildingInfoPlanner {
 
     private static CompletableFuture<Void> submitSpawnTask(String taskName, Runnable action) {
         try {
-            QuantifiedTask.Builder<Void> builder = QuantifiedTask.<Void>builder(LC2H.MODID, taskName, () -> {
-                action.run();
-                return null;
-            }).priorityForeground()
-                .batchKey(AsyncManager.quantifiedBatchKey(taskName, org.admany.lc2h.concurrency.async.Priority.HIGH));
-            return QuantifiedAPI.submit(builder);
+            return SchedulerBackends.current().<Void>submit(taskName,
+                AsyncManager.quantifiedBatchKey(taskName, org.admany.lc2h.concurrency.async.Priority.HIGH), () -> {
+                    action.run();
+                    return null;
+                }, true);
         } catch (Throwable ignored) {
         }
         return CompletableFuture.runAsync(action);
@@ -387,6 +413,7 @@ public final class AsyncBuildingInfoPlanner {
 
         long now = System.currentTimeMillis();
         Object existing = getCachedEntry(coord, now);
+        meterLookup(existing);
         if (existing != null) {
             if (existing instanceof FailureMarker fm) {
                 long nowNs = System.nanoTime();
@@ -396,6 +423,7 @@ public final class AsyncBuildingInfoPlanner {
                     return;
                 }
             } else if (existing instanceof InFlightMarker) {
+                inheritPriority(coord, "buildinginfo.syncWarmup");
                 return;
             } else {
                 return;
@@ -422,6 +450,7 @@ public final class AsyncBuildingInfoPlanner {
             token.close();
             return;
         }
+        token.started();
         BUILDING_INFO_CACHE_TS.put(coord, now);
         CacheBudgetManager.recordPut(BUILDING_INFO_BUDGET, coord, 64L, true);
         maybePrune(now);
@@ -447,7 +476,7 @@ public final class AsyncBuildingInfoPlanner {
                 LC2H.LOGGER.debug("Sync building info warmup failed for {}", coord, t);
             }
             long acceptStartNs = System.nanoTime();
-            acceptBuildingInfoResult(coord, new FailureMarker(System.nanoTime() + FAILURE_RETRY_DELAY_NS), System.currentTimeMillis());
+            acceptBuildingInfoResult(coord, failureMarker(coord), System.currentTimeMillis());
             Lc2hTimingRegistry.record("building_info.accept_failure", System.nanoTime() - acceptStartNs);
         } finally {
             INTERNAL_DEPTH.set(INTERNAL_DEPTH.get() - 1);
@@ -458,6 +487,25 @@ public final class AsyncBuildingInfoPlanner {
         }
     }
 
+    // The entry is reserved by a queued or running planner task. A caller that needs it now runs that task itself if
+    // it has not started yet; otherwise the task and what it waits on are moved to the foreground.
+    private static void inheritPriority(ChunkCoord coord, String site) {
+        if (PlannerBatchQueue.runInline(PlannerTaskKind.BUILDING_INFO, coord, site)) {
+            return;
+        }
+        ChunkPlanGraph.promote(coord);
+        PlannerBatchQueue.boost(PlannerTaskKind.BUILDING_INFO, coord, site);
+    }
+
+    // For synchronous lookups: takes over a queued task for coord and returns its result when that produced one.
+    public static Object takeOverQueued(ChunkCoord coord) {
+        if (coord == null || !(BUILDING_INFO_CACHE.get(coord) instanceof InFlightMarker)) {
+            return null;
+        }
+        inheritPriority(coord, "buildinginfo.get");
+        return getIfReady(coord);
+    }
+
     public static void flushPendingBuildingBatches() {
         PlannerBatchQueue.flushKind(PlannerTaskKind.BUILDING_INFO);
     }
@@ -498,11 +546,12 @@ public final class AsyncBuildingInfoPlanner {
             LC2H.LOGGER.info("AsyncBuildingInfoPlanner: Shutting down");
             BUILDING_INFO_CACHE.clear();
             BUILDING_INFO_CACHE_TS.clear();
+            FAILURE_BACKOFF.clear();
             GPU_DATA_CACHE.clear();
             READY_RESULTS.clear();
             READY_QUEUE.clear();
-            LIMITER_RETRY_ENTRIES.clear();
-            LIMITER_RETRY_QUEUE.clear();
+            LIMITER_RETRIES.clear();
+            SPAWN_RETRIES.clear();
             RECENT_AREA_INVALIDATIONS.clear();
             SPAWN_PREFETCH.clear();
             SPAWN_PREFETCH_COUNT.set(0);
@@ -525,6 +574,10 @@ public final class AsyncBuildingInfoPlanner {
                                                long lastSpawnRetryMs) {
     }
 
+    public static long getMultiChunkWaitCount() {
+        return MULTICHUNK_WAITS.get();
+    }
+
     public static BuildingInfoPressureSnapshot snapshotPressure() {
         int pendingBuilding = 0;
         try {
@@ -559,6 +612,10 @@ public final class AsyncBuildingInfoPlanner {
         return true;
     }
 
+    public static void releaseInFlight(ChunkCoord coord) {
+        clearWarmupReservation(coord);
+    }
+
     private static void runBuildingInfo(IDimensionInfo provider,
                                         ChunkCoord coord,
                                         boolean debugLogging,
@@ -586,9 +643,54 @@ public final class AsyncBuildingInfoPlanner {
         AdaptiveConcurrencyLimiter.Token token = LIMITER.tryEnter();
         if (token == null) {
             Lc2hTimingRegistry.record("building_info.limiter_blocked", 1L);
-            rescheduleLimiterBlocked(provider, coord, debugLogging, startTime, highPriority);
+            if (LIMITER.isSelfTuning()) {
+                awaitLimiterSlot(provider, coord, debugLogging, startTime, highPriority);
+            } else {
+                rescheduleLimiterBlocked(provider, coord, debugLogging, startTime, highPriority);
+            }
             return;
         }
+        computeBuildingInfo(provider, coord, debugLogging, startTime, highPriority, token);
+    }
+
+    private static void awaitLimiterSlot(IDimensionInfo provider, ChunkCoord coord, boolean debugLogging, long startTime,
+                                         boolean highPriority) {
+        if (highPriority) {
+            SPAWN_RETRY_TOTAL.incrementAndGet();
+            LAST_SPAWN_RETRY_MS.set(System.currentTimeMillis());
+        } else {
+            LIMITER_RETRY_TOTAL.incrementAndGet();
+            LAST_LIMITER_RETRY_MS.set(System.currentTimeMillis());
+        }
+        long waitStartNs = System.nanoTime();
+        LIMITER.enterAsync().thenAccept(acquired -> {
+            Lc2hTimingRegistry.record("building_info.limiter_wait", System.nanoTime() - waitStartNs);
+            try {
+                AsyncManager.submitTask("building-info-acquired",
+                        () -> computeBuildingInfo(provider, coord, debugLogging, startTime, highPriority, acquired), null,
+                        highPriority ? Priority.HIGH : Priority.LOW)
+                    .whenComplete((ignored, throwable) -> {
+                        if (throwable != null) {
+                            acquired.close();
+                            clearWarmupReservation(coord);
+                        }
+                    });
+            } catch (Throwable t) {
+                // Nothing will run with the slot, so hand it back here.
+                acquired.close();
+                clearWarmupReservation(coord);
+            }
+        });
+    }
+
+    private static void computeBuildingInfo(IDimensionInfo provider,
+                                            ChunkCoord coord,
+                                            boolean debugLogging,
+                                            long startTime,
+                                            boolean highPriority,
+                                            AdaptiveConcurrencyLimiter.Token token) {
+        token.started();
+        retriesFor(highPriority).forget(coord);
         long startNs = System.nanoTime();
         try {
             INTERNAL_DEPTH.set(INTERNAL_DEPTH.get() + 1);
@@ -618,7 +720,7 @@ public final class AsyncBuildingInfoPlanner {
                 LC2H.LOGGER.debug("Async building info warmup failed for {}", coord, t);
             }
             long acceptStartNs = System.nanoTime();
-            acceptBuildingInfoResult(coord, new FailureMarker(System.nanoTime() + FAILURE_RETRY_DELAY_NS), System.currentTimeMillis());
+            acceptBuildingInfoResult(coord, failureMarker(coord), System.currentTimeMillis());
             Lc2hTimingRegistry.record("building_info.accept_failure", System.nanoTime() - acceptStartNs);
         } finally {
             INTERNAL_DEPTH.set(INTERNAL_DEPTH.get() - 1);
@@ -657,9 +759,14 @@ public final class AsyncBuildingInfoPlanner {
                 AdaptiveConcurrencyLimiter.Token token = LIMITER.tryEnter();
                 if (token == null) {
                     Lc2hTimingRegistry.record("building_info.limiter_blocked", 1L);
-                    rescheduleLimiterBlocked(provider, coord, false, batchStartNs, true);
+                    if (LIMITER.isSelfTuning()) {
+                        awaitLimiterSlot(provider, coord, false, batchStartNs, true);
+                    } else {
+                        rescheduleLimiterBlocked(provider, coord, false, batchStartNs, true);
+                    }
                     continue;
                 }
+                token.started();
                 try {
                     INTERNAL_DEPTH.set(INTERNAL_DEPTH.get() + 1);
                     long characteristicsStartNs = System.nanoTime();
@@ -681,7 +788,7 @@ public final class AsyncBuildingInfoPlanner {
                     Lc2hTimingRegistry.record("building_info.accept_result", System.nanoTime() - acceptStartNs);
                 } catch (Throwable t) {
                     long acceptStartNs = System.nanoTime();
-                    acceptBuildingInfoResult(coord, new FailureMarker(System.nanoTime() + FAILURE_RETRY_DELAY_NS), System.currentTimeMillis());
+                    acceptBuildingInfoResult(coord, failureMarker(coord), System.currentTimeMillis());
                     Lc2hTimingRegistry.record("building_info.accept_failure", System.nanoTime() - acceptStartNs);
                 } finally {
                     INTERNAL_DEPTH.set(INTERNAL_DEPTH.get() - 1);
@@ -711,106 +818,60 @@ public final class AsyncBuildingInfoPlanner {
             return;
         }
         long nowMs = System.currentTimeMillis();
-        long delayMs;
         if (highPriority) {
-            delayMs = 1L;
             SPAWN_RETRY_TOTAL.incrementAndGet();
             LAST_SPAWN_RETRY_MS.set(nowMs);
         } else {
-            delayMs = LIMITER_RETRY_BASE_MS;
-            if (LIMITER_RETRY_JITTER_MS > 0) {
-                delayMs += ThreadLocalRandom.current().nextInt(LIMITER_RETRY_JITTER_MS + 1);
-            }
             LIMITER_RETRY_TOTAL.incrementAndGet();
             LAST_LIMITER_RETRY_MS.set(nowMs);
         }
+        long delayMs = retriesFor(highPriority).schedule(coord, new RetryContext(provider, debugLogging, startTime));
+        if (delayMs < 0L) {
+            return;
+        }
         if (debugLogging) {
             LC2H.LOGGER.debug("BuildingInfo limiter saturated; retrying {} in {} ms", coord, delayMs);
         }
         Lc2hTimingRegistry.record(highPriority ? "building_info.retry_spawn" : "building_info.retry_limiter", TimeUnit.MILLISECONDS.toNanos(delayMs));
-        enqueueLimiterRetry(provider, coord, debugLogging, startTime, highPriority, nowMs + delayMs);
     }
 
-    private static void enqueueLimiterRetry(IDimensionInfo provider,
-                                            ChunkCoord coord,
-                                            boolean debugLogging,
-                                            long startTime,
-                                            boolean highPriority,
-                                            long nextRetryMs) {
-        RetryKey key = new RetryKey(coord, highPriority);
-        RetryEntry entry = LIMITER_RETRY_ENTRIES.compute(key, (k, existing) -> {
-            if (existing == null) {
-                return new RetryEntry(provider, coord, debugLogging, startTime, highPriority, System.currentTimeMillis(), nextRetryMs);
-            }
-            if (nextRetryMs < existing.nextRetryMs) {
-                existing.nextRetryMs = nextRetryMs;
-            }
-            return existing;
-        });
-        if (entry != null) {
-            entry.attempts.incrementAndGet();
-            LIMITER_RETRY_QUEUE.add(key);
-        }
+    private static RetryWheel<ChunkCoord, RetryContext> retriesFor(boolean highPriority) {
+        return highPriority ? SPAWN_RETRIES : LIMITER_RETRIES;
     }
 
-    public static void drainLimiterRetries(MinecraftServer server) {
-        if (LIMITER_RETRY_QUEUE.isEmpty()) {
-            return;
-        }
+    // Runs on the retry wheel's thread, so the work itself is handed to the scheduler or the planner batch queue.
+    private static void fireLimiterRetry(ChunkCoord coord, RetryContext context, boolean highPriority) {
+        var server = ServerRescheduler.getServer();
         if (server != null && ServerTickLoad.shouldPauseNonCritical(server)) {
+            retriesFor(highPriority).postpone(coord, LIMITER_RETRY_BASE_MS);
             return;
         }
-
-        double scale = ServerTickLoad.getBudgetScale(server);
-        long budgetNs = Math.max(1L, (long) (LIMITER_RETRY_DRAIN_BUDGET_NS * scale));
-        int maxDrain = Math.max(1, (int) Math.round(LIMITER_RETRY_DRAIN_MAX * scale));
-
-        long startNs = System.nanoTime();
-        int drained = 0;
-        long nowMs = System.currentTimeMillis();
-        RetryKey key;
-        while (drained < maxDrain && (key = LIMITER_RETRY_QUEUE.poll()) != null) {
-            RetryEntry entry = LIMITER_RETRY_ENTRIES.get(key);
-            if (entry == null) {
-                continue;
-            }
-            if ((nowMs - entry.firstEnqueuedMs) > LIMITER_RETRY_TTL_MS
-                || entry.attempts.get() > LIMITER_RETRY_MAX_ATTEMPTS) {
-                dropLimiterRetry(entry);
-                drained++;
-            } else if (nowMs < entry.nextRetryMs) {
-                LIMITER_RETRY_QUEUE.add(key);
-            } else {
-                LIMITER_RETRY_ENTRIES.remove(key);
-                if (entry.highPriority) {
-                    runBuildingInfo(entry.provider, entry.coord, entry.debugLogging, entry.startTime, true);
-                } else {
-                    PlannerBatchQueue.enqueue(entry.provider, entry.coord, PlannerTaskKind.BUILDING_INFO,
-                        () -> runBuildingInfo(entry.provider, entry.coord, entry.debugLogging, entry.startTime, false));
-                }
-                drained++;
-            }
-            if ((System.nanoTime() - startNs) >= budgetNs) {
-                break;
-            }
-            if (server != null && ServerTickLoad.shouldPauseNonCritical(server)) {
-                break;
-            }
+        if (highPriority) {
+            AsyncManager.submitTask("building-info-retry",
+                    () -> runBuildingInfo(context.provider(), coord, context.debugLogging(), context.startTime(), true), null,
+                    Priority.HIGH)
+                .whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        clearWarmupReservation(coord);
+                    }
+                });
+        } else {
+            PlannerBatchQueue.enqueue(context.provider(), coord, PlannerTaskKind.BUILDING_INFO,
+                () -> runBuildingInfo(context.provider(), coord, context.debugLogging(), context.startTime(), false));
         }
     }
 
-    private static void dropLimiterRetry(RetryEntry entry) {
-        LIMITER_RETRY_ENTRIES.remove(new RetryKey(entry.coord, entry.highPriority));
-        Object cached = BUILDING_INFO_CACHE.get(entry.coord);
+    private static void dropLimiterRetry(ChunkCoord coord, boolean highPriority) {
+        Object cached = BUILDING_INFO_CACHE.get(coord);
         if (cached instanceof InFlightMarker) {
-            acceptBuildingInfoResult(entry.coord,
-                new FailureMarker(System.nanoTime() + FAILURE_RETRY_DELAY_NS),
+            acceptBuildingInfoResult(coord,
+                failureMarker(coord),
                 System.currentTimeMillis());
         } else {
-            removeCachedEntry(entry.coord, cached);
+            removeCachedEntry(coord, cached);
         }
-        if (entry.highPriority) {
-            SPAWN_PREFETCH.remove(entry.coord);
+        if (highPriority) {
+            SPAWN_PREFETCH.remove(coord);
             SPAWN_PREFETCH_COUNT.decrementAndGet();
         }
     }
@@ -828,17 +889,63 @@ public final class AsyncBuildingInfoPlanner {
             return;
         }
 
-        long nowMs = System.currentTimeMillis();
-        long delayMs = highPriority ? 2L : LIMITER_RETRY_BASE_MS;
-        if (!highPriority && LIMITER_RETRY_JITTER_MS > 0) {
-            delayMs += ThreadLocalRandom.current().nextInt(LIMITER_RETRY_JITTER_MS + 1);
+        // Resume off the multichunk future itself; polling is only left for when there is no future to wait on.
+        CompletableFuture<?> multiChunk = null;
+        try {
+            multiChunk = AsyncMultiChunkPlanner.plannedFuture(provider, coord, CancellationToken.NONE);
+        } catch (Throwable ignored) {
+        }
+        if (multiChunk != null && !multiChunk.isDone()) {
+            if (debugLogging) {
+                LC2H.LOGGER.debug("BuildingInfo waiting for MultiChunk; resuming {} once it completes", coord);
+            }
+            MULTICHUNK_WAITS.incrementAndGet();
+            long waitStartNs = System.nanoTime();
+            multiChunk.whenComplete((ignored, throwable) -> {
+                Lc2hTimingRegistry.record(highPriority ? "building_info.multichunk_wait_spawn" : "building_info.multichunk_wait",
+                    System.nanoTime() - waitStartNs);
+                resumeAfterMultiChunk(provider, coord, debugLogging, startTime, highPriority, throwable);
+            });
+            return;
+        }
+
+        long delayMs = retriesFor(highPriority).schedule(coord, new RetryContext(provider, debugLogging, startTime));
+        if (delayMs < 0L) {
+            return;
         }
         if (debugLogging) {
             LC2H.LOGGER.debug("BuildingInfo waiting for MultiChunk; retrying {} in {} ms", coord, delayMs);
         }
         Lc2hTimingRegistry.record(highPriority ? "building_info.retry_multichunk_spawn" : "building_info.retry_multichunk",
             TimeUnit.MILLISECONDS.toNanos(delayMs));
-        enqueueLimiterRetry(provider, coord, debugLogging, startTime, highPriority, nowMs + delayMs);
+    }
+
+    private static void resumeAfterMultiChunk(IDimensionInfo provider,
+                                              ChunkCoord coord,
+                                              boolean debugLogging,
+                                              long startTime,
+                                              boolean highPriority,
+                                              Throwable multiChunkFailure) {
+        if (!(BUILDING_INFO_CACHE.get(coord) instanceof InFlightMarker)) {
+            return;
+        }
+        // A culled or failed multichunk would only be culled again; the next request for this chunk starts over.
+        if (multiChunkFailure != null) {
+            clearWarmupReservation(coord);
+            return;
+        }
+        if (highPriority) {
+            AsyncManager.submitTask("building-info-multichunk-ready",
+                    () -> runBuildingInfo(provider, coord, debugLogging, startTime, true), null, Priority.HIGH)
+                .whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        clearWarmupReservation(coord);
+                    }
+                });
+        } else {
+            PlannerBatchQueue.enqueue(provider, coord, PlannerTaskKind.BUILDING_INFO,
+                () -> runBuildingInfo(provider, coord, debugLogging, startTime, false));
+        }
     }
 
     private static boolean shouldSkipFullWarmup(LostChunkCharacteristics characteristics) {
@@ -871,6 +978,9 @@ public final class AsyncBuildingInfoPlanner {
         if (coord == null) {
             return;
         }
+        if (value instanceof mcjty.lostcities.worldgen.lost.BuildingInfo) {
+            FAILURE_BACKOFF.recordSuccess(coord);
+        }
         if ("Server thread".equals(Thread.currentThread().getName())) {
             putCachedEntry(coord, value, nowMs);
             return;
@@ -930,6 +1040,19 @@ public final class AsyncBuildingInfoPlanner {
         }
         lastTuneNs = now;
 
+        if (LIMITER.isSelfTuning()) {
+            // The limiter finds its own level from task latency; only keep it off a struggling server tick.
+            double tickMs = ServerTickLoad.getSmoothedTickMs();
+            int ceiling = BUILDING_INFO_TUNED_MAX;
+            if (tickMs >= 45.0D) {
+                ceiling = 1;
+            } else if (tickMs >= 35.0D) {
+                ceiling = Math.max(1, BUILDING_INFO_TUNED_MAX / 2);
+            }
+            LIMITER.setCeiling(ceiling);
+            return;
+        }
+
         int desired = 2;
         int cpu = Runtime.getRuntime().availableProcessors();
         int max = Math.max(1, Math.min(BUILDING_INFO_MAX, Math.max(2, cpu - 1)));
@@ -953,9 +1076,8 @@ public final class AsyncBuildingInfoPlanner {
         }
 
         try {
-            ParallelMetrics.Snapshot snapshot = ParallelMetrics.snapshot();
-            long activeSlices = snapshot.modActiveSlices().values().stream().mapToLong(Long::longValue).sum();
-            double load = Math.min(1.0, activeSlices / (double) ParallelConfig.queueLimit());
+            SchedulerBackend.Load backendLoad = SchedulerBackends.current().load();
+            double load = Math.min(1.0, backendLoad.activeSlices() / (double) Math.max(1L, backendLoad.queueLimit()));
             if (load >= 0.85) {
                 desired = Math.max(1, desired - 1);
             } else if (load <= 0.35) {
@@ -8,6 +8,11 @@ import mcjty.lostcities.worldgen.lost.City;
 import mcjty.lostcities.worldgen.lost.MultiChunk;
 import mcjty.lostcities.worldgen.lost.Railway;
 import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.async.CancellationToken;
+import org.admany.lc2h.concurrency.async.PriorityInheritance;
+import org.admany.lc2h.concurrency.async.SingleFlight;
+import org.admany.lc2h.concurrency.async.RegionCancellation;
+import org.admany.lc2h.concurrency.async.RetryWheel;
 import org.admany.lc2h.data.cache.LostCitiesCacheBudgetManager;
 import org.admany.lc2h.client.frustum.ChunkPriorityManager;
 import org.admany.lc2h.mixin.accessor.lostcities.MultiChunkAccessor;
@@ -19,9 +24,12 @@ import org.admany.lc2h.concurrency.parallel.ParallelWorkQueue;
 import org.admany.lc2h.util.lostcities.MultiChunkCacheAccess;
 import org.admany.lc2h.util.server.ServerRescheduler;
 import org.admany.lc2h.util.server.ServerTickLoad;
+import org.admany.lc2h.worldgen.async.snapshot.MultiChunkPlanStore;
+import org.admany.lc2h.worldgen.async.snapshot.WorldgenFingerprint;
 import org.admany.lc2h.worldgen.async.snapshot.MultiChunkSnapshot;
 import org.admany.lc2h.worldgen.gpu.GPUMemoryManager;
 import org.admany.lc2h.worldgen.async.warmup.AsyncChunkWarmup;
+import org.admany.lc2h.worldgen.async.warmup.PredictivePrefetcher;
 import org.admany.lc2h.dev.diagnostics.ChunkGenTracker;
 import org.admany.lc2h.dev.diagnostics.Lc2hTimingRegistry;
 import org.admany.lc2h.dev.diagnostics.ViewCullingStats;
@@ -39,18 +47,24 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.ThreadLocalRandom;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.MinecraftServer;
 
 public final class AsyncMultiChunkPlanner {
 
-    private static final ConcurrentHashMap<ChunkCoord, CompletableFuture<MultiChunk>> PLANNED = new ConcurrentHashMap<>();
+    // Prepared results wait here until integration drops them; a failed compute is retried after a growing backoff.
+    private static final SingleFlight<ChunkCoord, MultiChunk> PLANNED = new SingleFlight<>("multichunk",
+        Math.max(256, Integer.getInteger("lc2h.multichunk.plannedMax", 4096)),
+        TimeUnit.MINUTES.toMillis(3),
+        Math.max(0L, Long.getLong("lc2h.multichunk.failureBackoffMs", 250L)),
+        Math.max(1_000L, Long.getLong("lc2h.multichunk.failureBackoffMaxMs", 10_000L)));
+    // Who is waiting on each still-queued area, so one caller's cancellation cannot take the work from the others.
+    private static final ConcurrentHashMap<ChunkCoord, SharedCancel> PLANNED_CANCEL = new ConcurrentHashMap<>();
+    // Decode the cache copy of a finished area on the worker so the server thread is left with a checked swap.
+    private static final boolean PREPARE_OFF_THREAD =
+        Boolean.parseBoolean(System.getProperty("lc2h.multichunk.prepareOffThread", "true"));
     private static final ThreadLocal<Integer> INTERNAL_CALL_DEPTH = ThreadLocal.withInitial(() -> 0);
     private static final ThreadLocal<Integer> WARMUP_CALL_DEPTH = ThreadLocal.withInitial(() -> 0);
-    private static final ConcurrentHashMap<ChunkCoord, Boolean> WARM_BUILDING_INFO_SUBMITTED = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<ChunkCoord, Long> WARM_BUILDING_INFO_DONE = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<ChunkCoord, WarmupPlan> WARM_PLANS = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<ChunkCoord, Boolean> INTEGRATION_HOOKED = new ConcurrentHashMap<>();
     private static final long WARM_BUILDING_INFO_TTL_MS = Math.max(30_000L,
@@ -62,14 +76,14 @@ public final class AsyncMultiChunkPlanner {
         Integer.getInteger("lc2h.multichunk.warmupRetryMaxAttempts", 32));
     private static final long WARM_RETRY_TTL_MS = Math.max(1_000L,
         Long.getLong("lc2h.multichunk.warmupRetryTtlMs", TimeUnit.MINUTES.toMillis(2)));
-    private static final long WARM_RETRY_DRAIN_BUDGET_NS = TimeUnit.MICROSECONDS.toNanos(
-        Math.max(50L, Long.getLong("lc2h.multichunk.warmupRetryBudgetUs", 500L)));
-    private static final int WARM_RETRY_DRAIN_MAX = Math.max(8,
-        Integer.getInteger("lc2h.multichunk.warmupRetryDrainMax", 128));
-    private static final ConcurrentHashMap<ChunkCoord, WarmRetryEntry> WARM_RETRY_ENTRIES = new ConcurrentHashMap<>();
-    private static final ConcurrentLinkedQueue<ChunkCoord> WARM_RETRY_QUEUE = new ConcurrentLinkedQueue<>();
-    private static final AtomicLong WARM_RETRY_TOTAL = new AtomicLong(0L);
-    private static final AtomicLong LAST_WARM_RETRY_MS = new AtomicLong(0L);
+    private static final long WARM_RETRY_MAX_MS = Math.max(WARM_RETRY_BASE_MS,
+        Long.getLong("lc2h.multichunk.warmupRetryMaxMs", 2_000L));
+    // Failures are not held here: the warm retry queue already backs them off with jitter and an attempt cap.
+    private static final SingleFlight<ChunkCoord, Boolean> WARM_BUILDING_INFO = new SingleFlight<>("multichunk.warm",
+        Math.max(256, Integer.getInteger("lc2h.multichunk.warmupMax", 8192)), WARM_BUILDING_INFO_TTL_MS, 0L, 0L);
+    private static final RetryWheel<ChunkCoord, IDimensionInfo> WARM_RETRIES = new RetryWheel<>("multichunk.warm",
+        WARM_RETRY_BASE_MS, WARM_RETRY_MAX_MS, WARM_RETRY_JITTER_MS, WARM_RETRY_MAX_ATTEMPTS, WARM_RETRY_TTL_MS,
+        AsyncMultiChunkPlanner::fireWarmRetry, null);
 
     private static final int RECENT_MULTI_MAX = 256;
     private static final long RECENT_MULTI_TTL_MS = TimeUnit.MINUTES.toMillis(3);
@@ -131,24 +145,14 @@ public final class AsyncMultiChunkPlanner {
         }
     }
 
-    private static final class WarmRetryEntry {
-        private final IDimensionInfo provider;
-        private final ChunkCoord multiCoord;
-        private final long firstEnqueuedMs;
-        private volatile long nextRetryMs;
-        private final AtomicInteger attempts = new AtomicInteger(0);
-
-        private WarmRetryEntry(IDimensionInfo provider, ChunkCoord multiCoord, long firstEnqueuedMs, long nextRetryMs) {
-            this.provider = provider;
-            this.multiCoord = multiCoord;
-            this.firstEnqueuedMs = firstEnqueuedMs;
-            this.nextRetryMs = nextRetryMs;
-        }
-    }
-
     private static final int MULTICHUNK_PARALLELISM_OVERRIDE = Integer.getInteger("lc2h.multichunk.parallelism", -1);
     private static final int MULTICHUNK_MAX = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
-    private static final AdaptiveConcurrencyLimiter MULTICHUNK_LIMITER = new AdaptiveConcurrencyLimiter(2, 1, MULTICHUNK_MAX);
+    private static final boolean MULTICHUNK_SELF_TUNING = AdaptiveConcurrencyLimiter.selfTuningEnabled() && MULTICHUNK_PARALLELISM_OVERRIDE <= 0;
+    private static final AdaptiveConcurrencyLimiter MULTICHUNK_LIMITER = new AdaptiveConcurrencyLimiter(2, 1,
+        MULTICHUNK_SELF_TUNING
+            ? Math.max(1, Integer.getInteger("lc2h.multichunk.maxParallelism", Runtime.getRuntime().availableProcessors()))
+            : MULTICHUNK_MAX,
+        MULTICHUNK_SELF_TUNING);
     private static final int MULTICHUNK_PRECOMPUTE_PARALLELISM = Math.max(1,
         Math.min(Integer.getInteger("lc2h.multichunk.precomputeParallelism", Math.max(2, MULTICHUNK_MAX)), MULTICHUNK_MAX));
     private static final java.util.concurrent.ExecutorService MULTICHUNK_PRECOMPUTE_POOL =
@@ -188,7 +192,7 @@ public final class AsyncMultiChunkPlanner {
             }
         }
 
-        CompletableFuture<MultiChunk> future = PLANNED.get(multiCoord);
+        CompletableFuture<MultiChunk> future = PLANNED.peek(multiCoord);
         if (future != null && future.isDone() && !future.isCompletedExceptionally() && !future.isCancelled()) {
             MultiChunk prepared = future.getNow(null);
             if (prepared != null) {
@@ -218,12 +222,13 @@ public final class AsyncMultiChunkPlanner {
             }
         }
         if (!isInternalComputation()) {
-            CompletableFuture<MultiChunk> future = PLANNED.computeIfAbsent(multiCoord, key -> submitMultiChunkCompute(provider, areaSize, key));
+            CompletableFuture<MultiChunk> future = PLANNED.run(multiCoord, key -> submitMultiChunkCompute(provider, areaSize, key));
+            joinPlanned(multiCoord, CancellationToken.NONE);
             try {
                 if (!future.isCancelled() && !future.isCompletedExceptionally()) {
                     MultiChunk prepared = future.getNow(null);
                     if (prepared == null && !future.isDone()) {
-                        prepared = future.join();
+                        prepared = executeInternal(() -> PriorityInheritance.join(future, "multichunk.resolve"));
                     }
                     if (prepared != null) {
                         return integrateResult(provider, multiCoord, prepared);
@@ -258,8 +263,9 @@ public final class AsyncMultiChunkPlanner {
         }
 
         MultiChunk prepared = null;
-        CompletableFuture<MultiChunk> future = PLANNED.get(multiCoord);
+        CompletableFuture<MultiChunk> future = PLANNED.peek(multiCoord);
         if (future != null) {
+            joinPlanned(multiCoord, CancellationToken.NONE);
             if (future.isDone() && !future.isCompletedExceptionally() && !future.isCancelled()) {
                 prepared = future.getNow(null);
                 if (prepared != null) {
@@ -285,8 +291,9 @@ public final class AsyncMultiChunkPlanner {
             return;
         }
 
-        CompletableFuture<MultiChunk> scheduled = PLANNED.computeIfAbsent(multiCoord,
+        CompletableFuture<MultiChunk> scheduled = PLANNED.run(multiCoord,
             key -> submitMultiChunkCompute(provider, areaSize, key));
+        joinPlanned(multiCoord, CancellationToken.NONE);
         if (INTEGRATION_HOOKED.putIfAbsent(multiCoord, Boolean.TRUE) == null) {
             scheduled.whenComplete((result, error) -> {
                 INTEGRATION_HOOKED.remove(multiCoord);
@@ -299,11 +306,24 @@ public final class AsyncMultiChunkPlanner {
     }
 
     public static void ensureScheduled(IDimensionInfo provider, ChunkCoord coord) {
+        ensureScheduled(provider, coord, CancellationToken.NONE);
+    }
+
+    // Schedules the multichunk covering coord and returns its compute future; null when it is already integrated.
+    public static CompletableFuture<MultiChunk> plannedFuture(IDimensionInfo provider, ChunkCoord coord, CancellationToken cancel) {
+        return ensureScheduled(provider, coord, cancel == null ? CancellationToken.NONE : cancel);
+    }
+
+    public static ChunkCoord multiCoordOf(IDimensionInfo provider, ChunkCoord coord) {
+        return toMultiCoord(provider, coord);
+    }
+
+    private static CompletableFuture<MultiChunk> ensureScheduled(IDimensionInfo provider, ChunkCoord coord, CancellationToken cancel) {
         Objects.requireNonNull(provider, "provider");
         Objects.requireNonNull(coord, "coord");
 
         if (isInternalComputation()) {
-            return;
+            return null;
         }
 
         int areaSize = provider.getWorldStyle().getMultiSettings().areasize();
@@ -312,11 +332,20 @@ public final class AsyncMultiChunkPlanner {
         Object cacheLock = MultiChunkCacheAccess.lock();
         synchronized (cacheLock) {
             if (MultiChunkCacheAccess.contains(multiCoord)) {
-                return;
+                return null;
             }
         }
 
-        PLANNED.computeIfAbsent(multiCoord, key -> submitMultiChunkCompute(provider, areaSize, key));
+        CompletableFuture<MultiChunk> planned = PLANNED.run(multiCoord, key -> submitMultiChunkCompute(provider, areaSize, key));
+        joinPlanned(multiCoord, cancel);
+        return planned;
+    }
+
+    private static void joinPlanned(ChunkCoord multiCoord, CancellationToken cancel) {
+        SharedCancel shared = PLANNED_CANCEL.get(multiCoord);
+        if (shared != null) {
+            shared.join(cancel);
+        }
     }
 
     public static void onSynchronousResult(IDimensionInfo provider, ChunkCoord coord, MultiChunk multiChunk) {
@@ -342,7 +371,7 @@ public final class AsyncMultiChunkPlanner {
                 LostCitiesCacheBudgetManager.recordAccess(MULTICHUNK_BUDGET, multiCoord);
             }
         }
-        PLANNED.remove(multiCoord);
+        PLANNED.invalidate(multiCoord);
 
         try {
             ChunkCoord topLeft = new ChunkCoord(multiCoord.dimension(), multiCoord.chunkX() * areaSize, multiCoord.chunkZ() * areaSize);
@@ -356,24 +385,29 @@ public final class AsyncMultiChunkPlanner {
         scheduleWarmBuildingInfo(provider, multiChunk, multiCoord);
     }
 
-    public static void preSchedule(IDimensionInfo provider, ChunkCoord coord) {
+    public static CompletableFuture<?> preSchedule(IDimensionInfo provider, ChunkCoord coord) {
+        return preSchedule(provider, coord, CancellationToken.NONE);
+    }
+
+    // Warmup passes its region token so the plan is dropped once no player is near; everything else is NONE.
+    public static CompletableFuture<?> preSchedule(IDimensionInfo provider, ChunkCoord coord, CancellationToken cancel) {
         if (provider == null || coord == null) {
-            return;
+            return PlannerBatchQueue.settled();
         }
 
         if (GPUMemoryManager.getGPUData(coord, GPU_DATA_CACHE) != null) {
             GPUMemoryManager.markAsHot(coord);
             TaskScheduler.recordExternalGpuTask();
-            return;
+            return PlannerBatchQueue.settled();
         }
         if (!AsyncChunkWarmup.shouldAcceptPreschedule()) {
-            return;
+            return PlannerBatchQueue.settled();
         }
 
         boolean debugLogging = AsyncChunkWarmup.isWarmupDebugLoggingEnabled();
 
         if (AsyncChunkWarmup.deferChunkPrescheduleToGpu(provider, coord, "multichunk")) {
-            return;
+            return PlannerBatchQueue.settled();
         }
 
         if (debugLogging) {
@@ -382,11 +416,12 @@ public final class AsyncMultiChunkPlanner {
         long startTime = System.nanoTime();
 
         try {
-            ensureScheduled(provider, coord);
+            CompletableFuture<MultiChunk> planned = ensureScheduled(provider, coord, cancel);
             long endTime = System.nanoTime();
             if (debugLogging) {
                 LC2H.LOGGER.debug("Finished preSchedule for {} in {} ms", coord, (endTime - startTime) / 1_000_000);
             }
+            return planned != null ? planned : PlannerBatchQueue.settled();
         } catch (Throwable t) {
             LC2H.LOGGER.error("Synchronous multichunk planning failed for {}: {}", coord, t.getMessage());
             throw t;
@@ -415,7 +450,9 @@ public final class AsyncMultiChunkPlanner {
             }
 
             PLANNED.clear();
-            WARM_BUILDING_INFO_SUBMITTED.clear();
+            WARM_BUILDING_INFO.clear();
+            WARM_RETRIES.clear();
+            MultiChunkPlanStore.flush();
             GPU_DATA_CACHE.clear();
             if (MULTICHUNK_PRECOMPUTE_POOL != null) {
                 MULTICHUNK_PRECOMPUTE_POOL.shutdownNow();
@@ -458,10 +495,18 @@ public final class AsyncMultiChunkPlanner {
                 }
             }
 
+            String storeScope = MultiChunkPlanStore.enabled() ? planStoreScope(provider, multiCoord) : null;
+            MultiChunk stored = MultiChunkPlanStore.load(storeScope, multiCoord);
+            if (stored != null && matchesArea(stored, multiCoord)) {
+                MultiChunkBoundaryRegistry.register(provider, multiCoord, stored);
+                return stored;
+            }
+
             precomputeMultiChunkLookups(provider, multiCoord, areaSize);
             MultiChunk multiChunk = new MultiChunk(multiCoord, areaSize);
             MultiChunk result = ((MultiChunkInvoker) multiChunk).lc2h$calculateBuildings(provider);
             MultiChunkBoundaryRegistry.register(provider, multiCoord, result);
+            MultiChunkPlanStore.store(storeScope, multiCoord, result);
 
             long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
             if (trace || org.admany.lc2h.config.ConfigManager.ENABLE_DEBUG_LOGGING) {
@@ -599,20 +644,7 @@ public final class AsyncMultiChunkPlanner {
                     snapshot = MultiChunkSnapshot.encode(prepared);
                 } catch (Throwable ignored) {
                 }
-                final byte[] finalSnapshot = snapshot;
-                runnableCollector.accept(() -> {
-                    MultiChunk gameCompatible = prepared;
-                    if (finalSnapshot != null) {
-                        try {
-                            MultiChunk decoded = MultiChunkSnapshot.decode(finalSnapshot);
-                            if (decoded != null) {
-                                gameCompatible = decoded;
-                            }
-                        } catch (Throwable ignored) {
-                        }
-                    }
-                    applyIntegrated(provider, multiCoord, gameCompatible);
-                });
+                runnableCollector.accept(mainThreadApply(provider, multiCoord, prepared, snapshot));
                 return prepared;
             }
 
@@ -627,26 +659,84 @@ public final class AsyncMultiChunkPlanner {
                 snapshot = MultiChunkSnapshot.encode(prepared);
             } catch (Throwable ignored) {
             }
-            final byte[] finalSnapshot = snapshot;
-            org.admany.lc2h.worldgen.apply.MainThreadChunkApplier.enqueueChunkApplication(multiCoord, () -> {
-                MultiChunk gameCompatible = prepared;
-                if (finalSnapshot != null) {
-                    try {
-                        MultiChunk decoded = MultiChunkSnapshot.decode(finalSnapshot);
-                        if (decoded != null) {
-                            gameCompatible = decoded;
-                        }
-                    } catch (Throwable ignored) {
-                    }
-                }
-                applyIntegrated(provider, multiCoord, gameCompatible);
-            });
+            MultiChunk detached = PREPARE_OFF_THREAD ? decodeDetached(snapshot, multiCoord) : null;
+            org.admany.lc2h.worldgen.apply.MainThreadChunkApplier.enqueueChunkApplication(multiCoord,
+                mainThreadApply(provider, multiCoord, prepared, snapshot, detached), applyCostKind(snapshot, detached));
             return prepared;
         } finally {
             Lc2hTimingRegistry.record("multichunk.integrate", System.nanoTime() - startNs);
         }
     }
 
+    private static Runnable mainThreadApply(IDimensionInfo provider, ChunkCoord multiCoord, MultiChunk prepared, byte[] snapshot) {
+        return mainThreadApply(provider, multiCoord, prepared, snapshot,
+            PREPARE_OFF_THREAD ? decodeDetached(snapshot, multiCoord) : null);
+    }
+
+    // With a copy decoded ahead of time the server thread only checks it still matches the area and swaps it into
+    // the cache; without one it decodes the snapshot itself as before.
+    private static Runnable mainThreadApply(IDimensionInfo provider, ChunkCoord multiCoord, MultiChunk prepared,
+                                            byte[] snapshot, MultiChunk detached) {
+        return () -> {
+            if (detached != null && matchesArea(detached, multiCoord)) {
+                applyIntegrated(provider, multiCoord, detached);
+                return;
+            }
+            MultiChunk gameCompatible = prepared;
+            if (snapshot != null) {
+                try {
+                    MultiChunk decoded = MultiChunkSnapshot.decode(snapshot);
+                    if (decoded != null) {
+                        gameCompatible = decoded;
+                    }
+                } catch (Throwable ignored) {
+                }
+            }
+            applyIntegrated(provider, multiCoord, gameCompatible);
+        };
+    }
+
+    private static MultiChunk decodeDetached(byte[] snapshot, ChunkCoord multiCoord) {
+        if (snapshot == null) {
+            return null;
+        }
+        long startNs = System.nanoTime();
+        try {
+            MultiChunk decoded = MultiChunkSnapshot.decode(snapshot);
+            return decoded != null && matchesArea(decoded, multiCoord) ? decoded : null;
+        } catch (Throwable ignored) {
+            return null;
+        } finally {
+            Lc2hTimingRegistry.record("multichunk.prepare_detached", System.nanoTime() - startNs);
+        }
+    }
+
+    private static boolean matchesArea(MultiChunk multiChunk, ChunkCoord multiCoord) {
+        try {
+            MultiChunkAccessor accessor = (MultiChunkAccessor) multiChunk;
+            ChunkCoord topLeft = accessor.lc2h$getTopLeft();
+            int areaSize = accessor.lc2h$getAreaSize();
+            return topLeft != null && areaSize > 0
+                && java.util.Objects.equals(topLeft.dimension(), multiCoord.dimension())
+                && Math.floorDiv(topLeft.chunkX(), areaSize) == multiCoord.chunkX()
+                && Math.floorDiv(topLeft.chunkZ(), areaSize) == multiCoord.chunkZ();
+        } catch (Throwable ignored) {
+            return false;
+        }
+    }
+
+    // Decoding and integrating scale with how much the area holds; the snapshot size is a cheap stand-in for that.
+    // A pre-decoded copy leaves only the swap, which is costed on its own.
+    private static String applyCostKind(byte[] snapshot, MultiChunk detached) {
+        if (detached != null) {
+            return "multichunk:swap";
+        }
+        if (snapshot == null) {
+            return "multichunk:raw";
+        }
+        return "multichunk:" + (32 - Integer.numberOfLeadingZeros(Math.max(1, snapshot.length >> 10)));
+    }
+
     private static void applyIntegrated(IDimensionInfo provider, ChunkCoord multiCoord, MultiChunk gameCompatible) {
         long startNs = System.nanoTime();
         Object cacheLock = MultiChunkCacheAccess.lock();
@@ -674,7 +764,7 @@ public final class AsyncMultiChunkPlanner {
             } catch (Throwable ignored) {
             }
 
-            PLANNED.remove(multiCoord);
+            PLANNED.invalidate(multiCoord);
             cacheRecentMulti(multiCoord, gameCompatible);
             scheduleWarmBuildingInfo(provider, gameCompatible, multiCoord);
         } finally {
@@ -846,6 +936,23 @@ public final class AsyncMultiChunkPlanner {
                 return;
             }
         }
+        // A finished async compute is only waiting to be integrated; take it instead of computing the area again.
+        if (tryConsumePrepared(provider, coord) != null) {
+            return;
+        }
+        // An async compute that is still queued or running is taken over or waited on rather than duplicated.
+        CompletableFuture<MultiChunk> planned = PLANNED.peek(multiCoord);
+        if (planned != null && !planned.isDone()) {
+            joinPlanned(multiCoord, CancellationToken.NONE);
+            try {
+                MultiChunk prepared = executeInternal(() -> PriorityInheritance.join(planned, "multichunk.syncWarmup"));
+                if (prepared != null) {
+                    integrateResult(provider, multiCoord, prepared);
+                    return;
+                }
+            } catch (Throwable ignored) {
+            }
+        }
 
         try {
             MultiChunk computed = computeMultiChunkSync(provider, areaSize, multiCoord);
@@ -863,14 +970,18 @@ public final class AsyncMultiChunkPlanner {
         return INTERNAL_CALL_DEPTH.get() > 0;
     }
 
+    // Callers join the shared cancellation after PLANNED hands them the future, the starting caller included.
     private static CompletableFuture<MultiChunk> submitMultiChunkCompute(IDimensionInfo provider, int areaSize, ChunkCoord key) {
         java.util.function.Supplier<MultiChunk> supplier = () -> computeMultiChunk(provider, areaSize, key);
-        CompletableFuture<MultiChunk> future = new CompletableFuture<>();
+        PriorityInheritance.Claimable<MultiChunk> future = new PriorityInheritance.Claimable<>(supplier);
+        SharedCancel cancel = new SharedCancel();
+        PLANNED_CANCEL.put(key, cancel);
+        future.whenComplete((ignored, error) -> PLANNED_CANCEL.remove(key, cancel));
         int pending = PENDING_SIZE.incrementAndGet();
         if (pending >= MAX_PENDING) {
             LC2H.LOGGER.debug("Pending suppliers at limit (" + MAX_PENDING + "), forcing flush before enqueue for " + key);
         }
-        PENDING.add(new PendingEntry(supplier, future, key, provider, null));
+        PENDING.add(new PendingEntry(future::runIfUnclaimed, future, key, provider, null, cancel));
 
         int dynamicBatchSize = Math.max(8, AdaptiveBatchController.multiChunkBatchSize());
         if (pending >= MAX_PENDING || pending >= dynamicBatchSize) {
@@ -884,6 +995,7 @@ public final class AsyncMultiChunkPlanner {
     }
 
     private static void submitBatch() {
+        int batchSize = AdaptiveBatchController.multiChunkBatchSize();
         List<PendingEntry> drained = drainPending();
         if (drained.isEmpty()) {
             if (PENDING_SIZE.get() > 0) {
@@ -899,6 +1011,9 @@ public final class AsyncMultiChunkPlanner {
         for (PendingEntry entry : drained) {
             AdaptiveConcurrencyLimiter.Token token = entry.token();
             suppliers.add(() -> {
+                if (token != null) {
+                    token.started();
+                }
                 try {
                     return entry.supplier().get();
                 } finally {
@@ -921,6 +1036,7 @@ public final class AsyncMultiChunkPlanner {
         }
 
         ParallelWorkOptions<MultiChunk> options = buildMultiChunkCacheOptions(keys, providers);
+        long batchStartNs = System.nanoTime();
         ParallelWorkQueue.dispatch("multi-chunk-batch", suppliers, event -> {
                 MultiChunk result = event.result();
                 int index = event.index();
@@ -928,11 +1044,12 @@ public final class AsyncMultiChunkPlanner {
                 ChunkCoord key = keys.get(index);
                 if (result != null) {
                     future.complete(result);
-                } else {
+                } else if (PriorityInheritance.settlesOnWorker(future)) {
                     future.completeExceptionally(new RuntimeException("Batch compute failed for " + key));
                 }
             }, options)
             .thenAccept(results -> {
+                AdaptiveBatchController.recordMultiChunkBatch(batchSize, keys.size(), System.nanoTime() - batchStartNs);
                 scheduleBatchIntegration(providers, keys, results);
                 GPUMemoryManager.continuousCleanup();
             }).exceptionally(t -> {
@@ -948,7 +1065,9 @@ public final class AsyncMultiChunkPlanner {
                     }
                 }
                 for (CompletableFuture<MultiChunk> f : futures) {
-                    f.completeExceptionally(t);
+                    if (PriorityInheritance.settlesOnWorker(f)) {
+                        f.completeExceptionally(t);
+                    }
                 }
                 return null;
             });
@@ -972,10 +1091,17 @@ public final class AsyncMultiChunkPlanner {
         List<PendingEntry> drained = new ArrayList<>(maxDrain);
         List<PendingEntry> keep = new ArrayList<>();
         int dropped = 0;
+        int cancelledCount = 0;
         PendingEntry entry;
         while ((entry = PENDING.poll()) != null) {
-            if (shouldCullQueue() && !isChunkInView(entry.key())) {
-                dropped++;
+            boolean cancelled = entry.cancel().isCancelled();
+            if (cancelled || (shouldCullQueue() && !isChunkInView(entry.key()) && !PredictivePrefetcher.isPredicted(entry.key()))) {
+                if (cancelled) {
+                    cancelledCount++;
+                    RegionCancellation.recordCancelled(RegionCancellation.Site.PLANNER);
+                } else {
+                    dropped++;
+                }
                 try {
                     CompletableFuture<MultiChunk> future = entry.future();
                     if (future != null) {
@@ -984,7 +1110,7 @@ public final class AsyncMultiChunkPlanner {
                 } catch (Throwable ignored) {
                 }
                 try {
-                    PLANNED.remove(entry.key(), entry.future());
+                    PLANNED.invalidate(entry.key(), entry.future());
                 } catch (Throwable ignored) {
                 }
                 continue;
@@ -998,7 +1124,7 @@ public final class AsyncMultiChunkPlanner {
                 keep.add(entry);
                 continue;
             }
-            drained.add(new PendingEntry(entry.supplier(), entry.future(), entry.key(), entry.provider(), token));
+            drained.add(new PendingEntry(entry.supplier(), entry.future(), entry.key(), entry.provider(), token, entry.cancel()));
         }
 
         if (!keep.isEmpty()) {
@@ -1006,8 +1132,8 @@ public final class AsyncMultiChunkPlanner {
                 PENDING.add(pending);
             }
         }
-        if (!drained.isEmpty() || dropped > 0) {
-            PENDING_SIZE.addAndGet(-(drained.size() + dropped));
+        if (!drained.isEmpty() || dropped > 0 || cancelledCount > 0) {
+            PENDING_SIZE.addAndGet(-(drained.size() + dropped + cancelledCount));
         }
         if (dropped > 0) {
             ViewCullingStats.recordMultiChunkPending(dropped);
@@ -1183,6 +1309,22 @@ public final class AsyncMultiChunkPlanner {
         return new SeedDescriptor(dimensionId, seed, profileName, worldStyleName, multiSettingsSignature);
     }
 
+    // Everything a stored plan depends on besides its coordinate; a change in any of it starts a fresh store.
+    // Null, meaning do not use the store, while any part of it cannot be determined.
+    private static String planStoreScope(IDimensionInfo provider, ChunkCoord multiCoord) {
+        SeedDescriptor descriptor = descriptorForProvider(provider);
+        if (descriptor.isIncomplete()) {
+            return null;
+        }
+        String fingerprint = WorldgenFingerprint.of(provider);
+        if (fingerprint == null) {
+            return null;
+        }
+        String dimension = multiCoord.dimension() != null ? String.valueOf(multiCoord.dimension().location()) : descriptor.dimension();
+        return dimension + "|" + descriptor.seed() + "|" + descriptor.profile() + "|" + descriptor.worldStyle()
+            + "|" + descriptor.multiSettings() + "|" + fingerprint;
+    }
+
     private static String cacheKey(SeedDescriptor descriptor, ChunkCoord coord) {
         String dimension = descriptor.dimension();
         long seed = descriptor.seed();
@@ -1198,13 +1340,50 @@ public final class AsyncMultiChunkPlanner {
 
     private record SeedDescriptor(String dimension, long seed, String profile, String worldStyle, String multiSettings) {
         private static final SeedDescriptor UNKNOWN = new SeedDescriptor("unknown", 0L, "unknown", "unknown", "unknown");
+
+        private boolean isIncomplete() {
+            return "unknown".equals(dimension) || "unknown".equals(profile) || "unknown".equals(worldStyle)
+                || "unknown".equals(multiSettings);
+        }
     }
 
     private record PendingEntry(java.util.function.Supplier<MultiChunk> supplier,
                                 CompletableFuture<MultiChunk> future,
                                 ChunkCoord key,
                                 IDimensionInfo provider,
-                                AdaptiveConcurrencyLimiter.Token token) {
+                                AdaptiveConcurrencyLimiter.Token token,
+                                SharedCancel cancel) {
+    }
+
+    // Cancellation for a planned area that several callers share. It counts only while every caller that joined came
+    // with a token and all of those are cancelled; one caller without a token pins the work for good.
+    private static final class SharedCancel {
+        private static final int MAX_TOKENS = 8;
+        private final java.util.concurrent.CopyOnWriteArrayList<CancellationToken> tokens = new java.util.concurrent.CopyOnWriteArrayList<>();
+        private volatile boolean pinned;
+
+        private void join(CancellationToken token) {
+            if (pinned) {
+                return;
+            }
+            if (token == null || token == CancellationToken.NONE || tokens.size() >= MAX_TOKENS) {
+                pinned = true;
+            } else {
+                tokens.add(token);
+            }
+        }
+
+        private boolean isCancelled() {
+            if (pinned || tokens.isEmpty()) {
+                return false;
+            }
+            for (CancellationToken token : tokens) {
+                if (!token.isCancelled()) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
     private static String sanitize(String value) {
@@ -1214,100 +1393,33 @@ public final class AsyncMultiChunkPlanner {
         return value.replace(':', '_').replace('|', '_').replace(' ', '_');
     }
 
-    private static long computeWarmRetryDelayMs() {
-        long delay = WARM_RETRY_BASE_MS;
-        if (WARM_RETRY_JITTER_MS > 0) {
-            delay += ThreadLocalRandom.current().nextInt(WARM_RETRY_JITTER_MS + 1);
-        }
-        return delay;
-    }
-
-    private static void enqueueWarmRetry(IDimensionInfo provider, ChunkCoord multiCoord, long delayMs) {
+    private static void enqueueWarmRetry(IDimensionInfo provider, ChunkCoord multiCoord) {
         if (provider == null || multiCoord == null) {
             return;
         }
-        long nowMs = System.currentTimeMillis();
-        long delay = Math.max(1L, delayMs);
-        WarmRetryEntry entry = WARM_RETRY_ENTRIES.compute(multiCoord, (key, existing) -> {
-            if (existing == null) {
-                return new WarmRetryEntry(provider, multiCoord, nowMs, nowMs + delay);
-            }
-            if (nowMs + delay < existing.nextRetryMs) {
-                existing.nextRetryMs = nowMs + delay;
-            }
-            return existing;
-        });
-        if (entry != null) {
-            entry.attempts.incrementAndGet();
-            WARM_RETRY_QUEUE.add(multiCoord);
-            WARM_RETRY_TOTAL.incrementAndGet();
-            LAST_WARM_RETRY_MS.set(nowMs);
-        }
+        WARM_RETRIES.schedule(multiCoord, provider);
     }
 
-    private static void requeueWarmRetry(WarmRetryEntry entry, long nextRetryMs) {
-        if (entry == null) {
+    // Runs on the retry wheel's thread; scheduleWarmBuildingInfo only submits, so nothing heavy happens here.
+    private static void fireWarmRetry(ChunkCoord multiCoord, IDimensionInfo provider) {
+        MinecraftServer server = ServerRescheduler.getServer();
+        if (server != null && ServerTickLoad.shouldPauseNonCritical(server)) {
+            WARM_RETRIES.postpone(multiCoord, WARM_RETRY_BASE_MS);
             return;
         }
-        entry.nextRetryMs = nextRetryMs;
-        WARM_RETRY_QUEUE.add(entry.multiCoord);
-    }
-
-    public static void drainWarmRetries(MinecraftServer server) {
-        if (WARM_RETRY_QUEUE.isEmpty()) {
+        if (WARM_BUILDING_INFO.isFresh(multiCoord)) {
+            WARM_RETRIES.forget(multiCoord);
             return;
         }
-        if (server != null && ServerTickLoad.shouldPauseNonCritical(server)) {
+        if (WARM_BUILDING_INFO.isInFlight(multiCoord)) {
+            WARM_RETRIES.postpone(multiCoord, WARM_RETRY_BASE_MS);
             return;
         }
-
-        double scale = ServerTickLoad.getBudgetScale(server);
-        long budgetNs = Math.max(1L, (long) (WARM_RETRY_DRAIN_BUDGET_NS * scale));
-        int maxDrain = Math.max(1, (int) Math.round(WARM_RETRY_DRAIN_MAX * scale));
-
-        long startNs = System.nanoTime();
-        int drained = 0;
-        long nowMs = System.currentTimeMillis();
-        ChunkCoord key;
-        while (drained < maxDrain && (key = WARM_RETRY_QUEUE.poll()) != null) {
-            WarmRetryEntry entry = WARM_RETRY_ENTRIES.get(key);
-            if (entry == null) {
-                continue;
-            }
-            if ((nowMs - entry.firstEnqueuedMs) > WARM_RETRY_TTL_MS
-                || entry.attempts.get() > WARM_RETRY_MAX_ATTEMPTS) {
-                WARM_RETRY_ENTRIES.remove(key);
-                drained++;
-                continue;
-            }
-            Long lastDone = WARM_BUILDING_INFO_DONE.get(key);
-            if (lastDone != null && (nowMs - lastDone) <= WARM_BUILDING_INFO_TTL_MS) {
-                WARM_RETRY_ENTRIES.remove(key);
-                drained++;
-                continue;
-            }
-            if (WARM_BUILDING_INFO_SUBMITTED.containsKey(key)) {
-                requeueWarmRetry(entry, nowMs + computeWarmRetryDelayMs());
-                drained++;
-            } else if (nowMs < entry.nextRetryMs) {
-                requeueWarmRetry(entry, entry.nextRetryMs);
-                drained++;
-            } else {
-                MultiChunk cached = getCachedMultiChunk(entry.multiCoord);
-                if (cached == null) {
-                    WARM_RETRY_ENTRIES.remove(key);
-                } else {
-                    WARM_RETRY_ENTRIES.remove(key);
-                    scheduleWarmBuildingInfo(entry.provider, cached, entry.multiCoord);
-                }
-                drained++;
-            }
-            if ((System.nanoTime() - startNs) >= budgetNs) {
-                break;
-            }
-            if (server != null && ServerTickLoad.shouldPauseNonCritical(server)) {
-                break;
-            }
+        MultiChunk cached = getCachedMultiChunk(multiCoord);
+        if (cached == null) {
+            WARM_RETRIES.forget(multiCoord);
+        } else {
+            scheduleWarmBuildingInfo(provider, cached, multiCoord);
         }
     }
 
@@ -1323,42 +1435,50 @@ public final class AsyncMultiChunkPlanner {
             return;
         }
 
-        Long lastDone = WARM_BUILDING_INFO_DONE.get(multiCoord);
-        long nowMs = System.currentTimeMillis();
-        if (lastDone != null && (nowMs - lastDone) <= WARM_BUILDING_INFO_TTL_MS) {
-            return;
-        }
-
-        if (WARM_BUILDING_INFO_SUBMITTED.putIfAbsent(multiCoord, Boolean.TRUE) != null) {
+        if (WARM_BUILDING_INFO.isActive(multiCoord)) {
             return;
         }
 
-        if (!WARM_SEMAPHORE.tryAcquire()) {
-            WARM_BUILDING_INFO_SUBMITTED.remove(multiCoord);
-            enqueueWarmRetry(provider, multiCoord, computeWarmRetryDelayMs());
-            return;
+        int areaSize = provider.getWorldStyle().getMultiSettings().areasize();
+        CancellationToken cancel = RegionCancellation.forChunk(new ChunkCoord(multiCoord.dimension(),
+            multiCoord.chunkX() * areaSize, multiCoord.chunkZ() * areaSize));
+        boolean[] deferred = new boolean[1];
+        WARM_BUILDING_INFO.run(multiCoord, key -> {
+            if (!WARM_SEMAPHORE.tryAcquire()) {
+                deferred[0] = true;
+                return null;
+            }
+            return org.admany.lc2h.concurrency.async.AsyncManager.submitWithDeadline("warmBuildingInfo", () -> {
+                    boolean completed = false;
+                    try {
+                        completed = warmBuildingInfo(provider, multiChunk, multiCoord);
+                    } finally {
+                        WARM_SEMAPHORE.release();
+                    }
+                    return completed;
+                }, org.admany.lc2h.concurrency.async.Priority.LOW,
+                    org.admany.lc2h.concurrency.async.AsyncManager.deadlineFor(org.admany.lc2h.concurrency.async.Priority.LOW), cancel)
+                .whenComplete((completed, throwable) -> {
+                    if (RegionCancellation.isCancellation(throwable)) {
+                        // Cancelled before the body ran, so the permit taken above is still held.
+                        WARM_SEMAPHORE.release();
+                        return;
+                    }
+                    if (throwable == null && Boolean.TRUE.equals(completed)) {
+                        WARM_PLANS.remove(multiCoord);
+                        WARM_RETRIES.forget(multiCoord);
+                    } else {
+                        enqueueWarmRetry(provider, multiCoord);
+                    }
+                    if (throwable != null) {
+                        LC2H.LOGGER.error("Warm building info failed for {}: {}", multiCoord, throwable.getMessage());
+                    }
+                })
+                // An incomplete warmup is not remembered, so the retry queue can run it again.
+                .thenApply(completed -> Boolean.TRUE.equals(completed) ? Boolean.TRUE : null);
+        });
+        if (deferred[0]) {
+            enqueueWarmRetry(provider, multiCoord);
         }
-
-        org.admany.lc2h.concurrency.async.AsyncManager.submitSupplier("warmBuildingInfo", () -> {
-                boolean completed = false;
-                try {
-                    completed = warmBuildingInfo(provider, multiChunk, multiCoord);
-                } finally {
-                    WARM_SEMAPHORE.release();
-                }
-                return completed;
-            }, org.admany.lc2h.concurrency.async.Priority.LOW)
-            .whenComplete((completed, throwable) -> {
-                WARM_BUILDING_INFO_SUBMITTED.remove(multiCoord);
-                if (throwable == null && Boolean.TRUE.equals(completed)) {
-                    WARM_BUILDING_INFO_DONE.put(multiCoord, System.currentTimeMillis());
-                    WARM_PLANS.remove(multiCoord);
-                } else {
-                    enqueueWarmRetry(provider, multiCoord, computeWarmRetryDelayMs());
-                }
-                if (throwable != null) {
-                    LC2H.LOGGER.error("Warm building info failed for {}: {}", multiCoord, throwable.getMessage());
-                }
-            });
     }
 }
@@ -3,12 +3,14 @@ package org.admany.lc2h.worldgen.async.planner;
 import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.async.CancellationToken;
 import org.admany.lc2h.util.cache.CacheTtl;
 import org.admany.lc2h.worldgen.gpu.GPUMemoryManager;
 import org.admany.lc2h.worldgen.async.warmup.AsyncChunkWarmup;
 import org.admany.quantified.core.common.util.TaskScheduler;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -29,7 +31,12 @@ public final class AsyncTerrainFeaturePlanner {
     private AsyncTerrainFeaturePlanner() {
     }
 
-    public static void preSchedule(IDimensionInfo provider, ChunkCoord coord) {
+    public static CompletableFuture<Void> preSchedule(IDimensionInfo provider, ChunkCoord coord) {
+        return preSchedule(provider, coord, CancellationToken.NONE);
+    }
+
+    // Warmup passes its region token so the queued task is dropped once no player is near; everything else is NONE.
+    public static CompletableFuture<Void> preSchedule(IDimensionInfo provider, ChunkCoord coord, CancellationToken cancel) {
         Objects.requireNonNull(provider, "provider");
         Objects.requireNonNull(coord, "coord");
 
@@ -37,15 +44,15 @@ public final class AsyncTerrainFeaturePlanner {
         if (gpuData != null) {
             GPUMemoryManager.markAsHot(coord);
             TaskScheduler.recordExternalGpuTask();
-            return;
+            return PlannerBatchQueue.settled();
         }
         if (!AsyncChunkWarmup.shouldAcceptPreschedule()) {
-            return;
+            return PlannerBatchQueue.settled();
         }
 
         long now = System.currentTimeMillis();
         if (CacheTtl.markIfFresh(COMPUTATION_CACHE, coord, COMPUTATION_CACHE_TTL_MS, now)) {
-            return;
+            return PlannerBatchQueue.settled();
         }
         maybePrune(now);
 
@@ -57,11 +64,16 @@ public final class AsyncTerrainFeaturePlanner {
         long startTime = System.nanoTime();
 
         if (AsyncChunkWarmup.deferChunkPrescheduleToGpu(provider, coord, "terrain-feature")) {
-            return;
+            return PlannerBatchQueue.settled();
         }
 
-        PlannerBatchQueue.enqueue(provider, coord, PlannerTaskKind.TERRAIN_FEATURE,
-            () -> runTerrainFeatureComputation(coord, provider, debugLogging, startTime));
+        return PlannerBatchQueue.enqueue(provider, coord, PlannerTaskKind.TERRAIN_FEATURE,
+            () -> runTerrainFeatureComputation(coord, provider, debugLogging, startTime), cancel);
+    }
+
+    // A cancelled task never ran, so its freshness mark must not keep the chunk from being scheduled again.
+    static void releaseCancelled(ChunkCoord coord) {
+        COMPUTATION_CACHE.remove(coord);
     }
 
     private static void injectGPUData(ChunkCoord coord, float[] gpuData, IDimensionInfo provider) {
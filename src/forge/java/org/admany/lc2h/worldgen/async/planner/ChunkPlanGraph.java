@@ -0,0 +1,157 @@
+package org.admany.lc2h.worldgen.async.planner;
+
+import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.worldgen.IDimensionInfo;
+import org.admany.lc2h.client.frustum.ChunkPriorityManager;
+import org.admany.lc2h.concurrency.async.AsyncManager;
+import org.admany.lc2h.concurrency.async.CancellationToken;
+import org.admany.lc2h.concurrency.async.Priority;
+import org.admany.lc2h.concurrency.async.RegionCancellation;
+import org.admany.lc2h.concurrency.async.TaskGraph;
+import org.admany.lc2h.worldgen.async.generator.AsyncDebrisGenerator;
+import org.admany.lc2h.worldgen.async.generator.AsyncPaletteGenerator;
+import org.admany.lc2h.worldgen.async.warmup.AsyncChunkWarmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Chunk planning as a dependency graph: MultiChunk -> BuildingInfo -> terrain features, terrain correction,
+// palette and debris. Every stage is released by its inputs completing, so nothing downstream polls for them.
+public final class ChunkPlanGraph {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("lc2h.planner.graph", "true"));
+    private static final TaskGraph<StageKey> GRAPH = new TaskGraph<>("chunk-plan");
+
+    public enum Stage {
+        MULTI_CHUNK,
+        BUILDING_INFO,
+        TERRAIN_FEATURE,
+        TERRAIN_CORRECTION,
+        PALETTE,
+        DEBRIS
+    }
+
+    private record StageKey(Stage stage, ChunkCoord coord) {
+    }
+
+    private ChunkPlanGraph() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // All MultiChunk and BuildingInfo stages go in first so the terrain stages can name their neighbours as inputs.
+    public static void planChunks(IDimensionInfo provider, List<ChunkCoord> chunks, CancellationToken cancel) {
+        if (provider == null || chunks == null || chunks.isEmpty()) {
+            return;
+        }
+        CancellationToken token = cancel == null ? CancellationToken.NONE : cancel;
+        boolean[] foreground = new boolean[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            ChunkCoord chunk = chunks.get(i);
+            foreground[i] = ChunkPriorityManager.getPriorityForChunk(chunk) == Priority.HIGH;
+            planBuildingInfo(provider, chunk, token, foreground[i]);
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            planDownstream(provider, chunks.get(i), token, foreground[i]);
+        }
+    }
+
+    // Called when the game itself asks for a chunk: whatever of its critical path has not started yet goes first.
+    public static void promote(ChunkCoord coord) {
+        if (ENABLED && coord != null) {
+            GRAPH.promote(new StageKey(Stage.BUILDING_INFO, coord));
+        }
+    }
+
+    public static TaskGraph.Stats stats() {
+        return GRAPH.stats();
+    }
+
+    private static void planBuildingInfo(IDimensionInfo provider, ChunkCoord chunk, CancellationToken cancel, boolean foreground) {
+        // BuildingInfo reads the multichunk of its own chunk and of the neighbours it borders on.
+        Set<ChunkCoord> multiCoords = new LinkedHashSet<>();
+        ArrayList<StageKey> multiStages = new ArrayList<>(2);
+        for (ChunkCoord near : withNeighbours(chunk)) {
+            ChunkCoord multiCoord = AsyncMultiChunkPlanner.multiCoordOf(provider, near);
+            if (!multiCoords.add(multiCoord)) {
+                continue;
+            }
+            StageKey key = new StageKey(Stage.MULTI_CHUNK, multiCoord);
+            multiStages.add(key);
+            GRAPH.stage(key, List.of(), List.of(), foreground, fg -> {
+                CompletableFuture<?> planned = run(cancel, () -> AsyncMultiChunkPlanner.preSchedule(provider, near, cancel));
+                if (fg) {
+                    AsyncMultiChunkPlanner.flushPendingBatches();
+                }
+                return planned;
+            });
+        }
+        GRAPH.stage(new StageKey(Stage.BUILDING_INFO, chunk), multiStages, List.of(), foreground, fg -> {
+            CompletableFuture<?> queued = run(cancel, () -> AsyncBuildingInfoPlanner.preSchedule(provider, chunk, cancel));
+            if (fg) {
+                PlannerBatchQueue.flushKind(PlannerTaskKind.BUILDING_INFO);
+            }
+            return queued;
+        });
+    }
+
+    private static void planDownstream(IDimensionInfo provider, ChunkCoord chunk, CancellationToken cancel, boolean foreground) {
+        List<StageKey> ownInfo = List.of(new StageKey(Stage.BUILDING_INFO, chunk));
+        GRAPH.stage(new StageKey(Stage.TERRAIN_FEATURE, chunk), ownInfo, List.of(), foreground, fg -> {
+            CompletableFuture<?> queued = run(cancel, () -> AsyncTerrainFeaturePlanner.preSchedule(provider, chunk, cancel));
+            if (fg) {
+                PlannerBatchQueue.flushKind(PlannerTaskKind.TERRAIN_FEATURE);
+            }
+            return queued;
+        });
+
+        // Correction smooths across chunk borders, so it also waits for the neighbours' BuildingInfo.
+        ArrayList<StageKey> borderInfo = new ArrayList<>(5);
+        for (ChunkCoord near : withNeighbours(chunk)) {
+            borderInfo.add(new StageKey(Stage.BUILDING_INFO, near));
+        }
+        GRAPH.stage(new StageKey(Stage.TERRAIN_CORRECTION, chunk), borderInfo, List.of(), foreground, fg -> {
+            CompletableFuture<?> queued = run(cancel, () -> AsyncTerrainCorrectionPlanner.preSchedule(provider, chunk, cancel));
+            if (fg) {
+                PlannerBatchQueue.flushKind(PlannerTaskKind.TERRAIN_CORRECTION);
+            }
+            return queued;
+        });
+
+        // Palette and debris compute inline, so they get a worker of their own rather than the thread that released them.
+        GRAPH.stage(new StageKey(Stage.PALETTE, chunk), ownInfo, List.of(), foreground, fg ->
+            AsyncManager.submitSupplier("plan-palette", () -> run(cancel, () -> {
+                AsyncPaletteGenerator.preSchedule(provider, chunk);
+                return null;
+            }), fg ? Priority.HIGH : Priority.LOW, cancel));
+        GRAPH.stage(new StageKey(Stage.DEBRIS, chunk), ownInfo, List.of(), foreground, fg ->
+            AsyncManager.submitSupplier("plan-debris", () -> run(cancel, () -> {
+                AsyncDebrisGenerator.preSchedule(provider, chunk);
+                return null;
+            }), fg ? Priority.HIGH : Priority.LOW, cancel));
+    }
+
+    private static <T> T run(CancellationToken cancel, Supplier<T> action) {
+        if (cancel.isCancelled()) {
+            RegionCancellation.recordCancelled(RegionCancellation.Site.WARMUP);
+            return null;
+        }
+        return AsyncChunkWarmup.runWithinCpuWarmup(action);
+    }
+
+    private static ChunkCoord[] withNeighbours(ChunkCoord chunk) {
+        return new ChunkCoord[] {
+            chunk,
+            new ChunkCoord(chunk.dimension(), chunk.chunkX() - 1, chunk.chunkZ()),
+            new ChunkCoord(chunk.dimension(), chunk.chunkX() + 1, chunk.chunkZ()),
+            new ChunkCoord(chunk.dimension(), chunk.chunkX(), chunk.chunkZ() - 1),
+            new ChunkCoord(chunk.dimension(), chunk.chunkX(), chunk.chunkZ() + 1)
+        };
+    }
+}
@@ -4,16 +4,20 @@ import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import net.minecraft.server.MinecraftServer;
 import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.async.AdmissionController;
 import org.admany.lc2h.concurrency.async.AsyncManager;
+import org.admany.lc2h.concurrency.async.CancellationToken;
 import org.admany.lc2h.concurrency.async.Priority;
+import org.admany.lc2h.concurrency.async.PriorityInheritance;
+import org.admany.lc2h.concurrency.async.RegionCancellation;
 import org.admany.lc2h.client.frustum.ChunkPriorityManager;
 import org.admany.lc2h.concurrency.parallel.AdaptiveBatchController;
 import org.admany.lc2h.concurrency.parallel.ParallelWorkQueue;
 import org.admany.lc2h.util.server.ServerRescheduler;
-import org.admany.lc2h.util.server.ServerTickLoad;
 import org.admany.lc2h.util.log.RateLimitedLogger;
 import org.admany.lc2h.worldgen.gpu.GPUMemoryManager;
 import org.admany.lc2h.worldgen.async.warmup.AsyncChunkWarmup;
+import org.admany.lc2h.dev.diagnostics.ChunkTraceRecorder;
 import org.admany.lc2h.dev.diagnostics.ViewCullingStats;
 import org.admany.lc2h.dev.diagnostics.Lc2hTimingRegistry;
 import org.admany.quantified.core.common.util.TaskScheduler;
@@ -21,6 +25,7 @@ import org.admany.quantified.core.common.util.TaskScheduler;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -30,17 +35,23 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
 
 public final class PlannerBatchQueue {
 
     private static final long DEFERRED_FLUSH_DELAY_MS = Math.max(15L, Long.getLong("lc2h.plannerBatch.flushDelayMs", 40L));
     private static final int MAX_PENDING_TASKS = Math.max(256, Integer.getInteger("lc2h.planner.max_pending", 2048));
     private static final ConcurrentHashMap<PlannerBatchKey, PendingBatch> BATCHES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<PlannerTaskKey, PlannerExecutable> OUTSTANDING = new ConcurrentHashMap<>();
     private static final AtomicBoolean DEFERRED_FLUSH_SCHEDULED = new AtomicBoolean(false);
     private static final AtomicInteger PENDING_TASKS = new AtomicInteger();
     private static final AtomicIntegerArray PENDING_BY_KIND = new AtomicIntegerArray(PlannerTaskKind.values().length);
     private static final java.util.concurrent.atomic.AtomicLong DROPPED_PRESSURE = new java.util.concurrent.atomic.AtomicLong(0L);
     private static final java.util.concurrent.atomic.AtomicLong DROPPED_DUPLICATE = new java.util.concurrent.atomic.AtomicLong(0L);
+    private static final int TILE_MAX_TASKS = Math.max(1, Integer.getInteger("lc2h.plannerBatch.tileMaxTasks", 16));
+    private static final LongAdder TILES_RUN = new LongAdder();
+    private static final LongAdder TILE_TASKS = new LongAdder();
+    private static final LongAdder TILE_NANOS = new LongAdder();
 
     private PlannerBatchQueue() {
     }
@@ -62,46 +73,95 @@ public final class PlannerBatchQueue {
         return new PlannerBatchStats(BATCHES.size(), Math.max(0, PENDING_TASKS.get()), byKind);
     }
 
-    public static void enqueue(IDimensionInfo provider, ChunkCoord coord, PlannerTaskKind kind, Runnable action) {
+    public static CompletableFuture<Void> enqueue(IDimensionInfo provider, ChunkCoord coord, PlannerTaskKind kind, Runnable action) {
+        return enqueue(provider, coord, kind, action, CancellationToken.NONE);
+    }
+
+    // The returned future settles once the task has run or has been dropped, whichever way it left the queue.
+    public static CompletableFuture<Void> enqueue(IDimensionInfo provider, ChunkCoord coord, PlannerTaskKind kind, Runnable action, CancellationToken cancel) {
         if (provider == null || kind == null || action == null) {
-            return;
+            return settled();
         }
         if (shouldCullQueue() && coord != null && coord.dimension() != null) {
             if (!ChunkPriorityManager.isChunkWithinViewDistance(coord.dimension().location(), coord.chunkX(), coord.chunkZ())) {
                 ViewCullingStats.recordPlannerQueue(1);
-                return;
+                return settled();
             }
         }
+        AdmissionController.WorkClass workClass = ChunkPriorityManager.getPriorityForChunk(coord) == Priority.HIGH
+            ? AdmissionController.WorkClass.PLAYER_CRITICAL
+            : AdmissionController.WorkClass.PREFETCH;
         int pending = PENDING_TASKS.incrementAndGet();
-        int dynamicMax = dynamicMaxPending();
-        if (pending > dynamicMax) {
+        if (pending > MAX_PENDING_TASKS || !AdmissionController.tryAcquire(workClass)) {
             PENDING_TASKS.decrementAndGet();
             DROPPED_PRESSURE.incrementAndGet();
             RateLimitedLogger.warn(
                 "lc2h-planner-queue-full",
-                "LC2H planner queue full ({} >= {}). Dropping {} at {}",
+                "LC2H planner queue full ({} pending, {} share {}). Dropping {} at {}",
                 pending,
-                dynamicMax,
+                workClass,
+                AdmissionController.share(workClass),
                 kind.displayName(),
                 describe(coord)
             );
-            return;
+            return settled();
         }
         PlannerBatchKey key = new PlannerBatchKey(provider);
         PendingBatch batch = BATCHES.computeIfAbsent(key, PlannerBatchQueue::createBatch);
-        AddResult addResult = batch.add(new PlannerExecutable(kind, coord, action));
+        PlannerExecutable exec = new PlannerExecutable(kind, coord, action, cancel == null ? CancellationToken.NONE : cancel);
+        AddResult addResult = batch.add(exec);
         if (!addResult.accepted) {
             adjustPending(-1);
+            AdmissionController.release(workClass);
             DROPPED_DUPLICATE.incrementAndGet();
-            return;
+            return addResult.existing != null ? addResult.existing.done : settled();
         }
         PENDING_BY_KIND.incrementAndGet(kind.ordinal());
+        if (coord != null) {
+            PlannerTaskKey taskKey = new PlannerTaskKey(kind, coord);
+            OUTSTANDING.put(taskKey, exec);
+            exec.done.whenComplete((ignored, error) -> {
+                OUTSTANDING.remove(taskKey, exec);
+                AdmissionController.release(workClass);
+            });
+        } else {
+            exec.done.whenComplete((ignored, error) -> AdmissionController.release(workClass));
+        }
         List<PlannerExecutable> ready = addResult.ready;
         if (ready != null && !ready.isEmpty()) {
             dispatch(key, ready);
-            return;
+            return exec.done;
         }
         scheduleDeferredFlush();
+        return exec.done;
+    }
+
+    static CompletableFuture<Void> settled() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Runs a queued task on the calling thread when it has not started anywhere yet. The copy still sitting in a
+    // batch or a worker queue finds the task claimed and is skipped, so pending counts drain the usual way.
+    public static boolean runInline(PlannerTaskKind kind, ChunkCoord coord, String site) {
+        PlannerExecutable exec = kind == null || coord == null ? null : OUTSTANDING.get(new PlannerTaskKey(kind, coord));
+        if (exec == null || exec.done.isDone() || !exec.claimed.compareAndSet(false, true)) {
+            return false;
+        }
+        PriorityInheritance.recordInlined(site);
+        execute(kind, exec);
+        return true;
+    }
+
+    // Marks a queued task as foreground and flushes its kind, so it is dispatched now and as high priority.
+    public static boolean boost(PlannerTaskKind kind, ChunkCoord coord, String site) {
+        PlannerExecutable exec = kind == null || coord == null ? null : OUTSTANDING.get(new PlannerTaskKey(kind, coord));
+        if (exec == null || exec.claimed.get() || exec.boosted) {
+            return false;
+        }
+        exec.boosted = true;
+        PriorityInheritance.recordBoosted(site);
+        flushKind(kind);
+        return true;
     }
 
     public static void flushKind(PlannerTaskKind kind) {
@@ -138,7 +198,13 @@ public final class PlannerBatchQueue {
     }
 
     public static void shutdown() {
+        for (PendingBatch batch : BATCHES.values()) {
+            for (PlannerExecutable exec : batch.drainAll()) {
+                exec.done.complete(null);
+            }
+        }
         BATCHES.clear();
+        OUTSTANDING.clear();
         DEFERRED_FLUSH_SCHEDULED.set(false);
         PENDING_TASKS.set(0);
         for (PlannerTaskKind kind : PlannerTaskKind.values()) {
@@ -168,7 +234,7 @@ public final class PlannerBatchQueue {
             return;
         }
 
-        List<PlannerExecutable> filtered = filterBatchForView(batch);
+        List<PlannerExecutable> filtered = filterBatchForView(dropCancelled(batch));
         if (filtered.isEmpty()) {
             return;
         }
@@ -184,15 +250,30 @@ public final class PlannerBatchQueue {
             LC2H.LOGGER.debug(log.toString());
         }
 
+        // Boosted work has a caller waiting on it, so it skips the GPU assist round trip and goes to the CPU now.
+        List<PlannerExecutable> boosted = new ArrayList<>(0);
+        List<PlannerExecutable> rest = new ArrayList<>(filtered.size());
+        for (PlannerExecutable exec : filtered) {
+            (exec.boosted ? boosted : rest).add(exec);
+        }
+        if (!boosted.isEmpty()) {
+            dispatchCpuBatch(key, boosted);
+            if (rest.isEmpty()) {
+                return;
+            }
+            filtered = rest;
+        }
+
         CompletableFuture<?> gpuAssist = submitGpuAssistIfEligible(key, filtered);
         if (gpuAssist != null) {
+            List<PlannerExecutable> assisted = filtered;
             gpuAssist.whenComplete((ignored, throwable) -> {
                 if (throwable != null) {
                     LC2H.LOGGER.debug("Planner GPU assist failed for {}: {}", key.label(), throwable.toString());
-                    dispatchCpuBatch(key, filtered);
+                    dispatchCpuBatch(key, assisted);
                     return;
                 }
-                List<PlannerExecutable> remaining = filterGpuSatisfied(filtered);
+                List<PlannerExecutable> remaining = filterGpuSatisfied(assisted);
                 if (!remaining.isEmpty()) {
                     dispatchCpuBatch(key, remaining);
                 }
@@ -208,15 +289,22 @@ public final class PlannerBatchQueue {
         } catch (Throwable t) {
             LC2H.LOGGER.debug("Deferred cleanup skipped before planner batch: {}", t.toString());
         }
-        List<Runnable> runners = new ArrayList<>(filtered.size());
-        for (PlannerExecutable exec : filtered) {
-            runners.add(() -> runExecutable(exec.kind, exec));
-        }
+        List<Tile> tiles = tile(key, filtered);
 
-        ParallelWorkQueue.dispatchRunnables("planner-batch-" + key.label(), runners)
+        int flushThreshold = AdaptiveBatchController.plannerFlushThreshold();
+        long batchStartNs = System.nanoTime();
+        CompletableFuture<Void> execution = AsyncManager.affinityActive()
+            ? dispatchByArea(key, tiles)
+            : dispatchParallel(key, tiles);
+        execution
             .whenComplete((ignored, throwable) -> {
                 if (throwable != null) {
                     LC2H.LOGGER.error("Planner batch execution failed for {}: {}", key.label(), throwable.getMessage());
+                    for (PlannerExecutable exec : filtered) {
+                        exec.done.complete(null);
+                    }
+                } else {
+                    AdaptiveBatchController.recordPlannerBatch(flushThreshold, filtered.size(), System.nanoTime() - batchStartNs);
                 }
                 try {
                     GPUMemoryManager.continuousCleanup();
@@ -226,6 +314,154 @@ public final class PlannerBatchQueue {
             });
     }
 
+    // The parallel queue has no notion of priority, so tiles holding boosted work are submitted on their own as HIGH.
+    private static CompletableFuture<Void> dispatchParallel(PlannerBatchKey key, List<Tile> tiles) {
+        List<CompletableFuture<?>> parts = new ArrayList<>(1);
+        List<Runnable> runners = new ArrayList<>(tiles.size());
+        for (Tile tile : tiles) {
+            if (hasBoosted(tile)) {
+                parts.add(AsyncManager.submitTask("planner-boosted-" + key.label(), () -> runTile(tile), null, Priority.HIGH));
+            } else {
+                runners.add(() -> runTile(tile));
+            }
+        }
+        if (!runners.isEmpty()) {
+            parts.add(ParallelWorkQueue.dispatchRunnables("planner-batch-" + key.label(), runners));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]));
+    }
+
+    private static boolean hasBoosted(Tile tile) {
+        for (PlannerExecutable exec : tile.execs()) {
+            if (exec.boosted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // One task per tile, pinned by area, so neighbouring chunks are planned back to back on the worker that already
+    // holds that area's heightmaps and BuildingInfo in its thread-local caches.
+    private static CompletableFuture<Void> dispatchByArea(PlannerBatchKey key, List<Tile> tiles) {
+        List<CompletableFuture<Void>> areas = new ArrayList<>(tiles.size());
+        for (Tile tile : tiles) {
+            boolean high = hasBoosted(tile);
+            for (PlannerExecutable exec : tile.execs()) {
+                if (high) {
+                    break;
+                }
+                high = exec.coord != null && ChunkPriorityManager.getPriorityForChunk(exec.coord) == Priority.HIGH;
+            }
+            areas.add(AsyncManager.submitWithAffinity("planner-area-" + key.label(), () -> {
+                runTile(tile);
+                return null;
+            }, high ? Priority.HIGH : Priority.LOW, areaKey(tile.area())));
+        }
+        return CompletableFuture.allOf(areas.toArray(new CompletableFuture[0]));
+    }
+
+    private record Tile(ChunkCoord area, List<PlannerExecutable> execs) {
+    }
+
+    // Splits a batch into multichunk-aligned tiles, visited in Hilbert order over the areas and, inside a tile, over
+    // the chunks, so consecutive work shares heightmaps, MultiChunk and city-level lookups. Tiles over
+    // TILE_MAX_TASKS are cut into contiguous runs along that order so one busy area still spreads over workers.
+    private static List<Tile> tile(PlannerBatchKey key, List<PlannerExecutable> filtered) {
+        Map<ChunkCoord, List<PlannerExecutable>> byArea = new LinkedHashMap<>();
+        List<PlannerExecutable> unplaced = new ArrayList<>(0);
+        int minX = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        for (PlannerExecutable exec : filtered) {
+            if (exec.coord == null) {
+                unplaced.add(exec);
+                continue;
+            }
+            ChunkCoord area = AsyncMultiChunkPlanner.multiCoordOf(key.provider, exec.coord);
+            byArea.computeIfAbsent(area, ignored -> new ArrayList<>()).add(exec);
+            minX = Math.min(minX, exec.coord.chunkX());
+            minZ = Math.min(minZ, exec.coord.chunkZ());
+        }
+        List<ChunkCoord> areas = new ArrayList<>(byArea.keySet());
+        if (areas.size() > 1) {
+            int areaMinX = Integer.MAX_VALUE;
+            int areaMinZ = Integer.MAX_VALUE;
+            for (ChunkCoord area : areas) {
+                areaMinX = Math.min(areaMinX, area.chunkX());
+                areaMinZ = Math.min(areaMinZ, area.chunkZ());
+            }
+            int originX = areaMinX;
+            int originZ = areaMinZ;
+            areas.sort(java.util.Comparator.comparingLong(area -> hilbertIndex(area.chunkX() - originX, area.chunkZ() - originZ)));
+        }
+        List<Tile> tiles = new ArrayList<>(areas.size() + 1);
+        for (ChunkCoord area : areas) {
+            List<PlannerExecutable> group = byArea.get(area);
+            if (group.size() > 1) {
+                int originX = minX;
+                int originZ = minZ;
+                group.sort(java.util.Comparator.comparingLong(
+                    exec -> hilbertIndex(exec.coord.chunkX() - originX, exec.coord.chunkZ() - originZ)));
+            }
+            for (int from = 0; from < group.size(); from += TILE_MAX_TASKS) {
+                tiles.add(new Tile(area, group.subList(from, Math.min(group.size(), from + TILE_MAX_TASKS))));
+            }
+        }
+        if (!unplaced.isEmpty()) {
+            tiles.add(new Tile(null, unplaced));
+        }
+        return tiles;
+    }
+
+    private static void runTile(Tile tile) {
+        long startNs = System.nanoTime();
+        for (PlannerExecutable exec : tile.execs()) {
+            runExecutable(exec.kind, exec);
+        }
+        long elapsedNs = System.nanoTime() - startNs;
+        TILES_RUN.increment();
+        TILE_TASKS.add(tile.execs().size());
+        TILE_NANOS.add(elapsedNs);
+        Lc2hTimingRegistry.record("planner.tile", elapsedNs);
+    }
+
+    // Position along a Hilbert curve over a 2^16 square; offsets outside it are clamped to the edge.
+    private static long hilbertIndex(int x, int z) {
+        int n = 1 << 16;
+        int hx = Math.max(0, Math.min(n - 1, x));
+        int hz = Math.max(0, Math.min(n - 1, z));
+        long d = 0L;
+        for (int s = n >> 1; s > 0; s >>= 1) {
+            int rx = (hx & s) > 0 ? 1 : 0;
+            int rz = (hz & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ rz);
+            if (rz == 0) {
+                if (rx == 1) {
+                    hx = s - 1 - hx;
+                    hz = s - 1 - hz;
+                }
+                int t = hx;
+                hx = hz;
+                hz = t;
+            }
+        }
+        return d;
+    }
+
+    public record TileStats(long tiles, long tasks, long nanos) {
+    }
+
+    public static TileStats tileStats() {
+        return new TileStats(TILES_RUN.sum(), TILE_TASKS.sum(), TILE_NANOS.sum());
+    }
+
+    private static long areaKey(ChunkCoord area) {
+        if (area == null) {
+            return 0L;
+        }
+        long key = ((long) area.chunkX() << 32) ^ (area.chunkZ() & 0xffffffffL);
+        return key * 31L + (area.dimension() == null ? 0 : area.dimension().hashCode());
+    }
+
     private static CompletableFuture<?> submitGpuAssistIfEligible(PlannerBatchKey key, List<PlannerExecutable> filtered) {
         ArrayList<ChunkCoord> coords = new ArrayList<>(filtered.size());
         for (PlannerExecutable exec : filtered) {
@@ -249,6 +485,8 @@ public final class PlannerBatchQueue {
         for (PlannerExecutable exec : filtered) {
             if (!consumeGpuSatisfied(exec)) {
                 remaining.add(exec);
+            } else {
+                exec.done.complete(null);
             }
         }
         return remaining;
@@ -278,19 +516,75 @@ public final class PlannerBatchQueue {
         return true;
     }
 
+    // A cancelled task is only released by whoever claims it: one already claimed (run inline by a waiting caller)
+    // is left to that caller, which settles it itself.
+    private static List<PlannerExecutable> dropCancelled(List<PlannerExecutable> batch) {
+        List<PlannerExecutable> kept = null;
+        for (int i = 0; i < batch.size(); i++) {
+            PlannerExecutable exec = batch.get(i);
+            if (!exec.cancel.isCancelled()) {
+                if (kept != null) {
+                    kept.add(exec);
+                }
+                continue;
+            }
+            if (kept == null) {
+                kept = new ArrayList<>(batch.size());
+                kept.addAll(batch.subList(0, i));
+            }
+            if (exec.claimed.compareAndSet(false, true)) {
+                releaseCancelled(exec);
+            }
+        }
+        return kept == null ? batch : kept;
+    }
+
+    private static void releaseCancelled(PlannerExecutable exec) {
+        RegionCancellation.recordCancelled(RegionCancellation.Site.PLANNER);
+        if (exec.coord != null) {
+            switch (exec.kind) {
+                case BUILDING_INFO -> AsyncBuildingInfoPlanner.releaseInFlight(exec.coord);
+                case TERRAIN_FEATURE -> AsyncTerrainFeaturePlanner.releaseCancelled(exec.coord);
+                case TERRAIN_CORRECTION -> AsyncTerrainCorrectionPlanner.releaseCancelled(exec.coord);
+                default -> {
+                }
+            }
+        }
+        exec.done.complete(null);
+    }
+
     private static void runExecutable(PlannerTaskKind kind, PlannerExecutable exec) {
+        if (!exec.claimed.compareAndSet(false, true)) {
+            return;
+        }
+        execute(kind, exec);
+    }
+
+    private static void execute(PlannerTaskKind kind, PlannerExecutable exec) {
+        if (exec.cancel.isCancelled()) {
+            releaseCancelled(exec);
+            return;
+        }
         long startNs = System.nanoTime();
+        long previousTrace = ChunkTraceRecorder.enter(exec.traceId);
         try {
             exec.action.run();
         } catch (Throwable t) {
             LC2H.LOGGER.error("Planner task {} failed at {}: {}", kind.displayName(), describe(exec.coord), t.getMessage());
             LC2H.LOGGER.debug("Planner task error", t);
         } finally {
+            ChunkTraceRecorder.exit(previousTrace);
+            if (exec.traceId != 0L) {
+                String span = "planner:" + (kind == null ? "unknown" : kind.name().toLowerCase(java.util.Locale.ROOT));
+                ChunkTraceRecorder.waited(exec.traceId, "queued:" + span, exec.enqueuedNs, startNs);
+                ChunkTraceRecorder.span(exec.traceId, span, startNs);
+            }
             long elapsedNs = System.nanoTime() - startNs;
             Lc2hTimingRegistry.record("planner.total", elapsedNs);
             if (kind != null) {
                 Lc2hTimingRegistry.record("planner." + kind.name().toLowerCase(java.util.Locale.ROOT), elapsedNs);
             }
+            exec.done.complete(null);
         }
     }
 
@@ -357,15 +651,16 @@ public final class PlannerBatchQueue {
             Objects.requireNonNull(exec, "exec");
             if (exec.kind != null && exec.coord != null) {
                 PlannerTaskKey key = new PlannerTaskKey(exec.kind, exec.coord);
-                if (unique.putIfAbsent(key, exec) != null) {
-                    return AddResult.createRejected();
+                PlannerExecutable existing = unique.putIfAbsent(key, exec);
+                if (existing != null) {
+                    return AddResult.createRejected(existing);
                 }
             }
             tasks.add(exec);
             int threshold = AdaptiveBatchController.plannerFlushThreshold();
             int current = size.incrementAndGet();
             if (current >= threshold && draining.compareAndSet(false, true)) {
-                return new AddResult(true, drainAllLocked());
+                return new AddResult(true, drainAllLocked(), null);
             }
             return AddResult.createAccepted();
         }
@@ -455,13 +750,13 @@ public final class PlannerBatchQueue {
         }
     }
 
-    private record AddResult(boolean accepted, List<PlannerExecutable> ready) {
+    private record AddResult(boolean accepted, List<PlannerExecutable> ready, PlannerExecutable existing) {
         private static AddResult createAccepted() {
-            return new AddResult(true, List.of());
+            return new AddResult(true, List.of(), null);
         }
 
-        private static AddResult createRejected() {
-            return new AddResult(false, List.of());
+        private static AddResult createRejected(PlannerExecutable existing) {
+            return new AddResult(false, List.of(), existing);
         }
     }
 
@@ -480,11 +775,20 @@ public final class PlannerBatchQueue {
         private final PlannerTaskKind kind;
         private final ChunkCoord coord;
         private final Runnable action;
-
-        PlannerExecutable(PlannerTaskKind kind, ChunkCoord coord, Runnable action) {
+        private final CancellationToken cancel;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private volatile boolean boosted;
+        private final long traceId;
+        private final long enqueuedNs;
+
+        PlannerExecutable(PlannerTaskKind kind, ChunkCoord coord, Runnable action, CancellationToken cancel) {
             this.kind = kind;
             this.coord = coord;
             this.action = action;
+            this.cancel = cancel;
+            this.traceId = ChunkTraceRecorder.idFor(coord);
+            this.enqueuedNs = traceId == 0L ? 0L : System.nanoTime();
         }
     }
 
@@ -521,33 +825,13 @@ public final class PlannerBatchQueue {
         return true;
     }
 
-    private static int dynamicMaxPending() {
-        MinecraftServer server = ServerRescheduler.getServer();
-        if (server == null) {
-            return MAX_PENDING_TASKS;
-        }
-        double scale = ServerTickLoad.getBudgetScale(server);
-        if (scale <= 0) {
-            return Math.max(256, MAX_PENDING_TASKS / 4);
-        }
-        double tickMs = ServerTickLoad.getSmoothedTickMs();
-        int base = MAX_PENDING_TASKS;
-        if (tickMs >= 45.0D) {
-            base = Math.max(256, base / 4);
-        } else if (tickMs >= 35.0D) {
-            base = Math.max(256, base / 2);
-        }
-        int scaled = (int) Math.round(base * Math.min(1.0, Math.max(0.25, scale)));
-        return Math.max(256, scaled);
-    }
-
     private static List<PlannerExecutable> filterBatchForView(List<PlannerExecutable> batch) {
         if (!shouldCullQueue() || batch.isEmpty()) {
             return batch;
         }
         List<PlannerExecutable> kept = new ArrayList<>(batch.size());
         for (PlannerExecutable exec : batch) {
-            if (exec == null || exec.coord == null || exec.coord.dimension() == null) {
+            if (exec == null || exec.boosted || exec.coord == null || exec.coord.dimension() == null) {
                 kept.add(exec);
                 continue;
             }
@@ -555,6 +839,7 @@ public final class PlannerBatchQueue {
                 kept.add(exec);
             } else {
                 ViewCullingStats.recordPlannerBatch(1);
+                exec.done.complete(null);
             }
         }
         return kept;
@@ -0,0 +1,584 @@
+package org.admany.lc2h.worldgen.async.snapshot;
+
+import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.worldgen.lost.MultiChunk;
+import org.admany.lc2h.LC2H;
+import org.admany.quantified.core.common.util.QuantifiedPaths;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Finished multichunk plans kept on disk across restarts, as MultiChunkSnapshot payloads grouped into region files of
+// REGION_SIZE x REGION_SIZE multichunks. Each scope (dimension, seed, profile, world style, multi settings and a
+// fingerprint of the profile, asset and mod versions) gets its own directory, and every region file repeats the full
+// scope string so a hash collision or a changed layout reads as a miss. Region files are append-only logs of deflated
+// records, the last record for a cell wins; a flush appends what changed and only rewrites a file once most of it is
+// superseded. Regions are read on first use by the thread asking; writes are batched and flushed on one IO thread,
+// which also keeps the store under its size cap by deleting the least recently written region files.
+public final class MultiChunkPlanStore {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("lc2h.multichunk.planStore", "true"));
+    private static final long FLUSH_DELAY_MS = Math.max(250L, Long.getLong("lc2h.multichunk.planStoreFlushMs", 2_000L));
+    private static final int MAX_REGIONS = Math.max(8, Integer.getInteger("lc2h.multichunk.planStoreRegions", 64));
+    private static final long MAX_DISK_BYTES = Math.max(16L, Long.getLong("lc2h.multichunk.planStoreMaxMb", 512L)) * 1024L * 1024L;
+    private static final long CAP_CHECK_INTERVAL_MS = 30_000L;
+    private static final int REGION_SHIFT = 5;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int MAGIC = 0x4C43504C;
+    private static final int FORMAT_VERSION = 2;
+    private static final int RECORD_HEADER_BYTES = 6;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final String FOLDER = "multichunkPlans";
+    private static final String SUFFIX = ".lc2hplan";
+
+    private static final ConcurrentHashMap<RegionKey, Region> REGIONS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean FLUSH_SCHEDULED = new AtomicBoolean(false);
+    private static final ScheduledExecutorService DISK_IO = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LC2H-PlanStore");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder WRITES = new LongAdder();
+    private static final LongAdder REGION_READS = new LongAdder();
+    private static final LongAdder REGION_WRITES = new LongAdder();
+    private static final LongAdder COMPACTIONS = new LongAdder();
+    private static final LongAdder EVICTED_FILES = new LongAdder();
+    // Bytes under the root, -1 until the IO thread has measured it; only the IO thread writes it.
+    private static volatile long diskBytes = -1L;
+    private static long lastCapCheckMs;
+    private static volatile Path rootDirectory;
+    private static volatile boolean rootFailed;
+
+    private MultiChunkPlanStore() {
+    }
+
+    private record RegionKey(String scope, int regionX, int regionZ) {
+    }
+
+    private static final class Region {
+        private final RegionKey key;
+        private final ConcurrentHashMap<Integer, byte[]> entries = new ConcurrentHashMap<>();
+        // Written since the last flush and not yet on disk.
+        private final ConcurrentHashMap<Integer, byte[]> pending = new ConcurrentHashMap<>();
+        // On-disk size of the record that currently counts for each cell, guarded by this.
+        private final HashMap<Integer, Integer> diskRecords = new HashMap<>();
+        private long fileBytes;
+        private long liveBytes;
+        private boolean needsRewrite;
+        private volatile boolean loaded;
+        private volatile boolean dirty;
+        private volatile long lastAccessMs = System.currentTimeMillis();
+
+        private Region(RegionKey key) {
+            this.key = key;
+        }
+
+        // Entries put before the file was read are newer than what is on disk and win.
+        private synchronized void loadOnce() {
+            if (loaded) {
+                return;
+            }
+            Map<Integer, byte[]> stored = readRegion(this);
+            for (Map.Entry<Integer, byte[]> entry : stored.entrySet()) {
+                entries.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            loaded = true;
+        }
+
+        private void recordOnDisk(int index, int bytes) {
+            Integer previous = diskRecords.put(index, bytes);
+            liveBytes += bytes - (previous != null ? previous : 0);
+        }
+
+        private void clearDisk() {
+            diskRecords.clear();
+            fileBytes = 0L;
+            liveBytes = 0L;
+        }
+    }
+
+    public static boolean enabled() {
+        return ENABLED && !rootFailed;
+    }
+
+    // Reads through to disk on the calling thread the first time a region is touched; callers are planner workers.
+    public static MultiChunk load(String scope, ChunkCoord multiCoord) {
+        if (!enabled() || scope == null || multiCoord == null) {
+            return null;
+        }
+        Region region = REGIONS.computeIfAbsent(regionKey(scope, multiCoord), Region::new);
+        region.lastAccessMs = System.currentTimeMillis();
+        region.loadOnce();
+        byte[] payload = region.entries.get(indexOf(multiCoord));
+        MultiChunk decoded = null;
+        if (payload != null) {
+            try {
+                decoded = MultiChunkSnapshot.decode(payload);
+            } catch (Throwable ignored) {
+            }
+        }
+        if (decoded == null) {
+            MISSES.increment();
+        } else {
+            HITS.increment();
+        }
+        evictIfNeeded();
+        return decoded;
+    }
+
+    public static void store(String scope, ChunkCoord multiCoord, MultiChunk multiChunk) {
+        if (!enabled() || scope == null || multiCoord == null || multiChunk == null) {
+            return;
+        }
+        byte[] payload;
+        try {
+            payload = MultiChunkSnapshot.encode(multiChunk);
+        } catch (Throwable t) {
+            return;
+        }
+        if (payload == null || payload.length == 0) {
+            return;
+        }
+        int index = indexOf(multiCoord);
+        REGIONS.compute(regionKey(scope, multiCoord), (key, region) -> {
+            Region target = region != null ? region : new Region(key);
+            target.entries.put(index, payload);
+            target.pending.put(index, payload);
+            target.dirty = true;
+            target.lastAccessMs = System.currentTimeMillis();
+            return target;
+        });
+        WRITES.increment();
+        scheduleFlush();
+    }
+
+    // Writes every dirty region now and waits for it; used on shutdown.
+    public static void flush() {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            DISK_IO.submit(MultiChunkPlanStore::flushDirty).get(10, TimeUnit.SECONDS);
+        } catch (Throwable t) {
+            LC2H.LOGGER.warn("[LC2H] Failed to flush multichunk plan store: {}", t.toString());
+        }
+    }
+
+    private static void scheduleFlush() {
+        if (!FLUSH_SCHEDULED.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            DISK_IO.schedule(() -> {
+                FLUSH_SCHEDULED.set(false);
+                flushDirty();
+            }, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (Throwable t) {
+            FLUSH_SCHEDULED.set(false);
+        }
+    }
+
+    private static void flushDirty() {
+        for (Region region : REGIONS.values()) {
+            if (!region.dirty) {
+                continue;
+            }
+            region.loadOnce();
+            region.dirty = false;
+            Map<Integer, byte[]> batch = new HashMap<>(region.pending);
+            if (batch.isEmpty()) {
+                continue;
+            }
+            for (Map.Entry<Integer, byte[]> entry : batch.entrySet()) {
+                region.pending.remove(entry.getKey(), entry.getValue());
+            }
+            if (!writeRegion(region, batch)) {
+                for (Map.Entry<Integer, byte[]> entry : batch.entrySet()) {
+                    region.pending.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                region.dirty = true;
+            }
+        }
+        evictIfNeeded();
+        enforceDiskCap();
+    }
+
+    private static void evictIfNeeded() {
+        int excess = REGIONS.size() - MAX_REGIONS;
+        if (excess <= 0) {
+            return;
+        }
+        List<Region> clean = new ArrayList<>();
+        for (Region region : REGIONS.values()) {
+            if (!region.dirty) {
+                clean.add(region);
+            }
+        }
+        clean.sort((a, b) -> Long.compare(a.lastAccessMs, b.lastAccessMs));
+        for (int i = 0; i < clean.size() && i < excess; i++) {
+            Region region = clean.get(i);
+            REGIONS.computeIfPresent(region.key, (key, current) -> current == region && !current.dirty ? null : current);
+        }
+    }
+
+    // A torn tail from a crash mid-append keeps everything before it; the next flush rewrites the file.
+    private static Map<Integer, byte[]> readRegion(Region region) {
+        Map<Integer, byte[]> out = new HashMap<>();
+        RegionKey key = region.key;
+        Path file = regionFile(key);
+        region.clearDisk();
+        if (file == null || !Files.exists(file)) {
+            return out;
+        }
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            long fileBytes = Files.size(file);
+            if (data.readInt() != MAGIC || data.readUnsignedShort() != FORMAT_VERSION || !key.scope().equals(data.readUTF())) {
+                region.needsRewrite = true;
+                return out;
+            }
+            long offset = headerBytes(key.scope());
+            while (offset < fileBytes) {
+                if (fileBytes - offset < RECORD_HEADER_BYTES) {
+                    region.needsRewrite = true;
+                    break;
+                }
+                int index = data.readUnsignedShort();
+                int length = data.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES || fileBytes - offset - RECORD_HEADER_BYTES < length) {
+                    region.needsRewrite = true;
+                    break;
+                }
+                byte[] record = new byte[length];
+                data.readFully(record);
+                out.put(index, inflate(record));
+                int recordBytes = RECORD_HEADER_BYTES + length;
+                region.recordOnDisk(index, recordBytes);
+                offset += recordBytes;
+            }
+            region.fileBytes = offset;
+            REGION_READS.increment();
+        } catch (IOException e) {
+            LC2H.LOGGER.debug("[LC2H] Dropping unreadable multichunk plan region {}: {}", file, e.getMessage());
+            out.clear();
+            region.clearDisk();
+            region.needsRewrite = true;
+        } catch (Throwable t) {
+            LC2H.LOGGER.debug("[LC2H] Unexpected error reading multichunk plan region {}: {}", file, t.toString());
+            out.clear();
+            region.clearDisk();
+            region.needsRewrite = true;
+        }
+        return out;
+    }
+
+    private static boolean writeRegion(Region region, Map<Integer, byte[]> batch) {
+        Path file = regionFile(region.key);
+        if (file == null) {
+            return false;
+        }
+        synchronized (region) {
+            long before = region.fileBytes;
+            boolean ok;
+            // Rewrite once superseded records make up most of the file, otherwise append.
+            if (region.needsRewrite || region.fileBytes == 0L || !Files.exists(file)
+                || region.fileBytes > headerBytes(region.key.scope()) + 2L * region.liveBytes) {
+                ok = rewriteRegion(region, file);
+            } else {
+                ok = appendRegion(region, file, batch);
+            }
+            if (ok) {
+                REGION_WRITES.increment();
+                if (diskBytes >= 0L) {
+                    diskBytes += region.fileBytes - before;
+                }
+            }
+            return ok;
+        }
+    }
+
+    private static boolean appendRegion(Region region, Path file, Map<Integer, byte[]> batch) {
+        long written = 0L;
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)))) {
+            for (Map.Entry<Integer, byte[]> entry : batch.entrySet()) {
+                byte[] record = deflate(entry.getValue());
+                data.writeShort(entry.getKey());
+                data.writeInt(record.length);
+                data.write(record);
+                int recordBytes = RECORD_HEADER_BYTES + record.length;
+                region.recordOnDisk(entry.getKey(), recordBytes);
+                written += recordBytes;
+            }
+        } catch (Throwable t) {
+            LC2H.LOGGER.debug("[LC2H] Failed to append multichunk plan region {}: {}", file, t.toString());
+            // Whatever made it out is a torn record as far as the next reader is concerned.
+            region.needsRewrite = true;
+            return false;
+        } finally {
+            region.fileBytes += written;
+        }
+        return true;
+    }
+
+    private static boolean rewriteRegion(Region region, Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<Integer, byte[]> entries = new HashMap<>(region.entries);
+        HashMap<Integer, Integer> records = new HashMap<>(entries.size() * 2);
+        long bytes = headerBytes(region.key.scope());
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                data.writeInt(MAGIC);
+                data.writeShort(FORMAT_VERSION);
+                data.writeUTF(region.key.scope());
+                for (Map.Entry<Integer, byte[]> entry : entries.entrySet()) {
+                    byte[] record = deflate(entry.getValue());
+                    data.writeShort(entry.getKey());
+                    data.writeInt(record.length);
+                    data.write(record);
+                    records.put(entry.getKey(), RECORD_HEADER_BYTES + record.length);
+                    bytes += RECORD_HEADER_BYTES + record.length;
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException atomicFailed) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (region.fileBytes > 0L) {
+                COMPACTIONS.increment();
+            }
+            region.clearDisk();
+            for (Map.Entry<Integer, Integer> record : records.entrySet()) {
+                region.recordOnDisk(record.getKey(), record.getValue());
+            }
+            region.fileBytes = bytes;
+            region.needsRewrite = false;
+            return true;
+        } catch (Throwable t) {
+            LC2H.LOGGER.debug("[LC2H] Failed to write multichunk plan region {}: {}", file, t.toString());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+            return false;
+        }
+    }
+
+    // MAGIC, FORMAT_VERSION, then the scope as writeUTF lays it out (length prefix plus modified UTF-8).
+    private static long headerBytes(String scope) {
+        long bytes = 4L + 2L + 2L;
+        for (int i = 0; i < scope.length(); i++) {
+            char c = scope.charAt(i);
+            bytes += c >= 0x0001 && c <= 0x007F ? 1L : c <= 0x07FF ? 2L : 3L;
+        }
+        return bytes;
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, payload.length / 2));
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] record) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(record);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(record.length * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("truncated record");
+                }
+                out.write(buffer, 0, n);
+                if (out.size() > MAX_RECORD_BYTES * 8) {
+                    throw new IOException("record too large");
+                }
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Deletes the least recently written region files, across every scope, until the store is back under 90% of its
+    // cap. Regions with unflushed writes are skipped; clean regions that lose their file are dropped from memory too.
+    private static void enforceDiskCap() {
+        Path root = rootDirectory();
+        if (root == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (diskBytes >= 0L && diskBytes <= MAX_DISK_BYTES) {
+            return;
+        }
+        // A pass that could not get under the cap (everything left is unflushed) is not retried on every flush.
+        if (now - lastCapCheckMs < CAP_CHECK_INTERVAL_MS) {
+            return;
+        }
+        List<RegionFile> files = new ArrayList<>();
+        long total = 0L;
+        try (Stream<Path> walk = Files.walk(root, 2)) {
+            for (Path path : (Iterable<Path>) walk::iterator) {
+                if (!path.getFileName().toString().endsWith(SUFFIX) || !Files.isRegularFile(path)) {
+                    continue;
+                }
+                long size = Files.size(path);
+                files.add(new RegionFile(path, size, Files.getLastModifiedTime(path).toMillis()));
+                total += size;
+            }
+        } catch (Throwable t) {
+            LC2H.LOGGER.debug("[LC2H] Failed to measure multichunk plan store: {}", t.toString());
+            return;
+        }
+        if (total > MAX_DISK_BYTES) {
+            Map<Path, Region> resident = new HashMap<>();
+            for (Region region : REGIONS.values()) {
+                Path file = regionFile(region.key);
+                if (file != null) {
+                    resident.put(file, region);
+                }
+            }
+            long target = MAX_DISK_BYTES / 10L * 9L;
+            files.sort((a, b) -> Long.compare(a.modifiedMs(), b.modifiedMs()));
+            for (RegionFile file : files) {
+                if (total <= target) {
+                    break;
+                }
+                Region region = resident.get(file.path());
+                if (region != null && (region.dirty
+                    || REGIONS.computeIfPresent(region.key, (key, current) -> current == region && !current.dirty ? null : current) != null)) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(file.path());
+                    total -= file.bytes();
+                    EVICTED_FILES.increment();
+                    deleteIfEmpty(file.path().getParent());
+                } catch (IOException e) {
+                    LC2H.LOGGER.debug("[LC2H] Failed to delete multichunk plan region {}: {}", file.path(), e.toString());
+                }
+            }
+        }
+        diskBytes = total;
+        lastCapCheckMs = total > MAX_DISK_BYTES ? now : 0L;
+    }
+
+    private static void deleteIfEmpty(Path directory) {
+        try (Stream<Path> children = Files.list(directory)) {
+            if (children.findAny().isEmpty()) {
+                Files.deleteIfExists(directory);
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private record RegionFile(Path path, long bytes, long modifiedMs) {
+    }
+
+    private static Path regionFile(RegionKey key) {
+        Path root = rootDirectory();
+        if (root == null) {
+            return null;
+        }
+        return root.resolve(scopeFolder(key.scope())).resolve("r." + key.regionX() + "." + key.regionZ() + SUFFIX);
+    }
+
+    private static Path rootDirectory() {
+        Path root = rootDirectory;
+        if (root != null || rootFailed) {
+            return root;
+        }
+        synchronized (MultiChunkPlanStore.class) {
+            if (rootDirectory == null && !rootFailed) {
+                try {
+                    QuantifiedPaths.ensureCacheLayout();
+                    Path base = QuantifiedPaths.getCacheDir().resolve("lc2h").resolve(FOLDER);
+                    Files.createDirectories(base);
+                    rootDirectory = base;
+                    LC2H.LOGGER.info("Multichunk plan store initialised at {}", base.toAbsolutePath());
+                } catch (Throwable t) {
+                    rootFailed = true;
+                    LC2H.LOGGER.warn("Unable to prepare multichunk plan store directory: {}", t.getMessage());
+                }
+            }
+            return rootDirectory;
+        }
+    }
+
+    private static String scopeFolder(String scope) {
+        StringBuilder builder = new StringBuilder();
+        int prefix = Math.min(scope.length(), 48);
+        for (int i = 0; i < prefix; i++) {
+            char c = scope.charAt(i);
+            boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+            builder.append(safe ? c : '_');
+        }
+        long hash = 1125899906842597L;
+        for (int i = 0; i < scope.length(); i++) {
+            hash = 31L * hash + scope.charAt(i);
+        }
+        return builder.append('-').append(Long.toHexString(hash)).toString();
+    }
+
+    private static RegionKey regionKey(String scope, ChunkCoord multiCoord) {
+        return new RegionKey(scope, multiCoord.chunkX() >> REGION_SHIFT, multiCoord.chunkZ() >> REGION_SHIFT);
+    }
+
+    private static int indexOf(ChunkCoord multiCoord) {
+        return ((multiCoord.chunkX() & (REGION_SIZE - 1)) << REGION_SHIFT) | (multiCoord.chunkZ() & (REGION_SIZE - 1));
+    }
+
+    public static Stats stats() {
+        int dirty = 0;
+        for (Region region : REGIONS.values()) {
+            if (region.dirty) {
+                dirty++;
+            }
+        }
+        return new Stats(HITS.sum(), MISSES.sum(), WRITES.sum(), REGIONS.size(), dirty, REGION_READS.sum(), REGION_WRITES.sum(),
+            COMPACTIONS.sum(), Math.max(0L, diskBytes), MAX_DISK_BYTES, EVICTED_FILES.sum());
+    }
+
+    public record Stats(long hits, long misses, long writes, int regions, int dirtyRegions, long regionReads,
+                        long regionWrites, long compactions, long diskBytes, long diskCapBytes, long evictedFiles) {
+    }
+}
@@ -0,0 +1,134 @@
+package org.admany.lc2h.worldgen.async.snapshot;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.JsonOps;
+import mcjty.lostcities.LostCities;
+import mcjty.lostcities.setup.CustomRegistries;
+import mcjty.lostcities.worldgen.IDimensionInfo;
+import mcjty.lostcities.worldgen.lost.regassets.BuildingPartRE;
+import mcjty.lostcities.worldgen.lost.regassets.BuildingRE;
+import mcjty.lostcities.worldgen.lost.regassets.CityStyleRE;
+import mcjty.lostcities.worldgen.lost.regassets.ConditionRE;
+import mcjty.lostcities.worldgen.lost.regassets.MultiBuildingRE;
+import mcjty.lostcities.worldgen.lost.regassets.PaletteRE;
+import mcjty.lostcities.worldgen.lost.regassets.PredefinedCityRE;
+import mcjty.lostcities.worldgen.lost.regassets.PredefinedSphereRE;
+import mcjty.lostcities.worldgen.lost.regassets.ScatteredRE;
+import mcjty.lostcities.worldgen.lost.regassets.StuffSettingsRE;
+import mcjty.lostcities.worldgen.lost.regassets.StyleRE;
+import mcjty.lostcities.worldgen.lost.regassets.VariantRE;
+import mcjty.lostcities.worldgen.lost.regassets.WorldStyleRE;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraftforge.fml.ModList;
+import org.admany.lc2h.LC2H;
+import org.admany.lc2h.worldgen.lostcities.ProfileFingerprint;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// Everything besides seed and coordinates that decides what Lost Cities plans: the profile and outside profile
+// settings, the world style, the contents of every city asset registry as the datapacks loaded them, and the Lost
+// Cities and LC2H versions. Hashed once per dimension info; the assets are fixed for the life of a server.
+public final class WorldgenFingerprint {
+
+    private static final Map<IDimensionInfo, String> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private WorldgenFingerprint() {
+    }
+
+    // Null when the world is not attached yet or hashing failed; callers must not persist anything under it then.
+    public static String of(IDimensionInfo provider) {
+        if (provider == null) {
+            return null;
+        }
+        String cached = CACHE.get(provider);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (WorldgenFingerprint.class) {
+            cached = CACHE.get(provider);
+            if (cached != null) {
+                return cached;
+            }
+            String computed = compute(provider);
+            if (computed != null) {
+                CACHE.put(provider, computed);
+            }
+            return computed;
+        }
+    }
+
+    private static String compute(IDimensionInfo provider) {
+        try {
+            WorldGenLevel world = provider.getWorld();
+            if (world == null) {
+                return null;
+            }
+            RegistryAccess access = world.registryAccess();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, "lostcities=" + modVersion(LostCities.MODID));
+            update(digest, "lc2h=" + modVersion(LC2H.MODID));
+            update(digest, "profile=" + Long.toHexString(ProfileFingerprint.of(provider.getProfile())));
+            update(digest, "outside=" + Long.toHexString(ProfileFingerprint.of(provider.getOutsideProfile())));
+            update(digest, "style=" + (provider.getWorldStyle() != null ? provider.getWorldStyle().getName() : "none"));
+            hashRegistry(digest, access, CustomRegistries.WORLDSTYLES_REGISTRY_KEY, WorldStyleRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.CITYSTYLES_REGISTRY_KEY, CityStyleRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.BUILDING_REGISTRY_KEY, BuildingRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.MULTIBUILDINGS_REGISTRY_KEY, MultiBuildingRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.PART_REGISTRY_KEY, BuildingPartRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.STYLE_REGISTRY_KEY, StyleRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.PALETTE_REGISTRY_KEY, PaletteRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.VARIANTS_REGISTRY_KEY, VariantRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.CONDITIONS_REGISTRY_KEY, ConditionRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.SCATTERED_REGISTRY_KEY, ScatteredRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.PREDEFINEDCITIES_REGISTRY_KEY, PredefinedCityRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.PREDEFINEDSPHERES_REGISTRY_KEY, PredefinedSphereRE.CODEC);
+            hashRegistry(digest, access, CustomRegistries.STUFF_REGISTRY_KEY, StuffSettingsRE.CODEC);
+            byte[] hash = digest.digest();
+            StringBuilder out = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                out.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return out.toString();
+        } catch (Throwable t) {
+            LC2H.LOGGER.debug("[LC2H] Unable to fingerprint Lost Cities assets: {}", t.toString());
+            return null;
+        }
+    }
+
+    private static <R> void hashRegistry(MessageDigest digest, RegistryAccess access, ResourceKey<Registry<R>> key, Codec<R> codec) {
+        update(digest, "registry=" + key.location());
+        Registry<R> registry = access.registry(key).orElse(null);
+        if (registry == null) {
+            update(digest, "missing");
+            return;
+        }
+        List<Map.Entry<ResourceKey<R>, R>> entries = new ArrayList<>(registry.entrySet());
+        entries.sort((a, b) -> a.getKey().location().compareTo(b.getKey().location()));
+        for (Map.Entry<ResourceKey<R>, R> entry : entries) {
+            update(digest, entry.getKey().location().toString());
+            update(digest, codec.encodeStart(JsonOps.INSTANCE, entry.getValue()).result()
+                .map(Object::toString)
+                .orElse("unencodable"));
+        }
+    }
+
+    private static void update(MessageDigest digest, String text) {
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static String modVersion(String modId) {
+        return ModList.get().getModContainerById(modId)
+            .map(container -> container.getModInfo().getVersion().toString())
+            .orElse("unknown");
+    }
+}
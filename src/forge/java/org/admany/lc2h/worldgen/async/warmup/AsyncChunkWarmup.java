@@ -4,8 +4,13 @@ import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import net.minecraft.server.MinecraftServer;
 import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.async.AdmissionController;
 import org.admany.lc2h.concurrency.async.AsyncManager;
+import org.admany.lc2h.concurrency.async.CancellationToken;
 import org.admany.lc2h.concurrency.async.Priority;
+import org.admany.lc2h.concurrency.async.RegionCancellation;
+import org.admany.lc2h.concurrency.backend.SchedulerBackends;
+import org.admany.lc2h.concurrency.parallel.ParallelWorkQueue;
 import org.admany.lc2h.client.frustum.ChunkPriorityManager;
 import org.admany.lc2h.util.server.ServerRescheduler;
 import org.admany.lc2h.util.log.RateLimitedLogger;
@@ -15,6 +20,7 @@ import org.admany.lc2h.worldgen.async.planner.AsyncBuildingInfoPlanner;
 import org.admany.lc2h.worldgen.async.planner.AsyncMultiChunkPlanner;
 import org.admany.lc2h.worldgen.async.planner.AsyncTerrainCorrectionPlanner;
 import org.admany.lc2h.worldgen.async.planner.AsyncTerrainFeaturePlanner;
+import org.admany.lc2h.worldgen.async.planner.ChunkPlanGraph;
 import org.admany.lc2h.worldgen.coord.RegionCoord;
 import org.admany.lc2h.worldgen.gpu.GPUMemoryManager;
 import org.admany.lc2h.worldgen.gpu.RegionBatchProcessingGPUTask;
@@ -48,7 +54,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.Map;
 import java.util.function.Supplier;
 
-record RegionProviderPair(IDimensionInfo provider, RegionCoord region) {}
+record RegionProviderPair(IDimensionInfo provider, RegionCoord region, CancellationToken cancel) {}
 
 public final class AsyncChunkWarmup {
 
@@ -112,6 +118,10 @@ public final class AsyncChunkWarmup {
     private static final AtomicLong LAST_PLAYER_JOIN_MS = new AtomicLong(-1L);
     private static final ThreadLocal<Integer> CPU_WARMUP_DEPTH = ThreadLocal.withInitial(() -> 0);
 
+    static {
+        AdmissionController.registerGauge(AdmissionController.WorkClass.PREFETCH, "warmup-region-buffer", REGION_BUFFER_SIZE::get);
+    }
+
     private AsyncChunkWarmup() {
     }
 
@@ -322,7 +332,7 @@ public final class AsyncChunkWarmup {
         } catch (Throwable ignored) {
         }
         if (playerCount <= 0) {
-            return ENABLE_HEADLESS_WARMUP;
+            return ENABLE_HEADLESS_WARMUP && AdmissionController.hasHeadroom(AdmissionController.WorkClass.PREFETCH);
         }
         long lastJoin = LAST_PLAYER_JOIN_MS.get();
         long now = System.currentTimeMillis();
@@ -335,7 +345,7 @@ public final class AsyncChunkWarmup {
             }
         } catch (Throwable ignored) {
         }
-        return true;
+        return AdmissionController.hasHeadroom(AdmissionController.WorkClass.PREFETCH);
     }
 
     private static boolean canGpuWarmup(MinecraftServer server) {
@@ -571,6 +581,10 @@ public final class AsyncChunkWarmup {
             List<RegionProviderPair> filteredRegions = new ArrayList<>(regionsToProcess.size());
             for (RegionProviderPair pair : regionsToProcess) {
                 RegionCoord region = pair.region();
+                if (pair.cancel().isCancelled()) {
+                    releaseCancelledRegion(region);
+                    continue;
+                }
                 if (shouldCullWarmup() && !isRegionInView(region)) {
                     ViewCullingStats.recordWarmupBatch(1);
                     continue;
@@ -684,21 +698,30 @@ public final class AsyncChunkWarmup {
     }
 
     private static CompletableFuture<List<Boolean>> submitCpuRegionBatch(List<RegionProviderPair> regionsToProcess) {
-        List<TaskBatchItem<Boolean>> regionBatchTasks = new ArrayList<>(regionsToProcess.size());
+        List<Supplier<Boolean>> regionWork = new ArrayList<>(regionsToProcess.size());
         for (RegionProviderPair pair : regionsToProcess) {
             IDimensionInfo provider = pair.provider();
             RegionCoord region = pair.region();
+            CancellationToken cancel = pair.cancel();
+            regionWork.add(() -> {
+                long taskStartNs = System.nanoTime();
+                try {
+                    processEntireRegion(provider, region, cancel);
+                    return true;
+                } finally {
+                    Lc2hTimingRegistry.record("warmup.region_task", System.nanoTime() - taskStartNs);
+                }
+            });
+        }
+        if (SchedulerBackends.isNative()) {
+            return ParallelWorkQueue.dispatch("region-warmup", regionWork, null);
+        }
+        List<TaskBatchItem<Boolean>> regionBatchTasks = new ArrayList<>(regionsToProcess.size());
+        for (int i = 0; i < regionsToProcess.size(); i++) {
+            Supplier<Boolean> work = regionWork.get(i);
             regionBatchTasks.add(new TaskBatchItem<>(
-                "region-" + region,
-                () -> {
-                    long taskStartNs = System.nanoTime();
-                    try {
-                        processEntireRegion(provider, region);
-                        return true;
-                    } finally {
-                        Lc2hTimingRegistry.record("warmup.region_task", System.nanoTime() - taskStartNs);
-                    }
-                },
+                "region-" + regionsToProcess.get(i).region(),
+                () -> work.get(),
                 null,
                 CHUNKS_PER_REGION * 2048L,
                 CHUNKS_PER_REGION * 256
@@ -813,7 +836,13 @@ public final class AsyncChunkWarmup {
         requestFlush(true);
     }
 
-    private static void processEntireRegion(IDimensionInfo provider, RegionCoord region) {
+    private static void releaseCancelledRegion(RegionCoord region) {
+        RegionCancellation.recordCancelled(RegionCancellation.Site.WARMUP);
+        // Let the region be warmed again if a player comes back before the schedule TTL runs out.
+        PRE_SCHEDULE_CACHE.remove(region);
+    }
+
+    private static void processEntireRegion(IDimensionInfo provider, RegionCoord region, CancellationToken cancel) {
         runWithinCpuWarmup(() -> {
             if (VERBOSE_LOGGING) {
                 LC2H.LOGGER.debug("Processing entire region {}", region);
@@ -822,16 +851,37 @@ public final class AsyncChunkWarmup {
             long startTime = System.nanoTime();
 
             try {
+                if (ChunkPlanGraph.isEnabled()) {
+                    if (cancel.isCancelled()) {
+                        releaseCancelledRegion(region);
+                        return Boolean.FALSE;
+                    }
+                    List<ChunkCoord> chunks = new ArrayList<>(CHUNKS_PER_REGION);
+                    for (int localX = 0; localX < REGION_SIZE; localX++) {
+                        for (int localZ = 0; localZ < REGION_SIZE; localZ++) {
+                            chunks.add(region.getChunk(localX, localZ));
+                        }
+                    }
+                    ChunkPlanGraph.planChunks(provider, chunks, cancel);
+                    if (VERBOSE_LOGGING) {
+                        LC2H.LOGGER.debug("Planned region {} in {} ms", region, (System.nanoTime() - startTime) / 1_000_000);
+                    }
+                    return Boolean.TRUE;
+                }
                 for (int localX = 0; localX < REGION_SIZE; localX++) {
                     for (int localZ = 0; localZ < REGION_SIZE; localZ++) {
+                        if (cancel.isCancelled()) {
+                            releaseCancelledRegion(region);
+                            return Boolean.FALSE;
+                        }
                         ChunkCoord chunk = region.getChunk(localX, localZ);
 
-                        AsyncMultiChunkPlanner.preSchedule(provider, chunk);
-                        AsyncBuildingInfoPlanner.preSchedule(provider, chunk);
-                        AsyncTerrainFeaturePlanner.preSchedule(provider, chunk);
+                        AsyncMultiChunkPlanner.preSchedule(provider, chunk, cancel);
+                        AsyncBuildingInfoPlanner.preSchedule(provider, chunk, cancel);
+                        AsyncTerrainFeaturePlanner.preSchedule(provider, chunk, cancel);
                         AsyncPaletteGenerator.preSchedule(provider, chunk);
                         AsyncDebrisGenerator.preSchedule(provider, chunk);
-                        AsyncTerrainCorrectionPlanner.preSchedule(provider, chunk);
+                        AsyncTerrainCorrectionPlanner.preSchedule(provider, chunk, cancel);
                     }
                 }
 
@@ -1235,7 +1285,7 @@ public final class AsyncChunkWarmup {
                 break;
             }
         }
-        REGION_BUFFER.add(new RegionProviderPair(provider, region));
+        REGION_BUFFER.add(new RegionProviderPair(provider, region, RegionCancellation.forRegion(region)));
         return true;
     }
 
@@ -0,0 +1,276 @@
+package org.admany.lc2h.worldgen.async.warmup;
+
+import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.worldgen.IDimensionInfo;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.async.CancellationToken;
+import org.admany.lc2h.worldgen.async.planner.AsyncMultiChunkPlanner;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Prefetch along where a player is heading rather than around where they are. Positions are sampled once per prefetch
+// pass and smoothed into a velocity; once a player moves faster than a sprint, the multichunks in a cone ahead of
+// them are scheduled for planning. The cone starts past the view distance edge, reaches further the faster the player
+// goes and widens with distance. Everything is issued under a token owned by the player, so a sharp turn, a teleport
+// or a dimension change drops whatever has not started yet. A prediction is a hit once the player comes within view
+// distance of it and a miss when it expires first.
+public final class PredictivePrefetcher {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("lc2h.prefetch.predictive", "true"));
+    private static final double MIN_SPEED = Math.max(0.05D, readDouble("lc2h.prefetch.minSpeed", 0.35D));
+    private static final int LOOKAHEAD_TICKS = Math.max(20, Integer.getInteger("lc2h.prefetch.lookaheadTicks", 200));
+    private static final double MAX_REACH_BLOCKS = Math.max(64.0D, readDouble("lc2h.prefetch.maxReachBlocks", 1024.0D));
+    private static final double CONE_TAN = Math.tan(Math.toRadians(
+        Math.max(0.0D, Math.min(60.0D, readDouble("lc2h.prefetch.coneHalfAngle", 20.0D)))));
+    private static final double TURN_COS = Math.cos(Math.toRadians(
+        Math.max(5.0D, Math.min(180.0D, readDouble("lc2h.prefetch.turnCancelDegrees", 35.0D)))));
+    private static final int MAX_PER_PASS = Math.max(1, Integer.getInteger("lc2h.prefetch.maxPerPass", 12));
+    private static final int MAX_PENDING = Math.max(4, Integer.getInteger("lc2h.prefetch.maxPendingPerPlayer", 64));
+    private static final double SMOOTHING = 0.5D;
+    // Faster than anything but a teleport (200 blocks per second).
+    private static final double JUMP_SPEED = 10.0D;
+    private static final long STALE_TICKS = 100L;
+
+    private static final ConcurrentHashMap<UUID, Track> TRACKS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<ChunkCoord, UUID> PREDICTED = new ConcurrentHashMap<>();
+    private static final LongAdder ISSUED = new LongAdder();
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder CANCELLED = new LongAdder();
+    private static final LongAdder TURNS = new LongAdder();
+
+    private PredictivePrefetcher() {
+    }
+
+    private record Prediction(double centerX, double centerZ, double halfSize, long expiresTick) {
+    }
+
+    private static final class Track {
+        private final UUID id;
+        private final AtomicLong epoch = new AtomicLong();
+        private final HashMap<ChunkCoord, Prediction> predictions = new HashMap<>();
+        private ResourceKey<Level> dimension;
+        private long lastTick = -1L;
+        private double lastX;
+        private double lastZ;
+        private double vx;
+        private double vz;
+        private boolean moving;
+        private boolean headingIssued;
+        private double headingX;
+        private double headingZ;
+
+        private Track(UUID id) {
+            this.id = id;
+        }
+    }
+
+    public static void observe(IDimensionInfo provider, UUID player, double x, double z, long tick, int viewDistanceChunks) {
+        if (!ENABLED || provider == null || player == null) {
+            return;
+        }
+        Track track = TRACKS.computeIfAbsent(player, Track::new);
+        synchronized (track) {
+            try {
+                observe(provider, track, x, z, tick, Math.max(2, viewDistanceChunks));
+            } catch (Throwable t) {
+                LC2H.LOGGER.debug("Predictive prefetch failed for {}: {}", player, t.toString());
+            }
+        }
+    }
+
+    private static void observe(IDimensionInfo provider, Track track, double x, double z, long tick, int viewChunks) {
+        ResourceKey<Level> dimension = provider.getType();
+        settle(track, x, z, tick, viewChunks);
+        long dt = tick - track.lastTick;
+        if (track.lastTick < 0L || dt <= 0L || !dimension.equals(track.dimension)) {
+            cancel(track);
+            reset(track, dimension, x, z, tick);
+            return;
+        }
+        double sampleX = (x - track.lastX) / dt;
+        double sampleZ = (z - track.lastZ) / dt;
+        if (sampleX * sampleX + sampleZ * sampleZ > JUMP_SPEED * JUMP_SPEED) {
+            cancel(track);
+            reset(track, dimension, x, z, tick);
+            return;
+        }
+        if (track.moving) {
+            track.vx += SMOOTHING * (sampleX - track.vx);
+            track.vz += SMOOTHING * (sampleZ - track.vz);
+        } else {
+            track.vx = sampleX;
+            track.vz = sampleZ;
+            track.moving = true;
+        }
+        track.lastX = x;
+        track.lastZ = z;
+        track.lastTick = tick;
+
+        double speed = Math.sqrt(track.vx * track.vx + track.vz * track.vz);
+        if (speed < MIN_SPEED) {
+            return;
+        }
+        double headingX = track.vx / speed;
+        double headingZ = track.vz / speed;
+        if (track.headingIssued && headingX * track.headingX + headingZ * track.headingZ < TURN_COS) {
+            TURNS.increment();
+            cancel(track);
+        }
+        if (!AsyncChunkWarmup.shouldAcceptPreschedule()) {
+            return;
+        }
+        schedule(provider, track, dimension, x, z, headingX, headingZ, speed, tick, viewChunks);
+    }
+
+    // Walks the cone from its apex outwards, centre lane first, so the cap on a pass keeps the nearest work. Areas that
+    // settle() would already count as reached are skipped: they are in view, so predicting them proves nothing.
+    private static void schedule(IDimensionInfo provider, Track track, ResourceKey<Level> dimension, double x, double z,
+                                 double headingX, double headingZ, double speed, long tick, int viewChunks) {
+        int areaSize = Math.max(1, provider.getWorldStyle().getMultiSettings().areasize());
+        double step = areaSize * 16.0D;
+        double half = step * 0.5D;
+        double view = viewChunks * 16.0D;
+        double start = view + half;
+        double reach = Math.min(MAX_REACH_BLOCKS, speed * LOOKAHEAD_TICKS);
+        if (reach < half) {
+            return;
+        }
+        CancellationToken token = CancellationToken.of(track.epoch);
+        track.headingIssued = true;
+        track.headingX = headingX;
+        track.headingZ = headingZ;
+        int issued = 0;
+        for (double d = start; d <= start + reach; d += step) {
+            int lanes = (int) ((d - start) * CONE_TAN / step);
+            for (int lane = 0; lane <= lanes; lane++) {
+                for (int side = lane == 0 ? 1 : -1; side <= 1; side += 2) {
+                    double offset = lane * step * side;
+                    double px = x + headingX * d - headingZ * offset;
+                    double pz = z + headingZ * d + headingX * offset;
+                    ChunkCoord chunk = new ChunkCoord(dimension, (int) Math.floor(px) >> 4, (int) Math.floor(pz) >> 4);
+                    ChunkCoord multiCoord = AsyncMultiChunkPlanner.multiCoordOf(provider, chunk);
+                    if (multiCoord == null || track.predictions.containsKey(multiCoord)) {
+                        continue;
+                    }
+                    double centerX = multiCoord.chunkX() * step + half;
+                    double centerZ = multiCoord.chunkZ() * step + half;
+                    if (Math.abs(x - centerX) <= view + half && Math.abs(z - centerZ) <= view + half) {
+                        continue;
+                    }
+                    if (issued >= MAX_PER_PASS || track.predictions.size() >= MAX_PENDING) {
+                        return;
+                    }
+                    CompletableFuture<?> planned = AsyncMultiChunkPlanner.plannedFuture(provider, chunk, token);
+                    if (planned == null) {
+                        continue;
+                    }
+                    track.predictions.put(multiCoord, new Prediction(centerX, centerZ, half, tick + 2L * LOOKAHEAD_TICKS));
+                    PREDICTED.putIfAbsent(multiCoord, track.id);
+                    ISSUED.increment();
+                    issued++;
+                }
+            }
+        }
+    }
+
+    private static void settle(Track track, double x, double z, long tick, int viewChunks) {
+        if (track.predictions.isEmpty()) {
+            return;
+        }
+        double view = viewChunks * 16.0D;
+        Iterator<Map.Entry<ChunkCoord, Prediction>> it = track.predictions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ChunkCoord, Prediction> entry = it.next();
+            Prediction prediction = entry.getValue();
+            double reach = view + prediction.halfSize();
+            if (Math.abs(x - prediction.centerX()) <= reach && Math.abs(z - prediction.centerZ()) <= reach) {
+                HITS.increment();
+            } else if (tick >= prediction.expiresTick()) {
+                MISSES.increment();
+            } else {
+                continue;
+            }
+            it.remove();
+            PREDICTED.remove(entry.getKey(), track.id);
+        }
+    }
+
+    private static void cancel(Track track) {
+        track.epoch.incrementAndGet();
+        track.headingIssued = false;
+        if (track.predictions.isEmpty()) {
+            return;
+        }
+        CANCELLED.add(track.predictions.size());
+        for (ChunkCoord key : track.predictions.keySet()) {
+            PREDICTED.remove(key, track.id);
+        }
+        track.predictions.clear();
+    }
+
+    private static void reset(Track track, ResourceKey<Level> dimension, double x, double z, long tick) {
+        track.dimension = dimension;
+        track.lastTick = tick;
+        track.lastX = x;
+        track.lastZ = z;
+        track.vx = 0.0D;
+        track.vz = 0.0D;
+        track.moving = false;
+    }
+
+    // Drops the tracks of players that were not observed for a while (logged out, or no longer in a city dimension).
+    public static void retire(long tick) {
+        if (TRACKS.isEmpty()) {
+            return;
+        }
+        Iterator<Track> it = TRACKS.values().iterator();
+        while (it.hasNext()) {
+            Track track = it.next();
+            synchronized (track) {
+                if (tick - track.lastTick > STALE_TICKS || tick < track.lastTick) {
+                    cancel(track);
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    // Predicted areas are beyond view distance on purpose, so the planner's view cull has to let them through.
+    public static boolean isPredicted(ChunkCoord multiCoord) {
+        return ENABLED && multiCoord != null && !PREDICTED.isEmpty() && PREDICTED.containsKey(multiCoord);
+    }
+
+    public static Stats stats() {
+        return new Stats(TRACKS.size(), PREDICTED.size(), ISSUED.sum(), HITS.sum(), MISSES.sum(), CANCELLED.sum(),
+            TURNS.sum());
+    }
+
+    private static double readDouble(String key, double fallback) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException ignored) {
+            return fallback;
+        }
+    }
+
+    public record Stats(int tracks, int pending, long issued, long hits, long misses, long cancelled, long turns) {
+        public double accuracy() {
+            long settled = hits + misses;
+            return settled > 0L ? (double) hits / settled : 0.0D;
+        }
+    }
+}
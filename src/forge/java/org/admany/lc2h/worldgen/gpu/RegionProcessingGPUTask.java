@@ -3,11 +3,14 @@ package org.admany.lc2h.worldgen.gpu;
 import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import org.admany.lc2h.LC2H;
+import org.admany.lc2h.concurrency.async.CancellationToken;
+import org.admany.lc2h.concurrency.async.RegionCancellation;
 import org.admany.lc2h.worldgen.coord.RegionCoord;
 import org.admany.lc2h.worldgen.async.planner.AsyncMultiChunkPlanner;
 import org.admany.lc2h.worldgen.async.planner.AsyncBuildingInfoPlanner;
 import org.admany.lc2h.worldgen.async.planner.AsyncTerrainFeaturePlanner;
 import org.admany.lc2h.worldgen.async.planner.AsyncTerrainCorrectionPlanner;
+import org.admany.lc2h.worldgen.async.planner.ChunkPlanGraph;
 import org.admany.lc2h.worldgen.async.warmup.AsyncChunkWarmup;
 import org.admany.lc2h.worldgen.async.generator.AsyncPaletteGenerator;
 import org.admany.lc2h.worldgen.async.generator.AsyncDebrisGenerator;
@@ -125,16 +128,28 @@ public record RegionProcessingGPUTask(IDimensionInfo provider, RegionCoord regio
             AsyncChunkWarmup.recordCpuFallbackProcessed(1);
             LC2H.LOGGER.debug("[LC2H] Processing region {} on CPU (GPU fallback)", region);
 
+            CancellationToken cancel = RegionCancellation.forRegion(region);
+            if (ChunkPlanGraph.isEnabled()) {
+                java.util.List<ChunkCoord> chunks = new java.util.ArrayList<>(25);
+                for (int localX = 0; localX < 5; localX++) {
+                    for (int localZ = 0; localZ < 5; localZ++) {
+                        chunks.add(region.getChunk(localX, localZ));
+                    }
+                }
+                ChunkPlanGraph.planChunks(provider, chunks, cancel);
+                return Boolean.TRUE;
+            }
+
             for (int localX = 0; localX < 5; localX++) {
                 for (int localZ = 0; localZ < 5; localZ++) {
                     ChunkCoord chunk = region.getChunk(localX, localZ);
 
-                    AsyncMultiChunkPlanner.preSchedule(provider, chunk);
-                    AsyncBuildingInfoPlanner.preSchedule(provider, chunk);
-                    AsyncTerrainFeaturePlanner.preSchedule(provider, chunk);
+                    AsyncMultiChunkPlanner.preSchedule(provider, chunk, cancel);
+                    AsyncBuildingInfoPlanner.preSchedule(provider, chunk, cancel);
+                    AsyncTerrainFeaturePlanner.preSchedule(provider, chunk, cancel);
                     AsyncPaletteGenerator.preSchedule(provider, chunk);
                     AsyncDebrisGenerator.preSchedule(provider, chunk);
-                    AsyncTerrainCorrectionPlanner.preSchedule(provider, chunk);
+                    AsyncTerrainCorrectionPlanner.preSchedule(provider, chunk, cancel);
                 }
             }
             return Boolean.TRUE;
@@ -0,0 +1,26 @@
+package org.admany.lc2h.concurrency.async;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// A token is cancelled once the epoch of its scope has moved past the value it was issued with.
+public final class CancellationToken {
+
+    public static final CancellationToken NONE = new CancellationToken(null, 0L);
+
+    private final AtomicLong epoch;
+    private final long issuedEpoch;
+
+    CancellationToken(AtomicLong epoch, long issuedEpoch) {
+        this.epoch = epoch;
+        this.issuedEpoch = issuedEpoch;
+    }
+
+    // A token on a scope the caller owns; bumping the epoch cancels it.
+    public static CancellationToken of(AtomicLong epoch) {
+        return epoch == null ? NONE : new CancellationToken(epoch, epoch.get());
+    }
+
+    public boolean isCancelled() {
+        return epoch != null && epoch.get() != issuedEpoch;
+    }
+}
@@ -0,0 +1,100 @@
+package org.admany.lc2h.concurrency.async;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Earliest-deadline-first queue with a foreground and a background lane. Live work runs in deadline order across
+// both lanes. Work whose deadline has already passed moves behind the live work of its own lane only, so a missed
+// foreground task still runs before any background task.
+public final class DeadlineTaskQueue {
+
+    private final Lane foreground = new Lane();
+    private final Lane background = new Lane();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder ranOnTime = new LongAdder();
+    private final LongAdder ranLate = new LongAdder();
+    private final LongAdder demoted = new LongAdder();
+
+    private static final class Lane {
+        private final PriorityQueue<Entry> live = new PriorityQueue<>(DeadlineTaskQueue::compare);
+        private final ArrayDeque<Entry> missed = new ArrayDeque<>();
+    }
+
+    public void offer(long deadlineNanos, boolean foregroundLane, Runnable action) {
+        if (action == null) {
+            return;
+        }
+        Entry entry = new Entry(deadlineNanos, sequence.incrementAndGet(), action);
+        synchronized (this) {
+            (foregroundLane ? foreground : background).live.add(entry);
+        }
+        submitted.increment();
+    }
+
+    public boolean runNext() {
+        Entry next = pollNext(System.nanoTime());
+        if (next == null) {
+            return false;
+        }
+        if (System.nanoTime() - next.deadlineNanos > 0L) {
+            ranLate.increment();
+        } else {
+            ranOnTime.increment();
+        }
+        next.action.run();
+        return true;
+    }
+
+    private synchronized Entry pollNext(long nowNanos) {
+        demote(foreground, nowNanos);
+        demote(background, nowNanos);
+        Entry fg = foreground.live.peek();
+        Entry bg = background.live.peek();
+        if (fg != null && (bg == null || compare(fg, bg) <= 0)) {
+            return foreground.live.poll();
+        }
+        if (fg == null && !foreground.missed.isEmpty()) {
+            return foreground.missed.pollFirst();
+        }
+        if (bg != null) {
+            return background.live.poll();
+        }
+        return background.missed.pollFirst();
+    }
+
+    private void demote(Lane lane, long nowNanos) {
+        Entry head;
+        while ((head = lane.live.peek()) != null && nowNanos - head.deadlineNanos > 0L) {
+            lane.missed.addLast(lane.live.poll());
+            demoted.increment();
+        }
+    }
+
+    private static int compare(Entry a, Entry b) {
+        int cmp = Long.compare(a.deadlineNanos - b.deadlineNanos, 0L);
+        return cmp != 0 ? cmp : Long.compare(a.sequence, b.sequence);
+    }
+
+    public synchronized int size() {
+        return foreground.live.size() + foreground.missed.size() + background.live.size() + background.missed.size();
+    }
+
+    public Stats stats() {
+        int liveSize;
+        int missedSize;
+        synchronized (this) {
+            liveSize = foreground.live.size() + background.live.size();
+            missedSize = foreground.missed.size() + background.missed.size();
+        }
+        return new Stats(submitted.sum(), ranOnTime.sum(), ranLate.sum(), demoted.sum(), liveSize, missedSize);
+    }
+
+    public record Stats(long submitted, long ranOnTime, long ranLate, long demoted, int pendingLive, int pendingMissed) {
+    }
+
+    private record Entry(long deadlineNanos, long sequence, Runnable action) {
+    }
+}
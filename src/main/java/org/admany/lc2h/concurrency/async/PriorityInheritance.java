@@ -0,0 +1,131 @@
+package org.admany.lc2h.concurrency.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Foreground callers that end up blocking on background work. If the awaited task has not started yet the caller
+// takes it over and runs it inline instead of waiting behind the background queue; if it is already running there
+// is nothing left to boost and the caller waits. Either way the inversion is counted per call site.
+public final class PriorityInheritance {
+
+    private static final LongAdder INLINED = new LongAdder();
+    private static final LongAdder BOOSTED = new LongAdder();
+    private static final LongAdder WAITED = new LongAdder();
+    private static final LongAdder WAIT_NANOS = new LongAdder();
+    private static final ConcurrentHashMap<String, LongAdder> BY_SITE = new ConcurrentHashMap<>();
+
+    private PriorityInheritance() {
+    }
+
+    // A future whose body runs exactly once, either on the worker it was queued for or on a caller that joins it first.
+    public static final class Claimable<T> extends CompletableFuture<T> {
+        private static final int UNCLAIMED = 0;
+        private static final int WORKER = 1;
+        private static final int CALLER = 2;
+
+        private final Supplier<T> body;
+        // Set once, from UNCLAIMED to whichever side gets there first, and never changes after that.
+        private final AtomicInteger owner = new AtomicInteger(UNCLAIMED);
+
+        public Claimable(Supplier<T> body) {
+            this.body = body;
+        }
+
+        // Worker side: returns null without running anything when a joining caller already owns the body.
+        public T runIfUnclaimed() {
+            if (!owner.compareAndSet(UNCLAIMED, WORKER)) {
+                return null;
+            }
+            return body.get();
+        }
+
+        // Worker side: whether the worker settles this future. Claims it when nobody did yet, so a batch that fails
+        // before reaching the body cannot fail a future a caller is about to run inline.
+        public boolean claimForWorker() {
+            return owner.compareAndSet(UNCLAIMED, WORKER) || owner.get() == WORKER;
+        }
+
+        public boolean isTakenOver() {
+            return owner.get() == CALLER;
+        }
+
+        private boolean tryTakeOver() {
+            return owner.compareAndSet(UNCLAIMED, CALLER);
+        }
+
+        private T runInline() {
+            try {
+                T value = body.get();
+                complete(value);
+                return value;
+            } catch (Throwable t) {
+                completeExceptionally(t);
+                throw t;
+            }
+        }
+    }
+
+    public static <T> T join(CompletableFuture<T> future, String site) {
+        if (future.isDone()) {
+            return future.join();
+        }
+        if (future instanceof Claimable<T> claimable && claimable.tryTakeOver()) {
+            recordInlined(site);
+            return claimable.runInline();
+        }
+        long start = System.nanoTime();
+        try {
+            return future.join();
+        } finally {
+            recordWaited(site, System.nanoTime() - start);
+        }
+    }
+
+    // Whether the worker side may settle future: always for plain futures, for a Claimable only if a caller did not
+    // take it over.
+    public static boolean settlesOnWorker(CompletableFuture<?> future) {
+        return !(future instanceof Claimable<?> claimable) || claimable.claimForWorker();
+    }
+
+    public static void recordInlined(String site) {
+        INLINED.increment();
+        count(site);
+    }
+
+    // The awaited work was moved to the foreground rather than run by the caller.
+    public static void recordBoosted(String site) {
+        BOOSTED.increment();
+        count(site);
+    }
+
+    public static void recordWaited(String site, long nanos) {
+        WAITED.increment();
+        WAIT_NANOS.add(Math.max(0L, nanos));
+        count(site);
+    }
+
+    private static void count(String site) {
+        BY_SITE.computeIfAbsent(site == null ? "unknown" : site, ignored -> new LongAdder()).increment();
+    }
+
+    public static Stats stats() {
+        List<SiteCount> sites = new ArrayList<>(BY_SITE.size());
+        for (Map.Entry<String, LongAdder> entry : BY_SITE.entrySet()) {
+            sites.add(new SiteCount(entry.getKey(), entry.getValue().sum()));
+        }
+        sites.sort((a, b) -> Long.compare(b.count(), a.count()));
+        return new Stats(INLINED.sum(), BOOSTED.sum(), WAITED.sum(), WAIT_NANOS.sum(), sites);
+    }
+
+    public record SiteCount(String site, long count) {
+    }
+
+    public record Stats(long inlined, long boosted, long waited, long waitNanos, List<SiteCount> sites) {
+    }
+}
@@ -0,0 +1,205 @@
+package org.admany.lc2h.concurrency.async;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded multi-producer / single-consumer queue made of one preallocated ring per producer.
+// A full ring rejects the offer so the producer can back off; the consumer polls rings round-robin.
+public final class ProducerFairQueue<T> {
+
+    private static final String OVERFLOW_PRODUCER = "other";
+
+    private final int producerQuota;
+    private final int maxProducers;
+    private final int totalLimit;
+    private final ConcurrentHashMap<String, Ring<T>> byProducer = new ConcurrentHashMap<>();
+    private volatile Ring<T>[] rings;
+    // The shared ring, once the producer cap is reached; every producer without a ring of its own lands there.
+    private volatile Ring<T> overflow;
+    private final AtomicInteger size = new AtomicInteger();
+    private int cursor;
+
+    public ProducerFairQueue(int producerQuota, int maxProducers, int totalLimit) {
+        this.producerQuota = Integer.highestOneBit(Math.max(2, producerQuota - 1)) << 1;
+        this.maxProducers = Math.max(1, maxProducers);
+        this.totalLimit = Math.max(this.producerQuota, totalLimit);
+        this.rings = newRings(0);
+    }
+
+    public boolean offer(String producer, T item) {
+        if (item == null) {
+            return false;
+        }
+        Ring<T> ring = ringFor(producer == null ? OVERFLOW_PRODUCER : producer);
+        if (size.incrementAndGet() > totalLimit) {
+            size.decrementAndGet();
+            ring.rejected.increment();
+            return false;
+        }
+        if (!ring.offer(item)) {
+            size.decrementAndGet();
+            ring.rejected.increment();
+            return false;
+        }
+        ring.accepted.increment();
+        return true;
+    }
+
+    // Single consumer only.
+    public T poll() {
+        Ring<T>[] snapshot = rings;
+        int n = snapshot.length;
+        if (n == 0 || size.get() <= 0) {
+            return null;
+        }
+        for (int i = 0; i < n; i++) {
+            int idx = (cursor + i) % n;
+            T item = snapshot[idx].poll();
+            if (item != null) {
+                cursor = (idx + 1) % n;
+                size.decrementAndGet();
+                return item;
+            }
+        }
+        return null;
+    }
+
+    // Single consumer only.
+    public List<T> peekHeads() {
+        Ring<T>[] snapshot = rings;
+        List<T> heads = new ArrayList<>(snapshot.length);
+        for (Ring<T> ring : snapshot) {
+            T head = ring.peek();
+            if (head != null) {
+                heads.add(head);
+            }
+        }
+        return heads;
+    }
+
+    public int size() {
+        return Math.max(0, size.get());
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public List<ProducerStats> producerStats() {
+        List<ProducerStats> out = new ArrayList<>(byProducer.size());
+        byProducer.forEach((key, ring) -> out.add(new ProducerStats(key, ring.accepted.sum(), ring.rejected.sum(), ring.pending())));
+        return out;
+    }
+
+    private Ring<T> ringFor(String producer) {
+        Ring<T> ring = byProducer.get(producer);
+        if (ring != null) {
+            return ring;
+        }
+        ring = overflow;
+        if (ring != null) {
+            return ring;
+        }
+        synchronized (this) {
+            ring = byProducer.get(producer);
+            if (ring != null) {
+                return ring;
+            }
+            boolean full = byProducer.size() >= maxProducers;
+            String key = full ? OVERFLOW_PRODUCER : producer;
+            ring = byProducer.get(key);
+            if (ring == null) {
+                ring = new Ring<>(producerQuota);
+                byProducer.put(key, ring);
+                Ring<T>[] current = rings;
+                Ring<T>[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = ring;
+                rings = grown;
+            }
+            if (full) {
+                overflow = ring;
+            }
+            return ring;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Ring<T>[] newRings(int length) {
+        return (Ring<T>[]) new Ring<?>[length];
+    }
+
+    public record ProducerStats(String producer, long accepted, long rejected, int pending) {
+    }
+
+    private static final class Ring<T> {
+        private final Object[] buffer;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private Ring(int capacity) {
+            this.buffer = new Object[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        private boolean offer(T item) {
+            while (true) {
+                long t = tail.get();
+                int idx = (int) (t & mask);
+                long diff = sequences.get(idx) - t;
+                if (diff == 0L) {
+                    if (tail.compareAndSet(t, t + 1L)) {
+                        buffer[idx] = item;
+                        sequences.lazySet(idx, t + 1L);
+                        return true;
+                    }
+                } else if (diff < 0L) {
+                    return false;
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T poll() {
+            long h = head;
+            int idx = (int) (h & mask);
+            if (sequences.get(idx) - (h + 1L) < 0L) {
+                return null;
+            }
+            T item = (T) buffer[idx];
+            buffer[idx] = null;
+            sequences.lazySet(idx, h + buffer.length);
+            head = h + 1L;
+            return item;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T peek() {
+            long h = head;
+            int idx = (int) (h & mask);
+            if (sequences.get(idx) - (h + 1L) < 0L) {
+                return null;
+            }
+            return (T) buffer[idx];
+        }
+
+        private int pending() {
+            return (int) Math.max(0L, tail.get() - head);
+        }
+    }
+}
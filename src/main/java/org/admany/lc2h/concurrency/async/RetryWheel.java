@@ -0,0 +1,391 @@
+package org.admany.lc2h.concurrency.async;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+// Keyed retries on one hashed timer wheel shared by every site. schedule() counts an attempt and arms the key after a
+// jittered exponential backoff (base doubling per attempt up to max, plus up to jitter scaled the same way); a key that
+// is already armed keeps the earlier deadline. Arming is O(1) and due keys fire on the wheel's thread, so handlers
+// should only hand work on. A key past its attempt cap, or past its TTL since the first attempt, expires instead.
+// Attempts carry over between fires until forget() is called or the key sits idle for a whole TTL.
+public final class RetryWheel<K, V> {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, Long.getLong("lc2h.retry.tickMs", 2L)));
+    private static final int SLOTS = 512;
+    private static final int PRUNE_EVERY = 256;
+    private static final Wheel WHEEL = new Wheel();
+    private static final CopyOnWriteArrayList<RetryWheel<?, ?>> SITES = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final long baseMs;
+    private final long maxMs;
+    private final long jitterMs;
+    private final int maxAttempts;
+    private final long ttlMs;
+    private final BiConsumer<K, V> onFire;
+    private final BiConsumer<K, V> onExpire;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger arms = new AtomicInteger();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder postponed = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public RetryWheel(String name, long baseMs, long maxMs, long jitterMs, int maxAttempts, long ttlMs,
+                      BiConsumer<K, V> onFire, BiConsumer<K, V> onExpire) {
+        this.name = name;
+        this.baseMs = Math.max(1L, baseMs);
+        this.maxMs = Math.max(this.baseMs, maxMs);
+        this.jitterMs = Math.max(0L, jitterMs);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.ttlMs = Math.max(1L, ttlMs);
+        this.onFire = onFire;
+        this.onExpire = onExpire;
+        SITES.add(this);
+    }
+
+    private static final class Entry<V> {
+        private final long firstMs;
+        private volatile V value;
+        private int attempts;
+        private long seq;
+        private long dueMs;
+        private volatile Timeout timeout;
+        private volatile long lastMs;
+
+        private Entry(long nowMs) {
+            this.firstMs = nowMs;
+            this.lastMs = nowMs;
+        }
+
+        private boolean idle(long nowMs, long ttlMs) {
+            return timeout == null && nowMs - lastMs > ttlMs;
+        }
+    }
+
+    // Counts an attempt and arms key; returns the delay in ms, or -1 when the key expired instead.
+    public long schedule(K key, V value) {
+        return arm(key, value, true, 0L);
+    }
+
+    // Re-arms key without counting an attempt, for a fire that could not be acted on yet.
+    public void postpone(K key, long delayMs) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            arm(key, entry.value, false, delayMs);
+        }
+    }
+
+    private long arm(K key, V value, boolean attempt, long delayMs) {
+        long nowMs = System.currentTimeMillis();
+        Entry<V> entry = entries.compute(key, (k, existing) ->
+            existing == null || existing.idle(nowMs, ttlMs) ? new Entry<>(nowMs) : existing);
+        long delay;
+        synchronized (entry) {
+            entry.value = value;
+            if (attempt) {
+                entry.attempts++;
+            }
+            if (entry.attempts > maxAttempts || nowMs - entry.firstMs > ttlMs) {
+                cancel(entry);
+                delay = -1L;
+            } else {
+                delay = attempt ? backoffMs(entry.attempts) : Math.max(1L, delayMs);
+                if (entry.timeout != null && entry.dueMs <= nowMs + delay) {
+                    coalesced.increment();
+                    return entry.dueMs - nowMs;
+                }
+                cancel(entry);
+                long seq = ++entry.seq;
+                entry.dueMs = nowMs + delay;
+                entry.timeout = WHEEL.add(TimeUnit.MILLISECONDS.toNanos(delay), () -> fire(key, entry, seq));
+            }
+        }
+        if (delay < 0L) {
+            entries.remove(key, entry);
+            expired.increment();
+            dispatch(onExpire, key, value);
+            return -1L;
+        }
+        (attempt ? scheduled : postponed).increment();
+        maybePrune(nowMs);
+        return delay;
+    }
+
+    private void fire(K key, Entry<V> entry, long seq) {
+        V value;
+        synchronized (entry) {
+            if (entry.timeout == null || entry.seq != seq) {
+                return;
+            }
+            entry.timeout = null;
+            entry.lastMs = System.currentTimeMillis();
+            value = entry.value;
+        }
+        fired.increment();
+        dispatch(onFire, key, value);
+    }
+
+    private long backoffMs(int attempts) {
+        int shift = Math.min(20, Math.max(0, attempts - 1));
+        long delay = Math.min(maxMs, baseMs << shift);
+        long jitter = Math.min(jitterMs << shift, delay);
+        if (jitter > 0L) {
+            delay += ThreadLocalRandom.current().nextLong(jitter + 1L);
+        }
+        return delay;
+    }
+
+    // Ends the key's retry streak, disarming it if it is still waiting.
+    public void forget(K key) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            synchronized (entry) {
+                cancel(entry);
+            }
+        }
+    }
+
+    public void clear() {
+        for (Entry<V> entry : entries.values()) {
+            synchronized (entry) {
+                cancel(entry);
+            }
+        }
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static void cancel(Entry<?> entry) {
+        Timeout timeout = entry.timeout;
+        if (timeout != null) {
+            WHEEL.cancel(timeout);
+            entry.timeout = null;
+        }
+    }
+
+    private void maybePrune(long nowMs) {
+        if (arms.incrementAndGet() % PRUNE_EVERY != 0) {
+            return;
+        }
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().idle(nowMs, ttlMs)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static <K, V> void dispatch(BiConsumer<K, V> handler, K key, V value) {
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.accept(key, value);
+        } catch (Throwable t) {
+            LOGGER.debug("[LC2H] Retry handler failed for {}: {}", key, t.toString());
+        }
+    }
+
+    // One-shot delay on the shared wheel, for backoff that needs no key.
+    public static void after(long delayMs, Runnable task) {
+        if (task != null) {
+            WHEEL.add(TimeUnit.MILLISECONDS.toNanos(Math.max(1L, delayMs)), task);
+        }
+    }
+
+    // base doubling per attempt up to max, plus up to jitter scaled the same way.
+    public static long jitteredBackoffMs(long baseMs, long maxMs, long jitterMs, int attempt) {
+        int shift = Math.min(20, Math.max(0, attempt));
+        long base = Math.max(1L, baseMs);
+        long delay = Math.min(Math.max(base, maxMs), base << shift);
+        long jitter = Math.min(Math.max(0L, jitterMs) << shift, delay);
+        return jitter > 0L ? delay + ThreadLocalRandom.current().nextLong(jitter + 1L) : delay;
+    }
+
+    public static List<Stats> stats() {
+        List<Stats> out = new ArrayList<>(SITES.size());
+        for (RetryWheel<?, ?> site : SITES) {
+            out.add(new Stats(site.name, site.scheduled.sum(), site.coalesced.sum(), site.postponed.sum(),
+                site.fired.sum(), site.expired.sum(), site.entries.size()));
+        }
+        return out;
+    }
+
+    public static int pendingTimers() {
+        return WHEEL.pending();
+    }
+
+    public record Stats(String name, long scheduled, long coalesced, long postponed, long fired, long expired, int tracked) {
+    }
+
+    private static final class Timeout {
+        private final Runnable task;
+        private final long dueTick;
+        // Slot list links, guarded by the wheel.
+        private Timeout prev;
+        private Timeout next;
+        private boolean linked;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long dueTick) {
+            this.task = task;
+            this.dueTick = dueTick;
+        }
+    }
+
+    // Slot = due tick mod SLOTS, each slot a linked list so a cancelled timeout is unlinked on the spot. The thread
+    // sleeps until the earliest due tick and only visits the slots of the ticks that passed; a timeout more than a
+    // turn out stays in its slot until a visit finds its due tick reached.
+    private static final class Wheel implements Runnable {
+        private final Timeout[] slots = new Timeout[SLOTS];
+        private final long originNanos = System.nanoTime();
+        private long tick;
+        private long wakeTick = Long.MAX_VALUE;
+        private int pending;
+        private Thread thread;
+
+        private synchronized Timeout add(long delayNanos, Runnable task) {
+            long nowTick = currentTick();
+            if (pending == 0 && tick < nowTick) {
+                tick = nowTick;
+            }
+            long dueTick = Math.max(tick, nowTick + Math.max(1L, (delayNanos + TICK_NANOS - 1L) / TICK_NANOS));
+            Timeout timeout = new Timeout(task, dueTick);
+            link(timeout);
+            if (thread == null) {
+                thread = new Thread(this, "LC2H-RetryWheel");
+                thread.setDaemon(true);
+                thread.start();
+            } else if (dueTick < wakeTick) {
+                notifyAll();
+            }
+            return timeout;
+        }
+
+        private synchronized void cancel(Timeout timeout) {
+            timeout.cancelled = true;
+            if (timeout.linked) {
+                unlink(timeout);
+            }
+        }
+
+        private void link(Timeout timeout) {
+            int slot = (int) (timeout.dueTick & (SLOTS - 1));
+            Timeout head = slots[slot];
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            slots[slot] = timeout;
+            timeout.linked = true;
+            pending++;
+        }
+
+        private void unlink(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                slots[(int) (timeout.dueTick & (SLOTS - 1))] = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.linked = false;
+            pending--;
+        }
+
+        private synchronized int pending() {
+            return pending;
+        }
+
+        private long currentTick() {
+            return (System.nanoTime() - originNanos) / TICK_NANOS;
+        }
+
+        // Earliest due tick: slots are walked in tick order, so the first timeout due on the tick being looked at
+        // ends the walk; timeouts further out only bound the answer.
+        private long nextDueTick() {
+            long earliest = Long.MAX_VALUE;
+            for (long t = tick; t < tick + SLOTS && t < earliest; t++) {
+                for (Timeout timeout = slots[(int) (t & (SLOTS - 1))]; timeout != null; timeout = timeout.next) {
+                    earliest = Math.min(earliest, timeout.dueTick);
+                }
+            }
+            return earliest;
+        }
+
+        private void collectDue(long nowTick, List<Timeout> due) {
+            long from = Math.max(tick, nowTick - SLOTS + 1L);
+            for (long t = from; t <= nowTick; t++) {
+                Timeout timeout = slots[(int) (t & (SLOTS - 1))];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.dueTick <= nowTick) {
+                        unlink(timeout);
+                        due.add(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+            tick = nowTick + 1L;
+        }
+
+        @Override
+        public void run() {
+            List<Timeout> due = new ArrayList<>();
+            while (true) {
+                try {
+                    synchronized (this) {
+                        while (pending == 0) {
+                            wakeTick = Long.MAX_VALUE;
+                            wait();
+                        }
+                        long nowTick = currentTick();
+                        wakeTick = nextDueTick();
+                        if (wakeTick > nowTick) {
+                            TimeUnit.NANOSECONDS.timedWait(this, (wakeTick - nowTick) * TICK_NANOS);
+                            continue;
+                        }
+                        collectDue(nowTick, due);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (Timeout timeout : due) {
+                    if (timeout.cancelled) {
+                        continue;
+                    }
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable t) {
+                        LOGGER.debug("[LC2H] Retry wheel task failed: {}", t.toString());
+                    }
+                }
+                due.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package org.admany.lc2h.concurrency.async;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+// Request coalescing for planner work keyed by chunk or area. Concurrent requests for a key share one future; a
+// successful result is served for successTtlMs (0 keeps nothing once done), and a failure is served back as the same
+// failed future until its backoff runs out, doubling per consecutive failure. A null result or a cancellation is
+// never remembered. Finished entries are pruned once the map grows past maxEntries; in-flight ones never are.
+public final class SingleFlight<K, V> {
+
+    private static final CopyOnWriteArrayList<Meter> METERS = new CopyOnWriteArrayList<>();
+    private static final int PRUNE_EVERY = 256;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger inserts = new AtomicInteger();
+    private final int maxEntries;
+    private final long successTtlMs;
+    private final Backoff<K> backoff;
+    private final Meter meter;
+
+    public SingleFlight(String name, int maxEntries, long successTtlMs, long failureBackoffMs, long maxFailureBackoffMs) {
+        this.maxEntries = Math.max(16, maxEntries);
+        this.successTtlMs = Math.max(0L, successTtlMs);
+        this.backoff = new Backoff<>(failureBackoffMs, maxFailureBackoffMs, 16);
+        this.meter = new Meter(name, inFlight::get, entries::size);
+        METERS.add(meter);
+    }
+
+    private static final class Entry<V> {
+        private final CompletableFuture<V> future;
+        private volatile int failures;
+        private volatile long expiresAtMs = Long.MAX_VALUE;
+        private volatile boolean failed;
+
+        private Entry(CompletableFuture<V> future, int failures) {
+            this.future = future;
+            this.failures = failures;
+        }
+
+        private boolean reusable(long nowMs) {
+            return !future.isDone() || nowMs < expiresAtMs;
+        }
+    }
+
+    // Returns the shared future for key, starting it with starter when nothing usable is held. The starter may
+    // return null to decline, in which case nothing is recorded and null is returned.
+    public CompletableFuture<V> run(K key, Function<? super K, ? extends CompletableFuture<V>> starter) {
+        long nowMs = System.currentTimeMillis();
+        AtomicReference<Entry<V>> created = new AtomicReference<>();
+        Entry<V> entry = entries.compute(key, (k, existing) -> {
+            if (existing != null && existing.reusable(nowMs)) {
+                return existing;
+            }
+            CompletableFuture<V> future = starter.apply(k);
+            if (future == null) {
+                return existing != null && existing.failed ? existing : null;
+            }
+            Entry<V> next = new Entry<>(future, existing != null && existing.failed ? existing.failures : 0);
+            created.set(next);
+            return next;
+        });
+        Entry<V> started = created.get();
+        if (started != null) {
+            meter.misses.increment();
+            inFlight.incrementAndGet();
+            entry.future.whenComplete((value, error) -> settle(key, started, value, error));
+            maybePrune(nowMs);
+            return entry.future;
+        }
+        if (entry == null || !entry.reusable(nowMs)) {
+            return null;
+        }
+        if (!entry.future.isDone()) {
+            meter.coalesced.increment();
+        } else if (entry.failed) {
+            meter.negative.increment();
+        } else {
+            meter.hits.increment();
+        }
+        return entry.future;
+    }
+
+    private void settle(K key, Entry<V> entry, V value, Throwable error) {
+        inFlight.decrementAndGet();
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause == null) {
+            if (value != null && successTtlMs > 0L) {
+                entry.expiresAtMs = System.currentTimeMillis() + successTtlMs;
+            } else {
+                entries.remove(key, entry);
+            }
+            return;
+        }
+        if (cause instanceof CancellationException) {
+            entries.remove(key, entry);
+            return;
+        }
+        meter.failures.increment();
+        entry.failures++;
+        long delayMs = backoff.delayMs(entry.failures);
+        if (delayMs <= 0L) {
+            entries.remove(key, entry);
+            return;
+        }
+        entry.failed = true;
+        entry.expiresAtMs = System.currentTimeMillis() + delayMs;
+    }
+
+    // The held future for key, whether running, finished within its TTL or failed within its backoff.
+    public CompletableFuture<V> peek(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.reusable(System.currentTimeMillis()) ? entry.future : null;
+    }
+
+    public boolean isInFlight(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && !entry.future.isDone();
+    }
+
+    public boolean isFresh(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.future.isDone() && !entry.failed && System.currentTimeMillis() < entry.expiresAtMs;
+    }
+
+    // Running, fresh or backing off: anything a new run() would be answered from.
+    public boolean isActive(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.reusable(System.currentTimeMillis());
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidate(K key, CompletableFuture<V> future) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.future == future) {
+            entries.remove(key, entry);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int inFlightCount() {
+        return Math.max(0, inFlight.get());
+    }
+
+    private void maybePrune(long nowMs) {
+        int n = inserts.incrementAndGet();
+        if (n % PRUNE_EVERY != 0 && (entries.size() <= maxEntries || (n & 15) != 0)) {
+            return;
+        }
+        int target = maxEntries - maxEntries / 8;
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry<V> entry = it.next().getValue();
+            if (entry.future.isDone() && nowMs >= entry.expiresAtMs) {
+                it.remove();
+            }
+        }
+        if (entries.size() <= target) {
+            return;
+        }
+        it = entries.entrySet().iterator();
+        while (it.hasNext() && entries.size() > target) {
+            Entry<V> entry = it.next().getValue();
+            if (entry.future.isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    // Per-key exponential failure backoff, for caches that keep their own failure markers.
+    public static final class Backoff<K> {
+        private final long baseMs;
+        private final long maxMs;
+        private final int maxKeys;
+        private final ConcurrentHashMap<K, int[]> failures = new ConcurrentHashMap<>();
+
+        public Backoff(long baseMs, long maxMs, int maxKeys) {
+            this.baseMs = Math.max(0L, baseMs);
+            this.maxMs = Math.max(this.baseMs, maxMs);
+            this.maxKeys = Math.max(16, maxKeys);
+        }
+
+        public long delayMs(int consecutiveFailures) {
+            if (baseMs <= 0L || consecutiveFailures <= 0) {
+                return 0L;
+            }
+            int shift = Math.min(20, consecutiveFailures - 1);
+            return Math.min(maxMs, baseMs << shift);
+        }
+
+        public long recordFailure(K key) {
+            if (failures.size() >= maxKeys && !failures.containsKey(key)) {
+                failures.clear();
+            }
+            int[] count = failures.computeIfAbsent(key, unused -> new int[1]);
+            synchronized (count) {
+                return delayMs(++count[0]);
+            }
+        }
+
+        public void recordSuccess(K key) {
+            if (!failures.isEmpty()) {
+                failures.remove(key);
+            }
+        }
+
+        public void clear() {
+            failures.clear();
+        }
+    }
+
+    // Counters for one coalescing site. Caches that are not built on SingleFlight can still report through one.
+    public static final class Meter {
+        private final String name;
+        private final IntSupplier inFlight;
+        private final IntSupplier size;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder negative = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private Meter(String name, IntSupplier inFlight, IntSupplier size) {
+            this.name = name;
+            this.inFlight = inFlight;
+            this.size = size;
+        }
+
+        public void hit() {
+            hits.increment();
+        }
+
+        public void coalesced() {
+            coalesced.increment();
+        }
+
+        public void miss() {
+            misses.increment();
+        }
+
+        public void negative() {
+            negative.increment();
+        }
+
+        public void failure() {
+            failures.increment();
+        }
+    }
+
+    public static Meter meter(String name, IntSupplier inFlight, IntSupplier size) {
+        Meter meter = new Meter(name, inFlight, size);
+        METERS.add(meter);
+        return meter;
+    }
+
+    public static List<Stats> stats() {
+        List<Stats> out = new ArrayList<>(METERS.size());
+        for (Meter meter : METERS) {
+            out.add(new Stats(meter.name, meter.hits.sum(), meter.coalesced.sum(), meter.misses.sum(),
+                meter.negative.sum(), meter.failures.sum(), read(meter.inFlight), read(meter.size)));
+        }
+        return out;
+    }
+
+    // -1 when the site does not track it.
+    private static int read(IntSupplier supplier) {
+        try {
+            return supplier == null ? -1 : supplier.getAsInt();
+        } catch (Throwable ignored) {
+            return 0;
+        }
+    }
+
+    public record Stats(String name, long hits, long coalesced, long misses, long negative, long failures,
+                        int inFlight, int size) {
+    }
+}
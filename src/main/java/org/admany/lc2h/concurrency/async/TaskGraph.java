@@ -0,0 +1,155 @@
+package org.admany.lc2h.concurrency.async;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keyed stages that start exactly when their inputs settle, instead of polling for them.
+// Inputs are either other stages still in flight in this graph or plain futures. A failed input still releases
+// its dependents: every stage here can rebuild what it needs, the graph only decides when that is cheapest.
+public final class TaskGraph<K> {
+
+    @FunctionalInterface
+    public interface Stage {
+        // Starts the stage; the returned future (null when the work finished inline) settles the stage.
+        CompletableFuture<?> start(boolean foreground);
+    }
+
+    private final String name;
+    private final ConcurrentHashMap<K, Node<K>> nodes = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder promoted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public TaskGraph(String name) {
+        this.name = name;
+    }
+
+    // Adds a stage unless one with the same key is already in flight, in which case the caller shares it.
+    // Dependencies that are not in flight any more count as satisfied.
+    public CompletableFuture<Void> stage(K key, Collection<K> dependsOn, Collection<? extends CompletableFuture<?>> inputs,
+                                         boolean foreground, Stage body) {
+        Node<K> node = new Node<>(key, dependsOn == null ? List.of() : List.copyOf(dependsOn), foreground);
+        Node<K> existing = nodes.putIfAbsent(key, node);
+        if (existing != null) {
+            joined.increment();
+            if (foreground) {
+                promote(existing);
+            }
+            return existing.done;
+        }
+        created.increment();
+        waiting.incrementAndGet();
+        for (K depKey : node.dependsOn) {
+            Node<K> dep = nodes.get(depKey);
+            if (dep == null || dep == node) {
+                continue;
+            }
+            if (foreground) {
+                promote(dep);
+            }
+            node.remaining.incrementAndGet();
+            dep.done.whenComplete((ignored, throwable) -> arrive(node, body));
+        }
+        if (inputs != null) {
+            for (CompletableFuture<?> input : inputs) {
+                if (input == null || input.isDone()) {
+                    continue;
+                }
+                node.remaining.incrementAndGet();
+                input.whenComplete((ignored, throwable) -> arrive(node, body));
+            }
+        }
+        // Releases the registration guard; the stage may start right here when nothing was outstanding.
+        arrive(node, body);
+        return node.done;
+    }
+
+    // Marks a stage and everything it still waits on as foreground, so the whole critical path is started as such.
+    public void promote(K key) {
+        Node<K> node = nodes.get(key);
+        if (node != null) {
+            promote(node);
+        }
+    }
+
+    public boolean isInFlight(K key) {
+        return nodes.containsKey(key);
+    }
+
+    public Stats stats() {
+        return new Stats(name, Math.max(0, waiting.get()), Math.max(0, running.get()),
+            created.sum(), joined.sum(), promoted.sum(), completed.sum(), failed.sum());
+    }
+
+    public record Stats(String name, int waiting, int running, long created, long joined, long promoted, long completed, long failed) {
+    }
+
+    private void promote(Node<K> node) {
+        if (node.foreground || node.started) {
+            return;
+        }
+        node.foreground = true;
+        promoted.increment();
+        for (K depKey : node.dependsOn) {
+            Node<K> dep = nodes.get(depKey);
+            if (dep != null && dep != node) {
+                promote(dep);
+            }
+        }
+    }
+
+    private void arrive(Node<K> node, Stage body) {
+        if (node.remaining.decrementAndGet() != 0) {
+            return;
+        }
+        node.started = true;
+        waiting.decrementAndGet();
+        running.incrementAndGet();
+        CompletableFuture<?> work;
+        try {
+            work = body.start(node.foreground);
+        } catch (Throwable t) {
+            finish(node, true);
+            return;
+        }
+        if (work == null || work.isDone()) {
+            finish(node, work != null && work.isCompletedExceptionally());
+            return;
+        }
+        work.whenComplete((ignored, throwable) -> finish(node, throwable != null));
+    }
+
+    private void finish(Node<K> node, boolean failure) {
+        running.decrementAndGet();
+        if (failure) {
+            failed.increment();
+        } else {
+            completed.increment();
+        }
+        nodes.remove(node.key, node);
+        node.done.complete(null);
+    }
+
+    private static final class Node<K> {
+        private final K key;
+        private final List<K> dependsOn;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicInteger remaining = new AtomicInteger(1);
+        private volatile boolean foreground;
+        private volatile boolean started;
+
+        private Node(K key, List<K> dependsOn, boolean foreground) {
+            this.key = key;
+            this.dependsOn = dependsOn;
+            this.foreground = foreground;
+        }
+    }
+}
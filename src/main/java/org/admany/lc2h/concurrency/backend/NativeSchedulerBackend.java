@@ -0,0 +1,199 @@
+package org.admany.lc2h.concurrency.backend;
+
+import org.admany.lc2h.concurrency.parallel.ParallelSliceResult;
+import org.admany.lc2h.concurrency.parallel.ParallelWorkOptions;
+import org.admany.lc2h.concurrency.threading.LaneStealingExecutor;
+import org.admany.quantified.core.common.util.QuantifiedPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Scheduler backend that needs nothing outside LC2H: tasks go to a lane-stealing pool, and parallel jobs run as
+// a few self-scheduling workers that claim slice indices from a shared counter until the job is drained.
+public final class NativeSchedulerBackend implements SchedulerBackend {
+
+    private static final int THREADS = Math.max(1, Integer.getInteger("lc2h.native.threads",
+        Math.max(2, Runtime.getRuntime().availableProcessors() - 1)));
+    private static final int BACKGROUND_EVERY = Math.max(2, Integer.getInteger("lc2h.native.background_every", 8));
+    private static final long QUEUE_LIMIT = Math.max(64L, Long.getLong("lc2h.native.queue_limit", 4096L));
+    private static final String CACHE_DIR_OVERRIDE = System.getProperty("lc2h.native.cache_dir");
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final LaneStealingExecutor executor;
+    private final NativeSliceCache cache;
+    private final AtomicLong activeSlices = new AtomicLong();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+
+    public NativeSchedulerBackend() {
+        this("LC2H-Native", cacheDir());
+    }
+
+    // For a short-lived pool (the scheduler benchmark's); the owner calls shutdown() when done with it.
+    NativeSchedulerBackend(String poolName, Path cacheDir) {
+        this.executor = new LaneStealingExecutor(poolName, THREADS, BACKGROUND_EVERY);
+        this.cache = new NativeSliceCache(cacheDir);
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    // Null, meaning no disk tier for persistent slice caches, when the cache directory cannot be resolved.
+    private static Path cacheDir() {
+        try {
+            if (CACHE_DIR_OVERRIDE != null && !CACHE_DIR_OVERRIDE.isBlank()) {
+                return Path.of(CACHE_DIR_OVERRIDE).toAbsolutePath();
+            }
+            QuantifiedPaths.ensureCacheLayout();
+            return QuantifiedPaths.getCacheDir().resolve("lc2h").resolve("native");
+        } catch (Throwable t) {
+            LOGGER.warn("Unable to resolve the native slice cache directory: {}", t.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "native";
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(String taskName, String batchKey, Supplier<T> task, boolean foreground) {
+        submitted.increment();
+        return CompletableFuture.supplyAsync(() -> {
+            dispatched.increment();
+            return task.get();
+        }, foreground ? executor.foreground() : executor.background());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(String taskName, String batchKey, Supplier<T> task, boolean foreground, long affinityKey) {
+        submitted.increment();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            dispatched.increment();
+            try {
+                future.complete(task.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, foreground, affinityKey);
+        return future;
+    }
+
+    @Override
+    public boolean supportsAffinity() {
+        return true;
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> parallel(String name,
+                                                   List<Supplier<T>> slices,
+                                                   int maxParallelism,
+                                                   ParallelWorkOptions<T> options,
+                                                   Consumer<ParallelSliceResult<T>> sliceListener) {
+        int count = slices.size();
+        if (count == 0) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        if (activeSlices.addAndGet(count) > QUEUE_LIMIT) {
+            activeSlices.addAndGet(-count);
+            throw new IllegalStateException("LC2H native parallel queue is full");
+        }
+        submitted.add(count);
+        int workers = Math.min(count, maxParallelism > 0 ? Math.min(maxParallelism, THREADS) : THREADS);
+        ParallelJob<T> job = new ParallelJob<>(slices, cache.bind(name, options), sliceListener);
+        for (int i = 0; i < workers; i++) {
+            executor.execute(job::drain, true);
+        }
+        return job.result;
+    }
+
+    @Override
+    public Load load() {
+        return new Load(Math.max(0L, activeSlices.get()), QUEUE_LIMIT, submitted.sum(), dispatched.sum());
+    }
+
+    public LaneStealingExecutor.Stats executorStats() {
+        return executor.stats();
+    }
+
+    public CacheStats cacheStats() {
+        return new CacheStats(cache.hits(), cache.diskHits(), cache.misses());
+    }
+
+    public record CacheStats(long memoryHits, long diskHits, long misses) {
+    }
+
+    private final class ParallelJob<T> {
+        private final List<Supplier<T>> slices;
+        private final NativeSliceCache.Binding<T> cache;
+        private final Consumer<ParallelSliceResult<T>> listener;
+        private final Object[] results;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<List<T>> result = new CompletableFuture<>();
+
+        private ParallelJob(List<Supplier<T>> slices, NativeSliceCache.Binding<T> cache, Consumer<ParallelSliceResult<T>> listener) {
+            this.slices = slices;
+            this.cache = cache;
+            this.listener = listener;
+            this.results = new Object[slices.size()];
+            this.remaining = new AtomicInteger(slices.size());
+        }
+
+        private void drain() {
+            int index;
+            while ((index = next.getAndIncrement()) < results.length) {
+                if (!result.isDone()) {
+                    try {
+                        T value = runSlice(index);
+                        results[index] = value;
+                        if (listener != null) {
+                            listener.accept(new ParallelSliceResult<>(index, value));
+                        }
+                    } catch (Throwable t) {
+                        result.completeExceptionally(t);
+                    }
+                }
+                dispatched.increment();
+                activeSlices.decrementAndGet();
+                if (remaining.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
+        }
+
+        private T runSlice(int index) {
+            if (cache == null) {
+                return slices.get(index).get();
+            }
+            String key = cache.key(index);
+            T cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            T value = slices.get(index).get();
+            cache.put(key, value);
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void finish() {
+            if (!result.isDone()) {
+                result.complete(Collections.unmodifiableList((List<T>) Arrays.asList(results)));
+            }
+        }
+    }
+}
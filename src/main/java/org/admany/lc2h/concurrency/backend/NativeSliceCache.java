@@ -0,0 +1,270 @@
+package org.admany.lc2h.concurrency.backend;
+
+import org.admany.lc2h.concurrency.parallel.ParallelWorkOptions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Slice caches for the native backend: a bounded in-memory tier per cache name, plus one file per key on disk
+// for persistent caches. Entries past their TTL are treated as misses and dropped on the next touch.
+final class NativeSliceCache {
+
+    private static final int PRUNE_EVERY = 256;
+
+    private final Path diskRoot;
+    private final ConcurrentHashMap<String, Region> regions = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    NativeSliceCache(Path diskRoot) {
+        this.diskRoot = diskRoot;
+    }
+
+    static Duration effectiveTtl(ParallelWorkOptions<?> options) {
+        Duration ttl = options.cacheTtl();
+        return ttl == null || ttl.isZero() || ttl.isNegative() ? Duration.ofMinutes(30) : ttl;
+    }
+
+    static long effectiveMaxEntries(ParallelWorkOptions<?> options) {
+        return options.cacheMaxEntries() <= 0 ? 1024L : options.cacheMaxEntries();
+    }
+
+    <T> Binding<T> bind(String jobName, ParallelWorkOptions<T> options) {
+        if (options == null || !options.cacheEnabled() || options.cacheKeyFunction() == null) {
+            return null;
+        }
+        String cacheName = options.cacheName() == null ? jobName : options.cacheName();
+        Region region = regions.computeIfAbsent(cacheName, name -> new Region(
+            effectiveMaxEntries(options),
+            effectiveTtl(options).toNanos(),
+            options.cachePersistent() && diskRoot != null ? diskRoot.resolve(sanitize(name)) : null));
+        return new Binding<>(this, region, options);
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long diskHits() {
+        return diskHits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    static final class Binding<T> {
+        private final NativeSliceCache owner;
+        private final Region region;
+        private final Function<Integer, String> keyFunction;
+        private final Function<T, byte[]> serializer;
+        private final Function<byte[], T> deserializer;
+        private final boolean copyOnWrite;
+        private final boolean compression;
+
+        private Binding(NativeSliceCache owner, Region region, ParallelWorkOptions<T> options) {
+            this.owner = owner;
+            this.region = region;
+            this.keyFunction = options.cacheKeyFunction();
+            this.serializer = options.cacheSerializer();
+            this.deserializer = options.cacheDeserializer();
+            this.copyOnWrite = options.cacheCopyOnWrite();
+            this.compression = options.cacheCompression();
+        }
+
+        String key(int index) {
+            try {
+                return keyFunction.apply(index);
+            } catch (Throwable t) {
+                return null;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(String key) {
+            if (key == null) {
+                return null;
+            }
+            long now = System.nanoTime();
+            Entry entry = region.memory.get(key);
+            if (entry != null) {
+                if (now - entry.expiresAtNanos < 0L) {
+                    T value = entry.value instanceof byte[] bytes && copyOnWrite ? decode(bytes) : (T) entry.value;
+                    if (value != null) {
+                        owner.hits.increment();
+                        return value;
+                    }
+                } else {
+                    region.memory.remove(key, entry);
+                }
+            }
+            if (region.disk != null && deserializer != null) {
+                byte[] bytes = region.readDisk(key, compression);
+                T value = bytes == null ? null : decode(bytes);
+                if (value != null) {
+                    owner.diskHits.increment();
+                    region.putMemory(key, copyOnWrite ? bytes : value, now);
+                    return value;
+                }
+            }
+            owner.misses.increment();
+            return null;
+        }
+
+        void put(String key, T value) {
+            if (key == null || value == null) {
+                return;
+            }
+            byte[] bytes = null;
+            if ((copyOnWrite || region.disk != null) && serializer != null) {
+                try {
+                    bytes = serializer.apply(value);
+                } catch (Throwable ignored) {
+                }
+            }
+            region.putMemory(key, copyOnWrite && bytes != null ? bytes : value, System.nanoTime());
+            if (region.disk != null && bytes != null) {
+                region.writeDisk(key, bytes, compression);
+            }
+        }
+
+        private T decode(byte[] bytes) {
+            try {
+                return deserializer == null ? null : deserializer.apply(bytes);
+            } catch (Throwable t) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Region {
+        private final long maxEntries;
+        private final long ttlNanos;
+        private final Path disk;
+        private final ConcurrentHashMap<String, Entry> memory = new ConcurrentHashMap<>();
+        private final AtomicInteger writes = new AtomicInteger();
+
+        private Region(long maxEntries, long ttlNanos, Path disk) {
+            this.maxEntries = Math.max(1L, maxEntries);
+            this.ttlNanos = Math.max(1L, ttlNanos);
+            this.disk = disk;
+        }
+
+        private void putMemory(String key, Object value, long now) {
+            memory.put(key, new Entry(value, now + ttlNanos));
+            if (memory.size() > maxEntries || writes.incrementAndGet() % PRUNE_EVERY == 0) {
+                prune(now);
+            }
+        }
+
+        private void prune(long now) {
+            long excess = memory.size() - maxEntries;
+            Iterator<Map.Entry<String, Entry>> it = memory.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> next = it.next();
+                if (now - next.getValue().expiresAtNanos >= 0L) {
+                    it.remove();
+                    excess--;
+                } else if (excess > 0L) {
+                    it.remove();
+                    excess--;
+                }
+            }
+        }
+
+        private byte[] readDisk(String key, boolean compression) {
+            Path file = disk.resolve(fileName(key));
+            try {
+                if (!Files.isRegularFile(file)) {
+                    return null;
+                }
+                long ageMs = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis();
+                if (ageMs > ttlNanos / 1_000_000L) {
+                    Files.deleteIfExists(file);
+                    return null;
+                }
+                byte[] stored = Files.readAllBytes(file);
+                return compression ? inflate(stored) : stored;
+            } catch (IOException | DataFormatException e) {
+                return null;
+            }
+        }
+
+        private void writeDisk(String key, byte[] bytes, boolean compression) {
+            try {
+                Files.createDirectories(disk);
+                Path file = disk.resolve(fileName(key));
+                Path tmp = disk.resolve(fileName(key) + ".tmp");
+                Files.write(tmp, compression ? deflate(bytes) : bytes);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | UnsupportedOperationException ignored) {
+            }
+        }
+    }
+
+    private record Entry(Object value, long expiresAtNanos) {
+    }
+
+    private static String fileName(String key) {
+        // FNV-1a over the key; the key itself may contain characters that are not valid in file names.
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return Long.toHexString(hash) + "-" + Integer.toHexString(key.length()) + ".bin";
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length * 2));
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.admany.lc2h.concurrency.backend;
+
+import org.admany.lc2h.concurrency.parallel.ParallelSliceResult;
+import org.admany.lc2h.concurrency.parallel.ParallelWorkOptions;
+import org.admany.quantified.api.QuantifiedAPI;
+import org.admany.quantified.api.model.QuantifiedTask;
+import org.admany.quantified.api.parallel.ParallelCompute;
+import org.admany.quantified.core.common.parallel.config.ParallelConfig;
+import org.admany.quantified.core.common.parallel.metrics.ParallelMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public final class QuantifiedSchedulerBackend implements SchedulerBackend {
+
+    private static final String MOD_ID = "lc2h";
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public String name() {
+        return "quantified";
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(String taskName, String batchKey, Supplier<T> task, boolean foreground) {
+        QuantifiedTask.Builder<T> builder = QuantifiedTask.builder(MOD_ID, taskName, task);
+        if (foreground) {
+            builder.priorityForeground();
+        } else {
+            builder.priorityBackground();
+        }
+        if (batchKey != null) {
+            builder.batchKey(batchKey);
+        }
+        return QuantifiedAPI.submit(builder);
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> parallel(String name,
+                                                   List<Supplier<T>> slices,
+                                                   int maxParallelism,
+                                                   ParallelWorkOptions<T> options,
+                                                   Consumer<ParallelSliceResult<T>> sliceListener) {
+        List<Integer> indices = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            indices.add(i);
+        }
+        ParallelCompute.Builder<Integer, T, List<T>> builder = ParallelCompute.<Integer, T>builder(MOD_ID, name, sequence.incrementAndGet())
+            .slices(() -> indices)
+            .sliceExecutor(index -> {
+                T value = slices.get(index).get();
+                if (sliceListener != null) {
+                    sliceListener.accept(new ParallelSliceResult<>(index, value));
+                }
+                return value;
+            })
+            .reducer(results -> {
+                List<T> ordered = new ArrayList<>(results.size());
+                ordered.addAll(results);
+                return Collections.unmodifiableList(ordered);
+            });
+        if (maxParallelism > 0) {
+            builder.maxParallelism(maxParallelism);
+        }
+
+        ParallelWorkOptions<T> effective = options == null ? ParallelWorkOptions.none() : options;
+        if (effective.cacheEnabled()) {
+            Duration ttl = NativeSliceCache.effectiveTtl(effective);
+            long maxEntries = NativeSliceCache.effectiveMaxEntries(effective);
+            Function<Integer, String> keyFunction = effective.cacheKeyFunction();
+            Function<Integer, String> cacheKeySupplier = index -> {
+                if (keyFunction == null || index == null) {
+                    return null;
+                }
+                return keyFunction.apply(index);
+            };
+            String cacheName = effective.cacheName() == null ? name : effective.cacheName();
+            if (effective.cachePersistent()) {
+                configurePersistentCache(builder, cacheName, cacheKeySupplier, effective.cacheSerializer(), effective.cacheDeserializer(),
+                    ttl, maxEntries, effective.cacheCompression(), effective.cacheCopyOnWrite());
+            } else {
+                configureMemoryCache(builder, cacheName, cacheKeySupplier, effective.cacheSerializer(), effective.cacheDeserializer(),
+                    ttl, maxEntries, effective.cacheCopyOnWrite());
+            }
+        }
+        return builder.submit();
+    }
+
+    @Override
+    public Load load() {
+        ParallelMetrics.Snapshot snapshot = ParallelMetrics.snapshot();
+        long activeSlices = snapshot.modActiveSlices().values().stream().mapToLong(Long::longValue).sum();
+        return new Load(activeSlices, ParallelConfig.queueLimit(), snapshot.submissions(), snapshot.dispatched());
+    }
+
+    private static <T> void configurePersistentCache(ParallelCompute.Builder<Integer, T, List<T>> builder,
+                                                     String cacheName,
+                                                     Function<Integer, String> keyFunction,
+                                                     Function<T, byte[]> serializer,
+                                                     Function<byte[], T> deserializer,
+                                                     Duration ttl,
+                                                     long maxEntries,
+                                                     boolean compression,
+                                                     boolean copyOnWrite) {
+        try {
+            builder.getClass()
+                .getMethod("persistentSliceCache", String.class, Function.class, Function.class, Function.class,
+                    Duration.class, long.class, boolean.class, boolean.class)
+                .invoke(builder, cacheName, keyFunction, serializer, deserializer, ttl, maxEntries, compression, copyOnWrite);
+            return;
+        } catch (ReflectiveOperationException ignored) {
+        }
+        builder.persistentSliceCache(cacheName, keyFunction, serializer, deserializer, ttl, maxEntries, compression);
+    }
+
+    private static <T> void configureMemoryCache(ParallelCompute.Builder<Integer, T, List<T>> builder,
+                                                 String cacheName,
+                                                 Function<Integer, String> keyFunction,
+                                                 Function<T, byte[]> serializer,
+                                                 Function<byte[], T> deserializer,
+                                                 Duration ttl,
+                                                 long maxEntries,
+                                                 boolean copyOnWrite) {
+        try {
+            builder.getClass()
+                .getMethod("memorySliceCache", String.class, Function.class, Function.class, Function.class,
+                    Duration.class, long.class, boolean.class)
+                .invoke(builder, cacheName, keyFunction, serializer, deserializer, ttl, maxEntries, copyOnWrite);
+            return;
+        } catch (ReflectiveOperationException ignored) {
+        }
+        builder.memorySliceCache(cacheName, keyFunction, serializer, deserializer, ttl, maxEntries);
+    }
+}
@@ -0,0 +1,39 @@
+package org.admany.lc2h.concurrency.backend;
+
+import org.admany.lc2h.concurrency.parallel.ParallelSliceResult;
+import org.admany.lc2h.concurrency.parallel.ParallelWorkOptions;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// What LC2H needs from a scheduler: keyed task submit, parallel slice compute with optional slice caches, and load.
+public interface SchedulerBackend {
+
+    String name();
+
+    <T> CompletableFuture<T> submit(String taskName, String batchKey, Supplier<T> task, boolean foreground);
+
+    // Backends that own their workers pin tasks sharing an affinity key to one worker; others just submit.
+    default <T> CompletableFuture<T> submit(String taskName, String batchKey, Supplier<T> task, boolean foreground, long affinityKey) {
+        return submit(taskName, batchKey, task, foreground);
+    }
+
+    default boolean supportsAffinity() {
+        return false;
+    }
+
+    // maxParallelism <= 0 leaves the fan-out to the backend. A full queue is reported as an IllegalStateException
+    // whose message contains "queue is full", either thrown or as the future's failure.
+    <T> CompletableFuture<List<T>> parallel(String name,
+                                            List<Supplier<T>> slices,
+                                            int maxParallelism,
+                                            ParallelWorkOptions<T> options,
+                                            Consumer<ParallelSliceResult<T>> sliceListener);
+
+    Load load();
+
+    record Load(long activeSlices, long queueLimit, long submitted, long dispatched) {
+    }
+}
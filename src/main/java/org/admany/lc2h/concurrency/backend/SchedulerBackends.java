@@ -0,0 +1,53 @@
+package org.admany.lc2h.concurrency.backend;
+
+import java.util.Locale;
+
+// Picks the scheduler backend once per JVM from lc2h.scheduler.backend ("quantified" or "native").
+public final class SchedulerBackends {
+
+    private static final String SELECTED = System.getProperty("lc2h.scheduler.backend", "quantified")
+        .trim().toLowerCase(Locale.ROOT);
+    private static final boolean NATIVE = "native".equals(SELECTED);
+
+    private static volatile QuantifiedSchedulerBackend quantified;
+    private static volatile NativeSchedulerBackend nativeBackend;
+
+    private SchedulerBackends() {
+    }
+
+    public static SchedulerBackend current() {
+        return NATIVE ? nativeBackend() : quantified();
+    }
+
+    public static boolean isNative() {
+        return NATIVE;
+    }
+
+    public static QuantifiedSchedulerBackend quantified() {
+        QuantifiedSchedulerBackend backend = quantified;
+        if (backend == null) {
+            synchronized (SchedulerBackends.class) {
+                backend = quantified;
+                if (backend == null) {
+                    backend = new QuantifiedSchedulerBackend();
+                    quantified = backend;
+                }
+            }
+        }
+        return backend;
+    }
+
+    public static NativeSchedulerBackend nativeBackend() {
+        NativeSchedulerBackend backend = nativeBackend;
+        if (backend == null) {
+            synchronized (SchedulerBackends.class) {
+                backend = nativeBackend;
+                if (backend == null) {
+                    backend = new NativeSchedulerBackend();
+                    nativeBackend = backend;
+                }
+            }
+        }
+        return backend;
+    }
+}
@@ -0,0 +1,89 @@
+package org.admany.lc2h.concurrency.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Side-by-side overhead of the backends on no-op work: submit cost, submit-to-result round trip and per-slice cost.
+public final class SchedulerBenchmark {
+
+    private static final long TIMEOUT_SECONDS = 30L;
+    private static final int PARALLEL_JOB_SLICES = 1024;
+
+    private SchedulerBenchmark() {
+    }
+
+    public static List<Result> runAll(int tasks) {
+        List<Result> results = new ArrayList<>(2);
+        results.add(run(SchedulerBackends.quantified(), tasks));
+        if (SchedulerBackends.isNative()) {
+            results.add(run(SchedulerBackends.nativeBackend(), tasks));
+            return results;
+        }
+        // A pool of its own for the run, so a server on Quantified is not left with an idle native pool afterwards.
+        NativeSchedulerBackend backend = new NativeSchedulerBackend("LC2H-Bench", null);
+        try {
+            results.add(run(backend, tasks));
+        } finally {
+            backend.shutdown();
+        }
+        return results;
+    }
+
+    public static Result run(SchedulerBackend backend, int tasks) {
+        int count = Math.max(1, tasks);
+        try {
+            // One short warm round so thread start-up and class loading are not billed to the first backend.
+            runTasks(backend, Math.min(count, 64));
+
+            long submitStart = System.nanoTime();
+            List<CompletableFuture<Integer>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int value = i;
+                futures.add(backend.submit("bench", "lc2h:bench", () -> value, false));
+            }
+            long submitNs = System.nanoTime() - submitStart;
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            long roundTripNs = System.nanoTime() - submitStart;
+
+            // Parallel jobs go in rounds so neither backend trips its queue limit.
+            int perJob = Math.min(count, PARALLEL_JOB_SLICES);
+            List<Supplier<Integer>> slices = new ArrayList<>(perJob);
+            for (int i = 0; i < perJob; i++) {
+                int value = i;
+                slices.add(() -> value);
+            }
+            int rounds = Math.max(1, count / perJob);
+            long parallelStart = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                backend.parallel("bench-parallel", slices, 0, null, null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            long parallelNs = (System.nanoTime() - parallelStart) / ((long) rounds * perJob) * count;
+
+            return new Result(backend.name(), count, submitNs / count, roundTripNs / count, parallelNs / count, null);
+        } catch (Throwable t) {
+            return new Result(backend.name(), count, -1L, -1L, -1L, t.toString());
+        }
+    }
+
+    private static void runTasks(SchedulerBackend backend, int count) throws Exception {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(backend.submit("bench-warm", "lc2h:bench", () -> 0, false));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public record Result(String backend, int tasks, long submitNsPerTask, long roundTripNsPerTask, long parallelNsPerSlice, String error) {
+        public String describe() {
+            if (error != null) {
+                return backend + " failed: " + error;
+            }
+            return String.format(Locale.ROOT, "%s submit=%dns roundtrip=%dns slice=%dns (n=%d)",
+                backend, submitNsPerTask, roundTripNsPerTask, parallelNsPerSlice, tasks);
+        }
+    }
+}
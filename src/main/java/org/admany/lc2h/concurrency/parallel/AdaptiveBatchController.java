@@ -1,9 +1,11 @@
 package org.admany.lc2h.concurrency.parallel;
 
-import org.admany.quantified.core.common.parallel.config.ParallelConfig;
-import org.admany.quantified.core.common.parallel.metrics.ParallelMetrics;
+import org.admany.lc2h.concurrency.backend.SchedulerBackend;
+import org.admany.lc2h.concurrency.backend.SchedulerBackends;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public final class AdaptiveBatchController {
     private static final int MULTI_MIN = 8;
@@ -15,19 +17,71 @@ public final class AdaptiveBatchController {
     private static volatile int cachedPlanner = 128;
     private static volatile long lastUpdateNanos = 0L;
 
+    private static final boolean TUNER_ENABLED = Boolean.parseBoolean(System.getProperty("lc2h.batch.tuner", "true"));
+    private static final long TUNER_EPOCH_NANOS = TimeUnit.MILLISECONDS.toNanos(
+        Math.max(100L, Long.getLong("lc2h.batch.tuner.epochMs", 1_000L)));
+    private static final int TUNER_EPOCH_BATCHES = Math.max(1, Integer.getInteger("lc2h.batch.tuner.epochBatches", 6));
+    private static final BatchSizeTuner MULTI_TUNER = new BatchSizeTuner(
+        "multichunk",
+        32,
+        Math.max(1, Integer.getInteger("lc2h.batch.multi.min", 4)),
+        Math.max(1, Integer.getInteger("lc2h.batch.multi.max", 256)),
+        TUNER_EPOCH_NANOS,
+        TUNER_EPOCH_BATCHES,
+        TimeUnit.MILLISECONDS.toNanos(Math.max(1L, Long.getLong("lc2h.batch.multi.p99CeilingMs", 1_000L)))
+    );
+    private static final BatchSizeTuner PLANNER_TUNER = new BatchSizeTuner(
+        "planner",
+        128,
+        Math.max(1, Integer.getInteger("lc2h.batch.planner.min", 16)),
+        Math.max(1, Integer.getInteger("lc2h.batch.planner.max", 1024)),
+        TUNER_EPOCH_NANOS,
+        TUNER_EPOCH_BATCHES,
+        TimeUnit.MILLISECONDS.toNanos(Math.max(1L, Long.getLong("lc2h.batch.planner.p99CeilingMs", 500L)))
+    );
+
     private AdaptiveBatchController() {
     }
 
     public static int multiChunkBatchSize() {
+        if (TUNER_ENABLED) {
+            return MULTI_TUNER.size();
+        }
         refresh();
         return cachedMulti;
     }
 
     public static int plannerFlushThreshold() {
+        if (TUNER_ENABLED) {
+            return PLANNER_TUNER.size();
+        }
         refresh();
         return cachedPlanner;
     }
 
+    public static void recordMultiChunkBatch(int batchSize, int items, long latencyNanos) {
+        if (TUNER_ENABLED) {
+            MULTI_TUNER.record(batchSize, items, latencyNanos);
+        }
+    }
+
+    public static void recordPlannerBatch(int flushThreshold, int items, long latencyNanos) {
+        if (TUNER_ENABLED) {
+            PLANNER_TUNER.record(flushThreshold, items, latencyNanos);
+        }
+    }
+
+    public static boolean isTunerEnabled() {
+        return TUNER_ENABLED;
+    }
+
+    public static List<OperatingPoint> operatingPoints() {
+        return List.of(MULTI_TUNER.operatingPoint(), PLANNER_TUNER.operatingPoint());
+    }
+
+    public record OperatingPoint(String name, int size, int direction, double itemsPerSec, double p99Ms, long epochs) {
+    }
+
     private static void refresh() {
         long now = System.nanoTime();
         if ((now - lastUpdateNanos) < Duration.ofMillis(250).toNanos()) {
@@ -36,11 +90,10 @@ public final class AdaptiveBatchController {
         lastUpdateNanos = now;
 
         try {
-            ParallelMetrics.Snapshot snapshot = ParallelMetrics.snapshot();
-            long activeSlices = snapshot.modActiveSlices().values().stream().mapToLong(Long::longValue).sum();
-            long totalSubmitted = Math.max(1L, snapshot.submissions());
-            double load = Math.min(1.0, activeSlices / (double) ParallelConfig.queueLimit());
-            double utilization = Math.min(1.0, snapshot.dispatched() / (double) totalSubmitted);
+            SchedulerBackend.Load backendLoad = SchedulerBackends.current().load();
+            long totalSubmitted = Math.max(1L, backendLoad.submitted());
+            double load = Math.min(1.0, backendLoad.activeSlices() / (double) Math.max(1L, backendLoad.queueLimit()));
+            double utilization = Math.min(1.0, backendLoad.dispatched() / (double) totalSubmitted);
 
             int desiredMulti = (int) Math.round(MULTI_MAX - (MULTI_MAX - MULTI_MIN) * load);
             if (utilization > 0.9) {
@@ -1,64 +1,134 @@
 package org.admany.lc2h.concurrency.parallel;
 
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class AdaptiveConcurrencyLimiter {
 
     public interface Token extends AutoCloseable {
+        // Marks the moment the holder's work actually starts running; the wait up to here is what self-tuning reads.
+        default void started() {
+        }
+
         @Override
         void close();
     }
 
+    private static final double SHORT_RTT_ALPHA = 0.2D;
+    private static final int BASELINE_WINDOW = 512;
+    private static final double RTT_TOLERANCE = 1.5D;
+    private static final double LIMIT_SMOOTHING = 0.2D;
+    // Added to both sides of the ratio so microsecond-level waits on an idle pool do not read as queueing.
+    private static final double WAIT_FLOOR_NS = TimeUnit.MICROSECONDS.toNanos(
+        Math.max(1L, Long.getLong("lc2h.limiter.queue_wait_floor_us", 1_000L)));
+    private static final boolean SELF_TUNING_ENABLED = Boolean.parseBoolean(System.getProperty("lc2h.limiter.self_tuning", "true"));
+
     private final int min;
     private final int max;
+    private final boolean selfTuning;
 
     private final AtomicInteger active = new AtomicInteger();
+    private final ConcurrentLinkedQueue<CompletableFuture<Token>> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger();
     private volatile int limit;
+    private volatile int ceiling;
+
+    // Gradient state and writes to limit/ceiling, guarded by this.
+    private double estimatedLimit;
+    private double shortRttNs;
+    private double baselineRttNs;
+    private double windowMinRttNs;
+    private int windowSamples;
 
     public AdaptiveConcurrencyLimiter(int initialLimit, int min, int max) {
+        this(initialLimit, min, max, false);
+    }
+
+    // In self-tuning mode the limit follows the ratio of the no-load queue wait to the recent queue wait, where the
+    // wait runs from handing out a token to the holder calling started(). Run time is left out, so slow tasks do not
+    // read as congestion: the limit grows by sqrt(limit) while waits hold steady and shrinks once work backs up.
+    public AdaptiveConcurrencyLimiter(int initialLimit, int min, int max, boolean selfTuning) {
         this.min = Math.max(1, min);
         this.max = Math.max(this.min, max);
+        this.selfTuning = selfTuning;
+        this.ceiling = this.max;
         int clamped = clamp(initialLimit);
         this.limit = clamped;
+        this.estimatedLimit = clamped;
+    }
+
+    public static boolean selfTuningEnabled() {
+        return SELF_TUNING_ENABLED;
     }
 
     public int getLimit() {
         return limit;
     }
 
+    public boolean isSelfTuning() {
+        return selfTuning;
+    }
+
     public void setLimit(int newLimit) {
-        limit = clamp(newLimit);
+        synchronized (this) {
+            int clamped = Math.min(ceiling, clamp(newLimit));
+            estimatedLimit = clamped;
+            limit = clamped;
+        }
+        drainWaiters();
     }
 
-    public Token enter() {
-        long backoffNanos = 500_000L;
-        while (true) {
-            if (tryAcquireInternal()) {
-                return newToken();
-            }
-            if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
-                try {
-                    ForkJoinPool.managedBlock(new LimiterBlocker(this));
-                } catch (InterruptedException interrupted) {
-                    Thread.currentThread().interrupt();
-                }
-            } else {
-                LockSupport.parkNanos(backoffNanos);
+    // Upper bound applied on top of the self-tuned limit, e.g. while the server tick is struggling.
+    public void setCeiling(int newCeiling) {
+        int clamped = clamp(newCeiling);
+        if (clamped == ceiling) {
+            return;
+        }
+        synchronized (this) {
+            ceiling = clamped;
+            if (estimatedLimit > clamped) {
+                estimatedLimit = clamped;
             }
-            if (backoffNanos < 5_000_000L) {
-                backoffNanos += 250_000L;
+            if (limit > clamped) {
+                limit = clamped;
             }
         }
+        drainWaiters();
+    }
+
+    public int getQueuedWaiters() {
+        return Math.max(0, waiting.get());
+    }
+
+    public Token enter() {
+        Token token = tryEnter();
+        if (token != null) {
+            return token;
+        }
+        // CompletableFuture.join compensates ForkJoin workers while blocked.
+        return enterAsync().join();
     }
 
     public Token tryEnter() {
         return tryAcquireInternal() ? newToken() : null;
     }
 
+    // Completes on the thread that releases the slot, so chain real work through an *Async stage.
+    public CompletableFuture<Token> enterAsync() {
+        if (tryAcquireInternal()) {
+            return CompletableFuture.completedFuture(newToken());
+        }
+        CompletableFuture<Token> waiter = new CompletableFuture<>();
+        waiting.incrementAndGet();
+        waiters.add(waiter);
+        drainWaiters();
+        return waiter;
+    }
+
     public int availableSlots() {
         int currentLimit = limit;
         int currentActive = active.get();
@@ -66,15 +136,24 @@ public final class AdaptiveConcurrencyLimiter {
     }
 
     private boolean tryAcquireInternal() {
-        int currentLimit = limit;
-        int currentActive = active.get();
-        if (currentActive >= currentLimit) {
-            return false;
+        while (true) {
+            int currentLimit = limit;
+            int currentActive = active.get();
+            if (currentActive >= currentLimit) {
+                return false;
+            }
+            if (active.compareAndSet(currentActive, currentActive + 1)) {
+                return true;
+            }
         }
-        return active.compareAndSet(currentActive, currentActive + 1);
     }
 
     private void exit() {
+        release();
+        drainWaiters();
+    }
+
+    private void release() {
         while (true) {
             int current = active.get();
             if (current <= 0) {
@@ -86,15 +165,87 @@ public final class AdaptiveConcurrencyLimiter {
         }
     }
 
+    private void drainWaiters() {
+        while (!waiters.isEmpty() && tryAcquireInternal()) {
+            CompletableFuture<Token> waiter = waiters.poll();
+            if (waiter == null) {
+                release();
+                continue;
+            }
+            waiting.decrementAndGet();
+            if (!waiter.complete(newToken())) {
+                release();
+            }
+        }
+    }
+
     private Token newToken() {
         AtomicBoolean closed = new AtomicBoolean(false);
-        return () -> {
-            if (closed.compareAndSet(false, true)) {
-                exit();
+        if (!selfTuning) {
+            return () -> {
+                if (closed.compareAndSet(false, true)) {
+                    exit();
+                }
+            };
+        }
+        long issuedNs = System.nanoTime();
+        int inflight = active.get();
+        AtomicLong startedNs = new AtomicLong();
+        return new Token() {
+            @Override
+            public void started() {
+                startedNs.compareAndSet(0L, System.nanoTime());
+            }
+
+            @Override
+            public void close() {
+                if (closed.compareAndSet(false, true)) {
+                    long started = startedNs.get();
+                    // A holder that never reported a start gives no sample.
+                    if (started != 0L) {
+                        onSample(Math.max(0L, started - issuedNs), inflight);
+                    }
+                    exit();
+                }
             }
         };
     }
 
+    private void onSample(long waitNs, int inflight) {
+        double rttNs = waitNs + WAIT_FLOOR_NS;
+        boolean grew;
+        synchronized (this) {
+            if (shortRttNs <= 0.0D) {
+                shortRttNs = rttNs;
+                baselineRttNs = rttNs;
+                windowMinRttNs = rttNs;
+            }
+            shortRttNs += (rttNs - shortRttNs) * SHORT_RTT_ALPHA;
+            windowMinRttNs = Math.min(windowMinRttNs, rttNs);
+            baselineRttNs = Math.min(baselineRttNs, rttNs);
+            // The baseline is a windowed minimum so it can follow the workload when waits shift for good.
+            if (++windowSamples >= BASELINE_WINDOW) {
+                baselineRttNs = windowMinRttNs;
+                windowMinRttNs = Double.MAX_VALUE;
+                windowSamples = 0;
+            }
+            // Tokens acquired while the limiter was mostly idle say nothing about where the limit should be.
+            if (inflight < estimatedLimit / 2.0D) {
+                return;
+            }
+            double gradient = Math.max(0.5D, Math.min(1.0D, RTT_TOLERANCE * baselineRttNs / shortRttNs));
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            double smoothed = estimatedLimit * (1.0D - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING;
+            estimatedLimit = Math.max(min, Math.min(ceiling, smoothed));
+            int next = (int) estimatedLimit;
+            grew = next > limit;
+            limit = next;
+        }
+        if (grew) {
+            drainWaiters();
+        }
+    }
+
     private int clamp(int value) {
         if (value < min) {
             return min;
@@ -104,29 +255,4 @@ public final class AdaptiveConcurrencyLimiter {
         }
         return value;
     }
-
-    private static final class LimiterBlocker implements ForkJoinPool.ManagedBlocker {
-        private final AdaptiveConcurrencyLimiter limiter;
-        private boolean acquired;
-
-        private LimiterBlocker(AdaptiveConcurrencyLimiter limiter) {
-            this.limiter = limiter;
-        }
-
-        @Override
-        public boolean block() {
-            if (!acquired) {
-                acquired = limiter.tryAcquireInternal();
-                if (!acquired) {
-                    LockSupport.parkNanos(500_000L);
-                }
-            }
-            return acquired;
-        }
-
-        @Override
-        public boolean isReleasable() {
-            return acquired || (acquired = limiter.tryAcquireInternal());
-        }
-    }
 }
@@ -0,0 +1,136 @@
+package org.admany.lc2h.concurrency.parallel;
+
+import org.admany.lc2h.dev.diagnostics.Lc2hLatencyHistogram;
+
+import java.util.function.LongSupplier;
+
+// Hill-climbs a batch size towards the best observed items/sec while batch p99 latency stays under a ceiling.
+// Each epoch measures one size; the next size keeps going the same way while throughput improves. A flat result holds
+// the size for one epoch and then probes on in the same direction. Throughput is service throughput, items over the time batches spent executing, so how fast work arrives
+// does not read as a property of the batch size.
+final class BatchSizeTuner {
+
+    private static final double STEP_FACTOR = 1.25D;
+    private static final double NOISE_BAND = 0.03D;
+
+    private final String name;
+    private final int min;
+    private final int max;
+    private final long epochNanos;
+    private final int epochMinBatches;
+    private final long p99CeilingNanos;
+    private final LongSupplier clock;
+
+    private volatile int size;
+    private volatile AdaptiveBatchController.OperatingPoint point;
+
+    // Epoch state, guarded by this.
+    private long epochStartNanos;
+    private long epochItems;
+    private long epochBusyNanos;
+    private int epochBatches;
+    private Lc2hLatencyHistogram epochLatency = new Lc2hLatencyHistogram();
+    private double lastThroughput;
+    private int direction = 1;
+    private boolean holding;
+    private long epochs;
+
+    BatchSizeTuner(String name, int initial, int min, int max, long epochNanos, int epochMinBatches, long p99CeilingNanos) {
+        this(name, initial, min, max, epochNanos, epochMinBatches, p99CeilingNanos, System::nanoTime);
+    }
+
+    BatchSizeTuner(String name, int initial, int min, int max, long epochNanos, int epochMinBatches, long p99CeilingNanos,
+                   LongSupplier clock) {
+        this.name = name;
+        this.min = Math.max(1, min);
+        this.max = Math.max(this.min, max);
+        this.epochNanos = Math.max(1L, epochNanos);
+        this.epochMinBatches = Math.max(1, epochMinBatches);
+        this.p99CeilingNanos = Math.max(1L, p99CeilingNanos);
+        this.size = clamp(initial);
+        this.clock = clock;
+        this.epochStartNanos = clock.getAsLong();
+        this.point = new AdaptiveBatchController.OperatingPoint(name, size, direction, 0.0D, 0.0D, 0L);
+    }
+
+    int size() {
+        return size;
+    }
+
+    AdaptiveBatchController.OperatingPoint operatingPoint() {
+        return point;
+    }
+
+    void record(int usedSize, int items, long latencyNanos) {
+        if (items <= 0) {
+            return;
+        }
+        synchronized (this) {
+            // Batches formed under an earlier size would blur the measurement of the current one.
+            if (usedSize != size) {
+                return;
+            }
+            long latency = Math.max(0L, latencyNanos);
+            epochItems += items;
+            epochBusyNanos += latency;
+            epochBatches++;
+            epochLatency.record(latency);
+            long now = clock.getAsLong();
+            if (epochBatches < epochMinBatches || now - epochStartNanos < epochNanos) {
+                return;
+            }
+            double throughput = epochItems * 1_000_000_000.0D / Math.max(1L, epochBusyNanos);
+            long p99 = epochLatency.snapshot().percentileNs(0.99D);
+            int next = decide(throughput, p99);
+            epochs++;
+            point = new AdaptiveBatchController.OperatingPoint(name, size, direction, throughput, p99 / 1_000_000.0D, epochs);
+            lastThroughput = throughput;
+            size = next;
+            epochStartNanos = now;
+            epochItems = 0L;
+            epochBusyNanos = 0L;
+            epochBatches = 0;
+            epochLatency = new Lc2hLatencyHistogram();
+        }
+    }
+
+    private int decide(double throughput, long p99Nanos) {
+        boolean held = holding;
+        holding = false;
+        if (p99Nanos > p99CeilingNanos) {
+            direction = -1;
+        } else if (lastThroughput > 0.0D) {
+            double gain = (throughput - lastThroughput) / lastThroughput;
+            if (gain < -NOISE_BAND) {
+                direction = -direction;
+            } else if (gain <= NOISE_BAND && !held) {
+                // Within noise of the last size: stay put rather than bounce between two neighbours.
+                holding = true;
+                return size;
+            }
+        }
+        int next = step(size, direction);
+        if (next == size) {
+            direction = -direction;
+            next = step(size, direction);
+        }
+        return next;
+    }
+
+    private int step(int current, int dir) {
+        int next = dir > 0
+            ? Math.max(current + 1, (int) Math.round(current * STEP_FACTOR))
+            : Math.min(current - 1, (int) Math.round(current / STEP_FACTOR));
+        return clamp(next);
+    }
+
+    private int clamp(int value) {
+        if (value < min) {
+            return min;
+        }
+        if (value > max) {
+            return max;
+        }
+        return value;
+    }
+}
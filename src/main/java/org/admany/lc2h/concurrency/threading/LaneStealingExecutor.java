@@ -0,0 +1,268 @@
+package org.admany.lc2h.concurrency.threading;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Fixed pool with per-worker foreground/background deques. Idle workers steal from peers, foreground first, and park
+// until a submit wakes them; each submit claims at most one parked worker, so no wakeup is spent twice.
+public final class LaneStealingExecutor {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Worker[] workers;
+    private final int backgroundEvery;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final Lane foreground = new Lane();
+    private final Lane background = new Lane();
+    private final Executor foregroundView = command -> execute(command, true);
+    private final Executor backgroundView = command -> execute(command, false);
+    private final LongAdder affinityHome = new LongAdder();
+    private final LongAdder affinityStolen = new LongAdder();
+    private volatile boolean shutdown;
+
+    public LaneStealingExecutor(String namePrefix, int threads, int backgroundEvery) {
+        int count = Math.max(1, threads);
+        this.backgroundEvery = Math.max(2, backgroundEvery);
+        this.workers = new Worker[count];
+        for (int i = 0; i < count; i++) {
+            workers[i] = new Worker(this, namePrefix + "-" + (i + 1));
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    public Executor foreground() {
+        return foregroundView;
+    }
+
+    public Executor background() {
+        return backgroundView;
+    }
+
+    public void execute(Runnable command, boolean foregroundLane) {
+        if (command == null) {
+            return;
+        }
+        Worker target;
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker worker && worker.owner == this) {
+            target = worker;
+        } else {
+            target = workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+        }
+        enqueue(target, command, foregroundLane);
+    }
+
+    // Tasks with the same key always land on the same home worker, so whatever that worker cached for the key is
+    // still warm. Another worker only runs the task if it steals it while it has nothing else to do.
+    public void execute(Runnable command, boolean foregroundLane, long affinityKey) {
+        if (command == null) {
+            return;
+        }
+        enqueue(workers[homeOf(affinityKey)], new AffinityTask(command), foregroundLane);
+    }
+
+    // Workers finish what is queued and then exit instead of parking; nothing submitted afterwards is run.
+    public void shutdown() {
+        shutdown = true;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    public int homeOf(long affinityKey) {
+        return jumpHash(mix(affinityKey), workers.length);
+    }
+
+    private void enqueue(Worker target, Runnable command, boolean foregroundLane) {
+        Lane lane = foregroundLane ? foreground : background;
+        (foregroundLane ? target.foreground : target.background).addLast(command);
+        lane.pending.incrementAndGet();
+        lane.submitted.increment();
+        signal(target);
+    }
+
+    // Jump consistent hash (Lamping and Veach): keys spread evenly over the workers, and changing the worker count
+    // only moves the keys that have to move.
+    private static int jumpHash(long key, int buckets) {
+        long b = -1L;
+        long j = 0L;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1L;
+            j = (long) ((b + 1L) * ((double) (1L << 31) / (double) ((key >>> 33) + 1L)));
+        }
+        return (int) b;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    private void signal(Worker target) {
+        if (target.parked.compareAndSet(true, false)) {
+            LockSupport.unpark(target);
+            return;
+        }
+        for (Worker worker : workers) {
+            if (worker.parked.compareAndSet(true, false)) {
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    private Runnable next(Worker self) {
+        boolean backgroundFirst = ++self.picks % backgroundEvery == 0;
+        Runnable task;
+        if (backgroundFirst) {
+            task = take(self, false);
+            if (task != null) {
+                return task;
+            }
+        }
+        task = take(self, true);
+        if (task != null || backgroundFirst) {
+            return task;
+        }
+        return take(self, false);
+    }
+
+    private Runnable take(Worker self, boolean foregroundLane) {
+        Lane lane = foregroundLane ? foreground : background;
+        if (lane.pending.get() <= 0) {
+            return null;
+        }
+        Runnable task = (foregroundLane ? self.foreground : self.background).pollFirst();
+        if (task != null) {
+            lane.pending.decrementAndGet();
+            if (task instanceof AffinityTask) {
+                affinityHome.increment();
+            }
+            return task;
+        }
+        int n = workers.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            Worker victim = workers[(start + i) % n];
+            if (victim == self) {
+                continue;
+            }
+            ConcurrentLinkedDeque<Runnable> deque = foregroundLane ? victim.foreground : victim.background;
+            // Pinned work is only worth moving when its home worker is tied up; an idle home picks it up itself.
+            if (!victim.busy && deque.peekLast() instanceof AffinityTask) {
+                continue;
+            }
+            task = deque.pollLast();
+            if (task != null) {
+                lane.pending.decrementAndGet();
+                lane.steals.increment();
+                if (task instanceof AffinityTask) {
+                    affinityStolen.increment();
+                }
+                return task;
+            }
+        }
+        return null;
+    }
+
+    public Stats stats() {
+        return new Stats(
+            workers.length,
+            Math.max(0, foreground.pending.get()),
+            Math.max(0, background.pending.get()),
+            foreground.submitted.sum(),
+            background.submitted.sum(),
+            foreground.steals.sum(),
+            background.steals.sum(),
+            affinityHome.sum(),
+            affinityStolen.sum()
+        );
+    }
+
+    public record Stats(int workers,
+                        int foregroundPending,
+                        int backgroundPending,
+                        long foregroundSubmitted,
+                        long backgroundSubmitted,
+                        long foregroundSteals,
+                        long backgroundSteals,
+                        long affinityHomeRuns,
+                        long affinityStolenRuns) {
+        public double affinityHitRate() {
+            long total = affinityHomeRuns + affinityStolenRuns;
+            return total == 0L ? 0.0D : affinityHomeRuns / (double) total;
+        }
+    }
+
+    private record AffinityTask(Runnable command) implements Runnable {
+        @Override
+        public void run() {
+            command.run();
+        }
+    }
+
+    private static final class Lane {
+        private final AtomicInteger pending = new AtomicInteger();
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder steals = new LongAdder();
+    }
+
+    private static final class Worker extends Thread {
+        private final LaneStealingExecutor owner;
+        private final ConcurrentLinkedDeque<Runnable> foreground = new ConcurrentLinkedDeque<>();
+        private final ConcurrentLinkedDeque<Runnable> background = new ConcurrentLinkedDeque<>();
+        private final AtomicBoolean parked = new AtomicBoolean();
+        private volatile boolean busy;
+        private int picks;
+
+        private Worker(LaneStealingExecutor owner, String name) {
+            super(name);
+            this.owner = owner;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task = owner.next(this);
+                if (task == null) {
+                    // Advertise first, then look again: a submit that missed the flag is seen by the second look.
+                    parked.set(true);
+                    task = owner.next(this);
+                    if (task == null) {
+                        if (owner.shutdown) {
+                            return;
+                        }
+                        LockSupport.park(owner);
+                        parked.set(false);
+                        continue;
+                    }
+                    parked.set(false);
+                }
+                busy = true;
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    LOGGER.error("[LC2H] Task failed on {}: {}", getName(), t.toString());
+                    LOGGER.debug("[LC2H] Executor task error", t);
+                } finally {
+                    busy = false;
+                }
+            }
+        }
+    }
+}
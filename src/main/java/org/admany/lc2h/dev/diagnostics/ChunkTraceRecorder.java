@@ -0,0 +1,265 @@
+package org.admany.lc2h.dev.diagnostics;
+
+import mcjty.lostcities.varia.ChunkCoord;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Per-chunk spans for following one chunk across planner threads, the main-thread queue and the applier. A sampled
+// chunk gets a trace id derived from its coordinate; the id rides along in a thread-local and is carried across
+// AsyncManager submits. Spans land in a fixed ring and are written out as Chrome trace-event JSON for Perfetto.
+public final class ChunkTraceRecorder {
+
+    private static final int SAMPLE_EVERY = Math.max(1, Integer.getInteger("lc2h.trace.sample", 8));
+    private static final int CAPACITY = Integer.highestOneBit(Math.max(1024, Integer.getInteger("lc2h.trace.buffer", 1 << 16)));
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_LABELS = Math.max(64, CAPACITY / 8);
+    private static final long BASE_NANOS = System.nanoTime();
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final byte KIND_RUN = 0;
+    private static final byte KIND_WAIT = 1;
+
+    private static final long[] TRACE_IDS = new long[CAPACITY];
+    private static final String[] NAMES = new String[CAPACITY];
+    private static final long[] STARTS = new long[CAPACITY];
+    private static final long[] ENDS = new long[CAPACITY];
+    private static final long[] THREADS = new long[CAPACITY];
+    private static final byte[] KINDS = new byte[CAPACITY];
+    private static final AtomicLongArray PUBLISHED = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong CURSOR = new AtomicLong();
+    private static final ConcurrentHashMap<Long, String> LABELS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Long, String> THREAD_NAMES = new ConcurrentHashMap<>();
+    private static final ThreadLocal<long[]> CURRENT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static volatile boolean enabled = Boolean.getBoolean("lc2h.trace.enabled");
+
+    private ChunkTraceRecorder() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void start() {
+        reset();
+        enabled = true;
+    }
+
+    public static void stop() {
+        enabled = false;
+    }
+
+    public static void reset() {
+        CURSOR.set(0L);
+        for (int i = 0; i < CAPACITY; i++) {
+            PUBLISHED.set(i, 0L);
+        }
+        LABELS.clear();
+    }
+
+    // 0 means "not traced": tracing is off or the chunk is outside the sample.
+    public static long idFor(ChunkCoord coord) {
+        if (!enabled || coord == null) {
+            return 0L;
+        }
+        long h = mix(((long) coord.chunkX() << 32) ^ (coord.chunkZ() & 0xffffffffL)
+            ^ ((long) (coord.dimension() == null ? 0 : coord.dimension().hashCode()) * 0x9E3779B97F4A7C15L));
+        if (Long.remainderUnsigned(h, SAMPLE_EVERY) != 0L) {
+            return 0L;
+        }
+        long id = h == 0L ? 1L : h;
+        if (LABELS.size() < MAX_LABELS) {
+            LABELS.putIfAbsent(id, coord.chunkX() + "," + coord.chunkZ());
+        }
+        return id;
+    }
+
+    public static long current() {
+        return enabled ? CURRENT.get()[0] : 0L;
+    }
+
+    // Makes id the current trace on this thread and returns the previous one, to be handed back to exit().
+    public static long enter(long id) {
+        long[] slot = CURRENT.get();
+        long previous = slot[0];
+        slot[0] = id;
+        return previous;
+    }
+
+    public static void exit(long previous) {
+        CURRENT.get()[0] = previous;
+    }
+
+    public static void span(long id, String name, long startNanos) {
+        record(id, name, startNanos, System.nanoTime(), KIND_RUN);
+    }
+
+    // Time spent queued rather than running; it is shown on the chunk's track but not on any thread.
+    public static void waited(long id, String name, long queuedNanos, long startNanos) {
+        record(id, name, queuedNanos, startNanos, KIND_WAIT);
+    }
+
+    private static void record(long id, String name, long startNanos, long endNanos, byte kind) {
+        if (id == 0L || !enabled || name == null) {
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        long tid = thread.getId();
+        if (kind == KIND_RUN && !THREAD_NAMES.containsKey(tid)) {
+            THREAD_NAMES.put(tid, thread.getName());
+        }
+        long seq = CURSOR.getAndIncrement();
+        int i = (int) (seq & MASK);
+        PUBLISHED.set(i, 0L);
+        TRACE_IDS[i] = id;
+        NAMES[i] = name;
+        STARTS[i] = startNanos;
+        ENDS[i] = Math.max(startNanos, endNanos);
+        THREADS[i] = tid;
+        KINDS[i] = kind;
+        PUBLISHED.set(i, seq + 1L);
+    }
+
+    public static int sampleEvery() {
+        return SAMPLE_EVERY;
+    }
+
+    public static long recordedSpans() {
+        return Math.min(CURSOR.get(), CAPACITY);
+    }
+
+    public static int tracedChunks() {
+        return LABELS.size();
+    }
+
+    public static Path export(Path dir) throws IOException {
+        List<Span> spans = snapshot();
+        Files.createDirectories(dir);
+        Path out = dir.resolve("lc2h-trace-" + FILE_TIME.format(LocalDateTime.now()) + ".json");
+        try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            writeTrace(writer, spans);
+        }
+        return out;
+    }
+
+    private static List<Span> snapshot() {
+        long end = CURSOR.get();
+        long begin = Math.max(0L, end - CAPACITY);
+        List<Span> spans = new ArrayList<>((int) (end - begin));
+        for (long seq = begin; seq < end; seq++) {
+            int i = (int) (seq & MASK);
+            if (PUBLISHED.get(i) != seq + 1L) {
+                continue;
+            }
+            Span span = new Span(TRACE_IDS[i], NAMES[i], STARTS[i], ENDS[i], THREADS[i], KINDS[i]);
+            if (PUBLISHED.get(i) == seq + 1L) {
+                spans.add(span);
+            }
+        }
+        spans.sort(Comparator.comparingLong(Span::start));
+        return spans;
+    }
+
+    // pid 1 holds the real threads; pid 2 holds one track per chunk. A chunk's spans overlap across threads, so each
+    // chunk track is split into lanes where every span starts after the previous one on that lane has ended.
+    private static void writeTrace(BufferedWriter w, List<Span> spans) throws IOException {
+        w.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        w.write("{\"ph\":\"M\",\"pid\":1,\"name\":\"process_name\",\"args\":{\"name\":\"LC2H threads\"}}");
+        w.write(",\n{\"ph\":\"M\",\"pid\":2,\"name\":\"process_name\",\"args\":{\"name\":\"LC2H chunks\"}}");
+
+        Map<Long, String> threadNames = new HashMap<>();
+        for (Span span : spans) {
+            if (span.kind == KIND_RUN) {
+                threadNames.putIfAbsent(span.thread, THREAD_NAMES.getOrDefault(span.thread, "thread-" + span.thread));
+            }
+        }
+        for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+            w.write(",\n{\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getKey() + ",\"name\":\"thread_name\",\"args\":{\"name\":\""
+                + escape(thread.getValue()) + "\"}}");
+        }
+
+        Map<Long, Integer> chunkIndex = new LinkedHashMap<>();
+        Map<Long, List<Long>> laneEnds = new HashMap<>();
+        for (Span span : spans) {
+            String chunk = escape(LABELS.getOrDefault(span.traceId, Long.toHexString(span.traceId)));
+            if (span.kind == KIND_RUN) {
+                w.write(",\n");
+                writeComplete(w, 1, span.thread, span, chunk);
+            }
+            int index = chunkIndex.computeIfAbsent(span.traceId, unused -> chunkIndex.size());
+            List<Long> lanes = laneEnds.computeIfAbsent(span.traceId, unused -> new ArrayList<>());
+            int lane = 0;
+            while (lane < lanes.size() && lanes.get(lane) > span.start) {
+                lane++;
+            }
+            if (lane == lanes.size()) {
+                lanes.add(span.end);
+                long tid = (long) index * 64L + Math.min(lane, 63);
+                w.write(",\n{\"ph\":\"M\",\"pid\":2,\"tid\":" + tid + ",\"name\":\"thread_name\",\"args\":{\"name\":\"chunk "
+                    + chunk + (lane == 0 ? "" : " #" + (lane + 1)) + "\"}}");
+                w.write(",\n{\"ph\":\"M\",\"pid\":2,\"tid\":" + tid + ",\"name\":\"thread_sort_index\",\"args\":{\"sort_index\":" + tid + "}}");
+            } else {
+                lanes.set(lane, span.end);
+            }
+            w.write(",\n");
+            writeComplete(w, 2, (long) index * 64L + Math.min(lane, 63), span, chunk);
+        }
+        w.write("\n]}\n");
+    }
+
+    private static void writeComplete(BufferedWriter w, int pid, long tid, Span span, String chunk) throws IOException {
+        w.write(String.format(Locale.ROOT,
+            "{\"ph\":\"X\",\"cat\":\"%s\",\"name\":\"%s\",\"pid\":%d,\"tid\":%d,\"ts\":%.3f,\"dur\":%.3f,\"args\":{\"chunk\":\"%s\"}}",
+            span.kind == KIND_WAIT ? "wait" : "run",
+            escape(span.name),
+            pid,
+            tid,
+            (span.start - BASE_NANOS) / 1_000.0D,
+            (span.end - span.start) / 1_000.0D,
+            chunk));
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                if (sb == null) {
+                    sb = new StringBuilder(value.length() + 8).append(value, 0, i);
+                }
+                sb.append(c == '"' ? "\\\"" : c == '\\' ? "\\\\" : String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? value : sb.toString();
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private record Span(long traceId, String name, long start, long end, long thread, byte kind) {
+    }
+}
@@ -0,0 +1,123 @@
+package org.admany.lc2h.dev.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram: 8 linear sub-buckets per power of two, so every bucket is within ~12.5% of its value.
+public final class Lc2hLatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_MSB = 40;
+    private static final long MAX_TRACKABLE_NS = (1L << (MAX_MSB + 1)) - 1L;
+    static final int BUCKET_COUNT = (MAX_MSB - SUB_BITS + 2) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong maxNs = new AtomicLong();
+
+    public void record(long valueNs) {
+        if (valueNs < 0L) {
+            return;
+        }
+        counts.incrementAndGet(indexFor(valueNs));
+        while (true) {
+            long current = maxNs.get();
+            if (valueNs <= current) {
+                return;
+            }
+            if (maxNs.compareAndSet(current, valueNs)) {
+                return;
+            }
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = counts.get(i);
+            copy[i] = c;
+            total += c;
+        }
+        return new Snapshot(copy, total, maxNs.get());
+    }
+
+    static int indexFor(long valueNs) {
+        long value = Math.min(valueNs, MAX_TRACKABLE_NS);
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BITS;
+        int sub = (int) ((value >>> shift) & (SUB_COUNT - 1));
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    static long upperBoundFor(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        int sub = index % SUB_COUNT;
+        long lower = ((long) (SUB_COUNT + sub)) << shift;
+        return lower + (1L << shift) - 1L;
+    }
+
+    public static final class Snapshot {
+        public static final Snapshot EMPTY = new Snapshot(new long[BUCKET_COUNT], 0L, 0L);
+
+        private final long[] counts;
+        private final long count;
+        private final long maxNs;
+
+        private Snapshot(long[] counts, long count, long maxNs) {
+            this.counts = counts;
+            this.count = count;
+            this.maxNs = maxNs;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long maxNs() {
+            return maxNs;
+        }
+
+        public long percentileNs(double quantile) {
+            if (count <= 0L) {
+                return 0L;
+            }
+            double q = Math.max(0.0D, Math.min(1.0D, quantile));
+            long rank = Math.max(1L, (long) Math.ceil(q * count));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundFor(i), maxNs);
+                }
+            }
+            return maxNs;
+        }
+
+        // The exact max is only kept for the histogram's lifetime, so an interval's max is the upper bound of its
+        // highest non-empty bucket (still capped by the lifetime max).
+        public Snapshot delta(Snapshot start) {
+            if (start == null || start.count <= 0L) {
+                return this;
+            }
+            long[] diff = new long[counts.length];
+            long total = 0L;
+            int top = -1;
+            for (int i = 0; i < counts.length; i++) {
+                long d = Math.max(0L, counts[i] - start.counts[i]);
+                diff[i] = d;
+                total += d;
+                if (d > 0L) {
+                    top = i;
+                }
+            }
+            return new Snapshot(diff, total, top < 0 ? 0L : Math.min(upperBoundFor(top), maxNs));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.admany.lc2h.dev.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class Lc2hTaskLatencyRegistry {
+
+    private static final int MAX_TASKS = Math.max(16, Integer.getInteger("lc2h.latency.max_tasks", 256));
+    private static final String OVERFLOW_TASK = "other";
+
+    private static final ConcurrentHashMap<String, TaskLatency> TASKS = new ConcurrentHashMap<>();
+
+    private Lc2hTaskLatencyRegistry() {
+    }
+
+    public static void record(String task, long queueNs, long runNs) {
+        if (task == null || task.isBlank()) {
+            return;
+        }
+        TaskLatency latency = TASKS.get(task);
+        if (latency == null) {
+            String key = TASKS.size() >= MAX_TASKS ? OVERFLOW_TASK : task;
+            latency = TASKS.computeIfAbsent(key, unused -> new TaskLatency());
+        }
+        latency.queue.record(Math.max(0L, queueNs));
+        latency.run.record(Math.max(0L, runNs));
+    }
+
+    public static Map<String, TaskLatencySnapshot> snapshot() {
+        Map<String, TaskLatencySnapshot> out = new LinkedHashMap<>();
+        TASKS.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> out.put(entry.getKey(),
+                new TaskLatencySnapshot(entry.getValue().queue.snapshot(), entry.getValue().run.snapshot())));
+        return out;
+    }
+
+    public static List<TaskLatencySummary> summarize(Map<String, TaskLatencySnapshot> end,
+                                                     Map<String, TaskLatencySnapshot> start,
+                                                     int limit) {
+        if (end == null || end.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<TaskLatencySummary> out = new ArrayList<>(end.size());
+        for (Map.Entry<String, TaskLatencySnapshot> entry : end.entrySet()) {
+            TaskLatencySnapshot delta = entry.getValue().delta(start == null ? null : start.get(entry.getKey()));
+            if (delta.count() <= 0L) {
+                continue;
+            }
+            out.add(delta.summary(entry.getKey()));
+        }
+        out.sort(Comparator.comparingLong(TaskLatencySummary::queueP99Ns)
+            .thenComparingLong(TaskLatencySummary::runP99Ns)
+            .reversed());
+        return out.size() <= limit ? out : List.copyOf(out.subList(0, limit));
+    }
+
+    public record TaskLatencySnapshot(Lc2hLatencyHistogram.Snapshot queue, Lc2hLatencyHistogram.Snapshot run) {
+        public long count() {
+            return run.count();
+        }
+
+        public TaskLatencySnapshot delta(TaskLatencySnapshot start) {
+            if (start == null) {
+                return this;
+            }
+            return new TaskLatencySnapshot(queue.delta(start.queue), run.delta(start.run));
+        }
+
+        public TaskLatencySummary summary(String task) {
+            return new TaskLatencySummary(
+                task,
+                run.count(),
+                queue.percentileNs(0.50D),
+                queue.percentileNs(0.99D),
+                queue.percentileNs(0.999D),
+                queue.maxNs(),
+                run.percentileNs(0.50D),
+                run.percentileNs(0.99D),
+                run.percentileNs(0.999D),
+                run.maxNs()
+            );
+        }
+    }
+
+    public record TaskLatencySummary(
+        String task,
+        long count,
+        long queueP50Ns,
+        long queueP99Ns,
+        long queueP999Ns,
+        long queueMaxNs,
+        long runP50Ns,
+        long runP99Ns,
+        long runP999Ns,
+        long runMaxNs
+    ) {
+    }
+
+    private static final class TaskLatency {
+        private final Lc2hLatencyHistogram queue = new Lc2hLatencyHistogram();
+        private final Lc2hLatencyHistogram run = new Lc2hLatencyHistogram();
+    }
+}
@@ -4,6 +4,7 @@ import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import mcjty.lostcities.worldgen.lost.BuildingInfo;
 import mcjty.lostcities.worldgen.lost.MultiChunk;
+import org.admany.lc2h.concurrency.async.SingleFlight;
 import org.admany.lc2h.dev.diagnostics.Lc2hTimingRegistry;
 import org.admany.lc2h.mixin.accessor.lostcities.MultiChunkAccessor;
 
@@ -17,7 +18,11 @@ import java.util.function.Supplier;
 
 public final class TweaksActorSystem {
 
-    private static final ConcurrentHashMap<ComputationRequestKey, CompletableFuture<ComputationResult>> IN_FLIGHT = new ConcurrentHashMap<>();
+    // Validated results are kept below, so only requests in flight and rejected ones (during their backoff) are held here.
+    private static final SingleFlight<ComputationRequestKey, ComputationResult> IN_FLIGHT = new SingleFlight<>("tweaks",
+        Math.max(256, Integer.getInteger("lc2h.tweaks.inFlightMax", 4096)), 0L,
+        Math.max(0L, Long.getLong("lc2h.tweaks.failureBackoffMs", 100L)),
+        Math.max(100L, Long.getLong("lc2h.tweaks.failureBackoffMaxMs", 5_000L)));
     private static final ConcurrentHashMap<ComputationRequestKey, ComputationResult> VALIDATED_RESULTS = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<ComputationRequestKey, Long> VALIDATED_TS = new ConcurrentHashMap<>();
     private static final long VALIDATED_TTL_MS = Math.max(0L, Long.getLong("lc2h.tweaks.validatedTtlMs", TimeUnit.MINUTES.toMillis(10)));
@@ -31,7 +36,7 @@ public final class TweaksActorSystem {
  
     public static CompletableFuture<ComputationResult> submit(ComputationRequest request, Supplier<Object> supplier) {
         ComputationRequestKey key = request.key();
-        return IN_FLIGHT.computeIfAbsent(key, unused -> {
+        return IN_FLIGHT.run(key, unused -> {
             CompletableFuture<ComputationResult> future = org.admany.lc2h.concurrency.async.AsyncManager.submitSupplier("actor", () -> execute(request, supplier), org.admany.lc2h.concurrency.async.Priority.LOW)
                     .thenApply(result -> {
                         if (!isResultLegit(result)) {
@@ -47,7 +52,6 @@ public final class TweaksActorSystem {
                     VALIDATED_RESULTS.remove(key);
                     VALIDATED_TS.remove(key);
                 }
-                IN_FLIGHT.remove(key, future);
             });
 
             return future;
@@ -155,7 +159,7 @@ public final class TweaksActorSystem {
     }
 
     public static int getInFlightCount() {
-        return IN_FLIGHT.size();
+        return IN_FLIGHT.inFlightCount();
     }
 
     public static int getValidatedCount() {
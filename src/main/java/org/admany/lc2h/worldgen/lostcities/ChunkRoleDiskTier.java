@@ -0,0 +1,312 @@
+package org.admany.lc2h.worldgen.lostcities;
+
+import mcjty.lostcities.config.LostCityProfile;
+import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.worldgen.IDimensionInfo;
+import org.admany.lc2h.worldgen.async.snapshot.WorldgenFingerprint;
+import org.admany.quantified.core.common.util.QuantifiedPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// On-disk tier for the per-chunk facts ChunkRoleProbe hands out, so they outlive the in-memory TTL and restarts.
+// One fixed-size file per 32x32 chunk region and scope (dimension, seed, profile name and settings, world style, and
+// the WorldgenFingerprint of the city assets and mod versions), laid out as columns (a flag byte per chunk, then a
+// short city level per chunk) and memory-mapped, so reads and writes are plain buffer accesses and the OS writes
+// pages back. Which region files exist is listed once per scope, so a miss on a region that was never written costs
+// no file system call. Only primitives are kept: the
+// characteristics object itself holds registry assets and goes through Lost Cities' event, so it is never rebuilt
+// from disk. The facts follow from the scope alone, so the in-memory invalidations on multichunk integration do not
+// reach this tier; an update, datapack or profile change moves to a new scope instead.
+public final class ChunkRoleDiskTier {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("lc2h.chunkRoleDisk.enabled", "true"));
+    private static final String ROOT_OVERRIDE = System.getProperty("lc2h.chunkRoleDisk.dir");
+    private static final String FOLDER = "chunkRoles";
+    private static final int MAX_REGIONS = Math.max(8, Integer.getInteger("lc2h.chunkRoleDisk.maxRegions", 256));
+    private static final int REGION_SHIFT = 5;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int CELLS = 1 << (REGION_SHIFT * 2);
+    private static final int MAGIC = 0x4C43524C;
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int FLAGS_OFFSET = HEADER_BYTES;
+    private static final int LEVELS_OFFSET = FLAGS_OFFSET + CELLS;
+    private static final int FILE_BYTES = LEVELS_OFFSET + CELLS * 2;
+
+    private static final int PRESENT = 1;
+    private static final int CITY = 1 << 1;
+    private static final int COULD_HAVE_BUILDING = 1 << 2;
+    private static final int HIGHWAY = 1 << 3;
+    private static final int RAILWAY = 1 << 4;
+    private static final int BUILDING_TYPE_KNOWN = 1 << 5;
+    private static final int ROUTE_KNOWN = 1 << 6;
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final ConcurrentHashMap<RegionKey, Region> REGIONS = new ConcurrentHashMap<>();
+    private static final Map<IDimensionInfo, Long> SCOPES = Collections.synchronizedMap(new WeakHashMap<>());
+    // Region files on disk per scope, packed as regionX << 32 | regionZ.
+    private static final ConcurrentHashMap<Long, Set<Long>> FILES = new ConcurrentHashMap<>();
+    private static final Set<RegionKey> FAILED_REGIONS = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean FAILURE_LOGGED = new AtomicBoolean(false);
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder WRITES = new LongAdder();
+    private static volatile Path rootDirectory;
+    private static volatile boolean rootFailed;
+
+    private ChunkRoleDiskTier() {
+    }
+
+    public record Facts(boolean isCity, boolean couldHaveBuilding, int cityLevel, boolean hasHighway,
+                        boolean hasRailway, boolean buildingTypeKnown, boolean routeKnown) {
+    }
+
+    private record RegionKey(long scope, int regionX, int regionZ) {
+    }
+
+    private static final class Region {
+        private final MappedByteBuffer buffer;
+        private volatile long lastAccessMs = System.currentTimeMillis();
+
+        private Region(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    public static boolean enabled() {
+        return ENABLED && !rootFailed;
+    }
+
+    public static Facts read(IDimensionInfo dimInfo, ChunkCoord coord) {
+        if (!enabled() || dimInfo == null || coord == null) {
+            return null;
+        }
+        Long scope = scopeOf(dimInfo, coord);
+        Region region = scope != null ? region(scope, coord, false) : null;
+        if (region == null) {
+            MISSES.increment();
+            return null;
+        }
+        int cell = cellOf(coord);
+        int flags;
+        int level;
+        synchronized (region) {
+            flags = region.buffer.get(FLAGS_OFFSET + cell);
+            level = region.buffer.getShort(LEVELS_OFFSET + cell * 2);
+        }
+        if ((flags & PRESENT) == 0) {
+            MISSES.increment();
+            return null;
+        }
+        HITS.increment();
+        return new Facts((flags & CITY) != 0, (flags & COULD_HAVE_BUILDING) != 0, level, (flags & HIGHWAY) != 0,
+            (flags & RAILWAY) != 0, (flags & BUILDING_TYPE_KNOWN) != 0, (flags & ROUTE_KNOWN) != 0);
+    }
+
+    public static void write(IDimensionInfo dimInfo, ChunkCoord coord, Facts facts) {
+        if (!enabled() || dimInfo == null || coord == null || facts == null) {
+            return;
+        }
+        Long scope = scopeOf(dimInfo, coord);
+        Region region = scope != null ? region(scope, coord, true) : null;
+        if (region == null) {
+            return;
+        }
+        int flags = PRESENT
+            | (facts.isCity() ? CITY : 0)
+            | (facts.couldHaveBuilding() ? COULD_HAVE_BUILDING : 0)
+            | (facts.hasHighway() ? HIGHWAY : 0)
+            | (facts.hasRailway() ? RAILWAY : 0)
+            | (facts.buildingTypeKnown() ? BUILDING_TYPE_KNOWN : 0)
+            | (facts.routeKnown() ? ROUTE_KNOWN : 0);
+        int level = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, facts.cityLevel()));
+        int cell = cellOf(coord);
+        synchronized (region) {
+            region.buffer.putShort(LEVELS_OFFSET + cell * 2, (short) level);
+            region.buffer.put(FLAGS_OFFSET + cell, (byte) flags);
+        }
+        WRITES.increment();
+    }
+
+    private static Region region(long scope, ChunkCoord coord, boolean create) {
+        RegionKey key = new RegionKey(scope, coord.chunkX() >> REGION_SHIFT, coord.chunkZ() >> REGION_SHIFT);
+        Region region = REGIONS.get(key);
+        if (region == null) {
+            Path root = rootDirectory();
+            if (root == null || FAILED_REGIONS.contains(key)) {
+                return null;
+            }
+            Path scopeDir = root.resolve(Long.toHexString(scope));
+            Set<Long> files = FILES.computeIfAbsent(scope, unused -> listRegions(scopeDir));
+            long packed = ((long) key.regionX() << 32) | (key.regionZ() & 0xffffffffL);
+            if (!create && !files.contains(packed)) {
+                return null;
+            }
+            Path file = scopeDir.resolve("r." + key.regionX() + "." + key.regionZ() + ".roles");
+            region = REGIONS.computeIfAbsent(key, k -> map(k, file));
+            if (region == null) {
+                return null;
+            }
+            files.add(packed);
+            evictIfNeeded();
+        }
+        region.lastAccessMs = System.currentTimeMillis();
+        return region;
+    }
+
+    private static Set<Long> listRegions(Path scopeDir) {
+        Set<Long> found = ConcurrentHashMap.newKeySet();
+        if (!Files.isDirectory(scopeDir)) {
+            return found;
+        }
+        try (Stream<Path> files = Files.list(scopeDir)) {
+            files.forEach(file -> {
+                String[] parts = file.getFileName().toString().split("\\.");
+                if (parts.length == 4 && "r".equals(parts[0]) && "roles".equals(parts[3])) {
+                    try {
+                        found.add(((long) Integer.parseInt(parts[1]) << 32) | (Integer.parseInt(parts[2]) & 0xffffffffL));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            });
+        } catch (Throwable t) {
+            LOGGER.debug("[LC2H] Unable to list chunk role regions in {}: {}", scopeDir, t.toString());
+        }
+        return found;
+    }
+
+    // A region that cannot be mapped is skipped from then on; the rest of the tier keeps working.
+    private static Region map(RegionKey key, Path file) {
+        long scope = key.scope();
+        try {
+            Files.createDirectories(file.getParent());
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+                boolean fresh = channel.size() != FILE_BYTES;
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_BYTES);
+                if (fresh || buffer.getInt(0) != MAGIC || buffer.getShort(4) != FORMAT_VERSION || buffer.getLong(8) != scope) {
+                    for (int i = 0; i < FILE_BYTES; i++) {
+                        buffer.put(i, (byte) 0);
+                    }
+                    buffer.putInt(0, MAGIC);
+                    buffer.putShort(4, FORMAT_VERSION);
+                    buffer.putLong(8, scope);
+                }
+            }
+            return new Region(buffer);
+        } catch (Throwable t) {
+            FAILED_REGIONS.add(key);
+            if (FAILURE_LOGGED.compareAndSet(false, true)) {
+                LOGGER.warn("[LC2H] Unable to map chunk role region {}, skipping it: {}", file, t.toString());
+            } else {
+                LOGGER.debug("[LC2H] Unable to map chunk role region {}, skipping it: {}", file, t.toString());
+            }
+            return null;
+        }
+    }
+
+    private static Path rootDirectory() {
+        Path root = rootDirectory;
+        if (root != null || rootFailed) {
+            return root;
+        }
+        synchronized (ChunkRoleDiskTier.class) {
+            if (rootDirectory == null && !rootFailed) {
+                try {
+                    Path base;
+                    if (ROOT_OVERRIDE != null && !ROOT_OVERRIDE.isBlank()) {
+                        base = Path.of(ROOT_OVERRIDE).toAbsolutePath();
+                    } else {
+                        QuantifiedPaths.ensureCacheLayout();
+                        base = QuantifiedPaths.getCacheDir().resolve("lc2h").resolve(FOLDER);
+                    }
+                    Files.createDirectories(base);
+                    rootDirectory = base;
+                    LOGGER.info("Chunk role disk tier initialised at {}", base);
+                } catch (Throwable t) {
+                    rootFailed = true;
+                    LOGGER.warn("Unable to prepare chunk role disk tier directory: {}", t.getMessage());
+                }
+            }
+            return rootDirectory;
+        }
+    }
+
+    private static void evictIfNeeded() {
+        int excess = REGIONS.size() - MAX_REGIONS;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<RegionKey, Region>> entries = new ArrayList<>(REGIONS.entrySet());
+        entries.sort((a, b) -> Long.compare(a.getValue().lastAccessMs, b.getValue().lastAccessMs));
+        for (int i = 0; i < entries.size() && i < excess; i++) {
+            REGIONS.remove(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+    }
+
+    // Everything the facts depend on besides the coordinate; hashed into the directory name and the file header.
+    // Null, meaning leave the tier alone, while any part of it cannot be determined; nothing is cached then.
+    private static Long scopeOf(IDimensionInfo dimInfo, ChunkCoord coord) {
+        Long cached = SCOPES.get(dimInfo);
+        if (cached != null) {
+            return cached;
+        }
+        if (coord.dimension() == null) {
+            return null;
+        }
+        StringBuilder scope = new StringBuilder();
+        scope.append(coord.dimension().location());
+        try {
+            LostCityProfile profile = dimInfo.getProfile();
+            if (profile == null || dimInfo.getWorldStyle() == null) {
+                return null;
+            }
+            String fingerprint = WorldgenFingerprint.of(dimInfo);
+            if (fingerprint == null) {
+                return null;
+            }
+            scope.append('|').append(dimInfo.getSeed());
+            scope.append('|').append(profile.getName());
+            scope.append('|').append(Long.toHexString(ProfileFingerprint.of(profile)));
+            scope.append('|').append(dimInfo.getWorldStyle().getName());
+            scope.append('|').append(fingerprint);
+        } catch (Throwable t) {
+            LOGGER.debug("[LC2H] Chunk role tier scope unavailable: {}", t.toString());
+            return null;
+        }
+        long hash = 1125899906842597L;
+        for (int i = 0; i < scope.length(); i++) {
+            hash = 31L * hash + scope.charAt(i);
+        }
+        SCOPES.put(dimInfo, hash);
+        return hash;
+    }
+
+    private static int cellOf(ChunkCoord coord) {
+        return ((coord.chunkZ() & REGION_MASK) << REGION_SHIFT) | (coord.chunkX() & REGION_MASK);
+    }
+
+    public static Stats stats() {
+        return new Stats(HITS.sum(), MISSES.sum(), WRITES.sum(), REGIONS.size(), FAILED_REGIONS.size());
+    }
+
+    public record Stats(long hits, long misses, long writes, int regions, int failedRegions) {
+    }
+}
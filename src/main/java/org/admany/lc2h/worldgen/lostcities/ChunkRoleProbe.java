@@ -67,7 +67,8 @@ public final class ChunkRoleProbe {
         }
     }
 
-    private record Entry(Probe probe, LostChunkCharacteristics characteristics, long timestampMs, boolean routeKnown) {
+    private record Entry(Probe probe, LostChunkCharacteristics characteristics, long timestampMs, boolean routeKnown,
+                         boolean fromDisk) {
     }
 
     public static Probe get(IDimensionInfo dimInfo, ResourceKey<Level> dim, int chunkX, int chunkZ) {
@@ -88,6 +89,13 @@ public final class ChunkRoleProbe {
             return snapshot.probe();
         }
 
+        Entry stored = fromDisk(dimInfo, coord, now, false);
+        if (stored != null) {
+            CACHE.put(coord, stored);
+            maybePrune(now);
+            return stored.probe();
+        }
+
         Entry computed = compute(dimInfo, coord, now);
         CACHE.put(coord, computed);
         maybePrune(now);
@@ -104,7 +112,7 @@ public final class ChunkRoleProbe {
         long now = System.currentTimeMillis();
         ChunkCoord coord = new ChunkCoord(dim, chunkX, chunkZ);
         Entry cached = CACHE.get(coord);
-        if (cached != null && isFresh(cached, now)) {
+        if (cached != null && isFresh(cached, now) && !cached.fromDisk()) {
             return cached.characteristics();
         }
 
@@ -127,7 +135,7 @@ public final class ChunkRoleProbe {
         }
         Entry cached = CACHE.get(coord);
         long now = System.currentTimeMillis();
-        if (cached != null && isFresh(cached, now)) {
+        if (cached != null && isFresh(cached, now) && !cached.fromDisk()) {
             return cached.characteristics();
         }
         BuildingInfoSnapshotStore.Snapshot snapshot = BuildingInfoSnapshotStore.get(coord);
@@ -218,7 +226,17 @@ public final class ChunkRoleProbe {
             false,
             snapshot.buildingTypeKnown()
         );
-        return new Entry(probe, snapshot.characteristics(), snapshot.timestampMs(), false);
+        return new Entry(probe, snapshot.characteristics(), snapshot.timestampMs(), false, false);
+    }
+
+    private static Entry fromDisk(IDimensionInfo dimInfo, ChunkCoord coord, long now, boolean needRoute) {
+        ChunkRoleDiskTier.Facts facts = ChunkRoleDiskTier.read(dimInfo, coord);
+        if (facts == null || (needRoute && !facts.routeKnown())) {
+            return null;
+        }
+        Probe probe = new Probe(facts.isCity(), facts.couldHaveBuilding(), facts.cityLevel(), facts.hasHighway(),
+            facts.hasRailway(), facts.buildingTypeKnown());
+        return new Entry(probe, null, now, facts.routeKnown(), true);
     }
 
     private static Probe getRouteAware(IDimensionInfo dimInfo, ResourceKey<Level> dim, int chunkX, int chunkZ) {
@@ -232,6 +250,13 @@ public final class ChunkRoleProbe {
             return cached.probe();
         }
 
+        Entry stored = fromDisk(dimInfo, coord, now, true);
+        if (stored != null) {
+            CACHE.put(coord, stored);
+            maybePrune(now);
+            return stored.probe();
+        }
+
         Entry computed = compute(dimInfo, coord, now);
         CACHE.put(coord, computed);
         maybePrune(now);
@@ -281,7 +306,11 @@ public final class ChunkRoleProbe {
         }
 
         Probe probe = new Probe(isCity, couldHaveBuilding, cityLevel, hasHighway, hasRailway, buildingTypeKnown);
-        return new Entry(probe, characteristics, now, true);
+        if (characteristics != null) {
+            ChunkRoleDiskTier.write(dimInfo, coord, new ChunkRoleDiskTier.Facts(isCity, couldHaveBuilding, cityLevel,
+                hasHighway, hasRailway, buildingTypeKnown, profile != null));
+        }
+        return new Entry(probe, characteristics, now, true, false);
     }
 
     private static boolean isFresh(Entry entry, long now) {
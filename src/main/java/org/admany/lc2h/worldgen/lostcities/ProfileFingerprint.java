@@ -0,0 +1,83 @@
+package org.admany.lc2h.worldgen.lostcities;
+
+import mcjty.lostcities.config.LostCityProfile;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// A hash of what a Lost Cities profile is set to, not just its name, so an edited profile reads as a new scope for
+// anything persisted under it. Only the plain settings are taken (primitives, strings, string arrays and enums); the
+// block states and icons are resolved from those strings and would only add run-to-run noise.
+public final class ProfileFingerprint {
+
+    private static final Map<LostCityProfile, Long> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+    private static volatile List<Field> fields;
+
+    private ProfileFingerprint() {
+    }
+
+    public static long of(LostCityProfile profile) {
+        if (profile == null) {
+            return 0L;
+        }
+        Long cached = CACHE.get(profile);
+        if (cached != null) {
+            return cached;
+        }
+        long hash = 1125899906842597L;
+        for (Field field : fields()) {
+            Object value;
+            try {
+                value = field.get(profile);
+            } catch (Throwable ignored) {
+                continue;
+            }
+            String text = value instanceof String[] array ? Arrays.toString(array) : String.valueOf(value);
+            hash = mix(hash, field.getName());
+            hash = mix(hash, text);
+        }
+        CACHE.put(profile, hash);
+        return hash;
+    }
+
+    private static long mix(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = 31L * hash + text.charAt(i);
+        }
+        return 31L * hash + '|';
+    }
+
+    private static List<Field> fields() {
+        List<Field> resolved = fields;
+        if (resolved != null) {
+            return resolved;
+        }
+        List<Field> found = new ArrayList<>();
+        for (Class<?> type = LostCityProfile.class; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || !isPlain(field.getType())) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    found.add(field);
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+        found.sort(Comparator.comparing((Field field) -> field.getDeclaringClass().getName()).thenComparing(Field::getName));
+        fields = List.copyOf(found);
+        return fields;
+    }
+
+    private static boolean isPlain(Class<?> type) {
+        return type.isPrimitive() || type == String.class || type == String[].class || type.isEnum();
+    }
+}
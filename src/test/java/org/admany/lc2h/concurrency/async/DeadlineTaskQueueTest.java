@@ -0,0 +1,82 @@
+package org.admany.lc2h.concurrency.async;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class DeadlineTaskQueueTest {
+
+    private static final long HOUR_NANOS = TimeUnit.HOURS.toNanos(1L);
+
+    private final List<String> ran = new ArrayList<>();
+
+    private Runnable record(String label) {
+        return () -> ran.add(label);
+    }
+
+    private static void drain(DeadlineTaskQueue queue) {
+        while (queue.runNext()) {
+            // keep going
+        }
+    }
+
+    @Test
+    void liveWorkRunsEarliestDeadlineFirstAcrossLanes() {
+        DeadlineTaskQueue queue = new DeadlineTaskQueue();
+        long now = System.nanoTime();
+        queue.offer(now + 3 * HOUR_NANOS, true, record("fg-3"));
+        queue.offer(now + HOUR_NANOS, false, record("bg-1"));
+        queue.offer(now + 2 * HOUR_NANOS, true, record("fg-2"));
+        queue.offer(now + 4 * HOUR_NANOS, false, record("bg-4"));
+        drain(queue);
+        assertEquals(List.of("bg-1", "fg-2", "fg-3", "bg-4"), ran);
+    }
+
+    @Test
+    void equalDeadlinesRunInSubmissionOrder() {
+        DeadlineTaskQueue queue = new DeadlineTaskQueue();
+        long deadline = System.nanoTime() + HOUR_NANOS;
+        queue.offer(deadline, false, record("a"));
+        queue.offer(deadline, false, record("b"));
+        queue.offer(deadline, false, record("c"));
+        drain(queue);
+        assertEquals(List.of("a", "b", "c"), ran);
+    }
+
+    @Test
+    void missedForegroundWorkStaysAheadOfLiveBackgroundWork() {
+        DeadlineTaskQueue queue = new DeadlineTaskQueue();
+        long now = System.nanoTime();
+        queue.offer(now - HOUR_NANOS, false, record("bg-missed"));
+        queue.offer(now + 2 * HOUR_NANOS, false, record("bg-live-late"));
+        queue.offer(now - HOUR_NANOS, true, record("fg-missed"));
+        queue.offer(now + HOUR_NANOS, true, record("fg-live"));
+        queue.offer(now + HOUR_NANOS / 2, false, record("bg-live-early"));
+        drain(queue);
+        assertEquals(List.of("bg-live-early", "fg-live", "fg-missed", "bg-live-late", "bg-missed"), ran);
+    }
+
+    @Test
+    void countsLateAndDemotedWork() {
+        DeadlineTaskQueue queue = new DeadlineTaskQueue();
+        long now = System.nanoTime();
+        queue.offer(now - HOUR_NANOS, true, record("late"));
+        queue.offer(now + HOUR_NANOS, true, record("on-time"));
+        queue.offer(now, false, null);
+        assertEquals(2, queue.size());
+        drain(queue);
+        DeadlineTaskQueue.Stats stats = queue.stats();
+        assertEquals(2L, stats.submitted());
+        assertEquals(1L, stats.ranOnTime());
+        assertEquals(1L, stats.ranLate());
+        assertEquals(1L, stats.demoted());
+        assertEquals(0, stats.pendingLive());
+        assertEquals(0, stats.pendingMissed());
+        assertFalse(queue.runNext());
+    }
+}
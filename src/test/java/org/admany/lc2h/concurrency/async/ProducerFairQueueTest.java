@@ -0,0 +1,97 @@
+package org.admany.lc2h.concurrency.async;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProducerFairQueueTest {
+
+    private static List<String> drain(ProducerFairQueue<String> queue) {
+        List<String> out = new ArrayList<>();
+        String item;
+        while ((item = queue.poll()) != null) {
+            out.add(item);
+        }
+        return out;
+    }
+
+    private static ProducerFairQueue.ProducerStats statsOf(ProducerFairQueue<String> queue, String producer) {
+        for (ProducerFairQueue.ProducerStats stats : queue.producerStats()) {
+            if (stats.producer().equals(producer)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void pollsProducersRoundRobin() {
+        ProducerFairQueue<String> queue = new ProducerFairQueue<>(8, 4, 64);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer("a", "a" + i));
+        }
+        assertTrue(queue.offer("b", "b0"));
+        assertTrue(queue.offer("b", "b1"));
+        assertTrue(queue.offer("c", "c0"));
+        assertEquals(List.of("a0", "b0", "c0", "a1", "b1", "a2", "a3"), drain(queue));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void fullRingRejectsOnlyItsOwnProducer() {
+        ProducerFairQueue<String> queue = new ProducerFairQueue<>(8, 4, 64);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer("flood", "f" + i));
+        }
+        assertFalse(queue.offer("flood", "f8"));
+        assertTrue(queue.offer("quiet", "q0"));
+        assertEquals("f0", queue.poll());
+        assertEquals("q0", queue.poll());
+
+        ProducerFairQueue.ProducerStats flood = statsOf(queue, "flood");
+        assertEquals(8L, flood.accepted());
+        assertEquals(1L, flood.rejected());
+        assertEquals(7, flood.pending());
+        // A drained slot takes the producer's next offer again.
+        assertTrue(queue.offer("flood", "f8"));
+    }
+
+    @Test
+    void totalLimitCapsAllProducers() {
+        ProducerFairQueue<String> queue = new ProducerFairQueue<>(8, 4, 10);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer("a", "a" + i));
+        }
+        assertTrue(queue.offer("b", "b0"));
+        assertTrue(queue.offer("b", "b1"));
+        assertFalse(queue.offer("b", "b2"));
+        assertEquals(10, queue.size());
+    }
+
+    @Test
+    void producersPastTheCapShareOneRing() {
+        ProducerFairQueue<String> queue = new ProducerFairQueue<>(8, 2, 64);
+        assertTrue(queue.offer("a", "a0"));
+        assertTrue(queue.offer("b", "b0"));
+        assertTrue(queue.offer("c", "c0"));
+        assertTrue(queue.offer("d", "d0"));
+        assertTrue(queue.offer(null, "n0"));
+        assertNull(statsOf(queue, "c"));
+        assertEquals(3, statsOf(queue, "other").pending());
+        assertEquals(List.of("a0", "b0", "c0", "d0", "n0"), drain(queue));
+    }
+
+    @Test
+    void ignoresNullItems() {
+        ProducerFairQueue<String> queue = new ProducerFairQueue<>(8, 4, 64);
+        assertFalse(queue.offer("a", null));
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,100 @@
+package org.admany.lc2h.concurrency.async;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryWheelTest {
+
+    private static final long WAIT_MS = 5_000L;
+    private static final long LONG_MS = 60_000L;
+
+    @Test
+    void scheduledKeyFiresWithItsLatestValue() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicReference<String> seen = new AtomicReference<>();
+        RetryWheel<String, String> wheel = new RetryWheel<>("test-fire", 20L, 1_000L, 0L, 4, LONG_MS,
+            (key, value) -> {
+                seen.set(key + "=" + value);
+                fired.countDown();
+            }, null);
+        long startNanos = System.nanoTime();
+        assertEquals(20L, wheel.schedule("a", "v1"));
+        assertTrue(fired.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(20L));
+        assertEquals("a=v1", seen.get());
+    }
+
+    @Test
+    void retryWhileArmedKeepsTheSoonerFire() {
+        RetryWheel<String, String> wheel = new RetryWheel<>("test-coalesce", 1_000L, 4_000L, 0L, 8, LONG_MS, null, null);
+        assertEquals(1_000L, wheel.schedule("a", "v"));
+        // The second attempt would back off to 2s; the fire already due within 1s is kept instead.
+        long delay = wheel.schedule("a", "v");
+        assertTrue(delay > 0L && delay <= 1_000L, "delay " + delay);
+        assertEquals(1L, RetryWheel.stats().stream().filter(s -> s.name().equals("test-coalesce")).findFirst()
+            .orElseThrow().coalesced());
+        wheel.clear();
+    }
+
+    @Test
+    void forgottenKeyNeverFires() throws InterruptedException {
+        AtomicInteger fires = new AtomicInteger();
+        RetryWheel<String, String> wheel = new RetryWheel<>("test-forget", 30L, 1_000L, 0L, 4, LONG_MS,
+            (key, value) -> fires.incrementAndGet(), null);
+        wheel.schedule("a", "v");
+        wheel.forget("a");
+        assertEquals(0, wheel.size());
+
+        CountDownLatch marker = new CountDownLatch(1);
+        RetryWheel.after(120L, marker::countDown);
+        assertTrue(marker.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(0, fires.get());
+    }
+
+    @Test
+    void postponedKeyFiresAtItsNewTime() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        RetryWheel<String, String> wheel = new RetryWheel<>("test-postpone", 10_000L, 10_000L, 0L, 4, LONG_MS,
+            (key, value) -> fired.countDown(), null);
+        wheel.schedule("a", "v");
+        wheel.postpone("a", 20L);
+        assertTrue(fired.await(WAIT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void exhaustedAttemptsExpireInsteadOfFiring() {
+        AtomicReference<String> expired = new AtomicReference<>();
+        RetryWheel<String, String> wheel = new RetryWheel<>("test-expire", 1_000L, 1_000L, 0L, 2, LONG_MS,
+            null, (key, value) -> expired.set(key + "=" + value));
+        assertTrue(wheel.schedule("a", "v1") > 0L);
+        assertTrue(wheel.schedule("a", "v2") > 0L);
+        assertEquals(-1L, wheel.schedule("a", "v3"));
+        assertEquals("a=v3", expired.get());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void oneShotDelayRuns() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        RetryWheel.after(10L, ran::countDown);
+        assertTrue(ran.await(WAIT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void jitteredBackoffDoublesWithinItsCap() {
+        assertEquals(10L, RetryWheel.jitteredBackoffMs(10L, 1_000L, 0L, 0));
+        assertEquals(80L, RetryWheel.jitteredBackoffMs(10L, 1_000L, 0L, 3));
+        assertEquals(50L, RetryWheel.jitteredBackoffMs(10L, 50L, 0L, 3));
+        for (int i = 0; i < 100; i++) {
+            long delay = RetryWheel.jitteredBackoffMs(10L, 1_000L, 5L, 1);
+            assertTrue(delay >= 20L && delay <= 30L, "delay " + delay);
+        }
+    }
+}
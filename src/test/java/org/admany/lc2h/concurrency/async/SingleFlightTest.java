@@ -0,0 +1,130 @@
+package org.admany.lc2h.concurrency.async;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final long LONG_MS = 60_000L;
+
+    private final AtomicInteger starts = new AtomicInteger();
+
+    private CompletableFuture<String> start(String key) {
+        starts.incrementAndGet();
+        return new CompletableFuture<>();
+    }
+
+    @Test
+    void concurrentRequestsShareOneFuture() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 64, LONG_MS, LONG_MS, LONG_MS);
+        CompletableFuture<String> first = flight.run("a", this::start);
+        CompletableFuture<String> second = flight.run("a", this::start);
+        assertSame(first, second);
+        assertEquals(1, starts.get());
+        assertTrue(flight.isInFlight("a"));
+        assertEquals(1, flight.inFlightCount());
+
+        first.complete("done");
+        assertSame(first, flight.run("a", this::start));
+        assertEquals(1, starts.get());
+        assertTrue(flight.isFresh("a"));
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    void zeroTtlKeepsNothingOnceDone() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 64, 0L, LONG_MS, LONG_MS);
+        CompletableFuture<String> first = flight.run("a", this::start);
+        first.complete("done");
+        assertEquals(0, flight.size());
+        assertNotSame(first, flight.run("a", this::start));
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    void failureIsServedBackUntilItsBackoffRunsOut() throws InterruptedException {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 64, LONG_MS, 40L, LONG_MS);
+        CompletableFuture<String> first = flight.run("a", this::start);
+        first.completeExceptionally(new IllegalStateException("boom"));
+        assertSame(first, flight.run("a", this::start));
+        assertTrue(flight.isActive("a"));
+        assertFalse(flight.isFresh("a"));
+        assertEquals(1, starts.get());
+
+        Thread.sleep(80L);
+        CompletableFuture<String> retry = flight.run("a", this::start);
+        assertNotSame(first, retry);
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    void failureWithoutBackoffIsNotRemembered() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 64, LONG_MS, 0L, 0L);
+        CompletableFuture<String> first = flight.run("a", this::start);
+        first.completeExceptionally(new IllegalStateException("boom"));
+        assertEquals(0, flight.size());
+        assertNotSame(first, flight.run("a", this::start));
+    }
+
+    @Test
+    void backoffDoublesPerFailureUpToItsCap() {
+        SingleFlight.Backoff<String> backoff = new SingleFlight.Backoff<>(100L, 1_000L, 16);
+        assertEquals(0L, backoff.delayMs(0));
+        assertEquals(100L, backoff.delayMs(1));
+        assertEquals(200L, backoff.delayMs(2));
+        assertEquals(800L, backoff.delayMs(4));
+        assertEquals(1_000L, backoff.delayMs(5));
+        assertEquals(1_000L, backoff.delayMs(64));
+
+        assertEquals(100L, backoff.recordFailure("a"));
+        assertEquals(200L, backoff.recordFailure("a"));
+        backoff.recordSuccess("a");
+        assertEquals(100L, backoff.recordFailure("a"));
+    }
+
+    @Test
+    void nullResultIsNotRemembered() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 64, LONG_MS, LONG_MS, LONG_MS);
+        CompletableFuture<String> first = flight.run("a", this::start);
+        first.complete(null);
+        assertEquals(0, flight.size());
+        assertNotSame(first, flight.run("a", this::start));
+    }
+
+    @Test
+    void cancellationIsNotRemembered() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 64, LONG_MS, LONG_MS, LONG_MS);
+        CompletableFuture<String> first = flight.run("a", this::start);
+        first.cancel(false);
+        assertEquals(0, flight.size());
+        assertNotSame(first, flight.run("a", this::start));
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    void decliningStarterRecordsNothing() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 64, LONG_MS, LONG_MS, LONG_MS);
+        assertNull(flight.run("a", key -> null));
+        assertEquals(0, flight.size());
+        assertNull(flight.peek("a"));
+    }
+
+    @Test
+    void invalidateOnlyDropsTheMatchingFuture() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 64, LONG_MS, LONG_MS, LONG_MS);
+        CompletableFuture<String> first = flight.run("a", this::start);
+        flight.invalidate("a", new CompletableFuture<>());
+        assertSame(first, flight.peek("a"));
+        flight.invalidate("a", first);
+        assertNull(flight.peek("a"));
+    }
+}
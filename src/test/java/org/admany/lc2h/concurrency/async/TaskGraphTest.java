@@ -0,0 +1,142 @@
+package org.admany.lc2h.concurrency.async;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskGraphTest {
+
+    private final List<String> started = new ArrayList<>();
+
+    // A stage that records its start and settles when the returned future is completed by the test.
+    private TaskGraph.Stage pending(String label, CompletableFuture<?> work) {
+        return foreground -> {
+            started.add(label);
+            return work;
+        };
+    }
+
+    private TaskGraph.Stage inline(String label) {
+        return foreground -> {
+            started.add(label);
+            return null;
+        };
+    }
+
+    @Test
+    void stageWithoutInputsStartsRightAway() {
+        TaskGraph<String> graph = new TaskGraph<>("test");
+        CompletableFuture<Void> done = graph.stage("a", null, null, false, inline("a"));
+        assertTrue(done.isDone());
+        assertEquals(List.of("a"), started);
+        assertFalse(graph.isInFlight("a"));
+        assertEquals(1L, graph.stats().completed());
+    }
+
+    @Test
+    void dependentsStartOnceEveryInputSettles() {
+        TaskGraph<String> graph = new TaskGraph<>("test");
+        CompletableFuture<Void> workA = new CompletableFuture<>();
+        CompletableFuture<Void> workB = new CompletableFuture<>();
+        CompletableFuture<String> input = new CompletableFuture<>();
+        graph.stage("a", null, null, false, pending("a", workA));
+        graph.stage("b", null, null, false, pending("b", workB));
+        CompletableFuture<Void> doneC = graph.stage("c", List.of("a", "b"), List.of(input), false, inline("c"));
+
+        assertEquals(List.of("a", "b"), started);
+        workA.complete(null);
+        input.complete("ready");
+        assertEquals(List.of("a", "b"), started);
+        assertEquals(1, graph.stats().waiting());
+        workB.complete(null);
+        assertEquals(List.of("a", "b", "c"), started);
+        assertTrue(doneC.isDone());
+        assertEquals(3L, graph.stats().completed());
+        assertEquals(0, graph.stats().running());
+    }
+
+    @Test
+    void finishedDependenciesCountAsSatisfied() {
+        TaskGraph<String> graph = new TaskGraph<>("test");
+        graph.stage("a", null, null, false, inline("a"));
+        CompletableFuture<Void> done = graph.stage("b", List.of("a", "missing"), List.of(CompletableFuture.completedFuture(1)),
+            false, inline("b"));
+        assertTrue(done.isDone());
+        assertEquals(List.of("a", "b"), started);
+    }
+
+    @Test
+    void failedInputStillReleasesItsDependents() {
+        TaskGraph<String> graph = new TaskGraph<>("test");
+        CompletableFuture<Void> workA = new CompletableFuture<>();
+        CompletableFuture<Void> doneA = graph.stage("a", null, null, false, pending("a", workA));
+        CompletableFuture<Void> doneB = graph.stage("b", List.of("a"), null, false, inline("b"));
+
+        workA.completeExceptionally(new IllegalStateException("boom"));
+        assertTrue(doneA.isDone());
+        assertFalse(doneA.isCompletedExceptionally());
+        assertTrue(doneB.isDone());
+        assertEquals(List.of("a", "b"), started);
+        assertEquals(1L, graph.stats().failed());
+        assertEquals(1L, graph.stats().completed());
+    }
+
+    @Test
+    void throwingStageSettlesAsFailed() {
+        TaskGraph<String> graph = new TaskGraph<>("test");
+        CompletableFuture<Void> doneA = graph.stage("a", null, null, false, foreground -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Void> doneB = graph.stage("b", List.of("a"), null, false, inline("b"));
+        assertTrue(doneA.isDone());
+        assertTrue(doneB.isDone());
+        assertEquals(1L, graph.stats().failed());
+        assertFalse(graph.isInFlight("a"));
+    }
+
+    @Test
+    void sameKeyJoinsTheStageInFlight() {
+        TaskGraph<String> graph = new TaskGraph<>("test");
+        CompletableFuture<Void> work = new CompletableFuture<>();
+        AtomicInteger starts = new AtomicInteger();
+        CompletableFuture<Void> first = graph.stage("a", null, null, false, foreground -> {
+            starts.incrementAndGet();
+            return work;
+        });
+        CompletableFuture<Void> second = graph.stage("a", null, null, false, foreground -> {
+            starts.incrementAndGet();
+            return null;
+        });
+        assertSame(first, second);
+        assertEquals(1, starts.get());
+        assertEquals(1L, graph.stats().joined());
+        work.complete(null);
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    void foregroundDependentPromotesItsWaitingInputs() {
+        TaskGraph<String> graph = new TaskGraph<>("test");
+        CompletableFuture<String> input = new CompletableFuture<>();
+        AtomicBoolean startedInForeground = new AtomicBoolean();
+        graph.stage("a", null, List.of(input), false, foreground -> {
+            startedInForeground.set(foreground);
+            return null;
+        });
+        graph.stage("b", List.of("a"), null, true, inline("b"));
+        assertEquals(1L, graph.stats().promoted());
+
+        input.complete("ready");
+        assertTrue(startedInForeground.get());
+        assertEquals(List.of("b"), started);
+    }
+}
@@ -0,0 +1,88 @@
+package org.admany.lc2h.concurrency.parallel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchSizeTunerTest {
+
+    private static final long EPOCH_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);
+    private static final long FIXED_COST_NANOS = TimeUnit.MILLISECONDS.toNanos(2L);
+    private static final long PER_ITEM_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+    private static final long NO_CEILING = TimeUnit.SECONDS.toNanos(10L);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    // A batch pays a fixed cost plus a cost per item, so bigger batches serve more items per second.
+    private static long batchNanos(int items) {
+        return FIXED_COST_NANOS + items * PER_ITEM_NANOS;
+    }
+
+    private BatchSizeTuner tuner(int initial, long p99CeilingNanos) {
+        return new BatchSizeTuner("test", initial, 4, 1024, EPOCH_NANOS, 1, p99CeilingNanos, clock::get);
+    }
+
+    // Work arrives at a steady rate well below what the batches can serve: a batch of n items is ready every n
+    // arrival intervals, whatever its size. Items over wall-clock time is the arrival rate at every size.
+    private void run(BatchSizeTuner tuner, int epochs, long arrivalNanos) {
+        for (int i = 0; i < epochs; i++) {
+            long epochStart = clock.get();
+            while (clock.get() - epochStart < EPOCH_NANOS) {
+                int size = tuner.size();
+                clock.addAndGet(size * arrivalNanos);
+                tuner.record(size, size, batchNanos(size));
+            }
+        }
+    }
+
+    @Test
+    void climbsWhileBiggerBatchesServeFaster() {
+        BatchSizeTuner tuner = tuner(16, NO_CEILING);
+        run(tuner, 40, TimeUnit.MICROSECONDS.toNanos(500L));
+        assertTrue(tuner.size() >= 64, "size " + tuner.size());
+        assertTrue(tuner.operatingPoint().itemsPerSec() > 16 * 1_000_000_000.0D / batchNanos(16));
+    }
+
+    @Test
+    void flatThroughputDoesNotSettleAtTheFloor() {
+        BatchSizeTuner tuner = tuner(16, NO_CEILING);
+        for (int i = 0; i < 40; i++) {
+            int size = tuner.size();
+            clock.addAndGet(EPOCH_NANOS);
+            // Cost strictly proportional to size: service throughput is the same at every size.
+            tuner.record(size, size, size * PER_ITEM_NANOS);
+        }
+        assertTrue(tuner.size() > 4, "size " + tuner.size());
+    }
+
+    @Test
+    void backsOffAboveTheLatencyCeiling() {
+        BatchSizeTuner tuner = tuner(256, batchNanos(64));
+        run(tuner, 40, TimeUnit.MICROSECONDS.toNanos(500L));
+        assertTrue(tuner.size() <= 80, "size " + tuner.size());
+    }
+
+    @Test
+    void waitsForTheEpochToEnd() {
+        BatchSizeTuner tuner = tuner(16, NO_CEILING);
+        clock.addAndGet(EPOCH_NANOS / 2);
+        tuner.record(16, 16, batchNanos(16));
+        assertEquals(16, tuner.size());
+        clock.addAndGet(EPOCH_NANOS);
+        tuner.record(16, 16, batchNanos(16));
+        assertEquals(1L, tuner.operatingPoint().epochs());
+    }
+
+    @Test
+    void ignoresBatchesFormedUnderAnOlderSize() {
+        BatchSizeTuner tuner = tuner(16, NO_CEILING);
+        clock.addAndGet(EPOCH_NANOS);
+        tuner.record(8, 8, batchNanos(8));
+        assertEquals(16, tuner.size());
+        assertEquals(0L, tuner.operatingPoint().epochs());
+    }
+}
@@ -0,0 +1,101 @@
+package org.admany.lc2h.worldgen.apply;
+
+import mcjty.lostcities.varia.ChunkCoord;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DistanceRingQueueTest {
+
+    private static final double[] NONE = new double[0];
+
+    private static ChunkCoord chunk(int x, int z) {
+        return new ChunkCoord(null, x, z);
+    }
+
+    @Test
+    void pollsTheNearestRingFirst() {
+        DistanceRingQueue<String> queue = new DistanceRingQueue<>();
+        queue.updateAnchors(0.0D, 0.0D, NONE, NONE);
+        queue.offer(chunk(100, 0), "far");
+        queue.offer(chunk(40, 0), "middle");
+        queue.offer(chunk(0, 0), "near");
+        assertEquals(3, queue.size());
+        assertEquals("near", queue.poll());
+        assertEquals("middle", queue.poll());
+        assertEquals("far", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void nearestOfSeveralAnchorsDecides() {
+        DistanceRingQueue<String> queue = new DistanceRingQueue<>();
+        queue.updateAnchors(0.0D, 0.0D, new double[]{0.0D, 1600.0D}, new double[]{0.0D, 0.0D});
+        queue.offer(chunk(50, 0), "between");
+        queue.offer(chunk(100, 0), "second-player");
+        assertEquals("second-player", queue.poll());
+        assertEquals("between", queue.poll());
+    }
+
+    @Test
+    void anchorCrossingIntoAnotherCellRebuckets() {
+        DistanceRingQueue<String> queue = new DistanceRingQueue<>();
+        queue.updateAnchors(0.0D, 0.0D, new double[]{0.0D}, new double[]{0.0D});
+        queue.offer(chunk(0, 0), "origin");
+        queue.offer(chunk(100, 0), "destination");
+        assertEquals(0L, queue.rebuckets());
+
+        queue.updateAnchors(0.0D, 0.0D, new double[]{1632.0D}, new double[]{32.0D});
+        assertEquals(1L, queue.rebuckets());
+        assertEquals("destination", queue.poll());
+        assertEquals("origin", queue.poll());
+    }
+
+    @Test
+    void movementInsideACellLeavesTheRingsAlone() {
+        DistanceRingQueue<String> queue = new DistanceRingQueue<>();
+        queue.updateAnchors(0.0D, 0.0D, new double[]{1.0D}, new double[]{1.0D});
+        queue.offer(chunk(0, 0), "item");
+        queue.updateAnchors(0.0D, 0.0D, new double[]{60.0D}, new double[]{60.0D});
+        assertEquals(0L, queue.rebuckets());
+        queue.updateAnchors(0.0D, 0.0D, NONE, NONE);
+        assertEquals(1L, queue.rebuckets());
+    }
+
+    @Test
+    void spawnAnchorsWhenNobodyIsOnline() {
+        DistanceRingQueue<String> queue = new DistanceRingQueue<>();
+        queue.updateAnchors(1632.0D, 32.0D, NONE, NONE);
+        queue.offer(chunk(0, 0), "origin");
+        queue.offer(chunk(100, 0), "spawn");
+        assertEquals("spawn", queue.poll());
+        assertEquals("origin", queue.poll());
+    }
+
+    @Test
+    void handedBackItemsKeepTheirPlaceInTheCell() {
+        DistanceRingQueue<String> queue = new DistanceRingQueue<>();
+        queue.offer(chunk(0, 0), "first");
+        queue.offer(chunk(1, 1), "second");
+        assertEquals("first", queue.poll());
+        queue.offerFirst(chunk(0, 0), "first");
+        assertEquals("first", queue.poll());
+        assertEquals("second", queue.poll());
+    }
+
+    @Test
+    void drainedCellIsRingedAgainOnTheNextOffer() {
+        DistanceRingQueue<String> queue = new DistanceRingQueue<>();
+        queue.updateAnchors(0.0D, 0.0D, new double[]{0.0D}, new double[]{0.0D});
+        queue.offer(chunk(100, 0), "far");
+        assertEquals("far", queue.poll());
+        queue.updateAnchors(0.0D, 0.0D, new double[]{1632.0D}, new double[]{32.0D});
+        queue.offer(chunk(0, 0), "origin");
+        queue.offer(chunk(100, 0), "far-again");
+        assertEquals("far-again", queue.poll());
+        assertEquals("origin", queue.poll());
+    }
+}